@@ -1,9 +1,13 @@
 package calendarapp;
 
 import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.Objects;
 import java.util.Scanner;
 
@@ -30,6 +34,7 @@ public class CalendarApp {
 
     try {
       ICalendarModel model = createModel();
+      closeOnShutdown(model);
       IReadOnlyCalendarModel RoModel = new ReadOnlyCalendarModel(model);
       String mode = parseViewType(args);
       IView view = createView(mode,args,RoModel);
@@ -40,10 +45,31 @@ public class CalendarApp {
     }
   }
 
-  private static ICalendarModel createModel() {
+  // Set -Dcalendar.journal=<file> to keep the calendars in a journal between runs
+  private static ICalendarModel createModel() throws IOException {
+    String journal = System.getProperty("calendar.journal");
+    if (journal != null) {
+      long checkpointSeconds = Long.parseLong(System.getProperty("calendar.checkpoint", "300"));
+      return ICalendarModel.openJournaled("listBased", Paths.get(journal),
+            System.getProperty("calendar.fsync", "always"),
+            checkpointSeconds > 0 ? Duration.ofSeconds(checkpointSeconds) : null);
+    }
     return ICalendarModel.createInstance("listBased");
   }
 
+  // A journaled model forces what is still unforced and stops its background threads
+  private static void closeOnShutdown(ICalendarModel model) {
+    if (model instanceof Closeable) {
+      Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+        try {
+          ((Closeable) model).close();
+        } catch (IOException e) {
+          System.err.println("Could not close the journal: " + e.getMessage());
+        }
+      }, "calendar-shutdown"));
+    }
+  }
+
   private static IView createView(String mode,String[] args, IReadOnlyCalendarModel model) throws FileNotFoundException {
 
     if(mode.equalsIgnoreCase("headless") && args.length > 3) {
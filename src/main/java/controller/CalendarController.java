@@ -4,6 +4,7 @@ package controller;
 import java.util.Scanner;
 
 
+import controller.command.BackupCalendarCommand;
 import controller.command.CommandInvoker;
 import controller.command.CopyEventCommand;
 import controller.command.CopyEventsCommand;
@@ -15,6 +16,7 @@ import controller.command.EditEventsCalendarCommand;
 import controller.command.ExportEventsCommand;
 import controller.command.ImportCalendarCommand;
 import controller.command.PrintEventsCommand;
+import controller.command.RestoreCalendarCommand;
 import controller.command.ShowStatusCommand;
 import controller.command.UseCalendarCommand;
 import model.ICalendarModel;
@@ -42,6 +44,8 @@ class CalendarController extends AbstractController implements ICalendarControll
     invoker.registerCommand("copy events", CopyEventsCommand.class);
     invoker.registerCommand("export cal", ExportEventsCommand.class);
     invoker.registerCommand("import cal", ImportCalendarCommand.class);
+    invoker.registerCommand("backup cal", BackupCalendarCommand.class);
+    invoker.registerCommand("restore cal", RestoreCalendarCommand.class);
     invoker.registerCommand("edit event", EditEventCommand.class);
     invoker.registerCommand("edit events", EditEventsCalendarCommand.class);
     invoker.registerCommand("show status", ShowStatusCommand.class);
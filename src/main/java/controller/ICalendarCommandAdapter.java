@@ -34,6 +34,11 @@ public interface ICalendarCommandAdapter {
                     LocalDateTime fromDateTime, LocalDateTime toDateTime,
                     String newValue);
 
+  /**
+   * Edits a property of the stored event with the given id.
+   */
+  boolean editEventById(String property, long eventId, String newValue);
+
   /**
    * Edits multiple events.
    */
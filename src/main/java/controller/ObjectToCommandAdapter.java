@@ -145,6 +145,27 @@ public class ObjectToCommandAdapter implements ICalendarCommandAdapter {
     }
   }
 
+  /**
+   * Edits a property of the stored event with the given id.
+   */
+  public boolean editEventById(String property, long eventId, String newValue) {
+    try {
+      StringBuilder command = new StringBuilder();
+      command.append("edit event ")
+            .append(property)
+            .append(" --id ")
+            .append(eventId)
+            .append(" with \"")
+            .append(newValue)
+            .append("\"");
+
+      executor.executeCommand(command.toString());
+      return true;
+    } catch (Exception e) {
+      return false;
+    }
+  }
+
   /**
    * Edits multiple events.
    */
@@ -0,0 +1,80 @@
+package controller.command;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+import model.ICalendarModel;
+
+/**
+ * Command to back up the current calendar to a file in the compact binary format of
+ * {@link BackupCodec}, which {@link RestoreCalendarCommand} reads back exactly.
+ */
+public class BackupCalendarCommand implements ICommand {
+  private final ICalendarModel model;
+  private final String calendarName;
+  private final String fileName;
+
+  /**
+   * Constructs a {@code BackupCalendarCommand}
+   * using the provided arguments, model, and active calendar.
+   */
+  public BackupCalendarCommand(List<String> args, ICalendarModel model, String currentCalendar) {
+    this.model = Objects.requireNonNull(model, "Model cannot be null");
+    this.calendarName = currentCalendar;
+    CommandParser.requireExactArgs(args, 1, "Invalid syntax. Expected: backup cal <filename>");
+    this.fileName = CommandParser.getRequiredArg(args, 0, "Missing backup filename");
+  }
+
+  @Override
+  public String execute() {
+    try {
+      return backup();
+    } catch (IllegalArgumentException e) {
+      return "Error: " + e.getMessage();
+    } catch (Exception e) {
+      return "An unexpected error occurred: " + e.getMessage();
+    }
+  }
+
+  /**
+   * Encodes the calendar, each series as its rule, and writes it to a temporary file next
+   * to the target that replaces the target once it is on disk, as exports do.
+   */
+  private String backup() {
+    BackupCodec.Encoder encoder = new BackupCodec.Encoder(calendarName,
+        model.getCalendarTimeZone(calendarName));
+    model.forEachEventOrSeries(calendarName, encoder::add);
+    ByteBuffer bytes = encoder.finish();
+
+    Path target = Paths.get(fileName).toAbsolutePath();
+    Path temp = target.resolveSibling("." + target.getFileName() + "."
+        + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+    try {
+      try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW,
+          StandardOpenOption.WRITE)) {
+        while (bytes.hasRemaining()) {
+          channel.write(bytes);
+        }
+        channel.force(false);
+      }
+      ExportEventsCommand.moveIntoPlace(temp, target);
+      return "Calendar backed up successfully to " + fileName;
+    } catch (IOException e) {
+      return "Error backing up calendar: " + e.getMessage();
+    } finally {
+      try {
+        Files.deleteIfExists(temp);
+      } catch (IOException e) {
+        // Nothing more can be done about a temporary file that cannot be deleted
+      }
+    }
+  }
+}
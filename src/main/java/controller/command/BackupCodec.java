@@ -0,0 +1,383 @@
+package controller.command;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import model.ICalendarEventDTO;
+import model.ICalendarEventDTOBuilder;
+
+/**
+ * Encodes the events of one calendar in the binary backup format, and decodes them again
+ * exactly, seconds and fractions of a second included.
+ * <p>
+ * A backup is the magic {@code CALB} and a version byte, then three sections, each
+ * prefixed with its length in bytes: the calendar's name and timezone, a table of the
+ * distinct strings, and the events. A CRC-32 of everything before it ends the file. Numbers
+ * are varints, seven bits to a byte, and signed ones are zigzag-encoded first. Each event
+ * refers to its name, description and location by their place in the string table, and its
+ * start is the number of seconds from the start of the event before it, so the events of a
+ * typical calendar take a few bytes each. A recurring event is kept as its rule: the days
+ * as a bit set, its count or end, and the dates it skips.
+ * </p>
+ */
+final class BackupCodec {
+  private static final byte[] MAGIC = {'C', 'A', 'L', 'B'};
+  private static final int VERSION = 1;
+
+  private static final int PRIVATE = 1;
+  private static final int RECURRING = 2;
+  private static final int FRACTIONS = 4;
+  private static final int ENDS_AT_DATE = 8;
+
+  private BackupCodec() {
+  }
+
+  /**
+   * A decoded backup.
+   */
+  static final class Backup {
+    final String calendarName;
+    final String timezone;
+    final List<ICalendarEventDTO> events;
+
+    private Backup(String calendarName, String timezone, List<ICalendarEventDTO> events) {
+      this.calendarName = calendarName;
+      this.timezone = timezone;
+      this.events = events;
+    }
+  }
+
+  /**
+   * Collects the events of a backup, then encodes them all at once, since the string table
+   * is only complete once every event has been seen. Events are encoded as they are added,
+   * so only their encoding is held.
+   */
+  static final class Encoder {
+    private final String calendarName;
+    private final String timezone;
+    private final Map<String, Integer> strings = new HashMap<>();
+    private final Bytes table = new Bytes(1024);
+    private final Bytes records = new Bytes(4096);
+    private int eventCount;
+    private long previousStart;
+
+    Encoder(String calendarName, String timezone) {
+      this.calendarName = calendarName;
+      this.timezone = timezone;
+    }
+
+    /**
+     * Adds an event, single or recurring.
+     */
+    void add(ICalendarEventDTO event) {
+      boolean recurring = Boolean.TRUE.equals(event.isRecurring());
+      LocalDateTime start = event.getStartDateTime();
+      LocalDateTime end = event.getEndDateTime();
+      boolean fractions = start.getNano() != 0 || end.getNano() != 0;
+      int flags = (Boolean.TRUE.equals(event.isPrivate()) ? PRIVATE : 0)
+          | (recurring ? RECURRING : 0)
+          | (fractions ? FRACTIONS : 0)
+          | (recurring && event.getRecurrenceCount() == null ? ENDS_AT_DATE : 0);
+
+      records.write(flags);
+      records.writeVarint(string(event.getEventName()));
+      records.writeVarint(string(event.getEventDescription()));
+      records.writeVarint(string(event.getEventLocation()));
+      long startSecond = start.toEpochSecond(ZoneOffset.UTC);
+      records.writeSigned(startSecond - previousStart);
+      records.writeSigned(end.toEpochSecond(ZoneOffset.UTC) - startSecond);
+      previousStart = startSecond;
+      if (fractions) {
+        records.writeVarint(start.getNano());
+        records.writeVarint(end.getNano());
+      }
+      if (recurring) {
+        int days = 0;
+        for (DayOfWeek day : event.getRecurrenceDays()) {
+          days |= 1 << day.ordinal();
+        }
+        records.write(days);
+        if ((flags & ENDS_AT_DATE) != 0) {
+          records.writeSigned(event.getRecurrenceEndDate().toEpochSecond(ZoneOffset.UTC)
+              - startSecond);
+        } else {
+          records.writeVarint(event.getRecurrenceCount());
+        }
+        List<LocalDate> exceptions = event.getRecurrenceExceptions();
+        records.writeVarint(exceptions.size());
+        long previousDay = start.toLocalDate().toEpochDay();
+        for (LocalDate exception : exceptions) {
+          records.writeSigned(exception.toEpochDay() - previousDay);
+          previousDay = exception.toEpochDay();
+        }
+      }
+      eventCount++;
+    }
+
+    /**
+     * Returns the whole backup, ready to be written.
+     */
+    ByteBuffer finish() {
+      Bytes header = new Bytes(64);
+      header.writeString(calendarName);
+      header.writeString(timezone);
+      Bytes stringSection = new Bytes(table.size + 5);
+      stringSection.writeVarint(strings.size());
+      stringSection.write(table);
+      Bytes eventSection = new Bytes(records.size + 5);
+      eventSection.writeVarint(eventCount);
+      eventSection.write(records);
+
+      Bytes backup = new Bytes(header.size + stringSection.size + eventSection.size + 32);
+      for (byte b : MAGIC) {
+        backup.write(b);
+      }
+      backup.write(VERSION);
+      for (Bytes section : Arrays.asList(header, stringSection, eventSection)) {
+        backup.writeVarint(section.size);
+        backup.write(section);
+      }
+      CRC32 crc = new CRC32();
+      crc.update(backup.bytes, 0, backup.size);
+      ByteBuffer bytes = ByteBuffer.allocate(backup.size + 4);
+      bytes.put(backup.bytes, 0, backup.size).putInt((int) crc.getValue()).flip();
+      return bytes;
+    }
+
+    // 0 stands for a missing string, n for entry n - 1 of the table
+    private int string(String value) {
+      if (value == null) {
+        return 0;
+      }
+      Integer index = strings.get(value);
+      if (index == null) {
+        index = strings.size() + 1;
+        strings.put(value, index);
+        table.writeString(value);
+      }
+      return index;
+    }
+  }
+
+  /**
+   * Decodes a backup, checking its checksum before anything else.
+   *
+   * @throws IllegalArgumentException if the bytes are not a backup, or are damaged or cut
+   *                                  short
+   */
+  static Backup decode(ByteBuffer bytes) {
+    if (bytes.remaining() < MAGIC.length + 1 + 4) {
+      throw new IllegalArgumentException("Not a calendar backup");
+    }
+    byte[] magic = new byte[MAGIC.length];
+    bytes.duplicate().get(magic);
+    if (!Arrays.equals(magic, MAGIC)) {
+      throw new IllegalArgumentException("Not a calendar backup");
+    }
+    ByteBuffer content = bytes.slice();
+    content.limit(content.limit() - 4);
+    CRC32 crc = new CRC32();
+    crc.update(content.duplicate());
+    if ((int) crc.getValue() != bytes.getInt(bytes.limit() - 4)) {
+      throw new IllegalArgumentException("Backup checksum does not match; the file is damaged");
+    }
+    content.position(MAGIC.length);
+    int version = content.get() & 0xFF;
+    if (version != VERSION) {
+      throw new IllegalArgumentException("Unsupported backup version: " + version);
+    }
+
+    try {
+      ByteBuffer header = section(content);
+      String calendarName = readString(header);
+      String timezone = readString(header);
+
+      ByteBuffer stringSection = section(content);
+      int stringCount = count(stringSection);
+      List<String> strings = new ArrayList<>(stringCount);
+      for (int i = 0; i < stringCount; i++) {
+        strings.add(readString(stringSection));
+      }
+
+      ByteBuffer eventSection = section(content);
+      int eventCount = count(eventSection);
+      List<ICalendarEventDTO> events = new ArrayList<>(eventCount);
+      long previousStart = 0;
+      for (int i = 0; i < eventCount; i++) {
+        int flags = eventSection.get() & 0xFF;
+        String name = string(strings, readVarint(eventSection));
+        String description = string(strings, readVarint(eventSection));
+        String location = string(strings, readVarint(eventSection));
+        long startSecond = previousStart + readSigned(eventSection);
+        long endSecond = startSecond + readSigned(eventSection);
+        previousStart = startSecond;
+        int startNano = 0;
+        int endNano = 0;
+        if ((flags & FRACTIONS) != 0) {
+          startNano = (int) readVarint(eventSection);
+          endNano = (int) readVarint(eventSection);
+        }
+        LocalDateTime start = LocalDateTime.ofEpochSecond(startSecond, startNano,
+            ZoneOffset.UTC);
+        ICalendarEventDTOBuilder<?> builder = ICalendarEventDTO.builder()
+            .setEventName(name)
+            .setStartDateTime(start)
+            .setEndDateTime(LocalDateTime.ofEpochSecond(endSecond, endNano, ZoneOffset.UTC))
+            .setEventDescription(description)
+            .setEventLocation(location)
+            .setPrivate((flags & PRIVATE) != 0)
+            .setAutoDecline(false);
+        if ((flags & RECURRING) != 0) {
+          readRule(eventSection, flags, start, startSecond, builder);
+        }
+        events.add(builder.build());
+      }
+      if (content.hasRemaining()) {
+        throw new IllegalArgumentException("Unexpected data after the events of the backup");
+      }
+      return new Backup(calendarName, timezone, events);
+    } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+      throw new IllegalArgumentException("Backup is truncated");
+    } catch (DateTimeException e) {
+      throw new IllegalArgumentException("Invalid date in backup: " + e.getMessage());
+    }
+  }
+
+  private static void readRule(ByteBuffer in, int flags, LocalDateTime start, long startSecond,
+                               ICalendarEventDTOBuilder<?> builder) {
+    int days = in.get() & 0xFF;
+    List<DayOfWeek> recurrenceDays = new ArrayList<>();
+    for (DayOfWeek day : DayOfWeek.values()) {
+      if ((days & 1 << day.ordinal()) != 0) {
+        recurrenceDays.add(day);
+      }
+    }
+    builder.setRecurring(true).setRecurrenceDays(recurrenceDays);
+    if ((flags & ENDS_AT_DATE) != 0) {
+      builder.setRecurrenceEndDate(LocalDateTime.ofEpochSecond(
+          startSecond + readSigned(in), 0, ZoneOffset.UTC));
+    } else {
+      builder.setRecurrenceCount((int) readVarint(in));
+    }
+    int exceptionCount = count(in);
+    List<LocalDate> exceptions = exceptionCount == 0 ? Collections.emptyList()
+        : new ArrayList<>(exceptionCount);
+    long day = start.toLocalDate().toEpochDay();
+    for (int i = 0; i < exceptionCount; i++) {
+      day += readSigned(in);
+      exceptions.add(LocalDate.ofEpochDay(day));
+    }
+    builder.setRecurrenceExceptions(exceptions);
+  }
+
+  // The next section, as a buffer that ends where the section does
+  private static ByteBuffer section(ByteBuffer in) {
+    int length = count(in);
+    ByteBuffer section = in.slice();
+    section.limit(length);
+    in.position(in.position() + length);
+    return section;
+  }
+
+  // A count or length, which cannot be more than the bytes left
+  private static int count(ByteBuffer in) {
+    long count = readVarint(in);
+    if (count > in.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    return (int) count;
+  }
+
+  private static String string(List<String> strings, long index) {
+    if (index > strings.size()) {
+      throw new IllegalArgumentException("Invalid string reference in backup: " + index);
+    }
+    return index == 0 ? null : strings.get((int) index - 1);
+  }
+
+  private static String readString(ByteBuffer in) {
+    int length = count(in);
+    byte[] utf8 = new byte[length];
+    in.get(utf8);
+    return new String(utf8, StandardCharsets.UTF_8);
+  }
+
+  private static long readVarint(ByteBuffer in) {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      byte b = in.get();
+      value |= (long) (b & 0x7F) << shift;
+      if (b >= 0) {
+        return value;
+      }
+    }
+    throw new IllegalArgumentException("Invalid number in backup");
+  }
+
+  private static long readSigned(ByteBuffer in) {
+    long value = readVarint(in);
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  /**
+   * A growable array of bytes with the encodings above.
+   */
+  private static final class Bytes {
+    private byte[] bytes;
+    private int size;
+
+    private Bytes(int capacity) {
+      this.bytes = new byte[capacity];
+    }
+
+    private void write(int b) {
+      if (size == bytes.length) {
+        bytes = Arrays.copyOf(bytes, bytes.length * 2);
+      }
+      bytes[size++] = (byte) b;
+    }
+
+    private void write(byte[] values, int length) {
+      if (size + length > bytes.length) {
+        bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + length));
+      }
+      System.arraycopy(values, 0, bytes, size, length);
+      size += length;
+    }
+
+    private void write(Bytes other) {
+      write(other.bytes, other.size);
+    }
+
+    private void writeVarint(long value) {
+      while ((value & ~0x7FL) != 0) {
+        write((int) (value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      write((int) value);
+    }
+
+    private void writeSigned(long value) {
+      writeVarint((value << 1) ^ (value >> 63));
+    }
+
+    private void writeString(String value) {
+      byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+      writeVarint(utf8.length);
+      write(utf8, utf8.length);
+    }
+  }
+}
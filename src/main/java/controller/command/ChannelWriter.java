@@ -0,0 +1,130 @@
+package controller.command;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * A writer that encodes characters into one reusable direct buffer and writes the buffer to
+ * a channel each time it fills, so writing a file of any size takes the same memory.
+ * <p>
+ * Characters the charset cannot encode are replaced, as {@link java.io.FileWriter} does.
+ * Closing the writer writes what is left and closes the channel.
+ * </p>
+ */
+final class ChannelWriter extends Writer {
+  static final int DEFAULT_BUFFER_BYTES = 64 * 1024;
+
+  private final WritableByteChannel channel;
+  private final CharsetEncoder encoder;
+  private final CharBuffer chars;
+  private final ByteBuffer bytes;
+  private boolean closed;
+
+  /**
+   * Creates a writer whose byte buffer holds {@code bufferBytes}. The buffer must hold at
+   * least the longest encoding of one character.
+   */
+  ChannelWriter(WritableByteChannel channel, Charset charset, int bufferBytes) {
+    this.channel = channel;
+    this.encoder = charset.newEncoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    if (bufferBytes < encoder.maxBytesPerChar() * 2) {
+      throw new IllegalArgumentException("Buffer too small: " + bufferBytes);
+    }
+    this.bytes = ByteBuffer.allocateDirect(bufferBytes);
+    this.chars = CharBuffer.allocate(Math.max(2, bufferBytes / 4));
+  }
+
+  @Override
+  public void write(int c) throws IOException {
+    if (!chars.hasRemaining()) {
+      encode(false);
+    }
+    chars.put((char) c);
+  }
+
+  @Override
+  public void write(char[] buffer, int offset, int length) throws IOException {
+    while (length > 0) {
+      if (!chars.hasRemaining()) {
+        encode(false);
+      }
+      int count = Math.min(length, chars.remaining());
+      chars.put(buffer, offset, count);
+      offset += count;
+      length -= count;
+    }
+  }
+
+  @Override
+  public void write(String text, int offset, int length) throws IOException {
+    while (length > 0) {
+      if (!chars.hasRemaining()) {
+        encode(false);
+      }
+      int count = Math.min(length, chars.remaining());
+      chars.put(text, offset, offset + count);
+      offset += count;
+      length -= count;
+    }
+  }
+
+  /**
+   * Writes everything buffered to the channel, except half of a surrogate pair whose
+   * other half has not been written yet.
+   */
+  @Override
+  public void flush() throws IOException {
+    encode(false);
+    drain();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    try {
+      encode(true);
+      while (encoder.flush(bytes).isOverflow()) {
+        drain();
+      }
+      drain();
+    } finally {
+      closed = true;
+      channel.close();
+    }
+  }
+
+  // Moves the buffered characters into the byte buffer, draining it whenever it fills
+  private void encode(boolean endOfInput) throws IOException {
+    chars.flip();
+    while (true) {
+      CoderResult result = encoder.encode(chars, bytes, endOfInput);
+      if (result.isOverflow()) {
+        drain();
+      } else if (result.isUnderflow()) {
+        break;
+      } else {
+        result.throwException();
+      }
+    }
+    chars.compact();
+  }
+
+  private void drain() throws IOException {
+    bytes.flip();
+    while (bytes.hasRemaining()) {
+      channel.write(bytes);
+    }
+    bytes.clear();
+  }
+}
@@ -0,0 +1,235 @@
+package controller.command;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Reads the records of a CSV file in parallel: the file is mapped into memory, split into
+ * chunks at line breaks that end a record, and the chunks are parsed on the common
+ * fork/join pool. Results are merged in file order.
+ * <p>
+ * Where records end is found with a {@link CsvReader.RecordScanner} over the raw bytes, so
+ * a line break inside a quoted field never splits a chunk. Each chunk is then decoded with
+ * the platform charset, like {@link java.io.FileReader} does, and read with a
+ * {@link CsvReader} of its own. Empty lines are skipped and not counted, so the line numbers
+ * in the errors are the ones the sequential import reports.
+ * </p>
+ * <p>
+ * Chunks only end after a {@code \n}, so a file using {@code \r} alone is parsed as one
+ * chunk, as is a file whose last quote is never closed. Files of 2 GB or more cannot be
+ * mapped as one buffer and are rejected.
+ * </p>
+ */
+final class ChunkedCsvReader {
+  static final int DEFAULT_CHUNK_BYTES = 1 << 20;
+
+  private final ByteBuffer bytes;
+  private final Charset charset;
+  private final CsvReader header;
+  private final int dataStart;
+
+  /**
+   * Parses one non-empty record, adding what it yields to {@code records}.
+   *
+   * @param <T> the type of the parsed records
+   */
+  interface RecordParser<T> {
+    /**
+     * Returns the problem with the record, without its line number, or {@code null} if
+     * the record was parsed.
+     */
+    String parse(CsvReader record, List<T> records);
+  }
+
+  /**
+   * The records of the file in file order, and the problems found, each prefixed with its
+   * line number.
+   *
+   * @param <T> the type of the parsed records
+   */
+  static final class Result<T> {
+    final List<T> records;
+    final List<String> errors;
+
+    private Result(List<T> records, List<String> errors) {
+      this.records = records;
+      this.errors = errors;
+    }
+  }
+
+  private ChunkedCsvReader(ByteBuffer bytes, Charset charset) throws IOException {
+    this.bytes = bytes;
+    this.charset = charset;
+    CsvReader.RecordScanner scanner = new CsvReader.RecordScanner();
+    int end = 0;
+    while (end < bytes.limit() && !scanner.endsRecord(bytes.get(end))) {
+      end++;
+    }
+    if (bytes.limit() == 0) {
+      this.header = null;
+    } else {
+      this.header = new CsvReader(decode(0, end));
+      header.next();
+    }
+    if (end < bytes.limit() && bytes.get(end) == '\r' && end + 1 < bytes.limit()
+        && bytes.get(end + 1) == '\n') {
+      end++;
+    }
+    this.dataStart = Math.min(end + 1, bytes.limit());
+  }
+
+  /**
+   * Maps a file for reading.
+   *
+   * @throws IOException if the file cannot be read or is too large to map
+   */
+  static ChunkedCsvReader open(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IOException("File is too large to import in parallel: " + file);
+      }
+      // The mapping stays valid after the channel is closed
+      return new ChunkedCsvReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()),
+          Charset.defaultCharset());
+    }
+  }
+
+  /**
+   * Returns a reader on the first record of the file, or {@code null} if the file is empty.
+   */
+  CsvReader header() {
+    return header;
+  }
+
+  /**
+   * Parses every record after the header.
+   *
+   * @param chunkBytes      the size the chunks are cut at, before moving to a line break
+   * @param firstLineNumber the number of the first non-empty record after the header
+   */
+  <T> Result<T> parse(int chunkBytes, int firstLineNumber, RecordParser<T> parser) {
+    if (chunkBytes < 1) {
+      throw new IllegalArgumentException("Chunk size must be positive: " + chunkBytes);
+    }
+    List<Integer> bounds = bounds(chunkBytes);
+    List<Chunk<T>> chunks = new ArrayList<>();
+    for (int i = 0; i + 1 < bounds.size(); i++) {
+      chunks.add(new Chunk<>(bounds.get(i), bounds.get(i + 1)));
+    }
+    ForkJoinPool.commonPool().invoke(new ParseTask<>(chunks, 0, chunks.size(), parser));
+
+    List<T> records = new ArrayList<>();
+    List<String> errors = new ArrayList<>();
+    int lineNumber = firstLineNumber;
+    for (Chunk<T> chunk : chunks) {
+      records.addAll(chunk.records);
+      for (int i = 0; i < chunk.errors.size(); i++) {
+        errors.add("Line " + (lineNumber + chunk.errorLines.get(i)) + ": "
+            + chunk.errors.get(i));
+      }
+      lineNumber += chunk.lines;
+    }
+    return new Result<>(records, errors);
+  }
+
+  // Offsets where chunks begin, then the end of the file; a chunk begins after a \n that
+  // ends a record
+  private List<Integer> bounds(int chunkBytes) {
+    List<Integer> bounds = new ArrayList<>();
+    bounds.add(dataStart);
+    int limit = bytes.limit();
+    long nextCut = (long) dataStart + chunkBytes;
+    CsvReader.RecordScanner scanner = new CsvReader.RecordScanner();
+    for (int i = dataStart; i < limit && nextCut < limit; i++) {
+      byte b = bytes.get(i);
+      if (scanner.endsRecord(b) && b == '\n' && i >= nextCut && i + 1 < limit) {
+        bounds.add(i + 1);
+        nextCut = (long) i + 1 + chunkBytes;
+      }
+    }
+    bounds.add(limit);
+    return bounds;
+  }
+
+  private CharBuffer decode(int from, int to) {
+    ByteBuffer slice = bytes.duplicate();
+    slice.position(from);
+    slice.limit(to);
+    return charset.decode(slice);
+  }
+
+  /**
+   * One stretch of the file and what parsing it yielded. Errors are kept with the index,
+   * among the chunk's non-empty records, of the record they were found in.
+   */
+  private static final class Chunk<T> {
+    private final int from;
+    private final int to;
+    private final List<T> records = new ArrayList<>();
+    private final List<String> errors = new ArrayList<>();
+    private final List<Integer> errorLines = new ArrayList<>();
+    private int lines;
+
+    private Chunk(int from, int to) {
+      this.from = from;
+      this.to = to;
+    }
+  }
+
+  private final class ParseTask<T> extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    private final List<Chunk<T>> chunks;
+    private final int low;
+    private final int high;
+    private final RecordParser<T> parser;
+
+    private ParseTask(List<Chunk<T>> chunks, int low, int high, RecordParser<T> parser) {
+      this.chunks = chunks;
+      this.low = low;
+      this.high = high;
+      this.parser = parser;
+    }
+
+    @Override
+    protected void compute() {
+      if (high - low > 1) {
+        int mid = (low + high) >>> 1;
+        invokeAll(new ParseTask<>(chunks, low, mid, parser),
+            new ParseTask<>(chunks, mid, high, parser));
+      } else if (high > low) {
+        parseChunk(chunks.get(low));
+      }
+    }
+
+    private void parseChunk(Chunk<T> chunk) {
+      CsvReader record = new CsvReader(decode(chunk.from, chunk.to));
+      try {
+        while (record.next()) {
+          if (record.isBlank()) {
+            continue;
+          }
+          String error = parser.parse(record, chunk.records);
+          if (error != null) {
+            chunk.errors.add(error);
+            chunk.errorLines.add(chunk.lines);
+          }
+          chunk.lines++;
+        }
+      } catch (IOException e) {
+        // A reader over a buffer in memory has nothing to fail on
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+}
@@ -55,7 +55,8 @@ class CommandParser {
     }
 
     try {
-      return LocalDateTime.parse(args.get(index));
+      String value = args.get(index);
+      return DateTimeCodec.parseIsoDateTime(value, 0, value.length());
     } catch (DateTimeParseException e) {
       throw new IllegalArgumentException(errorMessage + ": " + args.get(index));
     }
@@ -76,7 +77,8 @@ class CommandParser {
     }
 
     try {
-      return LocalDate.parse(args.get(index));
+      String value = args.get(index);
+      return DateTimeCodec.parseIsoDate(value, 0, value.length());
     } catch (DateTimeParseException e) {
       throw new IllegalArgumentException(errorMessage + ": " + args.get(index));
     }
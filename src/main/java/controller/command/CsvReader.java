@@ -0,0 +1,244 @@
+package controller.command;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+
+/**
+ * Reads CSV records as RFC 4180 describes them, one character at a time through a small
+ * state machine instead of a regular expression.
+ * <p>
+ * A field is quoted if its first character other than spaces is {@code "}. Inside quotes,
+ * {@code ""} stands for one quote, and commas and line breaks belong to the field, so a
+ * record may span several lines. A record ends at {@code \n}, {@code \r} or {@code \r\n}
+ * outside quotes. Input that is not strictly RFC 4180 is read leniently: a quote inside an
+ * unquoted field is kept, characters after a closing quote are appended to the field unless
+ * they are trailing spaces, and a quote left open runs to the end of the input.
+ * </p>
+ * <p>
+ * The characters of a record are collected in buffers reused for every record; only the
+ * strings a caller asks for with {@link #get} are created.
+ * </p>
+ */
+final class CsvReader {
+  private static final int BUFFER_SIZE = 8192;
+
+  // States between two characters
+  private static final int FIELD_START = 0;
+  private static final int UNQUOTED = 1;
+  private static final int QUOTED = 2;
+  private static final int QUOTE_IN_QUOTED = 3;
+  // States that a comma or a line break leads to; the next field starts after them
+  private static final int FIELD_END = 4;
+  private static final int RECORD_END = 5;
+
+  private final Reader in;
+  private char[] buffer;
+  private int position;
+  private int limit;
+
+  private final StringBuilder chars = new StringBuilder();
+  private int[] fieldEnds = new int[16];
+  private boolean[] quoted = new boolean[16];
+  private int fieldCount;
+  // Where the current field's closing quote was, or -1 if it has none yet
+  private int closedAt = -1;
+  private boolean blank;
+
+  /**
+   * Reads records from a stream of characters, buffering it.
+   */
+  CsvReader(Reader in) {
+    this.in = in;
+    this.buffer = new char[BUFFER_SIZE];
+  }
+
+  /**
+   * Reads records from the remaining characters of a buffer.
+   */
+  CsvReader(CharBuffer text) {
+    this.in = null;
+    if (text.hasArray()) {
+      this.buffer = text.array();
+      this.position = text.arrayOffset() + text.position();
+      this.limit = text.arrayOffset() + text.limit();
+    } else {
+      this.buffer = new char[text.remaining()];
+      text.duplicate().get(buffer);
+      this.limit = buffer.length;
+    }
+  }
+
+  /**
+   * Moves to the next record.
+   *
+   * @return false if the input has no more records
+   * @throws IOException if the input cannot be read
+   */
+  boolean next() throws IOException {
+    chars.setLength(0);
+    fieldCount = 0;
+    quoted[0] = false;
+    closedAt = -1;
+    int state = FIELD_START;
+    boolean read = false;
+    while (true) {
+      if (position == limit && !fill()) {
+        if (!read) {
+          return false;
+        }
+        endField();
+        blank = false;
+        return true;
+      }
+      char c = buffer[position++];
+      read = true;
+      int next = transition(state, c);
+      switch (next) {
+        case QUOTED:
+          if (state == FIELD_START && c == '"') {
+            // Spaces before the opening quote are not part of the field
+            chars.setLength(fieldCount == 0 ? 0 : fieldEnds[fieldCount - 1]);
+            quoted[fieldCount] = true;
+          } else {
+            // An escaped quote; the field goes on
+            closedAt = -1;
+            chars.append(c);
+          }
+          break;
+        case QUOTE_IN_QUOTED:
+          closedAt = chars.length();
+          break;
+        case FIELD_END:
+          endField();
+          next = FIELD_START;
+          break;
+        case RECORD_END:
+          blank = fieldCount == 0 && chars.length() == 0 && !quoted[0];
+          endField();
+          if (c == '\r' && (position < limit || fill()) && buffer[position] == '\n') {
+            position++;
+          }
+          return true;
+        default:
+          chars.append(c);
+          break;
+      }
+      state = next;
+    }
+  }
+
+  /**
+   * Tells whether the current record is an empty line.
+   */
+  boolean isBlank() {
+    return blank;
+  }
+
+  /**
+   * Returns the number of fields of the current record. An empty line has one empty field.
+   */
+  int size() {
+    return fieldCount;
+  }
+
+  /**
+   * Returns a field of the current record, without its quotes and with {@code ""} read as
+   * one quote.
+   */
+  String get(int field) {
+    if (field < 0 || field >= fieldCount) {
+      throw new IndexOutOfBoundsException("Field " + field + " out of " + fieldCount);
+    }
+    return chars.substring(field == 0 ? 0 : fieldEnds[field - 1], fieldEnds[field]);
+  }
+
+  /**
+   * Tells whether a field of the current record was quoted.
+   */
+  boolean isQuoted(int field) {
+    if (field < 0 || field >= fieldCount) {
+      throw new IndexOutOfBoundsException("Field " + field + " out of " + fieldCount);
+    }
+    return quoted[field];
+  }
+
+  private void endField() {
+    if (closedAt >= 0) {
+      // Spaces after the closing quote are no more part of the field than those before it
+      int end = chars.length();
+      while (end > closedAt && (chars.charAt(end - 1) == ' ' || chars.charAt(end - 1) == '\t')) {
+        end--;
+      }
+      chars.setLength(end);
+      closedAt = -1;
+    }
+    if (fieldCount + 1 == fieldEnds.length) {
+      int[] ends = new int[fieldEnds.length * 2];
+      System.arraycopy(fieldEnds, 0, ends, 0, fieldCount);
+      fieldEnds = ends;
+      boolean[] flags = new boolean[quoted.length * 2];
+      System.arraycopy(quoted, 0, flags, 0, fieldCount + 1);
+      quoted = flags;
+    }
+    fieldEnds[fieldCount++] = chars.length();
+    quoted[fieldCount] = false;
+  }
+
+  private boolean fill() throws IOException {
+    if (in == null) {
+      return false;
+    }
+    int count = in.read(buffer, 0, buffer.length);
+    while (count == 0) {
+      count = in.read(buffer, 0, buffer.length);
+    }
+    if (count < 0) {
+      return false;
+    }
+    position = 0;
+    limit = count;
+    return true;
+  }
+
+  /**
+   * Returns the state a character leads to. A comma or a line break outside quotes leads to
+   * {@link #FIELD_END} or {@link #RECORD_END}, after which the next field starts.
+   */
+  private static int transition(int state, int c) {
+    if (state == QUOTED) {
+      return c == '"' ? QUOTE_IN_QUOTED : QUOTED;
+    }
+    if (state == QUOTE_IN_QUOTED && c == '"') {
+      return QUOTED;
+    }
+    boolean fieldStart = state == FIELD_START || state == FIELD_END || state == RECORD_END;
+    if (fieldStart && c == '"') {
+      return QUOTED;
+    }
+    if (c == ',') {
+      return FIELD_END;
+    }
+    if (c == '\n' || c == '\r') {
+      return RECORD_END;
+    }
+    return fieldStart && c == ' ' ? FIELD_START : UNQUOTED;
+  }
+
+  /**
+   * Follows where records end in raw bytes, for callers that split a file before decoding
+   * it. The structural characters are ASCII, so the bytes of any ASCII-compatible charset
+   * can be fed one at a time.
+   */
+  static final class RecordScanner {
+    private int state = FIELD_START;
+
+    /**
+     * Feeds the next character and tells whether it ends a record.
+     */
+    boolean endsRecord(int c) {
+      state = transition(state, c);
+      return state == RECORD_END;
+    }
+  }
+}
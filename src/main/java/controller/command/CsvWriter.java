@@ -0,0 +1,86 @@
+package controller.command;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Writes CSV records that {@link CsvReader} reads back field for field.
+ * <p>
+ * Quoted fields have each {@code "} doubled as they are written, run by run, so writing a
+ * field creates no strings; dates and times are written digit by digit by
+ * {@link DateTimeCodec}. Records end with the platform line separator, like the lines
+ * of a {@link java.io.BufferedWriter}.
+ * </p>
+ */
+final class CsvWriter {
+  private static final String LINE_SEPARATOR = System.lineSeparator();
+
+  private final Writer out;
+  private boolean firstField = true;
+
+  CsvWriter(Writer out) {
+    this.out = out;
+  }
+
+  /**
+   * Writes a field as it is. The value must not hold a comma, a quote or a line break.
+   */
+  CsvWriter plain(String value) throws IOException {
+    separate();
+    out.write(value);
+    return this;
+  }
+
+  /**
+   * Writes a field in quotes, doubling the quotes it holds. Commas and line breaks are kept.
+   */
+  CsvWriter quoted(String value) throws IOException {
+    separate();
+    out.write('"');
+    int from = 0;
+    for (int i = value.indexOf('"'); i >= 0; i = value.indexOf('"', i + 1)) {
+      // Writes the run up to and including the quote, then the quote once more
+      out.write(value, from, i + 1 - from);
+      out.write('"');
+      from = i + 1;
+    }
+    out.write(value, from, value.length() - from);
+    out.write('"');
+    return this;
+  }
+
+  /**
+   * Writes a date field such as {@code 05/01/2025}.
+   */
+  CsvWriter date(LocalDate value) throws IOException {
+    separate();
+    DateTimeCodec.appendCsvDate(out, value);
+    return this;
+  }
+
+  /**
+   * Writes a time field such as {@code 09:30 AM}.
+   */
+  CsvWriter time(LocalTime value) throws IOException {
+    separate();
+    DateTimeCodec.appendCsvTime(out, value);
+    return this;
+  }
+
+  /**
+   * Ends the current record.
+   */
+  void endRecord() throws IOException {
+    out.write(LINE_SEPARATOR);
+    firstField = true;
+  }
+
+  private void separate() throws IOException {
+    if (!firstField) {
+      out.write(',');
+    }
+    firstField = false;
+  }
+}
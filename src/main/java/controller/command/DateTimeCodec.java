@@ -0,0 +1,184 @@
+package controller.command;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.Month;
+import java.time.Year;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Parses and formats the fixed date and time formats of commands and CSV files:
+ * {@code yyyy-MM-dd'T'HH:mm} and {@code yyyy-MM-dd} in commands, {@code MM/dd/yyyy} and
+ * {@code hh:mm a} in CSV files.
+ * <p>
+ * Text in exactly one of these shapes is read digit by digit from a range of a
+ * {@link CharSequence}, and values are written digit by digit to an {@link Appendable}, so
+ * neither creates objects besides the result. Anything else, such as a malformed value, a
+ * day the month does not have, or a time with seconds, is handed to the
+ * {@link DateTimeFormatter} the command used before, which accepts or rejects it with the
+ * same result and the same message as it always has.
+ * </p>
+ */
+final class DateTimeCodec {
+  static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("MM/dd/yyyy");
+  static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("hh:mm a");
+
+  // The texts the time formatter uses for AM and PM in the default locale
+  private static final String AM = TIME_FORMATTER.format(LocalTime.of(1, 0)).substring(6);
+  private static final String PM = TIME_FORMATTER.format(LocalTime.of(13, 0)).substring(6);
+
+  private DateTimeCodec() {
+  }
+
+  /**
+   * Parses a date and time such as {@code 2025-05-01T09:30}, like
+   * {@link LocalDateTime#parse(CharSequence)}.
+   *
+   * @throws java.time.format.DateTimeParseException if the text is not a valid date and time
+   */
+  static LocalDateTime parseIsoDateTime(CharSequence text, int from, int to) {
+    if (to - from == 16 && text.charAt(from + 10) == 'T' && text.charAt(from + 13) == ':') {
+      LocalDate date = isoDate(text, from);
+      int hour = digits(text, from + 11);
+      int minute = digits(text, from + 14);
+      if (date != null && hour >= 0 && hour < 24 && minute >= 0 && minute < 60) {
+        return LocalDateTime.of(date, LocalTime.of(hour, minute));
+      }
+    }
+    return LocalDateTime.parse(text.subSequence(from, to));
+  }
+
+  /**
+   * Parses a date such as {@code 2025-05-01}, like {@link LocalDate#parse(CharSequence)}.
+   *
+   * @throws java.time.format.DateTimeParseException if the text is not a valid date
+   */
+  static LocalDate parseIsoDate(CharSequence text, int from, int to) {
+    if (to - from == 10) {
+      LocalDate date = isoDate(text, from);
+      if (date != null) {
+        return date;
+      }
+    }
+    return LocalDate.parse(text.subSequence(from, to));
+  }
+
+  /**
+   * Parses a date such as {@code 05/01/2025} with {@link #DATE_FORMATTER}.
+   *
+   * @throws java.time.format.DateTimeParseException if the text is not a valid date
+   */
+  static LocalDate parseCsvDate(CharSequence text, int from, int to) {
+    if (to - from == 10 && text.charAt(from + 2) == '/' && text.charAt(from + 5) == '/') {
+      LocalDate date = date(year(text, from + 6), digits(text, from), digits(text, from + 3));
+      // Year 0 has no year of era
+      if (date != null && date.getYear() > 0) {
+        return date;
+      }
+    }
+    return LocalDate.parse(text.subSequence(from, to), DATE_FORMATTER);
+  }
+
+  /**
+   * Parses a time such as {@code 09:30 AM} with {@link #TIME_FORMATTER}.
+   *
+   * @throws java.time.format.DateTimeParseException if the text is not a valid time
+   */
+  static LocalTime parseCsvTime(CharSequence text, int from, int to) {
+    int length = to - from;
+    if (length > 6 && text.charAt(from + 2) == ':' && text.charAt(from + 5) == ' ') {
+      int hour = digits(text, from);
+      int minute = digits(text, from + 3);
+      boolean am = matches(text, from + 6, to, AM);
+      if (hour >= 1 && hour <= 12 && minute >= 0 && minute < 60
+          && (am || matches(text, from + 6, to, PM))) {
+        return LocalTime.of(hour % 12 + (am ? 0 : 12), minute);
+      }
+    }
+    return LocalTime.parse(text.subSequence(from, to), TIME_FORMATTER);
+  }
+
+  /**
+   * Appends a date as {@link #DATE_FORMATTER} formats it.
+   */
+  static void appendCsvDate(Appendable out, LocalDate date) throws IOException {
+    int year = date.getYear();
+    if (year < 1 || year > 9999) {
+      DATE_FORMATTER.formatTo(date, out);
+      return;
+    }
+    appendDigits(out, date.getMonthValue());
+    out.append('/');
+    appendDigits(out, date.getDayOfMonth());
+    out.append('/');
+    appendDigits(out, year / 100);
+    appendDigits(out, year % 100);
+  }
+
+  /**
+   * Appends a time as {@link #TIME_FORMATTER} formats it.
+   */
+  static void appendCsvTime(Appendable out, LocalTime time) throws IOException {
+    int hour = time.getHour();
+    appendDigits(out, hour % 12 == 0 ? 12 : hour % 12);
+    out.append(':');
+    appendDigits(out, time.getMinute());
+    out.append(' ');
+    out.append(hour < 12 ? AM : PM);
+  }
+
+  // Reads yyyy-MM-dd, or returns null if the text is not in that shape or not a date
+  private static LocalDate isoDate(CharSequence text, int from) {
+    if (text.charAt(from + 4) != '-' || text.charAt(from + 7) != '-') {
+      return null;
+    }
+    return date(year(text, from), digits(text, from + 5), digits(text, from + 8));
+  }
+
+  // Returns the date, or null if a part was not two digits or the date does not exist
+  private static LocalDate date(int year, int month, int day) {
+    if (year < 0 || month < 1 || month > 12 || day < 1) {
+      return null;
+    }
+    if (day > 28 && day > Month.of(month).length(Year.isLeap(year))) {
+      return null;
+    }
+    return LocalDate.of(year, month, day);
+  }
+
+  // Reads four ASCII digits, or returns a negative number if they are not all digits
+  private static int year(CharSequence text, int at) {
+    int century = digits(text, at);
+    int rest = digits(text, at + 2);
+    return century < 0 || rest < 0 ? -1 : century * 100 + rest;
+  }
+
+  // Reads two ASCII digits, or returns a negative number if they are not both digits
+  private static int digits(CharSequence text, int at) {
+    int tens = text.charAt(at) - '0';
+    int ones = text.charAt(at + 1) - '0';
+    if (tens < 0 || tens > 9 || ones < 0 || ones > 9) {
+      return -1;
+    }
+    return tens * 10 + ones;
+  }
+
+  private static boolean matches(CharSequence text, int from, int to, String expected) {
+    if (to - from != expected.length()) {
+      return false;
+    }
+    for (int i = 0; i < expected.length(); i++) {
+      if (text.charAt(from + i) != expected.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static void appendDigits(Appendable out, int value) throws IOException {
+    out.append((char) ('0' + value / 10));
+    out.append((char) ('0' + value % 10));
+  }
+}
@@ -7,13 +7,16 @@ import java.util.Objects;
 import model.ICalendarModel;
 
 /**
- * Command to edit event(s) in various formats.
+ * Command to edit event(s) in various formats. An event is named either by its name, start
+ * and end, or by the id the model gave it:
+ * {@code edit event property --id eventId with newValue}.
  */
 public class EditEventCommand implements ICommand {
   private final ICalendarModel model;
   private final String calendarName;
   private final String property;
   private final String eventName;
+  private final Long eventId;
   private LocalDateTime fromDateTime;
   private LocalDateTime toDateTime;
   private final String newValue;
@@ -29,6 +32,18 @@ public class EditEventCommand implements ICommand {
     this.model = Objects.requireNonNull(model,"Model cannot be null");
     this.calendarName = currentCalendar;
 
+    if (parts.size() > 1 && parts.get(1).equals("--id")) {
+      CommandParser.requireMinArgs(parts, 5, "Insufficient arguments for edit event " +
+            "command. Expected:edit event property --id eventId with newValue");
+      this.property = CommandParser.getRequiredArg(parts, 0, "Missing property name");
+      this.eventName = null;
+      this.eventId = parseEventId(CommandParser.getRequiredArg(parts, 2, "Missing event id"));
+      CommandParser.requireKeyword(parts, 3, "with", "Expected 'with' keyword at position 4");
+      this.newValue = CommandParser.getRequiredArg(parts, 4, "Missing new value");
+      return;
+    }
+    this.eventId = null;
+
     // Validate we have enough arguments
     CommandParser.requireMinArgs(parts, 8, "Insufficient arguments for edit event " +
           "command. Expected:edit event property eventName from startDateTime to " +
@@ -50,10 +65,20 @@ public class EditEventCommand implements ICommand {
     this.newValue = CommandParser.getRequiredArg(parts, 7, "Missing new value");
   }
 
+  private static long parseEventId(String value) {
+    try {
+      return Long.parseLong(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid event id: " + value);
+    }
+  }
+
   @Override
   public String execute() {
     try {
-      boolean success = model.editEvent(calendarName, property, eventName,
+      boolean success = eventId != null
+            ? model.editEventById(calendarName, eventId, property, newValue)
+            : model.editEvent(calendarName, property, eventName,
             fromDateTime, toDateTime, newValue);
       return success ? "Event(s) edited successfully." : "Error editing event(s).";
     } catch (IllegalArgumentException e) {
@@ -2,50 +2,129 @@ package controller.command;
 
 import model.ICalendarEventDTO;
 import model.ICalendarModel;
+import model.IEventChange;
 
-import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
- * Command to export events from a calendar to a CSV file in Google Calendar format.
+ * Command to export events from a calendar to a CSV file in Google Calendar format, or to an
+ * iCalendar file if the file name ends with {@code .ics}.
  */
 public class ExportEventsCommand implements ICommand {
+  static final int DEFAULT_ROWS_PER_CHUNK = 4096;
+
+  private static final String HEADER = "Subject,Start Date,Start Time,End Date,End Time,"
+      + "All Day Event,Description,Location,Private";
+
+  private static final String CHANGES_HEADER = HEADER + ",Event Id,Change,Recurrence,"
+      + "Skipped Dates";
+
+  private static final long ALL_EVENTS = -1;
+
+  private static final String PRODUCT_ID = "-//Calendly//Calendar export//EN";
+
   private final ICalendarModel model;
   private final String calendarName;
   private final String fileName;
+  private final boolean parallel;
+  private final boolean ics;
+  private final long since;
+  private final int threads;
+  private final int rowsPerChunk;
 
   /**
    * Constructs an {@code ExportEventsCommand}
-   * using the provided arguments, model, and active calendar.
+   * using the provided arguments, model, and active calendar. A trailing
+   * {@code --parallel} argument formats the rows on one thread per processor, and
+   * {@code --since <sequence>} exports only the events changed after that point of the
+   * calendar's mutation sequence.
    */
   public ExportEventsCommand(List<String> args, ICalendarModel model, String currentCalendar) {
+    this(args, model, currentCalendar, Runtime.getRuntime().availableProcessors(),
+        DEFAULT_ROWS_PER_CHUNK);
+  }
+
+  /**
+   * Constructs an export that, when it runs in parallel, formats chunks of
+   * {@code rowsPerChunk} rows on {@code threads} threads.
+   */
+  ExportEventsCommand(List<String> args, ICalendarModel model, String currentCalendar,
+                      int threads, int rowsPerChunk) {
     this.model = Objects.requireNonNull(model,"Model cannot be null");
     this.calendarName = currentCalendar;
-
+    if (threads < 1 || rowsPerChunk < 1) {
+      throw new IllegalArgumentException("Threads and rows per chunk must be positive.");
+    }
+    this.threads = threads;
+    this.rowsPerChunk = rowsPerChunk;
 
     CommandParser.requireMinArgs(args, 1, "Missing filename for export.");
     this.fileName = CommandParser.getRequiredArg(args, 0, "Missing export filename");
+    String option = args.size() > 1 ? args.get(1) : "";
+    this.parallel = option.equals("--parallel");
+    if (option.equals("--since")) {
+      this.since = parseSequence(CommandParser.getRequiredArg(args, 2,
+          "Missing sequence after --since."));
+    } else {
+      this.since = ALL_EVENTS;
+    }
 
     // Ensure no extra arguments
-    if (args.size() > 1) {
+    if (args.size() > (since != ALL_EVENTS ? 3 : parallel ? 2 : 1)) {
       throw new IllegalArgumentException("Too many arguments for export command.");
     }
+    this.ics = fileName.toLowerCase(Locale.ROOT).endsWith(".ics");
+    if (ics && args.size() > 1) {
+      throw new IllegalArgumentException("--parallel and --since apply to CSV exports only.");
+    }
+  }
+
+  private static long parseSequence(String value) {
+    try {
+      long sequence = Long.parseLong(value);
+      if (sequence >= 0) {
+        return sequence;
+      }
+    } catch (NumberFormatException e) {
+      // Reported below
+    }
+    throw new IllegalArgumentException("Invalid sequence: " + value);
   }
 
   @Override
   public String execute() {
     try {
-      LocalDateTime start = LocalDateTime.MIN;
-      LocalDateTime end = LocalDateTime.MAX;
-      List<ICalendarEventDTO> events = model.getEventsInRange(calendarName, start, end);
-      return exportToCSV(events);
+      return exportToFile();
     } catch (IllegalArgumentException e) {
       return "Error: " + e.getMessage();
     } catch (Exception e) {
@@ -53,61 +132,313 @@ public class ExportEventsCommand implements ICommand {
     }
   }
 
-  private String escapeCSV(String value) {
-    return "\"" + value.replace("\"", "\"\"") + "\"";
+  /**
+   * private helper to create the export file with the calendar's events. Events are streamed
+   * from the model in start order into a temporary file next to the target, which replaces
+   * the target only once it is complete, so a failed export leaves any earlier file as it
+   * was.
+   *
+   * @return returns a string specifing the status of the export.
+   */
+  private String exportToFile() {
+    Path target = Paths.get(fileName).toAbsolutePath();
+    Path temp = target.resolveSibling("." + target.getFileName() + "."
+        + Long.toHexString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+    try {
+      long highWaterMark = ALL_EVENTS;
+      try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW,
+          StandardOpenOption.WRITE)) {
+        if (ics) {
+          writeIcs(channel);
+        } else if (since != ALL_EVENTS) {
+          highWaterMark = writeChanges(channel);
+        } else if (parallel) {
+          writeInParallel(channel);
+        } else {
+          writeSequentially(channel);
+        }
+        channel.force(false);
+      } catch (UncheckedIOException e) {
+        throw e.getCause();
+      }
+      moveIntoPlace(temp, target);
+      if (highWaterMark != ALL_EVENTS) {
+        return "Changes since " + since + " exported successfully to " + fileName
+            + ". High-water mark: " + highWaterMark;
+      }
+      return "Events exported successfully to " + fileName;
+    } catch (IOException e) {
+      return "Error exporting events: " + e.getMessage();
+    } finally {
+      try {
+        Files.deleteIfExists(temp);
+      } catch (IOException e) {
+        // Nothing more can be done about a temporary file that cannot be deleted
+      }
+    }
+  }
+
+  // Leaves the channel open; the caller forces it to disk before closing it
+  private void writeSequentially(FileChannel channel) throws IOException {
+    ChannelWriter writer = new ChannelWriter(channel, Charset.defaultCharset(),
+        ChannelWriter.DEFAULT_BUFFER_BYTES);
+    writer.write(HEADER);
+    writer.write(System.lineSeparator());
+
+    CsvWriter csv = new CsvWriter(writer);
+    model.forEachEvent(calendarName, event -> {
+      try {
+        writeRow(csv, event);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+    writer.flush();
+  }
+
+  /**
+   * Writes the calendar as iCalendar in UTF-8. Each series is one event with a recurrence
+   * rule rather than one event per occurrence, so a series takes a few lines however long it
+   * runs; an occurrence edited on its own is an event of its own.
+   */
+  private void writeIcs(FileChannel channel) throws IOException {
+    ChannelWriter writer = new ChannelWriter(channel, StandardCharsets.UTF_8,
+        ChannelWriter.DEFAULT_BUFFER_BYTES);
+    String timezone = model.getCalendarTimeZone(calendarName);
+    String stamp = IcsWriter.formatDateTime(LocalDateTime.now(ZoneOffset.UTC)) + "Z";
+
+    IcsWriter ics = new IcsWriter(writer);
+    ics.begin("VCALENDAR")
+        .property("VERSION", "2.0")
+        .property("PRODID", PRODUCT_ID)
+        .text("X-WR-CALNAME", calendarName)
+        .property("X-WR-TIMEZONE", timezone);
+    long[] unnumbered = {0};
+    model.forEachEventOrSeries(calendarName, event -> {
+      // Series are numbered apart from events, as in the delta export
+      String prefix = Boolean.TRUE.equals(event.isRecurring()) ? "series-" : "event-";
+      String uid = event.getEventId() != null ? prefix + event.getEventId()
+          : "occurrence-" + ++unnumbered[0];
+      try {
+        IcsCodec.writeEvent(ics, event, timezone, uid + "@calendly", stamp);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+    ics.end("VCALENDAR");
+    writer.flush();
   }
 
   /**
-   * private helper to create thhe export file with the events requested.
+   * Writes a row for each event or series added, edited or removed since {@link #since}, in
+   * the order of the changes, with the event's id and the kind of change after the usual
+   * columns. A removed event is written as it was when it was removed. A series is one row
+   * for its first occurrence, with {@code series-<n>} as its id, its iCalendar recurrence
+   * rule, and the dates it skips. Only the changes are read, so the time taken does not
+   * grow with the calendar.
    *
-   * @param events the list of events to be included in the exported file
-   * @return returns a string specifing the status of the export.
+   * @return the calendar's sequence once the changes are written
+   */
+  private long writeChanges(FileChannel channel) throws IOException {
+    ChannelWriter writer = new ChannelWriter(channel, Charset.defaultCharset(),
+        ChannelWriter.DEFAULT_BUFFER_BYTES);
+    writer.write(CHANGES_HEADER);
+    writer.write(System.lineSeparator());
+
+    CsvWriter csv = new CsvWriter(writer);
+    String timezone = model.getCalendarTimeZone(calendarName);
+    long highWaterMark = model.forEachChangeSince(calendarName, since, change -> {
+      ICalendarEventDTO event = change.getEvent();
+      try {
+        writeColumns(csv, event);
+        csv.plain((change.isSeries() ? "series-" : "") + event.getEventId())
+            .plain(changeName(change.getKind()));
+        if (change.isSeries()) {
+          csv.quoted(IcsCodec.rule(event, timezone));
+          StringBuilder skipped = new StringBuilder();
+          for (LocalDate date : new TreeSet<>(event.getRecurrenceExceptions())) {
+            DateTimeCodec.appendCsvDate(skipped.append(skipped.length() == 0 ? "" : " "), date);
+          }
+          csv.plain(skipped.toString());
+        } else {
+          csv.plain("").plain("");
+        }
+        csv.endRecord();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+    writer.flush();
+    return highWaterMark;
+  }
+
+  private static String changeName(IEventChange.Kind kind) {
+    switch (kind) {
+      case ADDED:
+        return "Added";
+      case EDITED:
+        return "Edited";
+      default:
+        return "Removed";
+    }
+  }
+
+  /**
+   * Writes the rows as {@link #writeSequentially} does, but formats them on a pool of
+   * threads. This thread walks the calendar in start order and cuts it into chunks of
+   * consecutive rows, each formatted and encoded by a worker into a buffer of its own;
+   * the buffers are written in the order the chunks were cut. Besides the chunk being cut,
+   * at most two per thread are held at once, formatted or not, so the memory used does not
+   * grow with the calendar.
    */
-  private String exportToCSV(List<ICalendarEventDTO> events) {
-    DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("MM/dd/yyyy");
-    DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("hh:mm a");
+  private void writeInParallel(FileChannel channel) throws IOException {
+    Charset charset = Charset.defaultCharset();
+    writeFully(channel, charset.encode(HEADER + System.lineSeparator()));
 
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    Deque<Future<ByteBuffer>> pending = new ArrayDeque<>();
+    List<List<ICalendarEventDTO>> chunk = new ArrayList<>();
+    chunk.add(new ArrayList<>(rowsPerChunk));
     try {
-      File file = new File(fileName);
-      if (file.exists() && !file.delete()) {
-        return "Error: Unable to delete existing file.";
+      model.forEachEvent(calendarName, event -> {
+        List<ICalendarEventDTO> rows = chunk.get(0);
+        rows.add(event);
+        if (rows.size() == rowsPerChunk) {
+          pending.add(pool.submit(() -> format(rows, charset)));
+          chunk.set(0, new ArrayList<>(rowsPerChunk));
+          try {
+            // Wait for the oldest chunk while the workers are busy with the others
+            while (pending.size() >= threads * 2) {
+              writeFully(channel, await(pending.poll()));
+            }
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        }
+      });
+      List<ICalendarEventDTO> rest = chunk.get(0);
+      if (!rest.isEmpty()) {
+        pending.add(pool.submit(() -> format(rest, charset)));
       }
-      if (!file.createNewFile()) {
-        return "Error: Unable to create file.";
+      while (!pending.isEmpty()) {
+        writeFully(channel, await(pending.poll()));
       }
+    } finally {
+      pool.shutdownNow();
+    }
+  }
 
-      try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
-
-        writer.write("Subject,Start Date,Start Time,End Date,End Time,All Day Event,Description," +
-            "Location,Private");
-        writer.newLine();
-
-        for (ICalendarEventDTO event : events) {
-          boolean isAllDay = event.getStartDateTime().toLocalTime().equals(LocalTime.MIDNIGHT)
-              && event.getEndDateTime().toLocalTime().equals(LocalTime.of(23, 59, 59));
-
-          String subject = escapeCSV(event.getEventName());
-          String startDate = event.getStartDateTime().format(dateFormatter);
-          String endDate = event.getEndDateTime().format(dateFormatter);
-          String startTime = event.getStartDateTime().format(timeFormatter);
-          String endTime = event.getEndDateTime().format(timeFormatter);
-          String allDay = isAllDay ? "True" : "False";
-
-          String description = event.getEventDescription() != null ?
-              escapeCSV(event.getEventDescription()) : "";
-          String location = event.getEventLocation() != null ?
-              escapeCSV(event.getEventLocation()) : "";
-          String isPrivate = event.isPrivate() ? "True" : "False";
-
-          writer.write(String.join(",",
-              subject, startDate, startTime, endDate, endTime,
-              allDay, description, location, isPrivate));
-          writer.newLine();
-        }
+  private static ByteBuffer format(List<ICalendarEventDTO> rows, Charset charset)
+      throws IOException {
+    ChunkText text = new ChunkText(rows.size() * 128);
+    CsvWriter csv = new CsvWriter(text);
+    for (ICalendarEventDTO row : rows) {
+      writeRow(csv, row);
+    }
+    return text.encode(charset);
+  }
+
+  private static ByteBuffer await(Future<ByteBuffer> chunk) throws IOException {
+    try {
+      return chunk.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Export interrupted");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
       }
-      return "Events exported successfully to " + fileName;
-    } catch (IOException e) {
-      return "Error exporting events: " + e.getMessage();
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer bytes) throws IOException {
+    while (bytes.hasRemaining()) {
+      channel.write(bytes);
+    }
+  }
+
+  private static void writeRow(CsvWriter csv, ICalendarEventDTO event) throws IOException {
+    writeColumns(csv, event);
+    csv.endRecord();
+  }
+
+  private static void writeColumns(CsvWriter csv, ICalendarEventDTO event)
+      throws IOException {
+    boolean isAllDay = event.getStartDateTime().toLocalTime().equals(LocalTime.MIDNIGHT)
+        && event.getEndDateTime().toLocalTime().equals(LocalTime.of(23, 59, 59));
+
+    csv.quoted(event.getEventName())
+        .date(event.getStartDateTime().toLocalDate())
+        .time(event.getStartDateTime().toLocalTime())
+        .date(event.getEndDateTime().toLocalDate())
+        .time(event.getEndDateTime().toLocalTime())
+        .plain(isAllDay ? "True" : "False");
+    if (event.getEventDescription() != null) {
+      csv.quoted(event.getEventDescription());
+    } else {
+      csv.plain("");
+    }
+    if (event.getEventLocation() != null) {
+      csv.quoted(event.getEventLocation());
+    } else {
+      csv.plain("");
+    }
+    csv.plain(event.isPrivate() ? "True" : "False");
+  }
+
+  // Renames in one step where the file system can, so readers see the old file or the new
+  // one, never a partial one
+  static void moveIntoPlace(Path temp, Path target) throws IOException {
+    try {
+      Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  /**
+   * The text of one chunk. Unlike the writers of the JDK it takes no lock on each write,
+   * which would cost as much as formatting the rows.
+   */
+  private static final class ChunkText extends Writer {
+    private final StringBuilder text;
+
+    private ChunkText(int capacity) {
+      this.text = new StringBuilder(capacity);
+    }
+
+    @Override
+    public void write(int c) {
+      text.append((char) c);
+    }
+
+    @Override
+    public void write(char[] buffer, int offset, int length) {
+      text.append(buffer, offset, length);
+    }
+
+    @Override
+    public void write(String value, int offset, int length) {
+      text.append(value, offset, offset + length);
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    // Encoders take their fast path on buffers backed by an array
+    private ByteBuffer encode(Charset charset) {
+      char[] chars = new char[text.length()];
+      text.getChars(0, chars.length, chars, 0);
+      return charset.encode(CharBuffer.wrap(chars));
     }
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,419 @@
+package controller.command;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import model.ICalendarEventDTO;
+import model.ICalendarEventDTOBuilder;
+
+/**
+ * Converts events to and from iCalendar (RFC 5545) {@code VEVENT} components.
+ * <p>
+ * A recurring event is one component whose {@code RRULE} holds its recurrence days and its
+ * count or end date, with the dates it skips as {@code EXDATE}s, so a series takes the same
+ * space however many occurrences it has. Rules this model cannot express, such as monthly
+ * ones or ones with an interval, are reported as errors rather than approximated.
+ * </p>
+ * <p>
+ * Events that run from midnight to 23:59:59, which the CSV format calls all-day events, are
+ * written with dates and an exclusive end date, and all-day events read back end at 23:59:59
+ * of their last day. Other times are written in the calendar's zone with its IANA id as
+ * {@code TZID}; times read are moved to the zone of the import, whether they are in UTC, in
+ * a {@code TZID} zone, or floating.
+ * </p>
+ */
+final class IcsCodec {
+  private static final LocalTime END_OF_DAY = LocalTime.of(23, 59, 59);
+
+  private static final Map<String, DayOfWeek> DAYS = new HashMap<>();
+  private static final String[] DAY_CODES = {"MO", "TU", "WE", "TH", "FR", "SA", "SU"};
+
+  static {
+    for (DayOfWeek day : DayOfWeek.values()) {
+      DAYS.put(DAY_CODES[day.ordinal()], day);
+    }
+  }
+
+  private IcsCodec() {
+  }
+
+  /**
+   * Writes an event, single or recurring, as a {@code VEVENT}.
+   *
+   * @param timezone the zone the event's times belong to
+   * @param uid      the unique id of the component
+   * @param stamp    the time the file is written, in UTC, as {@code 20250501T093000Z}
+   */
+  static void writeEvent(IcsWriter ics, ICalendarEventDTO event, String timezone, String uid,
+                         String stamp) throws IOException {
+    LocalDateTime start = event.getStartDateTime();
+    LocalDateTime end = event.getEndDateTime();
+    boolean allDay = start.toLocalTime().equals(LocalTime.MIDNIGHT)
+        && end.toLocalTime().equals(END_OF_DAY);
+
+    ics.begin("VEVENT")
+        .text("UID", uid)
+        .property("DTSTAMP", stamp);
+    if (allDay) {
+      ics.dates("DTSTART", Collections.singletonList(start.toLocalDate()))
+          .dates("DTEND", Collections.singletonList(end.toLocalDate().plusDays(1)));
+    } else {
+      ics.dateTimes("DTSTART", timezone, Collections.singletonList(start))
+          .dateTimes("DTEND", timezone, Collections.singletonList(end));
+    }
+    if (Boolean.TRUE.equals(event.isRecurring())) {
+      ics.property("RRULE", rule(event, timezone));
+      List<LocalDate> exceptions = event.getRecurrenceExceptions();
+      if (!exceptions.isEmpty() && allDay) {
+        ics.dates("EXDATE", exceptions);
+      } else if (!exceptions.isEmpty()) {
+        List<LocalDateTime> starts = new ArrayList<>(exceptions.size());
+        for (LocalDate date : exceptions) {
+          starts.add(date.atTime(start.toLocalTime()));
+        }
+        ics.dateTimes("EXDATE", timezone, starts);
+      }
+    }
+    ics.text("SUMMARY", event.getEventName());
+    if (event.getEventDescription() != null && !event.getEventDescription().isEmpty()) {
+      ics.text("DESCRIPTION", event.getEventDescription());
+    }
+    if (event.getEventLocation() != null && !event.getEventLocation().isEmpty()) {
+      ics.text("LOCATION", event.getEventLocation());
+    }
+    ics.property("CLASS", Boolean.TRUE.equals(event.isPrivate()) ? "PRIVATE" : "PUBLIC")
+        .end("VEVENT");
+  }
+
+  /**
+   * Returns the {@code RRULE} value of a recurring event whose times belong to
+   * {@code timezone}. The end of a rule is written in UTC, as RFC 5545 requires for zoned
+   * start times, or as a date for an all-day event.
+   */
+  static String rule(ICalendarEventDTO event, String timezone) {
+    boolean allDay = event.getStartDateTime().toLocalTime().equals(LocalTime.MIDNIGHT)
+        && event.getEndDateTime().toLocalTime().equals(END_OF_DAY);
+    StringBuilder rule = new StringBuilder("FREQ=WEEKLY;BYDAY=");
+    Set<DayOfWeek> days = EnumSet.copyOf(event.getRecurrenceDays());
+    String separator = "";
+    for (DayOfWeek day : days) {
+      rule.append(separator).append(DAY_CODES[day.ordinal()]);
+      separator = ",";
+    }
+    if (event.getRecurrenceCount() != null) {
+      rule.append(";COUNT=").append(event.getRecurrenceCount());
+    } else if (allDay) {
+      rule.append(";UNTIL=").append(IcsWriter.formatDate(
+          event.getRecurrenceEndDate().toLocalDate()));
+    } else {
+      LocalDateTime until = event.getRecurrenceEndDate().atZone(ZoneId.of(timezone))
+          .withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime();
+      rule.append(";UNTIL=").append(IcsWriter.formatDateTime(until)).append('Z');
+    }
+    return rule.toString();
+  }
+
+  /**
+   * Reads the {@code VEVENT}s of a stream as events whose times are in {@code zone}.
+   * Components other than events, and the properties of the file itself, are skipped.
+   * An event that stands in for one occurrence of a recurring event, marked with a
+   * {@code RECURRENCE-ID}, is read as a single event and the occurrence's date becomes an
+   * exception of the recurring one.
+   *
+   * @param errors receives an error for each event that cannot be read, prefixed with the
+   *               number of the line it was found on
+   * @return the events that could be read
+   */
+  static List<ICalendarEventDTO> readEvents(Reader in, ZoneId zone, List<String> errors)
+      throws IOException {
+    IcsReader reader = new IcsReader(in);
+    List<EventFields> parsed = new ArrayList<>();
+    Map<String, List<LocalDate>> replaced = new HashMap<>();
+    EventFields event = null;
+    int nested = 0;
+    while (true) {
+      try {
+        if (!reader.next()) {
+          break;
+        }
+      } catch (IllegalArgumentException e) {
+        if (event != null && event.error == null) {
+          event.error = "Line " + reader.lineNumber() + ": " + e.getMessage();
+        }
+        continue;
+      }
+      String name = reader.name();
+      if (event == null) {
+        if (name.equals("BEGIN") && reader.value().equalsIgnoreCase("VEVENT")) {
+          event = new EventFields(reader.lineNumber());
+        }
+      } else if (name.equals("BEGIN")) {
+        // Alarms and other components inside an event are skipped
+        nested++;
+      } else if (name.equals("END") && nested > 0) {
+        nested--;
+      } else if (name.equals("END")) {
+        parsed.add(event);
+        if (event.uid != null && event.replacedDate != null) {
+          replaced.computeIfAbsent(event.uid, uid -> new ArrayList<>()).add(event.replacedDate);
+        }
+        event = null;
+      } else if (nested == 0 && event.error == null) {
+        try {
+          event.read(reader, zone);
+        } catch (RuntimeException e) {
+          event.error = "Line " + reader.lineNumber() + ": " + e.getMessage();
+        }
+      }
+    }
+    if (event != null) {
+      errors.add("Line " + event.line + ": Event is not ended");
+    }
+
+    List<ICalendarEventDTO> events = new ArrayList<>(parsed.size());
+    for (EventFields fields : parsed) {
+      if (fields.error != null) {
+        errors.add(fields.error);
+        continue;
+      }
+      try {
+        List<LocalDate> exceptions = fields.rule != null && fields.uid != null
+            ? replaced.get(fields.uid) : null;
+        if (exceptions != null) {
+          fields.exceptions.addAll(exceptions);
+        }
+        events.add(fields.build(zone));
+      } catch (RuntimeException e) {
+        errors.add("Line " + fields.line + ": " + e.getMessage());
+      }
+    }
+    return events;
+  }
+
+  /**
+   * The properties of one {@code VEVENT} read so far.
+   */
+  private static final class EventFields {
+    private final int line;
+    private String error;
+    private String uid;
+    private String summary;
+    private String description = "";
+    private String location = "";
+    private boolean isPrivate;
+    private LocalDateTime start;
+    private boolean startIsDate;
+    private LocalDateTime end;
+    private boolean endIsDate;
+    private Duration duration;
+    private String rule;
+    private final List<LocalDate> exceptions = new ArrayList<>();
+    private LocalDate replacedDate;
+
+    private EventFields(int line) {
+      this.line = line;
+    }
+
+    private void read(IcsReader reader, ZoneId zone) {
+      switch (reader.name()) {
+        case "UID":
+          uid = reader.text();
+          break;
+        case "SUMMARY":
+          summary = reader.text();
+          break;
+        case "DESCRIPTION":
+          description = reader.text();
+          break;
+        case "LOCATION":
+          location = reader.text();
+          break;
+        case "CLASS":
+          String access = reader.value().trim().toUpperCase(Locale.ROOT);
+          isPrivate = access.equals("PRIVATE") || access.equals("CONFIDENTIAL");
+          break;
+        case "DTSTART":
+          startIsDate = isDate(reader, reader.value());
+          start = time(reader, reader.value(), zone);
+          break;
+        case "DTEND":
+          endIsDate = isDate(reader, reader.value());
+          end = time(reader, reader.value(), zone);
+          break;
+        case "DURATION":
+          duration = duration(reader.value().trim());
+          break;
+        case "RRULE":
+          rule = reader.value().trim();
+          break;
+        case "EXDATE":
+          for (String value : reader.values()) {
+            exceptions.add(time(reader, value, zone).toLocalDate());
+          }
+          break;
+        case "RECURRENCE-ID":
+          replacedDate = time(reader, reader.value(), zone).toLocalDate();
+          break;
+        default:
+          break;
+      }
+    }
+
+    private ICalendarEventDTO build(ZoneId zone) {
+      if (summary == null || summary.trim().isEmpty()) {
+        throw new IllegalArgumentException("Event name is mandatory");
+      }
+      if (start == null) {
+        throw new IllegalArgumentException("Start date is mandatory");
+      }
+      LocalDateTime last = end;
+      if (last == null && duration != null) {
+        last = start.plus(duration);
+      } else if (last == null && startIsDate) {
+        last = start.plusDays(1);
+      }
+      // An all-day event's end is exclusive; the model keeps the last second of its last day
+      if (last != null && (endIsDate || end == null && startIsDate)) {
+        last = last.minusSeconds(1);
+      }
+      if (last == null || !last.isAfter(start)) {
+        throw new IllegalArgumentException("End date/time must be after start date/time");
+      }
+
+      ICalendarEventDTOBuilder<?> builder = ICalendarEventDTO.builder()
+          .setEventName(summary)
+          .setStartDateTime(start)
+          .setEndDateTime(last)
+          .setEventDescription(description)
+          .setEventLocation(location)
+          .setPrivate(isPrivate)
+          .setAutoDecline(true);
+      if (rule != null) {
+        applyRule(builder, zone);
+      }
+      return builder.build();
+    }
+
+    private void applyRule(ICalendarEventDTOBuilder<?> builder, ZoneId zone) {
+      String frequency = null;
+      List<DayOfWeek> days = new ArrayList<>();
+      Integer count = null;
+      LocalDateTime until = null;
+      for (String part : rule.split(";")) {
+        int equals = part.indexOf('=');
+        String key = equals < 0 ? part : part.substring(0, equals).toUpperCase(Locale.ROOT);
+        String value = equals < 0 ? "" : part.substring(equals + 1).toUpperCase(Locale.ROOT);
+        switch (key) {
+          case "FREQ":
+            frequency = value;
+            break;
+          case "INTERVAL":
+            if (!value.equals("1")) {
+              throw new IllegalArgumentException("Unsupported recurrence interval: " + value);
+            }
+            break;
+          case "BYDAY":
+            for (String code : value.split(",")) {
+              DayOfWeek day = DAYS.get(code);
+              if (day == null) {
+                throw new IllegalArgumentException("Unsupported recurrence day: " + code);
+              }
+              days.add(day);
+            }
+            break;
+          case "COUNT":
+            try {
+              count = Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+              throw new IllegalArgumentException("Invalid recurrence count: " + value);
+            }
+            break;
+          case "UNTIL":
+            until = value.length() == 8 ? IcsReader.parseDate(value).atTime(END_OF_DAY)
+                : time(null, value, zone);
+            break;
+          case "WKST":
+            break;
+          default:
+            throw new IllegalArgumentException("Unsupported recurrence rule: " + rule);
+        }
+      }
+      if ("DAILY".equals(frequency) && days.isEmpty()) {
+        days.addAll(Arrays.asList(DayOfWeek.values()));
+      } else if ("WEEKLY".equals(frequency) && days.isEmpty()) {
+        days.add(start.getDayOfWeek());
+      } else if (!"WEEKLY".equals(frequency)) {
+        throw new IllegalArgumentException("Unsupported recurrence rule: " + rule);
+      }
+      if (count == null && until == null) {
+        throw new IllegalArgumentException("A recurrence rule needs a COUNT or an UNTIL");
+      }
+      builder.setRecurring(true)
+          .setRecurrenceDays(days)
+          .setRecurrenceCount(count)
+          .setRecurrenceEndDate(until)
+          .setRecurrenceExceptions(exceptions);
+    }
+  }
+
+  private static boolean isDate(IcsReader reader, String value) {
+    return "DATE".equalsIgnoreCase(reader.parameter("VALUE")) || value.trim().length() == 8;
+  }
+
+  /**
+   * Reads a date or date-time value as a date-time in {@code zone}. A date stands for its
+   * start; a date-time is in UTC if it ends with {@code Z}, in the zone of its
+   * {@code TZID} if it has one, and in {@code zone} otherwise.
+   */
+  private static LocalDateTime time(IcsReader reader, String value, ZoneId zone) {
+    String text = value.trim();
+    if (text.length() == 8) {
+      return IcsReader.parseDate(text).atStartOfDay();
+    }
+    ZoneId from = zone;
+    if (text.endsWith("Z") || text.endsWith("z")) {
+      text = text.substring(0, text.length() - 1);
+      from = ZoneOffset.UTC;
+    } else if (reader != null && reader.parameter("TZID") != null) {
+      try {
+        from = ZoneId.of(reader.parameter("TZID"));
+      } catch (DateTimeException e) {
+        throw new IllegalArgumentException("Unknown time zone: " + reader.parameter("TZID"));
+      }
+    }
+    LocalDateTime local = IcsReader.parseDateTime(text);
+    return from.equals(zone) ? local
+        : local.atZone(from).withZoneSameInstant(zone).toLocalDateTime();
+  }
+
+  // Durations such as P1W, P1D or PT1H30M; java.time reads all but weeks
+  private static Duration duration(String value) {
+    try {
+      if (value.matches("[+-]?P\\d+W")) {
+        long weeks = Long.parseLong(value.replaceAll("[^0-9]", ""));
+        return Duration.ofDays(weeks * 7).multipliedBy(value.startsWith("-") ? -1 : 1);
+      }
+      return Duration.parse(value);
+    } catch (DateTimeParseException | NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid duration: " + value);
+    }
+  }
+}
@@ -0,0 +1,225 @@
+package controller.command;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Reads the content lines of an iCalendar (RFC 5545) stream one at a time, so a file of any
+ * size is read with the memory of its longest line.
+ * <p>
+ * Folded lines are unfolded: a line that starts with a space or a tab continues the one
+ * before it, without that first character. Lines may end with {@code CRLF}, {@code LF}
+ * or {@code CR}, and blank lines are skipped. Property and parameter names are read without
+ * regard to case; parameter values may be quoted, so that they can hold {@code :},
+ * {@code ;} and {@code ,}.
+ * </p>
+ */
+final class IcsReader {
+  private final BufferedReader in;
+  private final StringBuilder line = new StringBuilder();
+  private String lookahead;
+  private int lookaheadNumber;
+  private int physicalLines;
+
+  private int lineNumber;
+  private String name;
+  private final Map<String, String> parameters = new HashMap<>();
+  private String value;
+
+  IcsReader(Reader in) {
+    this.in = new BufferedReader(in);
+  }
+
+  /**
+   * Moves to the next content line.
+   *
+   * @return false if the input has no more lines
+   * @throws IOException              if the input cannot be read
+   * @throws IllegalArgumentException if the line is not a content line; the reader can
+   *                                  still move past it
+   */
+  boolean next() throws IOException {
+    do {
+      // The line after the previous content line has been read already, unless it is the
+      // first line or the input has ended
+      if (lookahead == null && !readAhead()) {
+        return false;
+      }
+      line.setLength(0);
+      line.append(lookahead);
+      lineNumber = lookaheadNumber;
+      while (readAhead() && !lookahead.isEmpty()
+          && (lookahead.charAt(0) == ' ' || lookahead.charAt(0) == '\t')) {
+        line.append(lookahead, 1, lookahead.length());
+      }
+    } while (line.length() == 0);
+    parse();
+    return true;
+  }
+
+  /**
+   * Returns the number of the physical line the current content line starts on, counting
+   * from 1.
+   */
+  int lineNumber() {
+    return lineNumber;
+  }
+
+  /**
+   * Returns the property name in upper case, such as {@code DTSTART}.
+   */
+  String name() {
+    return name;
+  }
+
+  /**
+   * Returns the value of a parameter without quotes, or {@code null} if the line has none
+   * of that name.
+   */
+  String parameter(String parameterName) {
+    return parameters.get(parameterName.toUpperCase(Locale.ROOT));
+  }
+
+  /**
+   * Returns the value as it is written.
+   */
+  String value() {
+    return value;
+  }
+
+  /**
+   * Returns the value as text, with its escapes resolved.
+   */
+  String text() {
+    StringBuilder text = new StringBuilder(value.length());
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '\\' && i + 1 < value.length()) {
+        char escaped = value.charAt(++i);
+        text.append(escaped == 'n' || escaped == 'N' ? '\n' : escaped);
+      } else {
+        text.append(c);
+      }
+    }
+    return text.toString();
+  }
+
+  /**
+   * Returns the comma-separated parts of the value, such as the dates of an
+   * {@code EXDATE}.
+   */
+  List<String> values() {
+    if (value.isEmpty()) {
+      return Collections.emptyList();
+    }
+    List<String> parts = new ArrayList<>();
+    int from = 0;
+    for (int comma = value.indexOf(','); comma >= 0; comma = value.indexOf(',', from)) {
+      parts.add(value.substring(from, comma));
+      from = comma + 1;
+    }
+    parts.add(value.substring(from));
+    return parts;
+  }
+
+  /**
+   * Parses a date such as {@code 20250501}.
+   *
+   * @throws DateTimeParseException if the text is not such a date
+   */
+  static LocalDate parseDate(String text) {
+    if (text.length() != 8 || !digits(text, 0, 8)) {
+      throw new DateTimeParseException("Invalid date: " + text, text, 0);
+    }
+    try {
+      return LocalDate.of(number(text, 0, 4), number(text, 4, 6), number(text, 6, 8));
+    } catch (RuntimeException e) {
+      throw new DateTimeParseException("Invalid date: " + text, text, 0, e);
+    }
+  }
+
+  /**
+   * Parses a date-time such as {@code 20250501T093000}, without a trailing {@code Z}.
+   *
+   * @throws DateTimeParseException if the text is not such a date-time
+   */
+  static LocalDateTime parseDateTime(String text) {
+    if (text.length() != 15 || text.charAt(8) != 'T' || !digits(text, 9, 15)) {
+      throw new DateTimeParseException("Invalid date-time: " + text, text, 0);
+    }
+    try {
+      return parseDate(text.substring(0, 8)).atTime(number(text, 9, 11),
+          number(text, 11, 13), number(text, 13, 15));
+    } catch (RuntimeException e) {
+      throw new DateTimeParseException("Invalid date-time: " + text, text, 0, e);
+    }
+  }
+
+  private static boolean digits(String text, int from, int to) {
+    for (int i = from; i < to; i++) {
+      if (text.charAt(i) < '0' || text.charAt(i) > '9') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int number(String text, int from, int to) {
+    return Integer.parseInt(text.substring(from, to));
+  }
+
+  private boolean readAhead() throws IOException {
+    lookahead = in.readLine();
+    lookaheadNumber = ++physicalLines;
+    return lookahead != null;
+  }
+
+  private void parse() {
+    parameters.clear();
+    int position = 0;
+    int length = line.length();
+    while (position < length && line.charAt(position) != ';' && line.charAt(position) != ':') {
+      position++;
+    }
+    name = line.substring(0, position).trim().toUpperCase(Locale.ROOT);
+    if (name.isEmpty()) {
+      throw new IllegalArgumentException("Missing property name");
+    }
+    while (position < length && line.charAt(position) == ';') {
+      int equals = line.indexOf("=", position + 1);
+      if (equals < 0) {
+        throw new IllegalArgumentException("Invalid parameter in " + name);
+      }
+      String parameterName = line.substring(position + 1, equals).trim()
+          .toUpperCase(Locale.ROOT);
+      StringBuilder parameterValue = new StringBuilder();
+      position = equals + 1;
+      boolean quoted = false;
+      for (; position < length; position++) {
+        char c = line.charAt(position);
+        if (c == '"') {
+          quoted = !quoted;
+        } else if (!quoted && (c == ';' || c == ':')) {
+          break;
+        } else {
+          parameterValue.append(c);
+        }
+      }
+      parameters.put(parameterName, parameterValue.toString());
+    }
+    if (position >= length) {
+      throw new IllegalArgumentException("Missing value for " + name);
+    }
+    value = line.substring(position + 1);
+  }
+}
@@ -0,0 +1,176 @@
+package controller.command;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Writes iCalendar (RFC 5545) content lines that {@link IcsReader} reads back.
+ * <p>
+ * Lines end with {@code CRLF} and are folded so that none is longer than 75 octets of
+ * UTF-8, the continuation starting with a space; a character is never split between two
+ * lines. Text values have backslashes, semicolons, commas and line breaks escaped.
+ * </p>
+ */
+final class IcsWriter {
+  private static final int MAX_LINE_OCTETS = 75;
+
+  private final Writer out;
+  private int lineOctets;
+
+  IcsWriter(Writer out) {
+    this.out = out;
+  }
+
+  IcsWriter begin(String component) throws IOException {
+    return property("BEGIN", component);
+  }
+
+  IcsWriter end(String component) throws IOException {
+    return property("END", component);
+  }
+
+  /**
+   * Writes a property whose value is written as it is, such as a recurrence rule.
+   *
+   * @param name the property name, followed by its parameters if it has any
+   */
+  IcsWriter property(String name, String value) throws IOException {
+    startLine(name);
+    write(':');
+    write(value, false);
+    return endLine();
+  }
+
+  /**
+   * Writes a text property, escaping the characters text values cannot hold as they are.
+   */
+  IcsWriter text(String name, String value) throws IOException {
+    startLine(name);
+    write(':');
+    write(value, true);
+    return endLine();
+  }
+
+  /**
+   * Writes a property whose value is a list of local date-times, such as
+   * {@code DTSTART;TZID=Europe/Paris:20250501T093000}.
+   *
+   * @param timezone the zone the date-times belong to
+   */
+  IcsWriter dateTimes(String name, String timezone, Iterable<LocalDateTime> values)
+      throws IOException {
+    startLine(name);
+    write(";TZID=", false);
+    write(timezone, false);
+    char separator = ':';
+    for (LocalDateTime value : values) {
+      write(separator);
+      separator = ',';
+      write(formatDateTime(value), false);
+    }
+    return endLine();
+  }
+
+  /**
+   * Writes a property whose value is a list of dates, such as
+   * {@code DTSTART;VALUE=DATE:20250501}.
+   */
+  IcsWriter dates(String name, Iterable<LocalDate> values) throws IOException {
+    startLine(name);
+    write(";VALUE=DATE", false);
+    char separator = ':';
+    for (LocalDate value : values) {
+      write(separator);
+      separator = ',';
+      write(formatDate(value), false);
+    }
+    return endLine();
+  }
+
+  /**
+   * Formats a date as {@code 20250501}.
+   *
+   * @throws IllegalArgumentException if the year has more than four digits or is negative
+   */
+  static String formatDate(LocalDate value) {
+    if (value.getYear() < 0 || value.getYear() > 9999) {
+      throw new IllegalArgumentException("Year out of range for iCalendar: " + value);
+    }
+    StringBuilder text = new StringBuilder(8);
+    pad(text, value.getYear(), 4);
+    pad(text, value.getMonthValue(), 2);
+    pad(text, value.getDayOfMonth(), 2);
+    return text.toString();
+  }
+
+  /**
+   * Formats a date-time as {@code 20250501T093000}, dropping fractions of a second.
+   */
+  static String formatDateTime(LocalDateTime value) {
+    StringBuilder text = new StringBuilder(15).append(formatDate(value.toLocalDate()))
+        .append('T');
+    pad(text, value.getHour(), 2);
+    pad(text, value.getMinute(), 2);
+    pad(text, value.getSecond(), 2);
+    return text.toString();
+  }
+
+  private static void pad(StringBuilder text, int value, int digits) {
+    String number = Integer.toString(value);
+    for (int i = number.length(); i < digits; i++) {
+      text.append('0');
+    }
+    text.append(number);
+  }
+
+  private void startLine(String name) throws IOException {
+    lineOctets = 0;
+    write(name, false);
+  }
+
+  private IcsWriter endLine() throws IOException {
+    out.write("\r\n");
+    return this;
+  }
+
+  private void write(String value, boolean escape) throws IOException {
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (Character.isHighSurrogate(c) && i + 1 < value.length()
+          && Character.isLowSurrogate(value.charAt(i + 1))) {
+        fold(4);
+        out.write(c);
+        out.write(value.charAt(++i));
+        lineOctets += 4;
+      } else if (escape && (c == '\\' || c == ';' || c == ',')) {
+        write('\\');
+        write(c);
+      } else if (escape && c == '\n') {
+        write('\\');
+        write('n');
+      } else if (escape && c == '\r') {
+        // A CRLF becomes one escaped line break; a lone CR is dropped as well
+        continue;
+      } else {
+        write(c);
+      }
+    }
+  }
+
+  private void write(char c) throws IOException {
+    int octets = c < 0x80 ? 1 : c < 0x800 ? 2 : 3;
+    fold(octets);
+    out.write(c);
+    lineOctets += octets;
+  }
+
+  // Starts a continuation line if the next character would not fit on this one
+  private void fold(int octets) throws IOException {
+    if (lineOctets + octets > MAX_LINE_OCTETS) {
+      out.write("\r\n ");
+      lineOctets = 1;
+    }
+  }
+}
@@ -1,15 +1,18 @@
 package controller.command;
 
-import java.io.BufferedReader;
 import java.io.FileReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
 
 import model.ICalendarEventDTO;
@@ -20,11 +23,25 @@ public class ImportCalendarCommand implements ICommand {
   private final String filePath;
   private final ICalendarModel model;
   private final String timezone;
+  private final boolean parallel;
+  private final int chunkBytes;
 
   /**
-   * Constructs an {@code ImportCalendarCommand} to import events from a file.
+   * Constructs an {@code ImportCalendarCommand} to import events from a CSV file, or from an
+   * iCalendar file whose name ends with {@code .ics}. A trailing {@code --parallel} argument
+   * parses a CSV file in chunks on several threads.
    */
   public ImportCalendarCommand(List<String> args, ICalendarModel model, String currentCalendar) {
+    this(args, model, currentCalendar, ChunkedCsvReader.DEFAULT_CHUNK_BYTES);
+  }
+
+  /**
+   * Constructs an import that cuts the file into chunks of about {@code chunkBytes} when it
+   * runs in parallel.
+   */
+  ImportCalendarCommand(List<String> args, ICalendarModel model, String currentCalendar,
+                        int chunkBytes) {
+    this.chunkBytes = chunkBytes;
     this.model = Objects.requireNonNull(model,"Model cannot be null");
     this.calendarName = currentCalendar;
 
@@ -45,16 +62,19 @@ public class ImportCalendarCommand implements ICommand {
       // Timezone is mandatory for imports
       throw new IllegalArgumentException("Timezone must be specified for import using --timezone parameter");
     }
+    this.parallel = args.size() > 3 && args.get(3).equals("--parallel");
   }
 
   @Override
   public String execute() {
     try {
-      if (!filePath.toLowerCase().endsWith(".csv")) {
-        return "Error: File must have a .csv extension";
+      boolean ics = filePath.toLowerCase(Locale.ROOT).endsWith(".ics");
+      if (!ics && !filePath.toLowerCase().endsWith(".csv")) {
+        return "Error: File must have a .csv or .ics extension";
       }
 
-      List<ICalendarEventDTO> eventsToImport = importFromCSV();
+      List<ICalendarEventDTO> eventsToImport = ics ? importFromIcs()
+          : parallel ? importInParallel() : importFromCSV();
 
       if (eventsToImport.isEmpty()) {
         return "No events found to import.";
@@ -78,163 +98,194 @@ public class ImportCalendarCommand implements ICommand {
     List<String> validationErrors = new ArrayList<>();
     int lineNumber = 1; // Start counting from header line
 
-    try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-      String line;
+    try (FileReader in = new FileReader(filePath)) {
+      CsvReader record = new CsvReader(in);
       boolean isHeader = true;
-      DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("MM/dd/yyyy");
-      DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("hh:mm a");
 
-      while ((line = reader.readLine()) != null) {
+      // Records rather than lines are numbered, so a quoted line break does not count
+      while (record.next()) {
         if (isHeader) {
           isHeader = false;
           lineNumber++;
-          if(!line.trim().equals("Subject,Start Date,Start Time,End Date,End Time,All Day " +
-                "Event,Description,Location,Private")){
-            throw new Exception("Invalid Header line: " + line);
-          }
+          checkHeader(record);
           continue; // Skip header row
         }
-        if(line.isEmpty()){
+        if(record.isBlank()){
           continue;
         }
 
-        try {
-          String[] fields = parseCSVLine(line);
-          if (fields.length != 9) {
-            validationErrors.add("Line " + lineNumber + ": Expected 9 fields, but found " + fields.length);
-            lineNumber++;
-            continue;
-          }
+        String error = parseRecord(record, events);
+        if (error != null) {
+          validationErrors.add("Line " + lineNumber + ": " + error);
+        }
 
-          // Parse event fields
-          String eventName = removeOuterQuotes(fields[0]); // Subject
-          String startDateStr = fields[1].trim(); // Start Date
-          String startTimeStr = fields[2].trim(); // Start Time
-          String endDateStr = fields[3].trim(); // End Date
-          String endTimeStr = fields[4].trim(); // End Time
-          String allDayStr = fields[5].trim(); // All Day Event
-          String description = removeOuterQuotes(fields[6]);
-          String location = removeOuterQuotes(fields[7]);
-          String isPrivateStr = fields[8].trim();
-
-          // Validate required fields
-          if (eventName == null || eventName.trim().isEmpty()) {
-            validationErrors.add("Line " + lineNumber + ": Event name is mandatory");
-            lineNumber++;
-            continue;
-          }
+        lineNumber++;
+      }
+    }
 
-          if (startDateStr.isEmpty()) {
-            validationErrors.add("Line " + lineNumber + ": Start date is mandatory");
-            lineNumber++;
-            continue;
-          }
+    // If there are validation errors, throw an exception with all errors
+    if (!validationErrors.isEmpty()) {
+      throw new IllegalStateException("CSV validation errors:\n" + String.join("\n", validationErrors));
+    }
 
-          if (endDateStr.isEmpty()) {
-            validationErrors.add("Line " + lineNumber + ": End date is mandatory");
-            lineNumber++;
-            continue;
-          }
+    return events;
+  }
 
-          // Check for valid boolean fields
-          boolean isAllDay = false;
-          if (!allDayStr.isEmpty()) {
-            if (!isValidBoolean(allDayStr)) {
-              validationErrors.add("Line " + lineNumber + ": All Day Event must be TRUE or FALSE");
-              lineNumber++;
-              continue;
-            }
-            isAllDay = Boolean.parseBoolean(allDayStr.toLowerCase());
-          }
+  /**
+   * Reads the events of an iCalendar file, a line at a time. A recurring event becomes a
+   * series, and an occurrence it lists as replaced by another event becomes an exception of
+   * the series. The file is read in one pass; {@code --parallel} does not apply.
+   */
+  private List<ICalendarEventDTO> importFromIcs() throws Exception {
+    List<String> validationErrors = new ArrayList<>();
+    List<ICalendarEventDTO> events;
+    try (Reader in = Files.newBufferedReader(Paths.get(filePath), StandardCharsets.UTF_8)) {
+      events = IcsCodec.readEvents(in, ZoneId.of(timezone), validationErrors);
+    }
+    if (!validationErrors.isEmpty()) {
+      throw new IllegalStateException("ICS validation errors:\n" + String.join("\n", validationErrors));
+    }
+    return events;
+  }
+
+  /**
+   * Reads the same events as {@link #importFromCSV()}, with the same validation errors, by
+   * parsing chunks of the memory-mapped file in parallel.
+   */
+  private List<ICalendarEventDTO> importInParallel() throws Exception {
+    ChunkedCsvReader reader = ChunkedCsvReader.open(Paths.get(filePath));
+    if (reader.header() == null) {
+      return new ArrayList<>();
+    }
+    checkHeader(reader.header());
+
+    ChunkedCsvReader.Result<ICalendarEventDTO> result =
+          reader.parse(chunkBytes, 2, this::parseRecord);
+    if (!result.errors.isEmpty()) {
+      throw new IllegalStateException("CSV validation errors:\n" + String.join("\n", result.errors));
+    }
+    return result.records;
+  }
+
+  private static void checkHeader(CsvReader header) throws Exception {
+    StringBuilder fields = new StringBuilder();
+    for (int i = 0; i < header.size(); i++) {
+      fields.append(i == 0 ? "" : ",").append(header.get(i));
+    }
+    String line = fields.toString();
+    if(!line.trim().equals("Subject,Start Date,Start Time,End Date,End Time,All Day " +
+          "Event,Description,Location,Private")){
+      throw new Exception("Invalid Header line: " + line);
+    }
+  }
 
-          boolean isPrivate = false;
-          if (!isPrivateStr.isEmpty()) {
-            if (!isValidBoolean(isPrivateStr)) {
-              validationErrors.add("Line " + lineNumber + ": Private must be TRUE or FALSE");
-              lineNumber++;
-              continue;
-            }
-            isPrivate = Boolean.parseBoolean(isPrivateStr.toLowerCase());
+  /**
+   * Parses one non-empty record and adds its event to {@code events}. Safe to call from
+   * several threads at once, each with a reader of its own.
+   *
+   * @return the validation error for the record, without its line number, or {@code null}
+   */
+  private String parseRecord(CsvReader record, List<ICalendarEventDTO> events) {
+    try {
+      if (record.size() != 9) {
+        return "Expected 9 fields, but found " + record.size();
+      }
+
+      // Parse event fields
+      String eventName = text(record, 0); // Subject
+      String startDateStr = record.get(1).trim(); // Start Date
+      String startTimeStr = record.get(2).trim(); // Start Time
+      String endDateStr = record.get(3).trim(); // End Date
+      String endTimeStr = record.get(4).trim(); // End Time
+      String allDayStr = record.get(5).trim(); // All Day Event
+      String description = text(record, 6);
+      String location = text(record, 7);
+      String isPrivateStr = record.get(8).trim();
+
+      // Validate required fields
+      if (eventName == null || eventName.trim().isEmpty()) {
+        return "Event name is mandatory";
+      }
+
+      if (startDateStr.isEmpty()) {
+        return "Start date is mandatory";
+      }
+
+      if (endDateStr.isEmpty()) {
+        return "End date is mandatory";
+      }
+
+      // Check for valid boolean fields
+      boolean isAllDay = false;
+      if (!allDayStr.isEmpty()) {
+        if (!isValidBoolean(allDayStr)) {
+          return "All Day Event must be TRUE or FALSE";
+        }
+        isAllDay = Boolean.parseBoolean(allDayStr.toLowerCase());
+      }
+
+      boolean isPrivate = false;
+      if (!isPrivateStr.isEmpty()) {
+        if (!isValidBoolean(isPrivateStr)) {
+          return "Private must be TRUE or FALSE";
+        }
+        isPrivate = Boolean.parseBoolean(isPrivateStr.toLowerCase());
+      }
+
+      // Parse dates and times
+      LocalDateTime startDateTime;
+      LocalDateTime endDateTime;
+
+      try {
+        if (isAllDay) {
+          // For all-day events, set to start of day and end of day
+          LocalDate startDate = DateTimeCodec.parseCsvDate(startDateStr, 0, startDateStr.length());
+          LocalDate endDate = DateTimeCodec.parseCsvDate(endDateStr, 0, endDateStr.length());
+          startDateTime = startDate.atStartOfDay();
+          endDateTime = endDate.atTime(23, 59, 59);
+        } else {
+          // For regular events, parse both date and time
+          if (startTimeStr.isEmpty()) {
+            return "Start time is mandatory for non-all-day events";
           }
 
-          // Parse dates and times
-          LocalDateTime startDateTime;
-          LocalDateTime endDateTime;
-
-          try {
-            if (isAllDay) {
-              // For all-day events, set to start of day and end of day
-              if (startDateStr.isEmpty()) {
-                validationErrors.add("Line " + lineNumber + ": Start date is required for all-day events");
-                lineNumber++;
-                continue;
-              }
-
-              LocalDate startDate = LocalDate.parse(startDateStr, dateFormatter);
-              LocalDate endDate = LocalDate.parse(endDateStr, dateFormatter);
-              startDateTime = startDate.atStartOfDay();
-              endDateTime = endDate.atTime(23, 59, 59);
-            } else {
-              // For regular events, parse both date and time
-              if (startTimeStr.isEmpty()) {
-                validationErrors.add("Line " + lineNumber + ": Start time is mandatory for non-all-day events");
-                lineNumber++;
-                continue;
-              }
-
-              if (endTimeStr.isEmpty()) {
-                validationErrors.add("Line " + lineNumber + ": End time is mandatory for non-all-day events");
-                lineNumber++;
-                continue;
-              }
-
-              LocalDate startDate = LocalDate.parse(startDateStr, dateFormatter);
-              LocalTime startTime = LocalTime.parse(startTimeStr, timeFormatter);
-              LocalDate endDate = LocalDate.parse(endDateStr, dateFormatter);
-              LocalTime endTime = LocalTime.parse(endTimeStr, timeFormatter);
-
-              startDateTime = LocalDateTime.of(startDate, startTime);
-              endDateTime = LocalDateTime.of(endDate, endTime);
-            }
-
-            // Validate end time is after start time
-            if (endDateTime.isBefore(startDateTime) || endDateTime.equals(startDateTime)) {
-              validationErrors.add("Line " + lineNumber + ": End date/time must be after start date/time");
-              lineNumber++;
-              continue;
-            }
-          } catch (DateTimeParseException e) {
-            validationErrors.add("Line " + lineNumber + ": Invalid date/time format - " + e.getMessage());
-            lineNumber++;
-            continue;
+          if (endTimeStr.isEmpty()) {
+            return "End time is mandatory for non-all-day events";
           }
 
-          // Create event DTO
-          ICalendarEventDTO eventDTO = ICalendarEventDTO.builder()
-                .setEventName(eventName)
-                .setStartDateTime(startDateTime)
-                .setEndDateTime(endDateTime)
-                .setEventDescription(description)
-                .setEventLocation(location)
-                .setPrivate(isPrivate)
-                .setAutoDecline(true)
-                .build();
-
-          events.add(eventDTO);
-        } catch (Exception e) {
-          validationErrors.add("Line " + lineNumber + ": " + e.getMessage());
+          LocalDate startDate = DateTimeCodec.parseCsvDate(startDateStr, 0, startDateStr.length());
+          LocalTime startTime = DateTimeCodec.parseCsvTime(startTimeStr, 0, startTimeStr.length());
+          LocalDate endDate = DateTimeCodec.parseCsvDate(endDateStr, 0, endDateStr.length());
+          LocalTime endTime = DateTimeCodec.parseCsvTime(endTimeStr, 0, endTimeStr.length());
+
+          startDateTime = LocalDateTime.of(startDate, startTime);
+          endDateTime = LocalDateTime.of(endDate, endTime);
         }
 
-        lineNumber++;
+        // Validate end time is after start time
+        if (endDateTime.isBefore(startDateTime) || endDateTime.equals(startDateTime)) {
+          return "End date/time must be after start date/time";
+        }
+      } catch (DateTimeParseException e) {
+        return "Invalid date/time format - " + e.getMessage();
       }
-    }
 
-    // If there are validation errors, throw an exception with all errors
-    if (!validationErrors.isEmpty()) {
-      throw new IllegalStateException("CSV validation errors:\n" + String.join("\n", validationErrors));
+      // Create event DTO
+      ICalendarEventDTO eventDTO = ICalendarEventDTO.builder()
+            .setEventName(eventName)
+            .setStartDateTime(startDateTime)
+            .setEndDateTime(endDateTime)
+            .setEventDescription(description)
+            .setEventLocation(location)
+            .setPrivate(isPrivate)
+            .setAutoDecline(true)
+            .build();
+
+      events.add(eventDTO);
+      return null;
+    } catch (Exception e) {
+      return e.getMessage();
     }
-
-    return events;
   }
 
   /**
@@ -249,27 +300,15 @@ public class ImportCalendarCommand implements ICommand {
           value.equalsIgnoreCase("false");
   }
 
-  private String[] parseCSVLine(String line) {
-    return line.split(",(?=([^\"]*\"[^\"]*\")*[^\"]*$)");
-  }
-
   /**
-   * Removes starting and ending quotes from a string if present.
+   * Returns a text field as it was quoted, or trimmed if it was not quoted.
    *
-   * @param value The string to process
-   * @return String with outer quotes removed if present
+   * @param record the record being parsed
+   * @param field  the index of the field
+   * @return the value of the field
    */
-  private String removeOuterQuotes(String value) {
-    if (value == null) {
-      return null;
-    }
-
-    value = value.trim();
-
-    if (value.startsWith("\"") && value.endsWith("\"") && value.length() >= 2) {
-      return value.substring(1, value.length() - 1);
-    }
-
-    return value;
+  private static String text(CsvReader record, int field) {
+    String value = record.get(field);
+    return record.isQuoted(field) ? value : value.trim();
   }
-}
\ No newline at end of file
+}
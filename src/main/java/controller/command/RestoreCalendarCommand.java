@@ -0,0 +1,55 @@
+package controller.command;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Objects;
+
+import model.ICalendarModel;
+
+/**
+ * Command to restore the events of a backup written by {@link BackupCalendarCommand} into
+ * the current calendar. Times are moved from the timezone of the calendar that was backed
+ * up to that of the current calendar, and series are restored as series.
+ */
+public class RestoreCalendarCommand implements ICommand {
+  private final ICalendarModel model;
+  private final String calendarName;
+  private final String fileName;
+
+  /**
+   * Constructs a {@code RestoreCalendarCommand}
+   * using the provided arguments, model, and active calendar.
+   */
+  public RestoreCalendarCommand(List<String> args, ICalendarModel model,
+                                String currentCalendar) {
+    this.model = Objects.requireNonNull(model, "Model cannot be null");
+    this.calendarName = currentCalendar;
+    CommandParser.requireExactArgs(args, 1, "Invalid syntax. Expected: restore cal <filename>");
+    this.fileName = CommandParser.getRequiredArg(args, 0, "Missing backup filename");
+  }
+
+  @Override
+  public String execute() {
+    try {
+      BackupCodec.Backup backup = BackupCodec.decode(
+          ByteBuffer.wrap(Files.readAllBytes(Paths.get(fileName))));
+      if (backup.events.isEmpty()) {
+        return "No events found to restore.";
+      }
+      // Events are restored all or none; they may overlap each other, as they did in the
+      // calendar backed up, but not the events already in this one
+      model.restoreEvents(calendarName, backup.events, backup.timezone);
+      return "Restored " + backup.events.size() + " events from calendar '"
+          + backup.calendarName + "' to calendar '" + calendarName + "'";
+    } catch (IOException e) {
+      return "Error restoring calendar: " + e.getMessage();
+    } catch (IllegalArgumentException | IllegalStateException e) {
+      return "Error restoring calendar: " + e.getMessage();
+    } catch (Exception e) {
+      return "An unexpected error occurred: " + e.getMessage();
+    }
+  }
+}
@@ -0,0 +1,534 @@
+package model;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Behaviour shared by the calendar implementations: name and timezone metadata, recurring
+ * {@link EventSeries} rules, and the date-time queries that merge stored events with series
+ * occurrences.
+ * <p>
+ * Subclasses decide how single events are stored. They answer the instant-based lookups
+ * below in start-time order and adopt new events through {@link #append}. They record
+ * every event they store, change or remove in {@link #changes}, which makes the changes
+ * since a given point cheap to list. Series are recorded there too, under the negated
+ * number this class gives each of them.
+ * </p>
+ */
+abstract class AbstractCalendar implements ICalendar {
+  private volatile String calendarName;
+  private volatile String timezone;
+  protected final CalendarZone zone;
+  protected final StringDictionary dictionary;
+  protected final EventIds eventIds;
+  protected ChangeLog changes = new ChangeLog();
+  private final List<EventSeries> series = new ArrayList<>();
+  private long lastSeriesId;
+
+  protected AbstractCalendar(String calendarName, String timezone,
+                             StringDictionary dictionary, EventIds eventIds) {
+    this.calendarName = calendarName;
+    this.timezone = timezone;
+    this.zone = new CalendarZone(ZoneId.of(timezone));
+    this.dictionary = dictionary != null ? dictionary : new StringDictionary();
+    this.eventIds = eventIds != null ? eventIds : new EventIds();
+  }
+
+  /**
+   * Returns the stored events that start within {@code [from, to]} or end strictly inside
+   * {@code (from, to)}, in start-time order.
+   */
+  protected abstract List<ICalendarEvent> storedInRange(Instant from, Instant to);
+
+  /**
+   * Returns the stored events in progress at {@code instant}, in start-time order.
+   */
+  protected abstract List<ICalendarEvent> storedAt(Instant instant);
+
+  /**
+   * Returns the stored events whose interval intersects {@code [from, to]}, in start-time
+   * order.
+   */
+  protected abstract List<ICalendarEvent> storedOverlapping(Instant from, Instant to);
+
+  /**
+   * Returns the stored events named {@code name}, ignoring case, that start within
+   * {@code [from, to]}, in start-time order.
+   */
+  protected abstract List<ICalendarEvent> storedNamed(String name, Instant from, Instant to);
+
+  /**
+   * Passes every stored event to {@code action} in start-time order, without collecting
+   * them first.
+   */
+  protected abstract void forEachStored(Consumer<? super ICalendarEvent> action);
+
+  /**
+   * Stores an event, keeping its wall-clock times in this calendar's zone and encoding its
+   * strings with the calendar's dictionary. An event without an id is given one.
+   */
+  protected abstract void append(CalendarEvent event);
+
+  /**
+   * Returns the stored events as they are now, in start-time order.
+   */
+  protected abstract List<CalendarSnapshot.FrozenEvent> frozenEvents();
+
+  /**
+   * Stores the events of a snapshot file, which are in start-time order and keep their ids.
+   * The calendar must not store any events yet. Calendars that can adopt the records more
+   * directly than one event at a time override this.
+   */
+  void load(SnapshotFile.EventRecords records) {
+    for (int i = 0; i < records.size(); i++) {
+      CalendarEvent event = CalendarEvent.builder()
+          .setEventName(dictionary.valueOf(records.nameId(i)))
+          .setStartDateTime(LocalDateTime.ofEpochSecond(records.startSecond(i),
+              records.startNano(i), ZoneOffset.UTC))
+          .setEndDateTime(LocalDateTime.ofEpochSecond(records.endSecond(i),
+              records.endNano(i), ZoneOffset.UTC))
+          .setEventDescription(dictionary.valueOf(records.descriptionId(i)))
+          .setEventLocation(dictionary.valueOf(records.locationId(i)))
+          .setPublic(records.isPublic(i))
+          .build();
+      // Built detached, the event holds the record's instants; keep them as they are
+      event.showIn(zone);
+      event.setEventId(records.eventId(i));
+      append(event);
+    }
+  }
+
+  public ChangeLog.Mark markChanges() {
+    long seriesIds = lastSeriesId;
+    return changes.mark(() -> lastSeriesId = seriesIds);
+  }
+
+  /**
+   * Returns a copy of the calendar's change log as it is now, to be written to a file.
+   */
+  ChangeLog copyChanges() {
+    return changes.copy();
+  }
+
+  /**
+   * Replaces the calendar's change log with one read back from a file, so its sequence and
+   * changes carry on from where they were. Series numbered since continue after the highest
+   * number the log holds.
+   */
+  void restoreChanges(ChangeLog log) {
+    changes = log;
+    log.forEachEntry((sequence, key, added, firstAdded, removed) -> {
+      if (key < 0 && key != ChangeLog.EVERY_ENTRY) {
+        lastSeriesId = Math.max(lastSeriesId, -key);
+      }
+    });
+  }
+
+  /**
+   * Returns the id of an event about to be stored, giving it a new one if it has none, and
+   * records the event as changed.
+   */
+  protected long idOf(CalendarEvent event) {
+    if (event.getEventId() == EventIds.NONE) {
+      event.setEventId(eventIds.next());
+    }
+    changes.touched(event.getEventId());
+    return event.getEventId();
+  }
+
+  /**
+   * Records that the stored event with the given id is about to be removed. Must be called
+   * while the event can still be read.
+   */
+  protected void recordRemoval(long eventId) {
+    changes.removed(frozenEvent(eventId));
+  }
+
+  // Getters and setters
+  public String getCalendarName() {
+    return calendarName;
+  }
+
+  public void setCalendarName(String calendarName) {
+    this.calendarName = calendarName;
+  }
+
+  public String getTimezone() {
+    return timezone;
+  }
+
+  // Every stored event keeps its instants but shows new wall-clock times, so each changes,
+  // as does every series; one change stands for all of them until they are listed
+  public void setTimezone(String newTimezone) {
+    zone.setZoneId(ZoneId.of(newTimezone));
+    this.timezone = newTimezone;
+    changes.touchedAll();
+  }
+
+  public List<ICalendarEvent> getEventsInRange(LocalDateTime fromDateTime,
+                                               LocalDateTime toDateTime) {
+    return withOccurrences(storedInRange(zone.toInstant(fromDateTime),
+        zone.toInstant(toDateTime)),
+        fromDateTime, toDateTime,
+        e -> (!e.getStartDateTime().isBefore(fromDateTime)
+            && !e.getStartDateTime().isAfter(toDateTime))
+            || (e.getEndDateTime().isAfter(fromDateTime)
+            && e.getEndDateTime().isBefore(toDateTime)));
+  }
+
+  public void forEachEvent(Consumer<? super ICalendarEvent> action) {
+    if (series.isEmpty()) {
+      forEachStored(action);
+      return;
+    }
+    // One cursor per series, ordered by the start of its next occurrence, so occurrences are
+    // built only as they are reached. They are merged into the stored events, which come
+    // first on equal starts as in the range queries; equal occurrences keep series order.
+    PriorityQueue<SeriesCursor> cursors = new PriorityQueue<>(
+        Comparator.comparing((SeriesCursor cursor) -> cursor.head.getStartDateTime())
+            .thenComparingInt(cursor -> cursor.index));
+    for (int i = 0; i < series.size(); i++) {
+      SeriesCursor cursor = new SeriesCursor(i, series.get(i).occurrenceIterator());
+      if (cursor.advance(zone)) {
+        cursors.add(cursor);
+      }
+    }
+    forEachStored(event -> {
+      while (!cursors.isEmpty() && cursors.peek().head.getStartDateTime()
+          .isBefore(event.getStartDateTime())) {
+        acceptNext(cursors, action);
+      }
+      action.accept(event);
+    });
+    while (!cursors.isEmpty()) {
+      acceptNext(cursors, action);
+    }
+  }
+
+  private void acceptNext(PriorityQueue<SeriesCursor> cursors,
+                          Consumer<? super ICalendarEvent> action) {
+    SeriesCursor cursor = cursors.poll();
+    action.accept(cursor.head);
+    if (cursor.advance(zone)) {
+      cursors.add(cursor);
+    }
+  }
+
+  // The next occurrence of one series, shown in this calendar's zone
+  private static final class SeriesCursor {
+    private final int index;
+    private final Iterator<CalendarEvent> occurrences;
+    private CalendarEvent head;
+
+    private SeriesCursor(int index, Iterator<CalendarEvent> occurrences) {
+      this.index = index;
+      this.occurrences = occurrences;
+    }
+
+    private boolean advance(CalendarZone zone) {
+      if (!occurrences.hasNext()) {
+        return false;
+      }
+      head = occurrences.next();
+      head.showIn(zone);
+      return true;
+    }
+  }
+
+  public void forEachStoredEvent(Consumer<? super ICalendarEvent> action) {
+    forEachStored(action);
+  }
+
+  public long forEachChangeSince(long since, ChangeVisitor visitor) {
+    long current = changes.sequence();
+    if (since < 0 || since > current) {
+      throw new IllegalArgumentException("Sequence " + since + " is not between 0 and "
+          + current + ".");
+    }
+    if (since != 0 && since < changes.first()) {
+      throw new IllegalArgumentException("Sequence " + since + " is from before the "
+          + "calendar was created or loaded; start again from 0.");
+    }
+    if (since == 0) {
+      forEachStored(event -> visitor.visit(IEventChange.Kind.ADDED,
+          changes.lastModified(event.getEventId()), event));
+      for (EventSeries eventSeries : series) {
+        if (!eventSeries.isEmpty()) {
+          visitor.visitSeries(IEventChange.Kind.ADDED,
+              changes.lastModified(key(eventSeries)), eventSeries);
+        }
+      }
+      return current;
+    }
+    changes.forEachSince(since, (kind, sequence, key, removed) -> {
+      if (key == ChangeLog.EVERY_ENTRY) {
+        forEachChangedBy(sequence, since, visitor);
+        return;
+      }
+      if (key > 0) {
+        visitor.visit(kind, sequence, removed == null ? getEventById(key)
+            : thaw((CalendarSnapshot.FrozenEvent) removed));
+        return;
+      }
+      EventSeries eventSeries = removed != null ? (EventSeries) removed : seriesWithKey(key);
+      if (eventSeries != null && !eventSeries.isEmpty()) {
+        visitor.visitSeries(kind, sequence, eventSeries);
+      }
+    });
+    return current;
+  }
+
+  // Lists the stored events and series that a change to all of them at sequence touched
+  // last, as changed then
+  private void forEachChangedBy(long sequence, long since, ChangeVisitor visitor) {
+    forEachStored(event -> {
+      long eventId = event.getEventId();
+      if (changes.lastModified(eventId) < sequence) {
+        visitor.visit(changes.addedAfter(eventId, since) ? IEventChange.Kind.ADDED
+            : IEventChange.Kind.EDITED, sequence, event);
+      }
+    });
+    for (EventSeries eventSeries : series) {
+      long key = key(eventSeries);
+      if (!eventSeries.isEmpty() && changes.lastModified(key) < sequence) {
+        visitor.visitSeries(changes.addedAfter(key, since) ? IEventChange.Kind.ADDED
+            : IEventChange.Kind.EDITED, sequence, eventSeries);
+      }
+    }
+  }
+
+  // A series is recorded under its negated id, apart from the positive ids of events
+  private static long key(EventSeries eventSeries) {
+    return -eventSeries.getId();
+  }
+
+  private EventSeries seriesWithKey(long key) {
+    for (EventSeries eventSeries : series) {
+      if (key(eventSeries) == key) {
+        return eventSeries;
+      }
+    }
+    return null;
+  }
+
+  // Builds the event a tombstone describes, as a snapshot's event is built when loaded
+  private CalendarEvent thaw(CalendarSnapshot.FrozenEvent frozen) {
+    CalendarEvent event = CalendarEvent.builder()
+        .setEventName(frozen.getName())
+        .setStartDateTime(LocalDateTime.ofInstant(frozen.getStart(), ZoneOffset.UTC))
+        .setEndDateTime(LocalDateTime.ofInstant(frozen.getEnd(), ZoneOffset.UTC))
+        .setEventDescription(frozen.getDescription())
+        .setEventLocation(frozen.getLocation())
+        .setPublic(frozen.isPublic())
+        .build();
+    event.showIn(zone);
+    event.setEventId(frozen.getEventId());
+    return event;
+  }
+
+  public List<ICalendarEvent> getEventsAt(LocalDateTime dateTime) {
+    return withOccurrences(storedAt(zone.toInstant(dateTime)), dateTime, dateTime,
+        e -> !e.getStartDateTime().isAfter(dateTime) && !e.getEndDateTime().isBefore(dateTime));
+  }
+
+  public List<ICalendarEvent> getEventsOverlapping(LocalDateTime fromDateTime,
+                                                   LocalDateTime toDateTime) {
+    return withOccurrences(storedOverlapping(
+        zone.toInstant(fromDateTime), zone.toInstant(toDateTime)),
+        fromDateTime, toDateTime, overlapping(fromDateTime, toDateTime));
+  }
+
+  private static Predicate<ICalendarEvent> overlapping(LocalDateTime fromDateTime,
+                                                      LocalDateTime toDateTime) {
+    return e -> !e.getStartDateTime().isAfter(toDateTime)
+        && !e.getEndDateTime().isBefore(fromDateTime);
+  }
+
+  public List<ICalendarEvent> getEventsOverlappingInOrderAdded(LocalDateTime fromDateTime,
+                                                               LocalDateTime toDateTime) {
+    List<ICalendarEvent> stored = new ArrayList<>(storedOverlapping(
+        zone.toInstant(fromDateTime), zone.toInstant(toDateTime)));
+    stored.sort(Comparator.comparingLong(ICalendarEvent::getEventId));
+    if (series.isEmpty()) {
+      return stored;
+    }
+    List<EventSeries> byAddition = new ArrayList<>(series);
+    byAddition.sort(Comparator.comparingLong(EventSeries::getAddedAfter)
+        .thenComparingLong(EventSeries::getId));
+    List<ICalendarEvent> merged = new ArrayList<>();
+    int next = 0;
+    for (EventSeries eventSeries : byAddition) {
+      while (next < stored.size()
+          && stored.get(next).getEventId() <= eventSeries.getAddedAfter()) {
+        merged.add(stored.get(next++));
+      }
+      addOccurrences(eventSeries, fromDateTime, toDateTime,
+          overlapping(fromDateTime, toDateTime), merged);
+    }
+    merged.addAll(stored.subList(next, stored.size()));
+    return merged;
+  }
+
+  public CalendarSnapshot snapshot() {
+    return new CalendarSnapshot(this, calendarName, timezone, frozenEvents(), series);
+  }
+
+  public List<ICalendarEvent> getEventsNamed(String name, LocalDateTime fromDateTime,
+                                             LocalDateTime toDateTime) {
+    return storedNamed(name, zone.toInstant(fromDateTime), zone.toInstant(toDateTime));
+  }
+
+  public void addSeries(EventSeries eventSeries) {
+    eventSeries.setId(++lastSeriesId);
+    eventSeries.setAddedAfter(eventIds.last());
+    series.add(eventSeries);
+    changes.touched(key(eventSeries));
+  }
+
+  public List<EventSeries> getSeries() {
+    return Collections.unmodifiableList(series);
+  }
+
+  // Series restored by an undo keep their ids, so a series that comes back counts as
+  // changed, one that goes away as removed, and one loaded from a snapshot as added
+  public void setSeries(List<EventSeries> newSeries) {
+    for (EventSeries eventSeries : series) {
+      if (!hasSeriesWithId(newSeries, eventSeries.getId())) {
+        changes.removed(key(eventSeries), eventSeries);
+      }
+    }
+    series.clear();
+    for (EventSeries eventSeries : newSeries) {
+      if (eventSeries.getId() == 0) {
+        eventSeries.setId(++lastSeriesId);
+      }
+      series.add(eventSeries);
+      changes.touched(key(eventSeries));
+    }
+  }
+
+  private static boolean hasSeriesWithId(List<EventSeries> list, long id) {
+    for (EventSeries eventSeries : list) {
+      if (eventSeries.getId() == id) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public boolean materializeSeries(String eventName, LocalDateTime fromDateTime) {
+    boolean changed = false;
+    for (EventSeries eventSeries : new ArrayList<>(series)) {
+      if (!eventSeries.getEventName().equals(eventName)) {
+        continue;
+      }
+      LocalDate firstMaterialized = null;
+      List<CalendarEvent> materialized = new ArrayList<>();
+      for (CalendarEvent occurrence : eventSeries.occurrencesBetween(
+          dayBefore(fromDateTime.toLocalDate()), eventSeries.getLastDate())) {
+        LocalDate seriesDate = occurrence.getStartDateTime().toLocalDate();
+        occurrence.showIn(zone);
+        if (!occurrence.getStartDateTime().isBefore(fromDateTime)) {
+          if (firstMaterialized == null) {
+            firstMaterialized = seriesDate;
+          }
+          materialized.add(occurrence);
+        }
+      }
+      if (firstMaterialized != null) {
+        EventSeries before = eventSeries.copy();
+        eventSeries.truncateBefore(firstMaterialized);
+        if (eventSeries.isEmpty()) {
+          series.remove(eventSeries);
+          changes.removed(key(eventSeries), before);
+        } else {
+          changes.touched(key(eventSeries));
+        }
+        materialized.forEach(this::append);
+        changed = true;
+      }
+    }
+    return changed;
+  }
+
+  public boolean detachOccurrence(String eventName, LocalDateTime startDateTime,
+                                  LocalDateTime endDateTime) {
+    LocalDate date = startDateTime.toLocalDate();
+    for (EventSeries eventSeries : series) {
+      if (!eventSeries.getEventName().equals(eventName)) {
+        continue;
+      }
+      for (CalendarEvent occurrence : eventSeries.occurrencesBetween(dayBefore(date),
+          dayAfter(date))) {
+        LocalDate seriesDate = occurrence.getStartDateTime().toLocalDate();
+        occurrence.showIn(zone);
+        if (occurrence.getStartDateTime().equals(startDateTime)
+            && occurrence.getEndDateTime().equals(endDateTime)) {
+          eventSeries.exclude(seriesDate);
+          changes.touched(key(eventSeries));
+          append(occurrence);
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Adds the series occurrences that fall in the window and satisfy the filter to the
+   * stored events, keeping the result in start-time order.
+   */
+  private List<ICalendarEvent> withOccurrences(List<ICalendarEvent> stored,
+                                               LocalDateTime fromDateTime,
+                                               LocalDateTime toDateTime,
+                                               Predicate<ICalendarEvent> filter) {
+    if (series.isEmpty()) {
+      return stored;
+    }
+    List<ICalendarEvent> occurrences = new ArrayList<>();
+    for (EventSeries eventSeries : series) {
+      addOccurrences(eventSeries, fromDateTime, toDateTime, filter, occurrences);
+    }
+    if (occurrences.isEmpty()) {
+      return stored;
+    }
+    List<ICalendarEvent> merged = new ArrayList<>(stored);
+    merged.addAll(occurrences);
+    merged.sort(Comparator.comparing(ICalendarEvent::getStartDateTime));
+    return merged;
+  }
+
+  private void addOccurrences(EventSeries eventSeries, LocalDateTime fromDateTime,
+                              LocalDateTime toDateTime, Predicate<ICalendarEvent> filter,
+                              List<ICalendarEvent> occurrences) {
+    // Offsets between zones are under a day, so a day of slack on each side covers
+    // occurrences that move across midnight when shown in this calendar's zone.
+    LocalDate from = dayBefore(fromDateTime.toLocalDate());
+    LocalDate to = dayAfter(toDateTime.toLocalDate());
+    for (CalendarEvent occurrence : eventSeries.occurrencesBetween(from, to)) {
+      occurrence.showIn(zone);
+      if (filter.test(occurrence)) {
+        occurrences.add(occurrence);
+      }
+    }
+  }
+
+  private static LocalDate dayBefore(LocalDate date) {
+    return date.equals(LocalDate.MIN) ? date : date.minusDays(1);
+  }
+
+  private static LocalDate dayAfter(LocalDate date) {
+    return date.equals(LocalDate.MAX) ? date : date.plusDays(1);
+  }
+}
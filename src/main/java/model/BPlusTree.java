@@ -0,0 +1,338 @@
+package model;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A B+tree of fixed-length keys and values made of longs, kept in the pages of a
+ * {@link PageFile}.
+ * <p>
+ * Keys are compared long by long, so a key such as {@code (calendar, start, id)} orders
+ * entries by calendar, then start, then id. Leaves are linked in key order, and a
+ * {@link Cursor} walks them one page at a time, so a range scan holds a single page however
+ * many entries it visits. Pages are not merged when entries are removed; a page left empty
+ * is skipped by scans and filled again by later inserts into its key range.
+ * </p>
+ * <p>
+ * Page layout: a type byte, the entry count at offset 4 and a link at offset 8, then the
+ * entries. A leaf's link is the next leaf, or -1; its entries are a key and a value. An
+ * inner page's link is its first child; its entries are a separator key and the child
+ * holding the keys from that separator on.
+ * </p>
+ */
+class BPlusTree {
+  private static final int HEADER = 16;
+  private static final int COUNT = 4;
+  private static final int LINK = 8;
+  private static final byte LEAF = 0;
+  private static final byte INNER = 1;
+  private static final long NONE = -1;
+
+  private final PageFile pages;
+  private final int keyLength;
+  private final int valueLength;
+  private final int leafEntry;
+  private final int innerEntry;
+  private final int leafCapacity;
+  private final int innerCapacity;
+  private long root;
+  private long size;
+
+  // Set by insert when the page it changed split
+  private long[] splitKey;
+  private long splitPage;
+  private boolean added;
+
+  /**
+   * Creates an empty tree in new pages of {@code pages}.
+   *
+   * @param keyLength   the number of longs in a key
+   * @param valueLength the number of longs in a value, possibly none
+   */
+  BPlusTree(PageFile pages, int keyLength, int valueLength) {
+    this.pages = pages;
+    this.keyLength = keyLength;
+    this.valueLength = valueLength;
+    this.leafEntry = 8 * (keyLength + valueLength);
+    this.innerEntry = 8 * (keyLength + 1);
+    this.leafCapacity = (PageFile.PAGE_SIZE - HEADER) / leafEntry;
+    this.innerCapacity = (PageFile.PAGE_SIZE - HEADER) / innerEntry;
+    if (keyLength < 1 || valueLength < 0 || leafCapacity < 3) {
+      throw new IllegalArgumentException("Entries of " + keyLength + " and " + valueLength
+          + " longs do not fit a page.");
+    }
+    this.root = newPage(LEAF, NONE);
+  }
+
+  long size() {
+    return size;
+  }
+
+  /**
+   * Copies the value stored under {@code key} into {@code value}.
+   *
+   * @return false if the tree holds no such key
+   */
+  boolean get(long[] key, long[] value) {
+    long pageId = leafFor(key);
+    ByteBuffer page = pages.read(pageId);
+    int count = page.getInt(COUNT);
+    int index = lowerBound(page, count, key, LEAF);
+    if (index == count || compare(page, leafOffset(index), key) != 0) {
+      return false;
+    }
+    readLongs(page, leafOffset(index) + 8 * keyLength, value, valueLength);
+    return true;
+  }
+
+  /**
+   * Stores {@code value} under {@code key}, replacing the value the key had.
+   *
+   * @return true if the key is new
+   */
+  boolean put(long[] key, long[] value) {
+    if (insert(root, key, value)) {
+      long newRoot = newPage(INNER, root);
+      ByteBuffer page = pages.write(newRoot);
+      writeLongs(page, HEADER, splitKey, keyLength);
+      page.putLong(HEADER + 8 * keyLength, splitPage);
+      page.putInt(COUNT, 1);
+      root = newRoot;
+    }
+    if (added) {
+      size++;
+    }
+    return added;
+  }
+
+  /**
+   * Removes {@code key} and its value.
+   *
+   * @return false if the tree holds no such key
+   */
+  boolean remove(long[] key) {
+    long pageId = leafFor(key);
+    ByteBuffer page = pages.read(pageId);
+    int count = page.getInt(COUNT);
+    int index = lowerBound(page, count, key, LEAF);
+    if (index == count || compare(page, leafOffset(index), key) != 0) {
+      return false;
+    }
+    page = pages.write(pageId);
+    byte[] bytes = page.array();
+    System.arraycopy(bytes, leafOffset(index + 1), bytes, leafOffset(index),
+        (count - index - 1) * leafEntry);
+    page.putInt(COUNT, count - 1);
+    size--;
+    return true;
+  }
+
+  /**
+   * Returns a cursor at the first entry whose key is {@code from} or after it.
+   */
+  Cursor seek(long[] from) {
+    long pageId = leafFor(from);
+    ByteBuffer page = pages.read(pageId);
+    return new Cursor(pageId, lowerBound(page, page.getInt(COUNT), from, LEAF));
+  }
+
+  /**
+   * Walks the entries in key order. A cursor must not be used after the tree changes.
+   */
+  final class Cursor {
+    private long pageId;
+    private int index;
+
+    private Cursor(long pageId, int index) {
+      this.pageId = pageId;
+      this.index = index;
+    }
+
+    /**
+     * Copies the next entry into {@code key} and {@code value} and moves past it.
+     *
+     * @return false if there are no more entries
+     */
+    boolean next(long[] key, long[] value) {
+      while (pageId != NONE) {
+        ByteBuffer page = pages.read(pageId);
+        if (index < page.getInt(COUNT)) {
+          int offset = leafOffset(index++);
+          readLongs(page, offset, key, keyLength);
+          readLongs(page, offset + 8 * keyLength, value, valueLength);
+          return true;
+        }
+        pageId = page.getLong(LINK);
+        index = 0;
+      }
+      return false;
+    }
+  }
+
+  // Inserts into the subtree at pageId; returns true if the page split, leaving the new
+  // page and its first key in splitPage and splitKey
+  private boolean insert(long pageId, long[] key, long[] value) {
+    ByteBuffer page = pages.read(pageId);
+    if (page.get(0) == LEAF) {
+      return insertIntoLeaf(pageId, key, value);
+    }
+    int slot = lowerBound(page, page.getInt(COUNT), key, INNER);
+    if (!insert(child(page, slot), key, value)) {
+      return false;
+    }
+    // The descent used other pages, so fetch this one again
+    page = pages.write(pageId);
+    int count = page.getInt(COUNT);
+    long[] childKey = splitKey;
+    long childPage = splitPage;
+    if (count < innerCapacity) {
+      insertSeparator(page, count, slot, childKey, childPage);
+      return false;
+    }
+    // Moves the upper half to a new page; the middle separator goes up to the parent
+    int middle = count / 2;
+    long rightId = newPage(INNER, NONE);
+    ByteBuffer right = pages.write(rightId);
+    page = pages.write(pageId);
+    long[] up = new long[keyLength];
+    readLongs(page, innerOffset(middle), up, keyLength);
+    right.putLong(LINK, page.getLong(innerOffset(middle) + 8 * keyLength));
+    System.arraycopy(page.array(), innerOffset(middle + 1), right.array(), HEADER,
+        (count - middle - 1) * innerEntry);
+    right.putInt(COUNT, count - middle - 1);
+    page.putInt(COUNT, middle);
+    if (slot <= middle) {
+      insertSeparator(page, middle, slot, childKey, childPage);
+    } else {
+      insertSeparator(right, count - middle - 1, slot - middle - 1, childKey, childPage);
+    }
+    splitKey = up;
+    splitPage = rightId;
+    return true;
+  }
+
+  private boolean insertIntoLeaf(long pageId, long[] key, long[] value) {
+    ByteBuffer page = pages.write(pageId);
+    int count = page.getInt(COUNT);
+    int index = lowerBound(page, count, key, LEAF);
+    if (index < count && compare(page, leafOffset(index), key) == 0) {
+      writeLongs(page, leafOffset(index) + 8 * keyLength, value, valueLength);
+      added = false;
+      return false;
+    }
+    added = true;
+    if (count < leafCapacity) {
+      insertEntry(page, count, index, key, value);
+      return false;
+    }
+    // Keys arriving in order split off an empty page, so ordered loads fill pages fully
+    int middle = index == count ? count : count / 2;
+    long rightId = newPage(LEAF, NONE);
+    ByteBuffer right = pages.write(rightId);
+    page = pages.write(pageId);
+    System.arraycopy(page.array(), leafOffset(middle), right.array(), HEADER,
+        (count - middle) * leafEntry);
+    right.putInt(COUNT, count - middle);
+    right.putLong(LINK, page.getLong(LINK));
+    page.putInt(COUNT, middle);
+    page.putLong(LINK, rightId);
+    if (index < middle) {
+      insertEntry(page, middle, index, key, value);
+    } else {
+      insertEntry(right, count - middle, index - middle, key, value);
+    }
+    splitKey = new long[keyLength];
+    readLongs(right, HEADER, splitKey, keyLength);
+    splitPage = rightId;
+    return true;
+  }
+
+  private void insertEntry(ByteBuffer page, int count, int index, long[] key, long[] value) {
+    byte[] bytes = page.array();
+    System.arraycopy(bytes, leafOffset(index), bytes, leafOffset(index + 1),
+        (count - index) * leafEntry);
+    writeLongs(page, leafOffset(index), key, keyLength);
+    writeLongs(page, leafOffset(index) + 8 * keyLength, value, valueLength);
+    page.putInt(COUNT, count + 1);
+  }
+
+  private void insertSeparator(ByteBuffer page, int count, int index, long[] key,
+                               long child) {
+    byte[] bytes = page.array();
+    System.arraycopy(bytes, innerOffset(index), bytes, innerOffset(index + 1),
+        (count - index) * innerEntry);
+    writeLongs(page, innerOffset(index), key, keyLength);
+    page.putLong(innerOffset(index) + 8 * keyLength, child);
+    page.putInt(COUNT, count + 1);
+  }
+
+  private long leafFor(long[] key) {
+    long pageId = root;
+    ByteBuffer page = pages.read(pageId);
+    while (page.get(0) == INNER) {
+      pageId = child(page, lowerBound(page, page.getInt(COUNT), key, INNER));
+      page = pages.read(pageId);
+    }
+    return pageId;
+  }
+
+  // In a leaf, the first entry not below key; in an inner page, the number of separators
+  // not above key, which is the child to descend into
+  private int lowerBound(ByteBuffer page, int count, long[] key, byte type) {
+    int low = 0;
+    int high = count;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      int comparison = type == LEAF ? compare(page, leafOffset(middle), key)
+          : compare(page, innerOffset(middle), key);
+      if (comparison < 0 || (type == INNER && comparison == 0)) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  private long child(ByteBuffer page, int slot) {
+    return slot == 0 ? page.getLong(LINK) : page.getLong(innerOffset(slot - 1) + 8 * keyLength);
+  }
+
+  private int compare(ByteBuffer page, int offset, long[] key) {
+    for (int i = 0; i < keyLength; i++) {
+      int comparison = Long.compare(page.getLong(offset + 8 * i), key[i]);
+      if (comparison != 0) {
+        return comparison;
+      }
+    }
+    return 0;
+  }
+
+  private long newPage(byte type, long link) {
+    long pageId = pages.allocate();
+    ByteBuffer page = pages.write(pageId);
+    page.put(0, type);
+    page.putInt(COUNT, 0);
+    page.putLong(LINK, link);
+    return pageId;
+  }
+
+  private int leafOffset(int index) {
+    return HEADER + index * leafEntry;
+  }
+
+  private int innerOffset(int index) {
+    return HEADER + index * innerEntry;
+  }
+
+  private static void readLongs(ByteBuffer page, int offset, long[] target, int length) {
+    for (int i = 0; i < length; i++) {
+      target[i] = page.getLong(offset + 8 * i);
+    }
+  }
+
+  private static void writeLongs(ByteBuffer page, int offset, long[] source, int length) {
+    for (int i = 0; i < length; i++) {
+      page.putLong(offset + 8 * i, source[i]);
+    }
+  }
+}
@@ -1,73 +1,40 @@
 package model;
 
-import java.time.ZoneId;
-import java.time.ZonedDateTime;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
  * Represents an individual calendar with a unique name, associated timezone,
- * and its own list of events.
+ * and its own list of events. Events are additionally kept in an
+ * {@link EventIntervalTree} so that range and point queries do not scan the list, and in
+ * an {@link EventNameIndex} so that edits find the events they name without a scan.
+ * A {@link LongIntHashMap} from event ids to list positions finds an event by id in
+ * constant time.
+ * Recurring events are kept as {@link EventSeries} rules and only expanded into
+ * occurrences for the window a query asks for. Stored events share the calendar's
+ * {@link CalendarZone}, so a timezone change does not touch them.
  */
-class Calendar implements ICalendar {
-  private String calendarName;
-  private String timezone;
+class Calendar extends AbstractCalendar {
   private List<ICalendarEvent> events;
+  private final EventIntervalTree index = new EventIntervalTree();
+  private final EventNameIndex<CalendarEvent> names = new EventNameIndex<>();
+  private final LongIntHashMap positions = new LongIntHashMap();
 
   private Calendar(Builder builder) {
-    this.calendarName = builder.calendarName;
-    this.timezone = builder.timezone;
-    this.events = new ArrayList<>(builder.events);
+    super(builder.calendarName, builder.timezone, builder.dictionary, builder.eventIds);
+    this.events = new ArrayList<>();
+    builder.events.forEach(event -> append((CalendarEvent) event));
   }
 
   public static Builder builder() {
     return new Calendar.Builder();
   }
 
-  // Getters and setters
-  public String getCalendarName() {
-    return calendarName;
-  }
-
-  public void setCalendarName(String calendarName) {
-    this.calendarName = calendarName;
-  }
-
-  public String getTimezone() {
-    return timezone;
-  }
-
-  public void setTimezone(String newTimezone) {
-    List<ICalendarEvent> updatedEvents = new ArrayList<>();
-
-    ZoneId oldZone = ZoneId.of(this.timezone);
-    ZoneId newZone = ZoneId.of(newTimezone);
-
-
-    for (ICalendarEvent event : events) {
-      ZonedDateTime oldStartZoned = event.getStartDateTime().atZone(oldZone);
-      ZonedDateTime newStartZoned = oldStartZoned.withZoneSameInstant(newZone);
-
-      ZonedDateTime oldEndZoned = event.getEndDateTime().atZone(oldZone);
-      ZonedDateTime newEndZoned = oldEndZoned.withZoneSameInstant(newZone);
-
-      ICalendarEvent updated = ICalendarEvent.builder()
-          .setEventName(event.getEventName())
-          .setStartDateTime(newStartZoned.toLocalDateTime())
-          .setEndDateTime(newEndZoned.toLocalDateTime())
-          .setEventDescription(event.getEventDescription())
-          .setEventLocation(event.getEventLocation())
-          .setPublic(event.isPublic())
-          .build();
-
-      updatedEvents.add(updated);
-    }
-
-    this.events = updatedEvents;
-    this.timezone = newTimezone;
-  }
-
   public List<ICalendarEvent> getEventsCopy() {
     return this.events.stream()
         .map(event -> CalendarEvent.builder()
@@ -83,20 +50,123 @@ class Calendar implements ICalendar {
 
 
   public List<ICalendarEvent> getEvents() {
-    return events;
+    return Collections.unmodifiableList(events);
   }
 
+  // CalendarEvent is the only event implementation; adopting it keeps its wall-clock times
   public void setEvents(List<ICalendarEvent> events) {
-
-    this.events = new ArrayList<>(events);
+    this.events.forEach(event -> recordRemoval(event.getEventId()));
+    this.events.forEach(event -> ((CalendarEvent) event).decode());
+    this.events = new ArrayList<>(events.size());
+    index.clear();
+    names.clear();
+    positions.clear();
+    events.forEach(event -> append((CalendarEvent) event));
   }
 
   public void addEvents(List<CalendarEvent> events) {
-    this.events.addAll(events);
+    events.forEach(this::append);
   }
 
   public void addEvent(CalendarEvent event) {
-    this.events.add(event);
+    append(event);
+  }
+
+  public void truncateEvents(int size) {
+    while (events.size() > size) {
+      recordRemoval(events.get(events.size() - 1).getEventId());
+      CalendarEvent event = (CalendarEvent) events.remove(events.size() - 1);
+      index.remove(event);
+      names.remove(event);
+      positions.remove(event.getEventId());
+      event.decode();
+    }
+  }
+
+  public ICalendarEvent getEventById(long eventId) {
+    int position = positions.get(eventId);
+    return position == LongIntHashMap.MISSING ? null : events.get(position);
+  }
+
+  public int removeEvent(long eventId) {
+    int position = positions.get(eventId);
+    if (position == LongIntHashMap.MISSING) {
+      return -1;
+    }
+    recordRemoval(eventId);
+    positions.remove(eventId);
+    CalendarEvent event = (CalendarEvent) events.get(position);
+    CalendarEvent last = (CalendarEvent) events.remove(events.size() - 1);
+    if (last != event) {
+      events.set(position, last);
+      positions.put(last.getEventId(), position);
+    }
+    index.remove(event);
+    names.remove(event);
+    event.decode();
+    return position;
+  }
+
+  public void restoreEvent(CalendarEvent event, int position) {
+    append(event);
+    int last = events.size() - 1;
+    if (position < last) {
+      CalendarEvent moved = (CalendarEvent) events.get(position);
+      events.set(position, event);
+      events.set(last, moved);
+      positions.put(event.getEventId(), position);
+      positions.put(moved.getEventId(), last);
+    }
+  }
+
+  public void reindexEvent(ICalendarEvent event) {
+    CalendarEvent stored = (CalendarEvent) event;
+    changes.touched(stored.getEventId());
+    index.reindex(stored);
+    names.reindex(stored, stored.getEventName(), stored.getStartInstant());
+  }
+
+  protected List<ICalendarEvent> storedInRange(Instant from, Instant to) {
+    return index.queryRange(from, to);
+  }
+
+  protected List<ICalendarEvent> storedAt(Instant instant) {
+    return index.queryAt(instant);
+  }
+
+  protected List<ICalendarEvent> storedOverlapping(Instant from, Instant to) {
+    return index.queryOverlapping(from, to);
+  }
+
+  protected List<ICalendarEvent> storedNamed(String name, Instant from, Instant to) {
+    return new ArrayList<>(names.query(name, from, to));
+  }
+
+  protected void forEachStored(Consumer<? super ICalendarEvent> action) {
+    index.forEach(action);
+  }
+
+  protected void append(CalendarEvent event) {
+    event.bindTo(zone);
+    event.encodeWith(dictionary);
+    events.add(event);
+    positions.put(idOf(event), events.size() - 1);
+    index.insert(event);
+    names.insert(event, event.getEventName(), event.getStartInstant());
+  }
+
+  protected List<CalendarSnapshot.FrozenEvent> frozenEvents() {
+    List<CalendarSnapshot.FrozenEvent> frozen = new ArrayList<>(events.size());
+    for (ICalendarEvent event : events) {
+      frozen.add(CalendarSnapshot.FrozenEvent.of((CalendarEvent) event));
+    }
+    frozen.sort(Comparator.comparing(CalendarSnapshot.FrozenEvent::getStart));
+    return frozen;
+  }
+
+  public CalendarSnapshot.FrozenEvent frozenEvent(long eventId) {
+    ICalendarEvent event = getEventById(eventId);
+    return event == null ? null : CalendarSnapshot.FrozenEvent.of((CalendarEvent) event);
   }
 
   /**
@@ -105,6 +175,8 @@ class Calendar implements ICalendar {
   public static class Builder implements ICalendarBuilder<Calendar> {
     private String calendarName;
     private String timezone;
+    private StringDictionary dictionary;
+    private EventIds eventIds;
     private List<ICalendarEvent> events = new ArrayList<>();
 
     /**
@@ -134,6 +206,16 @@ class Calendar implements ICalendar {
       return this;
     }
 
+    public Builder setDictionary(StringDictionary dictionary) {
+      this.dictionary = dictionary;
+      return this;
+    }
+
+    public Builder setEventIds(EventIds eventIds) {
+      this.eventIds = eventIds;
+      return this;
+    }
+
     /**
      * Builds and returns a new Calendar instance.
      *
@@ -1,20 +1,47 @@
 package model;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
 
+/**
+ * The model's mutable event.
+ * <p>
+ * Start and end are stored as instants together with the {@link CalendarZone} the event
+ * is shown in; the date-time getters and setters convert at the boundary. Events built on
+ * their own are detached until a calendar adopts them with {@link #bindTo}.
+ * </p>
+ * <p>
+ * Once a calendar stores the event it also calls {@link #encodeWith}: the name, description
+ * and location are then held as ids of the model's {@link StringDictionary} instead of as
+ * strings of their own. Detached events keep plain strings.
+ * </p>
+ * <p>
+ * The first calendar that stores the event also gives it an id from the model's
+ * {@link EventIds}. The event keeps the id when it is removed and put back, so undoing a
+ * deletion restores the event under the id it had.
+ * </p>
+ */
 
-class CalendarEvent implements ICalendarEvent {
+class CalendarEvent implements ICalendarEvent, IEncodedEvent {
   private String eventName;
-  private LocalDateTime startDateTime;
-  private LocalDateTime endDateTime;
+  private Instant start;
+  private Instant end;
+  private CalendarZone zone;
   private String eventDescription;
   private String eventLocation;
   private boolean isPublic;
+  private StringDictionary strings;
+  private int nameId;
+  private int descriptionId;
+  private int locationId;
+  private long eventId;
 
   private CalendarEvent(Builder builder) {
     this.eventName = builder.eventName;
-    this.startDateTime = builder.startDateTime;
-    this.endDateTime = builder.endDateTime;
+    this.zone = CalendarZone.DETACHED;
+    this.start = zone.toInstant(builder.startDateTime);
+    this.end = zone.toInstant(builder.endDateTime);
     this.eventDescription = builder.eventDescription;
     this.eventLocation = builder.eventLocation;
     this.isPublic = builder.isPublic;
@@ -24,6 +51,23 @@ class CalendarEvent implements ICalendarEvent {
     return new Builder();
   }
 
+  /**
+   * Returns a detached copy of {@code event} that keeps its id, so it can be stored again in
+   * the event's place.
+   */
+  static CalendarEvent copyOf(IReadOnlyCalendarEvent event) {
+    CalendarEvent copy = builder()
+        .setEventName(event.getEventName())
+        .setStartDateTime(event.getStartDateTime())
+        .setEndDateTime(event.getEndDateTime())
+        .setEventDescription(event.getEventDescription())
+        .setEventLocation(event.getEventLocation())
+        .setPublic(event.isPublic())
+        .build();
+    copy.eventId = event.getEventId();
+    return copy;
+  }
+
   public static class Builder implements ICalendarEventBuilder<CalendarEvent> {
     private String eventName;
     private LocalDateTime startDateTime;
@@ -75,23 +119,115 @@ class CalendarEvent implements ICalendarEvent {
   }
 
   public String getEventName() {
-    return eventName;
+    return strings == null ? eventName : strings.valueOf(nameId);
   }
 
   public LocalDateTime getStartDateTime() {
-    return startDateTime;
+    return zone.toLocalDateTime(start);
   }
 
   public LocalDateTime getEndDateTime() {
-    return endDateTime;
+    return zone.toLocalDateTime(end);
+  }
+
+  public long getEventId() {
+    return eventId;
+  }
+
+  void setEventId(long eventId) {
+    this.eventId = eventId;
+  }
+
+  Instant getStartInstant() {
+    return start;
+  }
+
+  Instant getEndInstant() {
+    return end;
+  }
+
+  CalendarZone getZone() {
+    return zone;
+  }
+
+  /**
+   * Moves the event into a calendar's zone, keeping its wall-clock start and end. A start
+   * that falls in a daylight-saving gap is pushed forward by the length of the gap, and the
+   * end moves with it so the event keeps its length.
+   *
+   * @param calendarZone the zone of the calendar the event now belongs to
+   */
+  void bindTo(CalendarZone calendarZone) {
+    if (zone == calendarZone) {
+      return;
+    }
+    LocalDateTime startDateTime = getStartDateTime();
+    LocalDateTime endDateTime = getEndDateTime();
+    zone = calendarZone;
+    start = zone.toInstant(startDateTime);
+    if (start != null && endDateTime != null) {
+      endDateTime = endDateTime.plus(
+          Duration.between(startDateTime, zone.toLocalDateTime(start)));
+    }
+    end = zone.toInstant(endDateTime);
+  }
+
+  /**
+   * Shows the event in another zone, keeping the instants it starts and ends at.
+   *
+   * @param viewZone the zone the date-time getters should use from now on
+   */
+  void showIn(CalendarZone viewZone) {
+    zone = viewZone;
   }
 
   public String getEventDescription() {
-    return eventDescription;
+    return strings == null ? eventDescription : strings.valueOf(descriptionId);
   }
 
   public String getEventLocation() {
-    return eventLocation;
+    return strings == null ? eventLocation : strings.valueOf(locationId);
+  }
+
+  public int getNameId(StringDictionary dictionary) {
+    return strings == dictionary ? nameId : dictionary.find(getEventName());
+  }
+
+  /**
+   * Stores the event's strings as references into {@code dictionary}. An event that was
+   * encoded with another dictionary gives up its references there first.
+   *
+   * @param dictionary the dictionary of the model the event now belongs to
+   */
+  void encodeWith(StringDictionary dictionary) {
+    if (strings == dictionary) {
+      return;
+    }
+    decode();
+    nameId = dictionary.acquire(eventName);
+    descriptionId = dictionary.acquire(eventDescription);
+    locationId = dictionary.acquire(eventLocation);
+    strings = dictionary;
+    eventName = null;
+    eventDescription = null;
+    eventLocation = null;
+  }
+
+  /**
+   * Gives up the event's dictionary references and goes back to plain strings. Calendars
+   * call this when they stop storing the event.
+   */
+  void decode() {
+    if (strings == null) {
+      return;
+    }
+    eventName = strings.valueOf(nameId);
+    eventDescription = strings.valueOf(descriptionId);
+    eventLocation = strings.valueOf(locationId);
+    strings.release(nameId);
+    strings.release(descriptionId);
+    strings.release(locationId);
+    strings = null;
   }
 
   public boolean isPublic() {
@@ -99,23 +235,42 @@ class CalendarEvent implements ICalendarEvent {
   }
 
   public void setEventName(String eventName) {
-    this.eventName = eventName;
+    if (strings == null) {
+      this.eventName = eventName;
+    } else {
+      nameId = replace(nameId, eventName);
+    }
   }
 
   public void setStartDateTime(LocalDateTime startDateTime) {
-    this.startDateTime = startDateTime;
+    this.start = zone.toInstant(startDateTime);
   }
 
   public void setEndDateTime(LocalDateTime endDateTime) {
-    this.endDateTime = endDateTime;
+    this.end = zone.toInstant(endDateTime);
   }
 
   public void setEventDescription(String eventDescription) {
-    this.eventDescription = eventDescription;
+    if (strings == null) {
+      this.eventDescription = eventDescription;
+    } else {
+      descriptionId = replace(descriptionId, eventDescription);
+    }
   }
 
   public void setEventLocation(String eventLocation) {
-    this.eventLocation = eventLocation;
+    if (strings == null) {
+      this.eventLocation = eventLocation;
+    } else {
+      locationId = replace(locationId, eventLocation);
+    }
+  }
+
+  // Acquire before releasing so an unchanged value never drops out of the dictionary
+  private int replace(int oldId, String value) {
+    int newId = strings.acquire(value);
+    strings.release(oldId);
+    return newId;
   }
 
   public void setPublic(boolean isPublic) {
@@ -1,7 +1,10 @@
 package model;
 
 import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -21,10 +24,12 @@ public class CalendarEventDTO implements ICalendarEventDTO {
   private List<DayOfWeek> recurrenceDays;
   private Integer recurrenceCount;
   private LocalDateTime recurrenceEndDate;
+  private List<LocalDate> recurrenceExceptions;
   private Boolean autoDecline;
   private String eventDescription;
   private String eventLocation;
   private Boolean isPrivate;
+  private Long eventId;
 
   static CalendarEventDTOBuilder builder() {
     return new CalendarEventDTOBuilder();
@@ -38,10 +43,12 @@ public class CalendarEventDTO implements ICalendarEventDTO {
     this.recurrenceDays = builder.recurrenceDays;
     this.recurrenceCount = builder.recurrenceCount;
     this.recurrenceEndDate = builder.recurrenceEndDate;
+    this.recurrenceExceptions = builder.recurrenceExceptions;
     this.autoDecline = builder.autoDecline;
     this.eventDescription = builder.eventDescription;
     this.eventLocation = builder.eventLocation;
     this.isPrivate = builder.isPrivate;
+    this.eventId = builder.eventId;
   }
 
   static class CalendarEventDTOBuilder implements ICalendarEventDTOBuilder<CalendarEventDTO> {
@@ -52,11 +59,12 @@ public class CalendarEventDTO implements ICalendarEventDTO {
     private List<DayOfWeek> recurrenceDays;
     private Integer recurrenceCount;
     private LocalDateTime recurrenceEndDate;
+    private List<LocalDate> recurrenceExceptions = Collections.emptyList();
     private Boolean autoDecline = false;
     private String eventDescription = "";
     private String eventLocation = "";
     private Boolean isPrivate = false;
-
+    private Long eventId;
 
     public CalendarEventDTOBuilder setEventName(String eventName) {
       this.eventName = eventName;
@@ -93,6 +101,14 @@ public class CalendarEventDTO implements ICalendarEventDTO {
       return this;
     }
 
+    public CalendarEventDTOBuilder setRecurrenceExceptions(
+        List<LocalDate> recurrenceExceptions) {
+      List<LocalDate> sorted = new ArrayList<>(recurrenceExceptions);
+      Collections.sort(sorted);
+      this.recurrenceExceptions = Collections.unmodifiableList(sorted);
+      return this;
+    }
+
     public CalendarEventDTOBuilder setAutoDecline(Boolean autoDecline) {
       this.autoDecline = autoDecline;
       return this;
@@ -113,6 +129,11 @@ public class CalendarEventDTO implements ICalendarEventDTO {
       return this;
     }
 
+    public CalendarEventDTOBuilder setEventId(Long eventId) {
+      this.eventId = eventId;
+      return this;
+    }
+
     @Override
     public CalendarEventDTO build() {
       validateEventData();
@@ -171,7 +192,8 @@ public class CalendarEventDTO implements ICalendarEventDTO {
       } else {
         // Non-recurring events should not have recurrence parameters
         if (recurrenceCount != null || recurrenceEndDate != null ||
-              (recurrenceDays != null && !recurrenceDays.isEmpty())) {
+              (recurrenceDays != null && !recurrenceDays.isEmpty())
+              || !recurrenceExceptions.isEmpty()) {
           throw new IllegalStateException("Non-recurring events should not have recurrence parameters");
         }
       }
@@ -206,6 +228,11 @@ public class CalendarEventDTO implements ICalendarEventDTO {
     return recurrenceEndDate;
   }
 
+  @Override
+  public List<LocalDate> getRecurrenceExceptions() {
+    return recurrenceExceptions;
+  }
+
   public Boolean isAutoDecline() {
     return autoDecline;
   }
@@ -221,4 +248,8 @@ public class CalendarEventDTO implements ICalendarEventDTO {
   public Boolean isPrivate() {
     return isPrivate;
   }
+
+  public Long getEventId() {
+    return eventId;
+  }
 }
@@ -1,5 +1,7 @@
 package model;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -8,10 +10,13 @@ import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Iterator;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
 /**
@@ -20,9 +25,40 @@ import java.util.stream.Collectors;
  */
 class CalendarModel implements ICalendarModel {
   private List<ICalendar> calendars;
+  private final Supplier<ICalendarBuilder<?>> calendarFactory;
+  private final StringDictionary dictionary = new StringDictionary();
+  private final EventIds eventIds = new EventIds();
+  private final AtomicReference<ModelSnapshot> published =
+        new AtomicReference<>(ModelSnapshot.EMPTY);
+  private UndoLog transaction;
+  private final boolean versioned;
 
   public CalendarModel() {
-    this.calendars = new ArrayList<>();
+    this(Calendar::builder);
+  }
+
+  /**
+   * Creates a model whose calendars are built by the given factory, which decides how the
+   * calendars store their events.
+   *
+   * @param calendarFactory supplies a fresh builder for every new calendar
+   */
+  public CalendarModel(Supplier<ICalendarBuilder<?>> calendarFactory) {
+    this(calendarFactory, new ArrayList<>());
+  }
+
+  /**
+   * Creates a model that keeps its calendars in the given list, so subclasses can choose a
+   * list that is safe to read while it is modified.
+   *
+   * @param calendarFactory supplies a fresh builder for every new calendar
+   * @param calendars       an empty list to hold the calendars
+   */
+  protected CalendarModel(Supplier<ICalendarBuilder<?>> calendarFactory,
+                          List<ICalendar> calendars) {
+    this.calendars = calendars;
+    this.calendarFactory = calendarFactory;
+    this.versioned = !calendarFactory.get().isCompact();
   }
 
   @Override
@@ -43,11 +79,18 @@ class CalendarModel implements ICalendarModel {
     }
 
 
-    Calendar newCalendar = Calendar.builder()
+    ICalendar newCalendar = calendarFactory.get()
         .setCalendarName(calName)
         .setTimezone(timezone)
+        .setDictionary(dictionary)
+        .setEventIds(eventIds)
         .build();
     calendars.add(newCalendar);
+    if (transaction != null) {
+      transaction.record(() -> calendars.remove(newCalendar));
+    }
+    CalendarSnapshot snapshot = newCalendar.snapshot();
+    publish(model -> model.adding(snapshot));
     return true;
   }
 
@@ -90,29 +133,40 @@ class CalendarModel implements ICalendarModel {
   }
 
   /**
-   * Adds a recurring event to the calendar, handling all occurrences.
+   * Adds a recurring event to the calendar as a single series rule.
    *
    * @param calendar the calendar to add the event to
    * @param eventDTO the recurring event data
    * @throws IllegalStateException if there are conflicts
    */
   private void addRecurringEvent(ICalendar calendar, ICalendarEventDTO eventDTO) {
-    List<CalendarEvent> occurrences = generateRecurringOccurrences(eventDTO);
-
-    // Check for conflicts if auto-decline is enabled
-    if (eventDTO.isAutoDecline()) {
-      for (CalendarEvent occurrence : occurrences) {
-        for (ICalendarEvent existingEvent : calendar.getEvents()) {
-          if (existingEvent.doesEventConflict(occurrence)) {
-            throw new IllegalStateException("Conflict detected on " +
-                  occurrence.getStartDateTime() + ", event not created");
-          }
+    EventSeries series = new EventSeries(eventDTO, ZoneId.of(calendar.getTimezone()));
+
+    // Check for conflicts if auto-decline is enabled. Each event in the series' span is
+    // tested against the rule, so the occurrences are never built.
+    if (eventDTO.isAutoDecline() && !series.isEmpty()) {
+      LocalDateTime firstConflict = null;
+      for (ICalendarEvent existing : calendar.getEventsOverlapping(
+          LocalDateTime.of(series.getFirstDate(), series.getStartTime()),
+          LocalDateTime.of(series.getLastDate(), series.getEndTime()))) {
+        LocalDateTime overlap = series.firstOverlap(existing.getStartDateTime(),
+            existing.getEndDateTime());
+        if (overlap != null && (firstConflict == null || overlap.isBefore(firstConflict))) {
+          firstConflict = overlap;
         }
       }
+      if (firstConflict != null) {
+        throw new IllegalStateException("Conflict detected on " + firstConflict +
+              ", event not created");
+      }
     }
 
-    // Add all occurrences
-    calendar.addEvents(occurrences);
+    if (transaction != null) {
+      transaction.recordSeries(calendar);
+    }
+    calendar.addSeries(series);
+    List<EventSeries> allSeries = calendar.getSeries();
+    publish(model -> model.updating(calendar, snapshot -> snapshot.withSeries(allSeries)));
   }
 
   /**
@@ -124,22 +178,44 @@ class CalendarModel implements ICalendarModel {
    */
   private void addSingleEvent(ICalendar calendar, ICalendarEventDTO eventDTO) {
     // Check for conflicts if auto-decline is enabled
-    if (eventDTO.isAutoDecline() && doesEventConflict(calendar.getEvents(), eventDTO)) {
+    if (eventDTO.isAutoDecline() && hasConflict(calendar, eventDTO.getStartDateTime(),
+        eventDTO.getEndDateTime(), null)) {
       throw new IllegalStateException("Conflict detected, event not created");
     }
 
     // Create and add the event
     CalendarEvent event = createSingleEvent(eventDTO);
+    if (transaction != null) {
+      transaction.recordAppends(calendar);
+    }
     calendar.addEvent(event);
+    CalendarSnapshot.FrozenEvent frozen = CalendarSnapshot.FrozenEvent.of(event);
+    publish(model -> model.updating(calendar, snapshot -> snapshot.withEvent(frozen)));
   }
 
   @Override
   public boolean editEvents(String calendarName, String property, String eventName,
                             LocalDateTime fromDateTime,
                             String newValue, boolean editAll) {
-
     ICalendar targetCalendar = getCalendarByName(calendarName);
+    Edits edits = new Edits();
+    try {
+      boolean edited = editMatchingEvents(targetCalendar, property, eventName, fromDateTime,
+          newValue, editAll, edits);
+      publishEdits(targetCalendar, edits);
+      return edited;
+    } catch (RuntimeException e) {
+      // A failed edit undoes its changes, but may have materialized series occurrences
+      if (edits.seriesChanged) {
+        republish(targetCalendar);
+      }
+      throw e;
+    }
+  }
 
+  private boolean editMatchingEvents(ICalendar targetCalendar, String property,
+                                     String eventName, LocalDateTime fromDateTime,
+                                     String newValue, boolean editAll, Edits edits) {
 
 
     if (newValue == null || (newValue.trim().isEmpty() && (!property.equalsIgnoreCase(
@@ -147,20 +223,30 @@ class CalendarModel implements ICalendarModel {
       throw new IllegalArgumentException("Missing value for property update.");
     }
 
-    List<ICalendarEvent> originalEvents = targetCalendar.getEventsCopy();
+    // Only the fields this edit touches are journaled, so a failure can be undone without
+    // copying the calendar first
+    UndoLog log = transaction != null ? transaction : new UndoLog();
+    int mark = log.mark();
+
+    // Occurrences of a series are edited one by one, so they become stored events first
+    log.recordSeries(targetCalendar);
+    log.recordAppends(targetCalendar);
+    edits.seriesChanged = targetCalendar.materializeSeries(eventName, fromDateTime);
+    int nameId = dictionary.find(eventName);
 
     boolean found = false;
 
     try {
-      for (ICalendarEvent event : targetCalendar.getEvents()) {
+      // The name index hands over a list of its own, so renames below cannot disturb it
+      for (ICalendarEvent event : targetCalendar.getEventsNamed(eventName, fromDateTime,
+          LocalDateTime.MAX)) {
 
-        if (event.getEventName().equals(eventName)
+        if (hasName(event, nameId, eventName)
             && (event.getStartDateTime().isAfter(fromDateTime)
             || event.getStartDateTime().equals(fromDateTime))) {
 
-          LocalDateTime originalStart = event.getStartDateTime();
-          LocalDateTime originalEnd = event.getEndDateTime();
-
+          edits.record(targetCalendar, event);
+          log.recordEdit(targetCalendar, event, property);
 
           switch (property.toLowerCase()) {
             case "name":
@@ -213,9 +299,10 @@ class CalendarModel implements ICalendarModel {
             default:
               throw new IllegalArgumentException("Unsupported property for edit: " + property);
           }
+          targetCalendar.reindexEvent(event);
 
-
-          if (checkConflictForEvent(event, targetCalendar.getEvents())) {
+          if (hasConflict(targetCalendar, event.getStartDateTime(), event.getEndDateTime(),
+              event)) {
             throw new IllegalStateException("Conflict detected after editing " + property);
           }
 
@@ -225,8 +312,12 @@ class CalendarModel implements ICalendarModel {
         }
       }
     } catch (Exception e) {
-      targetCalendar.setEvents(originalEvents);
+      log.rollbackTo(mark);
       throw e;
+    } finally {
+      if (log != transaction) {
+        log.release();
+      }
     }
     if (!found) {
       throw new IllegalStateException("No matching event found for editing: " + eventName);
@@ -239,34 +330,65 @@ class CalendarModel implements ICalendarModel {
                            LocalDateTime fromDateTime, LocalDateTime toDateTime,
                            String newValue) {
     ICalendar targetCalendar = getCalendarByName(calendarName);
+    Edits edits = new Edits();
+    try {
+      boolean edited = editMatchingEvent(targetCalendar, property, eventName, fromDateTime,
+          toDateTime, newValue, edits);
+      publishEdits(targetCalendar, edits);
+      return edited;
+    } catch (RuntimeException e) {
+      if (edits.seriesChanged) {
+        republish(targetCalendar);
+      }
+      throw e;
+    }
+  }
+
+  private boolean editMatchingEvent(ICalendar targetCalendar, String property,
+                                    String eventName, LocalDateTime fromDateTime,
+                                    LocalDateTime toDateTime, String newValue, Edits edits) {
+    UndoLog log = transaction != null ? transaction : new UndoLog();
+    int mark = log.mark();
+    log.recordSeries(targetCalendar);
+    log.recordAppends(targetCalendar);
+    edits.seriesChanged = targetCalendar.detachOccurrence(eventName, fromDateTime,
+        toDateTime);
     boolean editAll = true;
     boolean found = false;
+    int nameId = dictionary.find(eventName);
 
-    for (ICalendarEvent event : targetCalendar.getEvents()) {
-
-      if (event.getEventName().equals(eventName)
-          && (event.getStartDateTime().isEqual(fromDateTime)
-          && event.getEndDateTime().equals(toDateTime))) {
-
-        LocalDateTime originalStart = event.getStartDateTime();
-        LocalDateTime originalEnd = event.getEndDateTime();
-
-        found = true;
+    try {
+      for (ICalendarEvent event : targetCalendar.getEventsNamed(eventName, fromDateTime,
+          fromDateTime)) {
 
-        updateSpecifiedProperty(event, property, newValue);
+        if (hasName(event, nameId, eventName)
+            && (event.getStartDateTime().isEqual(fromDateTime)
+            && event.getEndDateTime().equals(toDateTime))) {
 
+          found = true;
 
-        if (checkConflictForEvent(event, targetCalendar.getEvents())) {
+          edits.record(targetCalendar, event);
+          log.recordEdit(targetCalendar, event, property);
+          updateSpecifiedProperty(event, property, newValue);
+          targetCalendar.reindexEvent(event);
 
-          event.setStartDateTime(originalStart);
-          event.setEndDateTime(originalEnd);
-          throw new IllegalStateException("Conflict detected after editing " + property);
-        }
+          if (hasConflict(targetCalendar, event.getStartDateTime(), event.getEndDateTime(),
+              event)) {
+            throw new IllegalStateException("Conflict detected after editing " + property);
+          }
 
-        if (!editAll) {
-          return true;
+          if (!editAll) {
+            return true;
+          }
         }
       }
+    } catch (RuntimeException e) {
+      log.rollbackTo(mark);
+      throw e;
+    } finally {
+      if (log != transaction) {
+        log.release();
+      }
     }
 
     if (!found) {
@@ -275,6 +397,56 @@ class CalendarModel implements ICalendarModel {
     return found;
   }
 
+  @Override
+  public boolean editEventById(String calendarName, long eventId, String property,
+                               String newValue) {
+    ICalendar targetCalendar = getCalendarByName(calendarName);
+    ICalendarEvent event = getEventById(targetCalendar, eventId);
+    CalendarSnapshot.FrozenEvent before = targetCalendar.frozenEvent(eventId);
+    UndoLog log = transaction != null ? transaction : new UndoLog();
+    int mark = log.mark();
+    try {
+      log.recordEdit(targetCalendar, event, property);
+      updateSpecifiedProperty(event, property, newValue);
+      targetCalendar.reindexEvent(event);
+      if (hasConflict(targetCalendar, event.getStartDateTime(), event.getEndDateTime(),
+          event)) {
+        throw new IllegalStateException("Conflict detected after editing " + property);
+      }
+    } catch (RuntimeException e) {
+      log.rollbackTo(mark);
+      throw e;
+    } finally {
+      if (log != transaction) {
+        log.release();
+      }
+    }
+    CalendarSnapshot.FrozenEvent after = targetCalendar.frozenEvent(eventId);
+    publish(model -> model.updating(targetCalendar,
+        snapshot -> snapshot.withoutEvent(before).withEvent(after)));
+    return true;
+  }
+
+  @Override
+  public boolean deleteEventById(String calendarName, long eventId) {
+    ICalendar targetCalendar = getCalendarByName(calendarName);
+    ICalendarEvent event = getEventById(targetCalendar, eventId);
+    // An event stored as an object is put back as it is, so edits journaled before the
+    // deletion still reach it when a transaction rolls back
+    CalendarEvent removed = event instanceof CalendarEvent
+        ? (CalendarEvent) event : CalendarEvent.copyOf(event);
+    CalendarSnapshot.FrozenEvent frozen = targetCalendar.frozenEvent(eventId);
+    if (transaction != null) {
+      transaction.recordChanges(targetCalendar);
+    }
+    int position = targetCalendar.removeEvent(eventId);
+    if (transaction != null) {
+      transaction.record(() -> targetCalendar.restoreEvent(removed, position));
+    }
+    publish(model -> model.updating(targetCalendar, snapshot -> snapshot.withoutEvent(frozen)));
+    return true;
+  }
+
   private void updateSpecifiedProperty(ICalendarEvent event, String property,
                                        String newValue) {
     switch (property.toLowerCase()) {
@@ -331,7 +503,8 @@ class CalendarModel implements ICalendarModel {
           return true;
         }
 
-        for (ICalendarEvent event : cal.getEvents()) {
+        for (ICalendarEvent event : cal.getEventsInRange(date.atStartOfDay(),
+            date.atTime(LocalTime.MAX))) {
           if (event.getStartDateTime().toLocalDate().equals(date)) {
             return false;
           }
@@ -359,10 +532,14 @@ class CalendarModel implements ICalendarModel {
   }
 
   public boolean deleteCalendar(String calName) {
-    for (Iterator<ICalendar> iterator = calendars.iterator(); iterator.hasNext(); ) {
-      ICalendar cal = iterator.next();
+    for (ICalendar cal : calendars) {
       if (cal.getCalendarName().equalsIgnoreCase(calName)) {
-        iterator.remove();
+        if (transaction != null) {
+          int position = calendars.indexOf(cal);
+          transaction.record(() -> calendars.add(position, cal));
+        }
+        calendars.remove(cal);
+        publish(model -> model.removing(cal));
         return true;
       }
     }
@@ -382,14 +559,7 @@ class CalendarModel implements ICalendarModel {
       throw new IllegalArgumentException("date time cannot be null");
     }
 
-    List<ICalendarEvent> rangeEvents = new ArrayList<>();
-    for (ICalendarEvent event : targetCalendar.getEvents()) {
-      if ((event.getStartDateTime().isBefore(dateTime) ||
-          event.getStartDateTime().equals(dateTime)) &&
-          (event.getEndDateTime().isAfter(dateTime) || event.getEndDateTime().equals(dateTime))) {
-        rangeEvents.add(event);
-      }
-    }
+    List<ICalendarEvent> rangeEvents = targetCalendar.getEventsAt(dateTime);
     return rangeEvents.stream().map(this::convertToDTO).collect(Collectors.toList());
   }
 
@@ -412,18 +582,47 @@ class CalendarModel implements ICalendarModel {
           "start date-time.");
     }
 
-    List<ICalendarEvent> rangeEvents = new ArrayList<>();
-    // Iterates over the events in the target calendar.
-    for (ICalendarEvent event : targetCalendar.getEvents()) {
+    // The calendar's interval index returns the matches in start-time order.
+    List<ICalendarEvent> rangeEvents =
+        targetCalendar.getEventsInRange(fromDateTime, toDateTime);
+    return rangeEvents.stream().map(this::convertToDTO).collect(Collectors.toList());
+  }
 
-      if ((!event.getStartDateTime().isBefore(fromDateTime) &&
-          !event.getStartDateTime().isAfter(toDateTime)) ||
-          (event.getEndDateTime().isAfter(fromDateTime) &&
-              event.getEndDateTime().isBefore(toDateTime))) {
-        rangeEvents.add(event);
+  @Override
+  public void forEachEvent(String calendarName, Consumer<? super ICalendarEventDTO> action) {
+    getCalendarByName(calendarName).forEachEvent(event -> action.accept(convertToDTO(event)));
+  }
+
+  @Override
+  public void forEachEventOrSeries(String calendarName,
+                                   Consumer<? super ICalendarEventDTO> action) {
+    ICalendar calendar = getCalendarByName(calendarName);
+    calendar.forEachStoredEvent(event -> action.accept(convertToDTO(event)));
+    ZoneId zone = ZoneId.of(calendar.getTimezone());
+    for (EventSeries series : calendar.getSeries()) {
+      if (!series.isEmpty()) {
+        action.accept(seriesBuilder(series, zone).setEventId(series.getId()).build());
       }
     }
-    return rangeEvents.stream().map(this::convertToDTO).collect(Collectors.toList());
+  }
+
+  @Override
+  public long forEachChangeSince(String calendarName, long since,
+                                 Consumer<? super IEventChange> action) {
+    ICalendar calendar = getCalendarByName(calendarName);
+    ZoneId zone = ZoneId.of(calendar.getTimezone());
+    return calendar.forEachChangeSince(since, new ICalendar.ChangeVisitor() {
+      @Override
+      public void visit(IEventChange.Kind kind, long sequence, ICalendarEvent event) {
+        action.accept(new EventChange(kind, sequence, convertToDTO(event), false));
+      }
+
+      @Override
+      public void visitSeries(IEventChange.Kind kind, long sequence, EventSeries series) {
+        action.accept(new EventChange(kind, sequence,
+            seriesBuilder(series, zone).setEventId(series.getId()).build(), true));
+      }
+    });
   }
 
   @Override
@@ -451,8 +650,9 @@ class CalendarModel implements ICalendarModel {
           "start time.");
     }
 
+    // The range query returns events in start order, including series occurrences
     List<ICalendarEvent> eventsToCopy = new ArrayList<>();
-    for (ICalendarEvent event : sourceCal.getEvents()) {
+    for (ICalendarEvent event : sourceCal.getEventsInRange(sourceStart, sourceEnd)) {
       if (!event.getStartDateTime().isBefore(sourceStart) &&
           !event.getStartDateTime().isAfter(sourceEnd)) {
         eventsToCopy.add(event);
@@ -464,11 +664,8 @@ class CalendarModel implements ICalendarModel {
     }
 
 
-    eventsToCopy.sort((e1, e2) -> e1.getStartDateTime().compareTo(e2.getStartDateTime()));
-
-
-    java.time.ZoneId sourceZone = java.time.ZoneId.of(sourceCal.getTimezone());
-    java.time.ZoneId targetZone = java.time.ZoneId.of(targetCal.getTimezone());
+    ZoneId sourceZone = ZoneId.of(sourceCal.getTimezone());
+    ZoneId targetZone = ZoneId.of(targetCal.getTimezone());
 
     List<CalendarEvent> eventsToBeCopied = new ArrayList<>();
     for (ICalendarEvent event : eventsToCopy) {
@@ -477,9 +674,9 @@ class CalendarModel implements ICalendarModel {
           targetStart.plusDays(ChronoUnit.DAYS.between(sourceStart,
               event.getStartDateTime()));
       LocalDateTime newStart = convertTimeToTargetDate(event.getStartDateTime(),
-          sourceCal.getTimezone(), calculatedTargetStart, targetCal.getTimezone());
-      java.time.Duration duration = java.time.Duration.between(event.getStartDateTime()
-          , event.getEndDateTime());
+          sourceZone, calculatedTargetStart, targetZone);
+      java.time.Duration duration = java.time.Duration.between(
+          event.getStartDateTime().atZone(sourceZone), event.getEndDateTime().atZone(sourceZone));
 
       LocalDateTime newEnd = newStart.plus(duration);
       CalendarEvent newEvent = CalendarEvent.builder()
@@ -491,16 +688,23 @@ class CalendarModel implements ICalendarModel {
           .setPublic(event.isPublic())
           .build();
 
+      eventsToBeCopied.add(newEvent);
+    }
 
-      if (doesEventConflict(targetCal.getEvents(), convertToDTO(newEvent))) {
+    int[] conflicts = ConflictDetector.firstConflicts(eventsToBeCopied,
+        eventsInSpanOf(targetCal, eventsToBeCopied));
+    for (int i = 0; i < eventsToBeCopied.size(); i++) {
+      if (conflicts[i] != ConflictDetector.NO_CONFLICT) {
         throw new IllegalStateException("Conflict detected when copying event: " +
-            event.getEventName());
+            eventsToBeCopied.get(i).getEventName());
       }
-
-      eventsToBeCopied.add(newEvent);
     }
 
+    if (transaction != null) {
+      transaction.recordAppends(targetCal);
+    }
     eventsToBeCopied.forEach(targetCal::addEvent);
+    publishAppends(targetCal, eventsToBeCopied, false);
 
     return true;
   }
@@ -529,18 +733,44 @@ class CalendarModel implements ICalendarModel {
 
 
     ICalendarEvent eventToCopy = null;
-    for (ICalendarEvent event : sourceCal.getEvents()) {
-      if (event.getEventName().equalsIgnoreCase(eventName) &&
-          event.getStartDateTime().equals(eventDateTime)) {
+    for (ICalendarEvent event : sourceCal.getEventsNamed(eventName, eventDateTime,
+        eventDateTime)) {
+      if (event.getStartDateTime().equals(eventDateTime)) {
         eventToCopy = event;
         break;
       }
     }
+    // Occurrences of a series are not indexed by name
+    if (eventToCopy == null && !sourceCal.getSeries().isEmpty()) {
+      for (ICalendarEvent event : sourceCal.getEventsAt(eventDateTime)) {
+        if (event.getEventName().equalsIgnoreCase(eventName) &&
+            event.getStartDateTime().equals(eventDateTime)) {
+          eventToCopy = event;
+          break;
+        }
+      }
+    }
     if (eventToCopy == null) {
       throw new IllegalStateException("Event with name '" +
           eventName + "' on " + eventDateTime + " not found in calendar " + sourceCalendarName);
     }
+    return copyInto(targetCal, eventToCopy, targetStart);
+  }
+
+  @Override
+  public boolean copyEventById(String sourceCalendarName, long eventId,
+                               String targetCalendarName, LocalDateTime targetStart) {
+    if (sourceCalendarName == null || targetCalendarName == null || targetStart == null) {
+      throw new IllegalArgumentException("All parameters must be provided and non-null.");
+    }
+    ICalendar sourceCal = getCalendarByName(sourceCalendarName);
+    ICalendar targetCal = getCalendarByName(targetCalendarName);
+    return copyInto(targetCal, getEventById(sourceCal, eventId), targetStart);
+  }
 
+  // Copies one event to targetStart in the target calendar, keeping its length
+  private boolean copyInto(ICalendar targetCal, ICalendarEvent eventToCopy,
+                           LocalDateTime targetStart) {
     java.time.Duration duration =
         java.time.Duration.between(eventToCopy.getStartDateTime(),
             eventToCopy.getEndDateTime());
@@ -560,13 +790,18 @@ class CalendarModel implements ICalendarModel {
         .build();
 
 
-    if (doesEventConflict(targetCal.getEvents(), convertToDTO(newEvent))) {
+    if (hasConflict(targetCal, newStart, newEnd, null)) {
       throw new IllegalStateException("Conflict detected when copying event: " +
           eventToCopy.getEventName());
     }
 
 
+    if (transaction != null) {
+      transaction.recordAppends(targetCal);
+    }
     targetCal.addEvent(newEvent);
+    CalendarSnapshot.FrozenEvent frozen = CalendarSnapshot.FrozenEvent.of(newEvent);
+    publish(model -> model.updating(targetCal, snapshot -> snapshot.withEvent(frozen)));
     return true;
   }
 
@@ -593,7 +828,12 @@ class CalendarModel implements ICalendarModel {
                 "already exists.");
           }
         }
+        if (transaction != null) {
+          String oldName = targetCalendar.getCalendarName();
+          transaction.record(() -> targetCalendar.setCalendarName(oldName));
+        }
         targetCalendar.setCalendarName(newValue);
+        publish(model -> model.updating(targetCalendar, snapshot -> snapshot.withName(newValue)));
         return true;
       case "timezone":
 
@@ -602,7 +842,14 @@ class CalendarModel implements ICalendarModel {
         } catch (Exception e) {
           throw new IllegalArgumentException("Invalid timezone: " + newValue, e);
         }
+        if (transaction != null) {
+          String oldTimezone = targetCalendar.getTimezone();
+          transaction.recordChanges(targetCalendar);
+          transaction.record(() -> targetCalendar.setTimezone(oldTimezone));
+        }
         targetCalendar.setTimezone(newValue);
+        publish(model -> model.updating(targetCalendar,
+            snapshot -> snapshot.withTimezone(newValue)));
         return true;
       default:
         throw new IllegalArgumentException("Unsupported property for calendar edit: " + property);
@@ -613,16 +860,32 @@ class CalendarModel implements ICalendarModel {
   @Override
   public boolean addEvents(String calendarName, List<ICalendarEventDTO> events,
                            String sourceTimezone) {
+    return addEvents(calendarName, events, sourceTimezone, false);
+  }
+
+  @Override
+  public boolean restoreEvents(String calendarName, List<ICalendarEventDTO> events,
+                               String sourceTimezone) {
+    return addEvents(calendarName, events, sourceTimezone, true);
+  }
+
+  // A restore checks every event against the calendar, whatever its autoDecline, but not
+  // against the other restored events, which may overlap as they did when backed up
+  private boolean addEvents(String calendarName, List<ICalendarEventDTO> events,
+                            String sourceTimezone, boolean restoring) {
     // First validate all events
     ICalendar targetCalendar = getCalendarByName(calendarName);
     List<String> errors = new ArrayList<>();
 
     String targetTimezone = targetCalendar.getTimezone();
 
-    List<CalendarEvent> allNewOccurrences = new ArrayList<>();
+    List<CalendarEvent> newEvents = new ArrayList<>();
+    List<EventSeries> newSeries = new ArrayList<>();
+    ZoneId targetZone = ZoneId.of(targetTimezone);
 
-    // Keep track of which events have autoDecline enabled
-    Map<CalendarEvent, Boolean> autoDeclineMap = new HashMap<>();
+    // Only occurrences with autoDecline enabled take part in conflict checks. Occurrences
+    // of new series are built here for the check only; the series are stored as rules.
+    List<CalendarEvent> autoDeclineOccurrences = new ArrayList<>();
 
     for (ICalendarEventDTO eventDTO : events) {
       try {
@@ -630,20 +893,23 @@ class CalendarModel implements ICalendarModel {
 
         ICalendarEventDTO adjustedEvent = convertEventTimezone(eventDTO, sourceTimezone, targetTimezone);
 
-        boolean autoDecline = (adjustedEvent.isAutoDecline() != null) && adjustedEvent.isAutoDecline();
+        boolean autoDecline = restoring
+            || (adjustedEvent.isAutoDecline() != null) && adjustedEvent.isAutoDecline();
 
         if (Boolean.TRUE.equals(adjustedEvent.isRecurring())) {
           validateRecurringEvent(adjustedEvent);
-          List<CalendarEvent> occurrences = generateRecurringOccurrences(adjustedEvent);
-          for (CalendarEvent occurrence : occurrences) {
-            allNewOccurrences.add(occurrence);
-            autoDeclineMap.put(occurrence, autoDecline);
+          EventSeries series = new EventSeries(adjustedEvent, targetZone);
+          newSeries.add(series);
+          if (autoDecline) {
+            autoDeclineOccurrences.addAll(series.occurrences());
           }
         } else {
           validateNonRecurringEvent(adjustedEvent);
           CalendarEvent event = createSingleEvent(adjustedEvent);
-          allNewOccurrences.add(event);
-          autoDeclineMap.put(event, autoDecline);
+          newEvents.add(event);
+          if (autoDecline) {
+            autoDeclineOccurrences.add(event);
+          }
         }
       } catch (Exception e) {
         errors.add("Event " + eventDTO.getEventName() + ": " + e.getMessage());
@@ -654,28 +920,23 @@ class CalendarModel implements ICalendarModel {
       throw new IllegalStateException("Cannot add all events: " + String.join("; ", errors));
     }
 
-    List<ICalendarEvent> existingEvents = targetCalendar.getEvents();
-    for (int i = 0; i < allNewOccurrences.size(); i++) {
-      CalendarEvent event = allNewOccurrences.get(i);
-
-      if (autoDeclineMap.get(event)) {
-        // Check against existing events
-        for (ICalendarEvent existing : existingEvents) {
-          if (existing.doesEventConflict(event)) {
-            errors.add("Event " + event.getEventName() + " conflicts with existing event " + existing.getEventName());
-            break;
-          }
-        }
+    // One sweep against the existing events and one among the new occurrences
+    List<ICalendarEvent> existingEvents = eventsInSpanOf(targetCalendar, autoDeclineOccurrences);
+    int[] existingConflicts =
+        ConflictDetector.firstConflicts(autoDeclineOccurrences, existingEvents);
+    int[] newConflicts = restoring ? null
+        : ConflictDetector.firstConflictsWithin(autoDeclineOccurrences);
 
-        for (int j = 0; j < allNewOccurrences.size(); j++) {
-          if (i == j) continue; // Skip comparing with itself
+    for (int i = 0; i < autoDeclineOccurrences.size(); i++) {
+      CalendarEvent event = autoDeclineOccurrences.get(i);
 
-          CalendarEvent otherNew = allNewOccurrences.get(j);
-          if (autoDeclineMap.get(otherNew) && event.doesEventConflict(otherNew)) {
-            errors.add("New event " + event.getEventName() + " conflicts with another new event " + otherNew.getEventName());
-            break;
-          }
-        }
+      if (existingConflicts[i] != ConflictDetector.NO_CONFLICT) {
+        errors.add("Event " + event.getEventName() + " conflicts with existing event " +
+            existingEvents.get(existingConflicts[i]).getEventName());
+      }
+      if (newConflicts != null && newConflicts[i] != ConflictDetector.NO_CONFLICT) {
+        errors.add("New event " + event.getEventName() + " conflicts with another new event " +
+            autoDeclineOccurrences.get(newConflicts[i]).getEventName());
       }
     }
 
@@ -683,9 +944,17 @@ class CalendarModel implements ICalendarModel {
       throw new IllegalStateException("Cannot add all events: " + String.join("; ", errors));
     }
 
-    for (CalendarEvent event : allNewOccurrences) {
+    if (transaction != null) {
+      transaction.recordAppends(targetCalendar);
+      transaction.recordSeries(targetCalendar);
+    }
+    for (CalendarEvent event : newEvents) {
       targetCalendar.addEvent(event);
     }
+    for (EventSeries series : newSeries) {
+      targetCalendar.addSeries(series);
+    }
+    publishAppends(targetCalendar, newEvents, !newSeries.isEmpty());
 
     return true;
   }
@@ -739,9 +1008,22 @@ class CalendarModel implements ICalendarModel {
           .setRecurring(eventDTO.isRecurring());
 
     // Set recurrence properties if this is a recurring event
+    // Occurrences that move to another date in the target zone move to another weekday too,
+    // and so do the dates the series skips
     if (Boolean.TRUE.equals(eventDTO.isRecurring())) {
-      builder.setRecurrenceDays(eventDTO.getRecurrenceDays())
-            .setRecurrenceCount(eventDTO.getRecurrenceCount());
+      long dayShift = ChronoUnit.DAYS.between(eventDTO.getStartDateTime().toLocalDate(),
+          newStartDateTime.toLocalDate());
+      List<DayOfWeek> days = new ArrayList<>(eventDTO.getRecurrenceDays().size());
+      for (DayOfWeek day : eventDTO.getRecurrenceDays()) {
+        days.add(day.plus(dayShift));
+      }
+      List<LocalDate> exceptions = new ArrayList<>(eventDTO.getRecurrenceExceptions().size());
+      for (LocalDate exception : eventDTO.getRecurrenceExceptions()) {
+        exceptions.add(exception.plusDays(dayShift));
+      }
+      builder.setRecurrenceDays(days)
+            .setRecurrenceCount(eventDTO.getRecurrenceCount())
+            .setRecurrenceExceptions(exceptions);
 
       if (newRecurrenceEndDate != null) {
         builder.setRecurrenceEndDate(newRecurrenceEndDate);
@@ -751,7 +1033,7 @@ class CalendarModel implements ICalendarModel {
     return builder.build();
   }
 
-  private ICalendar getCalendarByName(String calName) {
+  protected ICalendar getCalendarByName(String calName) {
     for (ICalendar cal : calendars) {
       if (cal.getCalendarName().equalsIgnoreCase(calName)) {
         return cal;
@@ -760,6 +1042,19 @@ class CalendarModel implements ICalendarModel {
     throw new IllegalArgumentException("Calendar not found: " + calName);
   }
 
+  /**
+   * Checks whether {@code calendar} itself, not just one with the same name, still belongs
+   * to the model.
+   */
+  protected boolean isRegistered(ICalendar calendar) {
+    for (ICalendar cal : calendars) {
+      if (cal == calendar) {
+        return true;
+      }
+    }
+    return false;
+  }
+
 
   private void validateBasicEvent(ICalendarEventDTO eventDTO) {
     if (eventDTO.getEventName() == null || eventDTO.getEventName().trim().isEmpty()) {
@@ -824,72 +1119,6 @@ class CalendarModel implements ICalendarModel {
   }
 
 
-  // Generates recurring event occurrences based on the eventDTO.
-  private List<CalendarEvent> generateRecurringOccurrences(ICalendarEventDTO eventDTO) {
-    List<CalendarEvent> occurrences = new ArrayList<>();
-    LocalDate startDate = eventDTO.getStartDateTime().toLocalDate();
-    LocalTime startTime = eventDTO.getStartDateTime().toLocalTime();
-    LocalTime endTime = eventDTO.getEndDateTime().toLocalTime();
-    int count = 0;
-    LocalDate currentDate = startDate;
-    LocalDate recurrenceEnd = getRecurrenceEndDate(eventDTO);
-
-    while (!isRecurrenceComplete(eventDTO, currentDate, count, recurrenceEnd)) {
-      if (isRecurrenceDay(eventDTO, currentDate)) {
-        CalendarEvent occurrence = createOccurrence(eventDTO, currentDate, startTime, endTime);
-        occurrences.add(occurrence);
-        count++;
-      }
-      currentDate = getNextRecurrenceDate(currentDate, eventDTO.getRecurrenceDays());
-    }
-    return occurrences;
-  }
-
-  private LocalDate getRecurrenceEndDate(ICalendarEventDTO eventDTO) {
-    return eventDTO.getRecurrenceEndDate() != null
-          ? eventDTO.getRecurrenceEndDate().toLocalDate()
-          : null;
-  }
-
-  private boolean isRecurrenceComplete(ICalendarEventDTO eventDTO, LocalDate currentDate,
-                                       int count, LocalDate recurrenceEnd) {
-    // Check count-based termination
-    if (eventDTO.getRecurrenceCount() != null && eventDTO.getRecurrenceCount() > 0) {
-      if (count >= eventDTO.getRecurrenceCount()) {
-        return true;
-      }
-    }
-    // Check date-based termination
-    else if (recurrenceEnd != null) {
-      if (currentDate.isAfter(recurrenceEnd)) {
-        return true;
-      }
-    }
-    return false;
-  }
-
-  private boolean isRecurrenceDay(ICalendarEventDTO eventDTO, LocalDate date) {
-    return eventDTO.getRecurrenceDays().contains(date.getDayOfWeek());
-  }
-
-  private CalendarEvent createOccurrence(ICalendarEventDTO eventDTO, LocalDate date,
-                                         LocalTime startTime, LocalTime endTime) {
-    LocalDateTime occurrenceStart = LocalDateTime.of(date, startTime);
-    LocalDateTime occurrenceEnd = LocalDateTime.of(date, endTime);
-
-    Boolean isPrivate = eventDTO.isPrivate();
-    Boolean isPublic = isPrivate == null || !isPrivate;
-
-    return CalendarEvent.builder()
-          .setEventName(eventDTO.getEventName())
-          .setStartDateTime(occurrenceStart)
-          .setEndDateTime(occurrenceEnd)
-          .setEventDescription(eventDTO.getEventDescription())
-          .setEventLocation(eventDTO.getEventLocation())
-          .setPublic(Boolean.TRUE.equals(isPublic))
-          .build();
-  }
-
   // Creates a single, non-recurring event.
   private CalendarEvent createSingleEvent(ICalendarEventDTO eventDTO) {
     Boolean isPrivate = eventDTO.isPrivate();
@@ -913,61 +1142,353 @@ class CalendarModel implements ICalendarModel {
         .setEventDescription(event.getEventDescription())
         .setPrivate(!event.isPublic())
         .setAutoDecline(true)
+        .setEventId(event.getEventId() == EventIds.NONE ? null : event.getEventId())
         .build();
   }
 
+  // A series keeps its wall-clock times in the zone it was created in; they are moved to
+  // the calendar's zone, which is the series' own unless the calendar's timezone changed
+  private static ICalendarEventDTOBuilder<?> seriesBuilder(EventSeries series, ZoneId zone) {
+    LocalDate first = series.getFirstDate();
+    ICalendarEventDTOBuilder<?> builder = ICalendarEventDTO.builder()
+        .setEventName(series.getEventName())
+        .setStartDateTime(inZone(LocalDateTime.of(first, series.getStartTime()),
+            series.getZone(), zone))
+        .setEndDateTime(inZone(LocalDateTime.of(first, series.getEndTime()),
+            series.getZone(), zone))
+        .setEventDescription(series.getEventDescription())
+        .setEventLocation(series.getEventLocation())
+        .setPrivate(!series.isPublic())
+        .setAutoDecline(false)
+        .setRecurring(true)
+        .setRecurrenceDays(new ArrayList<>(series.getRecurrenceDays()))
+        .setRecurrenceExceptions(new ArrayList<>(series.getExceptions()));
+    if (series.getRecurrenceCount() != null) {
+      builder.setRecurrenceCount(series.getRecurrenceCount());
+    } else {
+      builder.setRecurrenceEndDate(inZone(LocalDateTime.of(series.getRecurrenceEndDate(),
+          series.getStartTime()), series.getZone(), zone));
+    }
+    return builder;
+  }
+
+  private static LocalDateTime inZone(LocalDateTime dateTime, ZoneId from, ZoneId to) {
+    return from.equals(to) ? dateTime
+        : dateTime.atZone(from).withZoneSameInstant(to).toLocalDateTime();
+  }
+
+  private ICalendarEvent getEventById(ICalendar calendar, long eventId) {
+    ICalendarEvent event = calendar.getEventById(eventId);
+    if (event == null) {
+      throw new IllegalStateException("No event with id " + eventId + " found in calendar "
+          + calendar.getCalendarName());
+    }
+    return event;
+  }
 
-  private boolean doesEventConflict(List<ICalendarEvent> eventList,
-                                    ICalendarEventDTO newEventDTO) {
-    CalendarEvent firstEvent =
-        CalendarEvent.builder().setStartDateTime(newEventDTO.getStartDateTime()).
-            setEndDateTime(newEventDTO.getEndDateTime()).build();
-    for (ICalendarEvent event : eventList) {
-      if (event.doesEventConflict(firstEvent)) {
-        return true;
+
+  /**
+   * Checks whether the event is named {@code name}, whose id in the model's dictionary is
+   * {@code nameId}. Stored events compare ids; other events fall back to the strings.
+   */
+  private boolean hasName(ICalendarEvent event, int nameId, String name) {
+    if (event instanceof IEncodedEvent) {
+      return nameId != StringDictionary.NOT_FOUND
+          && ((IEncodedEvent) event).getNameId(dictionary) == nameId;
+    }
+    return event.getEventName().equals(name);
+  }
+
+  @Override
+  public void beginTransaction() {
+    if (transaction != null) {
+      throw new IllegalStateException("A transaction is already open.");
+    }
+    transaction = new UndoLog();
+  }
+
+  @Override
+  public void commitTransaction() {
+    if (transaction == null) {
+      throw new IllegalStateException("No transaction is open.");
+    }
+    transaction.release();
+    transaction = null;
+  }
+
+  @Override
+  public void rollbackTransaction() {
+    rollBack(detachTransaction());
+  }
+
+  /**
+   * Closes the open transaction without keeping or undoing its changes, and hands over its
+   * undo log: the caller later either releases the log or passes it to {@link #rollBack}.
+   *
+   * @throws IllegalStateException if no transaction is open
+   */
+  UndoLog detachTransaction() {
+    if (transaction == null) {
+      throw new IllegalStateException("No transaction is open.");
+    }
+    UndoLog log = transaction;
+    transaction = null;
+    return log;
+  }
+
+  /**
+   * Undoes the changes of a detached transaction's log and publishes the model without them.
+   * Logs detached one after another are rolled back newest first.
+   */
+  void rollBack(UndoLog log) {
+    if (log.mark() == 0) {
+      // Nothing changed, so the published version is still current
+      return;
+    }
+    log.rollback();
+    if (!publishesVersions()) {
+      return;
+    }
+    List<CalendarSnapshot> restored = new ArrayList<>();
+    for (ICalendar calendar : calendars) {
+      restored.add(calendar.snapshot());
+    }
+    publish(model -> model.replacing(restored));
+  }
+
+  /**
+   * Returns the latest published version of the model. Readers can query it without
+   * locking; it never changes afterwards. A model that does not publish versions always
+   * returns the empty one.
+   */
+  ModelSnapshot snapshot() {
+    return published.get();
+  }
+
+  /**
+   * Returns the model as it is now: the latest published version, or, for a model that
+   * publishes none, a version frozen from its calendars. Callers keep the model from
+   * changing meanwhile.
+   */
+  ModelSnapshot currentVersion() {
+    ModelSnapshot version = published.get();
+    if (!publishesVersions()) {
+      for (ICalendar calendar : calendars) {
+        version = version.adding(calendar.snapshot());
       }
     }
-    return false;
+    return version;
   }
 
-  private LocalDate getNextRecurrenceDate(LocalDate currentDate,
-                                          List<DayOfWeek> recurrenceDays) {
-    if (recurrenceDays.isEmpty()) {
-      return currentDate.plusDays(1);
+  /**
+   * Tells whether the model publishes an immutable version of itself after every change.
+   * A version holds a frozen copy of every event, so models whose events do not fit in
+   * memory, or whose calendars store events more compactly than frozen copies, turn this
+   * off; readers then query the model directly.
+   */
+  protected boolean publishesVersions() {
+    return versioned;
+  }
+
+  /**
+   * Publishes the version {@code change} derives from the latest one. Changes to different
+   * calendars may publish at the same time, so a change that lost the race is reapplied.
+   */
+  private void publish(UnaryOperator<ModelSnapshot> change) {
+    if (!publishesVersions()) {
+      return;
+    }
+    ModelSnapshot current;
+    do {
+      current = published.get();
+    } while (!published.compareAndSet(current, change.apply(current)));
+  }
+
+  /**
+   * The stored events an edit by name is about to change, frozen as they were, and whether
+   * it turned series occurrences into stored events.
+   */
+  private final class Edits {
+    private final List<CalendarSnapshot.FrozenEvent> before = new ArrayList<>();
+    private boolean seriesChanged;
+
+    void record(ICalendar calendar, ICalendarEvent event) {
+      if (publishesVersions()) {
+        before.add(calendar.frozenEvent(event.getEventId()));
+      }
     }
-    LocalDate nextDate = currentDate.plusDays(1);
-    while (!recurrenceDays.contains(nextDate.getDayOfWeek())) {
-      nextDate = nextDate.plusDays(1);
+  }
+
+  // Replaces only the edited events in the calendar's version; a changed series, whose
+  // occurrences were appended as new events, re-freezes the calendar instead
+  private void publishEdits(ICalendar calendar, Edits edits) {
+    if (edits.seriesChanged) {
+      republish(calendar);
+      return;
+    }
+    if (!publishesVersions() || edits.before.isEmpty()) {
+      return;
     }
-    return nextDate;
+    List<CalendarSnapshot.FrozenEvent> after = new ArrayList<>(edits.before.size());
+    for (CalendarSnapshot.FrozenEvent frozen : edits.before) {
+      after.add(calendar.frozenEvent(frozen.getEventId()));
+    }
+    publish(model -> model.updating(calendar, snapshot -> {
+      for (int i = 0; i < after.size(); i++) {
+        snapshot = snapshot.withoutEvent(edits.before.get(i)).withEvent(after.get(i));
+      }
+      return snapshot;
+    }));
   }
 
-  private boolean checkConflictForEvent(ICalendarEvent updatedEvent,
-                                        List<ICalendarEvent> events) {
-    for (ICalendarEvent other : events) {
-      if (other != updatedEvent) {
+  // Adds only the events just appended to the calendar's version, and its series if new
+  // ones were added, instead of re-freezing the whole calendar
+  private void publishAppends(ICalendar calendar, List<? extends ICalendarEvent> appended,
+                              boolean seriesAdded) {
+    if (!publishesVersions()) {
+      return;
+    }
+    List<CalendarSnapshot.FrozenEvent> frozen = new ArrayList<>(appended.size());
+    for (ICalendarEvent event : appended) {
+      frozen.add(calendar.frozenEvent(event.getEventId()));
+    }
+    List<EventSeries> allSeries = seriesAdded ? calendar.getSeries() : null;
+    publish(model -> model.updating(calendar, snapshot -> {
+      CalendarSnapshot grown = snapshot.withEvents(frozen);
+      return allSeries == null ? grown : grown.withSeries(allSeries);
+    }));
+  }
 
-        if (updatedEvent.getStartDateTime().isBefore(other.getEndDateTime()) &&
-            updatedEvent.getEndDateTime().isAfter(other.getStartDateTime())) {
-          return true;
+  // Re-freezes a calendar after changes that were not tracked one by one
+  private void republish(ICalendar calendar) {
+    if (!publishesVersions()) {
+      return;
+    }
+    CalendarSnapshot fresh = calendar.snapshot();
+    publish(model -> model.updating(calendar, snapshot -> fresh));
+  }
+
+  @Override
+  public void saveSnapshot(Path file) throws IOException {
+    ModelSnapshot snapshot = currentVersion();
+    // Read after the version, so no event of the version has a later id
+    SnapshotFile.write(snapshot, copyChangeLogs(snapshot), 0, eventIds.last(), file);
+  }
+
+  /**
+   * Returns a copy of the change log of each calendar of {@code version}, which must be the
+   * model as it is now, so the logs match the version.
+   */
+  Map<CalendarSnapshot, ChangeLog> copyChangeLogs(ModelSnapshot version) {
+    Map<CalendarSnapshot, ChangeLog> logs = new IdentityHashMap<>();
+    for (CalendarSnapshot snapshot : version.getCalendars()) {
+      for (ICalendar calendar : calendars) {
+        if (snapshot.isOf(calendar)) {
+          logs.put(snapshot, ((AbstractCalendar) calendar).copyChanges());
         }
       }
     }
+    return logs;
+  }
+
+  /**
+   * Adds a calendar whose contents {@code fill} stores, without validating or recording the
+   * change, and publishes it once it is filled. Used to rebuild a model from a snapshot
+   * file.
+   */
+  void restoreCalendar(String calName, String timezone, Consumer<AbstractCalendar> fill) {
+    ICalendar calendar = calendarFactory.get()
+        .setCalendarName(calName)
+        .setTimezone(timezone)
+        .setDictionary(dictionary)
+        .setEventIds(eventIds)
+        .build();
+    fill.accept((AbstractCalendar) calendar);
+    calendars.add(calendar);
+    if (publishesVersions()) {
+      CalendarSnapshot snapshot = calendar.snapshot();
+      publish(model -> model.adding(snapshot));
+    }
+  }
+
+  /**
+   * Returns the model's string dictionary, shared by all of its calendars.
+   */
+  StringDictionary getDictionary() {
+    return dictionary;
+  }
+
+  /**
+   * Returns the source of the model's event ids, shared by all of its calendars.
+   */
+  EventIds getEventIds() {
+    return eventIds;
+  }
+
+  /**
+   * Checks whether the interval overlaps any event of the calendar other than
+   * {@code ignored}, including occurrences of recurring series.
+   */
+  private boolean hasConflict(ICalendar calendar, LocalDateTime start, LocalDateTime end,
+                              ICalendarEvent ignored) {
+    for (ICalendarEvent other : calendar.getEventsOverlapping(start, end)) {
+      if (!other.equals(ignored) && start.isBefore(other.getEndDateTime())
+          && end.isAfter(other.getStartDateTime())) {
+        return true;
+      }
+    }
     return false;
   }
 
+  /**
+   * Returns the calendar's events that could overlap any of the given events, which is
+   * all a batch conflict check needs to look at. They come in the order they were added,
+   * so a conflict names the earliest added event it meets.
+   */
+  private List<ICalendarEvent> eventsInSpanOf(ICalendar calendar,
+                                              List<? extends ICalendarEvent> batch) {
+    if (batch.isEmpty()) {
+      return new ArrayList<>();
+    }
+    LocalDateTime spanStart = batch.get(0).getStartDateTime();
+    LocalDateTime spanEnd = batch.get(0).getEndDateTime();
+    for (ICalendarEvent event : batch) {
+      if (event.getStartDateTime().isBefore(spanStart)) {
+        spanStart = event.getStartDateTime();
+      }
+      if (event.getEndDateTime().isAfter(spanEnd)) {
+        spanEnd = event.getEndDateTime();
+      }
+    }
+    return calendar.getEventsOverlappingInOrderAdded(spanStart, spanEnd);
+  }
+
   public static LocalDateTime convertTimeToTargetDate(
       LocalDateTime sourceDateTime,
       String sourceZone,
       LocalDate targetDate,
       String targetZone
   ) {
-    ZonedDateTime sourceZoned = sourceDateTime.atZone(ZoneId.of(sourceZone));
-    ZonedDateTime targetZoned = sourceZoned.withZoneSameInstant(ZoneId.of(targetZone));
-    LocalTime targetTime = targetZoned.toLocalTime();
-    int dayShift = targetZoned.toLocalDate().compareTo(sourceZoned.toLocalDate());
-    LocalDate adjustedDate = targetDate.plusDays(dayShift);
-    return LocalDateTime.of(adjustedDate, targetTime);
+    return convertTimeToTargetDate(sourceDateTime, ZoneId.of(sourceZone), targetDate,
+        ZoneId.of(targetZone));
+  }
+
+  /**
+   * Same as {@link #convertTimeToTargetDate(LocalDateTime, String, LocalDate, String)} for
+   * zones that were already resolved, so a batch of events resolves each zone once.
+   */
+  static LocalDateTime convertTimeToTargetDate(LocalDateTime sourceDateTime,
+                                               ZoneId sourceZone,
+                                               LocalDate targetDate,
+                                               ZoneId targetZone) {
+    if (sourceZone.equals(targetZone)) {
+      return LocalDateTime.of(targetDate, sourceDateTime.toLocalTime());
+    }
+    LocalDateTime targetDateTime = LocalDateTime.ofInstant(
+        sourceDateTime.atZone(sourceZone).toInstant(), targetZone);
+    long dayShift = ChronoUnit.DAYS.between(sourceDateTime.toLocalDate(),
+        targetDateTime.toLocalDate());
+    return LocalDateTime.of(targetDate.plusDays(dayShift), targetDateTime.toLocalTime());
   }
 
 
@@ -0,0 +1,487 @@
+package model;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * An immutable copy of one calendar. The model publishes a new snapshot after every change,
+ * so readers can query it without taking any lock and always see the calendar between two
+ * changes, never in the middle of one.
+ * <p>
+ * Events are frozen into small chunks kept in start-time order. A snapshot derived from
+ * another by adding one event copies only the chunk the event lands in and shares every
+ * other chunk. Events are kept as instants, so a rename, a timezone change or a new series
+ * shares all of them.
+ * </p>
+ */
+final class CalendarSnapshot {
+  private static final int CHUNK_SIZE = 64;
+
+  private final ICalendar calendar;
+  private final String name;
+  private final String timezone;
+  private final CalendarZone zone;
+  private final FrozenEvent[][] chunks;
+  private final Duration maxLength;
+  private final List<EventSeries> series;
+
+  /**
+   * An event as it was when the snapshot was taken.
+   */
+  static final class FrozenEvent {
+    private final long eventId;
+    private final String name;
+    private final String description;
+    private final String location;
+    private final boolean isPublic;
+    private final Instant start;
+    private final Instant end;
+
+    FrozenEvent(long eventId, String name, String description, String location,
+                boolean isPublic, Instant start, Instant end) {
+      this.eventId = eventId;
+      this.name = name;
+      this.description = description;
+      this.location = location;
+      this.isPublic = isPublic;
+      this.start = start;
+      this.end = end;
+    }
+
+    static FrozenEvent of(CalendarEvent event) {
+      return new FrozenEvent(event.getEventId(), event.getEventName(),
+          event.getEventDescription(),
+          event.getEventLocation(), event.isPublic(), event.getStartInstant(),
+          event.getEndInstant());
+    }
+
+    long getEventId() {
+      return eventId;
+    }
+
+    String getName() {
+      return name;
+    }
+
+    String getDescription() {
+      return description;
+    }
+
+    String getLocation() {
+      return location;
+    }
+
+    boolean isPublic() {
+      return isPublic;
+    }
+
+    Instant getStart() {
+      return start;
+    }
+
+    Instant getEnd() {
+      return end;
+    }
+  }
+
+  /**
+   * Freezes a calendar.
+   *
+   * @param calendar the calendar the snapshot belongs to, used only to identify it
+   * @param name     the calendar's name
+   * @param timezone the calendar's timezone
+   * @param events   the calendar's stored events in start-time order
+   * @param series   the calendar's series, which are copied
+   */
+  CalendarSnapshot(ICalendar calendar, String name, String timezone, List<FrozenEvent> events,
+                   List<EventSeries> series) {
+    this(calendar, name, timezone, chunk(events), longest(events), copyOf(series));
+  }
+
+  private CalendarSnapshot(ICalendar calendar, String name, String timezone,
+                           FrozenEvent[][] chunks, Duration maxLength,
+                           List<EventSeries> series) {
+    this.calendar = calendar;
+    this.name = name;
+    this.timezone = timezone;
+    this.zone = new CalendarZone(ZoneId.of(timezone));
+    this.chunks = chunks;
+    this.maxLength = maxLength;
+    this.series = series;
+  }
+
+  boolean isOf(ICalendar calendar) {
+    return this.calendar == calendar;
+  }
+
+  String getName() {
+    return name;
+  }
+
+  String getTimezone() {
+    return timezone;
+  }
+
+  /**
+   * Returns the number of stored events.
+   */
+  int size() {
+    int size = 0;
+    for (FrozenEvent[] chunk : chunks) {
+      size += chunk.length;
+    }
+    return size;
+  }
+
+  /**
+   * Returns the stored events in start-time order.
+   */
+  Iterable<FrozenEvent> events() {
+    return () -> Arrays.stream(chunks).flatMap(Arrays::stream).iterator();
+  }
+
+  /**
+   * Returns the calendar's series. They must not be changed.
+   */
+  List<EventSeries> getSeries() {
+    return series;
+  }
+
+  CalendarSnapshot withName(String newName) {
+    return new CalendarSnapshot(calendar, newName, timezone, chunks, maxLength, series);
+  }
+
+  CalendarSnapshot withTimezone(String newTimezone) {
+    return new CalendarSnapshot(calendar, name, newTimezone, chunks, maxLength, series);
+  }
+
+  CalendarSnapshot withSeries(List<EventSeries> newSeries) {
+    return new CalendarSnapshot(calendar, name, timezone, chunks, maxLength,
+        copyOf(newSeries));
+  }
+
+  /**
+   * Returns a snapshot that also holds {@code event}, placed after any events with the same
+   * start. Only the chunk that receives the event is copied.
+   */
+  CalendarSnapshot withEvent(FrozenEvent event) {
+    Duration length = Duration.between(event.start, event.end);
+    Duration newMaxLength = length.compareTo(maxLength) > 0 ? length : maxLength;
+    if (chunks.length == 0) {
+      return new CalendarSnapshot(calendar, name, timezone,
+          new FrozenEvent[][] {{event}}, newMaxLength, series);
+    }
+    int target = 0;
+    for (int lo = 1, hi = chunks.length - 1; lo <= hi; ) {
+      int mid = (lo + hi) >>> 1;
+      if (!chunks[mid][0].start.isAfter(event.start)) {
+        target = mid;
+        lo = mid + 1;
+      } else {
+        hi = mid - 1;
+      }
+    }
+    FrozenEvent[] chunk = chunks[target];
+    int position = firstStartAfter(chunk, event.start);
+    FrozenEvent[] grown = new FrozenEvent[chunk.length + 1];
+    System.arraycopy(chunk, 0, grown, 0, position);
+    grown[position] = event;
+    System.arraycopy(chunk, position, grown, position + 1, chunk.length - position);
+
+    FrozenEvent[][] newChunks;
+    if (grown.length <= 2 * CHUNK_SIZE) {
+      newChunks = chunks.clone();
+      newChunks[target] = grown;
+    } else {
+      newChunks = new FrozenEvent[chunks.length + 1][];
+      System.arraycopy(chunks, 0, newChunks, 0, target);
+      newChunks[target] = Arrays.copyOfRange(grown, 0, CHUNK_SIZE);
+      newChunks[target + 1] = Arrays.copyOfRange(grown, CHUNK_SIZE, grown.length);
+      System.arraycopy(chunks, target + 1, newChunks, target + 2, chunks.length - target - 1);
+    }
+    return new CalendarSnapshot(calendar, name, timezone, newChunks, newMaxLength, series);
+  }
+
+  /**
+   * Returns a snapshot that also holds {@code added}, each placed after any events with the
+   * same start, as if they were added one by one. Only the chunks that receive events are
+   * copied, so a batch appended to a large calendar costs about the size of the batch.
+   */
+  CalendarSnapshot withEvents(List<FrozenEvent> added) {
+    if (added.size() <= 1) {
+      return added.isEmpty() ? this : withEvent(added.get(0));
+    }
+    // A stable sort keeps events with the same start in the order they were added
+    FrozenEvent[] sorted = added.toArray(new FrozenEvent[0]);
+    Arrays.sort(sorted, Comparator.comparing((FrozenEvent event) -> event.start));
+    Duration longest = longest(added);
+    Duration newMaxLength = longest.compareTo(maxLength) > 0 ? longest : maxLength;
+    if (chunks.length == 0) {
+      return new CalendarSnapshot(calendar, name, timezone, chunk(Arrays.asList(sorted)),
+          newMaxLength, series);
+    }
+    List<FrozenEvent[]> newChunks = new ArrayList<>(chunks.length + 1);
+    int next = 0;
+    for (int target = 0; target < chunks.length; target++) {
+      // An event goes to the last chunk whose first event starts no later than it does
+      int end = next;
+      while (end < sorted.length && (target == chunks.length - 1
+          || chunks[target + 1][0].start.isAfter(sorted[end].start))) {
+        end++;
+      }
+      if (end == next) {
+        newChunks.add(chunks[target]);
+        continue;
+      }
+      FrozenEvent[] merged = merge(chunks[target], sorted, next, end);
+      if (merged.length <= 2 * CHUNK_SIZE) {
+        newChunks.add(merged);
+      } else {
+        newChunks.addAll(Arrays.asList(chunk(Arrays.asList(merged))));
+      }
+      next = end;
+    }
+    return new CalendarSnapshot(calendar, name, timezone,
+        newChunks.toArray(new FrozenEvent[0][]), newMaxLength, series);
+  }
+
+  // Merges added[from, to) into a chunk, each after the chunk's events with the same start
+  private static FrozenEvent[] merge(FrozenEvent[] chunk, FrozenEvent[] added, int from,
+                                     int to) {
+    FrozenEvent[] merged = new FrozenEvent[chunk.length + to - from];
+    int i = 0;
+    int j = from;
+    for (int k = 0; k < merged.length; k++) {
+      merged[k] = j == to || (i < chunk.length && !chunk[i].start.isAfter(added[j].start))
+          ? chunk[i++] : added[j++];
+    }
+    return merged;
+  }
+
+  /**
+   * Returns a snapshot without {@code event}, which must be one of this snapshot's events as
+   * frozen before it was removed or edited. Only the chunk that held the event is copied.
+   */
+  CalendarSnapshot withoutEvent(FrozenEvent event) {
+    int chunk = 0;
+    while (chunk < chunks.length
+        && chunks[chunk][chunks[chunk].length - 1].start.isBefore(event.start)) {
+      chunk++;
+    }
+    // Events that start together may spill over into the following chunks
+    for (; chunk < chunks.length; chunk++) {
+      FrozenEvent[] events = chunks[chunk];
+      for (int i = firstStartAtOrAfter(events, event.start); i < events.length; i++) {
+        if (events[i].start.isAfter(event.start)) {
+          return this;
+        }
+        if (events[i].eventId == event.eventId) {
+          return new CalendarSnapshot(calendar, name, timezone, removing(chunk, i), maxLength,
+              series);
+        }
+      }
+    }
+    return this;
+  }
+
+  private FrozenEvent[][] removing(int chunk, int position) {
+    FrozenEvent[] events = chunks[chunk];
+    if (events.length == 1) {
+      FrozenEvent[][] newChunks = new FrozenEvent[chunks.length - 1][];
+      System.arraycopy(chunks, 0, newChunks, 0, chunk);
+      System.arraycopy(chunks, chunk + 1, newChunks, chunk, chunks.length - chunk - 1);
+      return newChunks;
+    }
+    FrozenEvent[] shrunk = new FrozenEvent[events.length - 1];
+    System.arraycopy(events, 0, shrunk, 0, position);
+    System.arraycopy(events, position + 1, shrunk, position, events.length - position - 1);
+    FrozenEvent[][] newChunks = chunks.clone();
+    newChunks[chunk] = shrunk;
+    return newChunks;
+  }
+
+  /**
+   * Returns the events that start within {@code [fromDateTime, toDateTime]} or end strictly
+   * inside {@code (fromDateTime, toDateTime)}, ordered by start date-time, with the same
+   * meaning as {@link ICalendar#getEventsInRange}.
+   */
+  List<ICalendarEventDTO> getEventsInRange(LocalDateTime fromDateTime,
+                                           LocalDateTime toDateTime) {
+    Instant from = zone.toInstant(fromDateTime);
+    Instant to = zone.toInstant(toDateTime);
+    List<ICalendarEventDTO> stored = collect(from, to,
+        e -> (!e.start.isBefore(from) && !e.start.isAfter(to))
+            || (e.end.isAfter(from) && e.end.isBefore(to)));
+    return withOccurrences(stored, fromDateTime, toDateTime,
+        e -> (!e.getStartDateTime().isBefore(fromDateTime)
+            && !e.getStartDateTime().isAfter(toDateTime))
+            || (e.getEndDateTime().isAfter(fromDateTime)
+            && e.getEndDateTime().isBefore(toDateTime)));
+  }
+
+  /**
+   * Returns the events in progress at {@code dateTime} (both ends inclusive), ordered by
+   * start date-time, with the same meaning as {@link ICalendar#getEventsAt}.
+   */
+  List<ICalendarEventDTO> getEventsAt(LocalDateTime dateTime) {
+    Instant instant = zone.toInstant(dateTime);
+    List<ICalendarEventDTO> stored = collect(instant, instant,
+        e -> !e.start.isAfter(instant) && !e.end.isBefore(instant));
+    return withOccurrences(stored, dateTime, dateTime,
+        e -> !e.getStartDateTime().isAfter(dateTime) && !e.getEndDateTime().isBefore(dateTime));
+  }
+
+  /**
+   * Converts the frozen events that start within {@code [lowestEnd - maxLength,
+   * highestStart]} and pass the filter. Events outside that window end before
+   * {@code lowestEnd} or start after {@code highestStart}.
+   */
+  private List<ICalendarEventDTO> collect(Instant lowestEnd, Instant highestStart,
+                                          Predicate<FrozenEvent> filter) {
+    List<ICalendarEventDTO> result = new ArrayList<>();
+    Instant lowestStart = lowestEnd.minus(maxLength);
+    int chunk = 0;
+    while (chunk < chunks.length
+        && chunks[chunk][chunks[chunk].length - 1].start.isBefore(lowestStart)) {
+      chunk++;
+    }
+    for (; chunk < chunks.length; chunk++) {
+      FrozenEvent[] events = chunks[chunk];
+      for (int i = firstStartAtOrAfter(events, lowestStart); i < events.length; i++) {
+        FrozenEvent event = events[i];
+        if (event.start.isAfter(highestStart)) {
+          return result;
+        }
+        if (filter.test(event)) {
+          result.add(toDTO(event));
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Adds the series occurrences that fall in the window and satisfy the filter, keeping the
+   * result in start-time order. Mirrors the live calendar, see {@link AbstractCalendar}.
+   */
+  private List<ICalendarEventDTO> withOccurrences(List<ICalendarEventDTO> stored,
+                                                  LocalDateTime fromDateTime,
+                                                  LocalDateTime toDateTime,
+                                                  Predicate<ICalendarEvent> filter) {
+    if (series.isEmpty()) {
+      return stored;
+    }
+    LocalDate from = fromDateTime.toLocalDate().equals(LocalDate.MIN)
+        ? LocalDate.MIN : fromDateTime.toLocalDate().minusDays(1);
+    LocalDate to = toDateTime.toLocalDate().equals(LocalDate.MAX)
+        ? LocalDate.MAX : toDateTime.toLocalDate().plusDays(1);
+    boolean added = false;
+    for (EventSeries eventSeries : series) {
+      for (CalendarEvent occurrence : eventSeries.occurrencesBetween(from, to)) {
+        occurrence.showIn(zone);
+        if (filter.test(occurrence)) {
+          stored.add(toDTO(occurrence));
+          added = true;
+        }
+      }
+    }
+    if (added) {
+      stored.sort(Comparator.comparing(ICalendarEventDTO::getStartDateTime));
+    }
+    return stored;
+  }
+
+  private ICalendarEventDTO toDTO(FrozenEvent event) {
+    return CalendarEventDTO.builder()
+        .setEventName(event.name)
+        .setStartDateTime(zone.toLocalDateTime(event.start))
+        .setEndDateTime(zone.toLocalDateTime(event.end))
+        .setEventLocation(event.location)
+        .setEventDescription(event.description)
+        .setPrivate(!event.isPublic)
+        .setAutoDecline(true)
+        .setEventId(event.eventId)
+        .build();
+  }
+
+  private static ICalendarEventDTO toDTO(ICalendarEvent event) {
+    return CalendarEventDTO.builder()
+        .setEventName(event.getEventName())
+        .setStartDateTime(event.getStartDateTime())
+        .setEndDateTime(event.getEndDateTime())
+        .setEventLocation(event.getEventLocation())
+        .setEventDescription(event.getEventDescription())
+        .setPrivate(!event.isPublic())
+        .setAutoDecline(true)
+        .build();
+  }
+
+  private static int firstStartAfter(FrozenEvent[] events, Instant start) {
+    int lo = 0;
+    int hi = events.length;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (events[mid].start.isAfter(start)) {
+        hi = mid;
+      } else {
+        lo = mid + 1;
+      }
+    }
+    return lo;
+  }
+
+  private static int firstStartAtOrAfter(FrozenEvent[] events, Instant start) {
+    int lo = 0;
+    int hi = events.length;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (events[mid].start.isBefore(start)) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  private static FrozenEvent[][] chunk(List<FrozenEvent> events) {
+    FrozenEvent[][] chunks = new FrozenEvent[(events.size() + CHUNK_SIZE - 1) / CHUNK_SIZE][];
+    for (int i = 0; i < chunks.length; i++) {
+      int from = i * CHUNK_SIZE;
+      chunks[i] = events.subList(from, Math.min(from + CHUNK_SIZE, events.size()))
+          .toArray(new FrozenEvent[0]);
+    }
+    return chunks;
+  }
+
+  private static Duration longest(List<FrozenEvent> events) {
+    Duration longest = Duration.ZERO;
+    for (FrozenEvent event : events) {
+      Duration length = Duration.between(event.start, event.end);
+      if (length.compareTo(longest) > 0) {
+        longest = length;
+      }
+    }
+    return longest;
+  }
+
+  private static List<EventSeries> copyOf(List<EventSeries> series) {
+    if (series.isEmpty()) {
+      return Collections.emptyList();
+    }
+    List<EventSeries> copies = new ArrayList<>(series.size());
+    for (EventSeries eventSeries : series) {
+      copies.add(eventSeries.copy());
+    }
+    return Collections.unmodifiableList(copies);
+  }
+}
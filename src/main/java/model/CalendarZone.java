@@ -0,0 +1,48 @@
+package model;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * The timezone a group of events is shown in.
+ * <p>
+ * Events keep their start and end as instants and hold a reference to a zone, converting
+ * to wall-clock date-times only when asked. A calendar shares one instance with all of its
+ * events, so changing the calendar's timezone is a single assignment: no event is rebuilt
+ * and no index entry moves, because the instants themselves never change.
+ * </p>
+ */
+final class CalendarZone {
+  /**
+   * The zone of events that do not belong to a calendar yet. Their wall-clock times are
+   * stored as if they were UTC and reinterpreted when the event is added to a calendar.
+   */
+  static final CalendarZone DETACHED = new CalendarZone(ZoneOffset.UTC);
+
+  private volatile ZoneId zoneId;
+
+  CalendarZone(ZoneId zoneId) {
+    this.zoneId = zoneId;
+  }
+
+  ZoneId getZoneId() {
+    return zoneId;
+  }
+
+  void setZoneId(ZoneId zoneId) {
+    if (this == DETACHED) {
+      throw new IllegalStateException("The zone of detached events cannot be changed");
+    }
+    this.zoneId = zoneId;
+  }
+
+  LocalDateTime toLocalDateTime(Instant instant) {
+    return instant == null ? null : LocalDateTime.ofInstant(instant, zoneId);
+  }
+
+  Instant toInstant(LocalDateTime dateTime) {
+    return dateTime == null ? null : dateTime.atZone(zoneId).toInstant();
+  }
+}
@@ -0,0 +1,402 @@
+package model;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records which entries of one calendar were added, changed or removed, numbered by a
+ * mutation sequence that grows by one with every change. Entries are identified by a key:
+ * a stored event by its id, anything else by a key the calendar chooses. A change to every
+ * entry at once, such as a new timezone, is one entry under {@link #EVERY_ENTRY}, which
+ * the calendar expands into a change to each entry when the changes are listed.
+ * <p>
+ * Each log starts its sequence at a point of its own, far from that of any other log of
+ * the same run or of an earlier one, so a sequence handed out by another log, such as one
+ * of a calendar deleted and created again, is told apart from one of this log. A journal or
+ * snapshot file that keeps the calendar keeps its log, starting point included, so the
+ * sequence carries on when the calendar is loaded again.
+ * </p>
+ * <p>
+ * A change that fails is rolled back through a {@link Mark}, which drops what the change
+ * recorded here, so the sequence counts only the changes that were kept and a replayed
+ * journal numbers them exactly as they were numbered when they were made.
+ * </p>
+ * <p>
+ * Each change appends an entry for its key; the entry it supersedes becomes stale and is
+ * dropped once stale entries outnumber current ones. A removal keeps what the calendar
+ * passes to describe the removed entry as a tombstone. Since entries are in sequence order, the
+ * changes after a given sequence are found by a binary search and listed in time
+ * proportional to their number, whatever the size of the calendar.
+ * </p>
+ */
+final class ChangeLog {
+  /**
+   * The key of a change to every entry of the calendar.
+   */
+  static final long EVERY_ENTRY = Long.MIN_VALUE;
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  /**
+   * Receives the changes listed by {@link #forEachSince}.
+   */
+  interface Visitor {
+    /**
+     * Called for an event changed after the given sequence.
+     *
+     * @param kind     whether the entry is new, changed or removed since then
+     * @param sequence the sequence of the entry's latest change
+     * @param key      the entry's key
+     * @param removed  the tombstone of a removed entry, or {@code null} if it is still there
+     */
+    void visit(IEventChange.Kind kind, long sequence, long key, Object removed);
+  }
+
+  // The low bits count changes; the high bits tell logs apart
+  private static final int SEQUENCE_BITS = 40;
+  private static final long RUN_MASK = (1L << (Long.SIZE - 1 - SEQUENCE_BITS)) - 1;
+  private static final AtomicLong RUNS = new AtomicLong(ThreadLocalRandom.current().nextLong());
+
+  private final long first;
+  private long sequence;
+  // While marks are held, the entry each change displaced as its key's latest, so a
+  // rollback can bring it back; entries are not compacted away meanwhile
+  private long[] displacedKeys = new long[INITIAL_CAPACITY];
+  private int[] displacedEntries = new int[INITIAL_CAPACITY];
+  private int displaced;
+  private int holds;
+  private long[] sequences = new long[INITIAL_CAPACITY];
+  private long[] keys = new long[INITIAL_CAPACITY];
+  private long[] addedAt = new long[INITIAL_CAPACITY];
+  private long[] firstAddedAt = new long[INITIAL_CAPACITY];
+  private Object[] removed = new Object[INITIAL_CAPACITY];
+  private int size;
+  private LongIntHashMap latest = new LongIntHashMap();
+
+  /**
+   * A point of the log that the changes recorded since can be rolled back to. Marks of one
+   * log are rolled back or released newest first.
+   */
+  final class Mark {
+    private final long markedSequence;
+    private final int markedSize;
+    private final int markedDisplaced;
+    private final Runnable alsoUndo;
+
+    private Mark(Runnable alsoUndo) {
+      this.markedSequence = sequence;
+      this.markedSize = size;
+      this.markedDisplaced = displaced;
+      this.alsoUndo = alsoUndo;
+    }
+
+    /**
+     * Drops the changes recorded since the mark, as if they had never been made, and
+     * forgets the mark.
+     */
+    void rollback() {
+      for (int i = displaced - 1; i >= markedDisplaced; i--) {
+        if (displacedEntries[i] == LongIntHashMap.MISSING) {
+          latest.remove(displacedKeys[i]);
+        } else {
+          latest.put(displacedKeys[i], displacedEntries[i]);
+        }
+      }
+      Arrays.fill(removed, markedSize, size, null);
+      size = markedSize;
+      sequence = markedSequence;
+      displaced = markedDisplaced;
+      alsoUndo.run();
+      release();
+    }
+
+    /**
+     * Keeps the changes recorded since the mark and forgets the mark.
+     */
+    void release() {
+      if (--holds == 0) {
+        displaced = 0;
+      }
+    }
+  }
+
+  /**
+   * Creates a log whose sequence starts at a point no other log of this run, and most
+   * likely of no earlier run, starts at.
+   */
+  ChangeLog() {
+    this(nextRun() << SEQUENCE_BITS);
+  }
+
+  /**
+   * Creates a log whose sequence starts at {@code first}.
+   */
+  ChangeLog(long first) {
+    this(first, first);
+  }
+
+  /**
+   * Creates a log read back from a file, whose sequence started at {@code first} and has
+   * reached {@code sequence}. Its entries are added with {@link #restore}.
+   */
+  ChangeLog(long first, long sequence) {
+    this.first = first;
+    this.sequence = sequence;
+  }
+
+  private static long nextRun() {
+    long run;
+    do {
+      run = RUNS.getAndIncrement() & RUN_MASK;
+    } while (run == 0);
+    return run;
+  }
+
+  /**
+   * Receives the entries passed by {@link #forEachEntry}.
+   */
+  interface EntryVisitor {
+    void visit(long sequence, long key, long addedAt, long firstAddedAt, Object removed);
+  }
+
+  /**
+   * Returns a point the changes recorded from now on can be rolled back to. Rolling back
+   * also runs {@code alsoUndo}, for state the caller keeps alongside the log.
+   */
+  Mark mark(Runnable alsoUndo) {
+    holds++;
+    return new Mark(alsoUndo);
+  }
+
+  /**
+   * Returns a copy of the log as it is now, which later changes to either do not affect.
+   */
+  ChangeLog copy() {
+    ChangeLog copy = new ChangeLog(first, sequence);
+    copy.sequences = Arrays.copyOf(sequences, Math.max(size, INITIAL_CAPACITY));
+    copy.keys = Arrays.copyOf(keys, copy.sequences.length);
+    copy.addedAt = Arrays.copyOf(addedAt, copy.sequences.length);
+    copy.firstAddedAt = Arrays.copyOf(firstAddedAt, copy.sequences.length);
+    copy.removed = Arrays.copyOf(removed, copy.sequences.length);
+    copy.size = size;
+    copy.latest = latest.copy();
+    return copy;
+  }
+
+  /**
+   * Returns the number of entries {@link #forEachEntry} passes, one per key.
+   */
+  int entries() {
+    return latest.size();
+  }
+
+  /**
+   * Passes the latest entry of every key to {@code visitor}, in sequence order, with the
+   * values {@link #restore} takes back.
+   */
+  void forEachEntry(EntryVisitor visitor) {
+    for (int entry = 0; entry < size; entry++) {
+      if (latest.get(keys[entry]) == entry) {
+        visitor.visit(sequences[entry], keys[entry], addedAt[entry], firstAddedAt[entry],
+            removed[entry]);
+      }
+    }
+  }
+
+  /**
+   * Adds an entry read back from a file. Entries must come in sequence order, one per key,
+   * as {@link #forEachEntry} passed them.
+   *
+   * @throws IllegalArgumentException if the entry does not follow the previous one or comes
+   *                                  after the log's sequence
+   */
+  void restore(long entrySequence, long key, long entryAddedAt, long entryFirstAddedAt,
+               Object tombstone) {
+    if (entrySequence <= first || entrySequence > sequence
+        || (size > 0 && entrySequence <= sequences[size - 1])
+        || latest.get(key) != LongIntHashMap.MISSING) {
+      throw new IllegalArgumentException("Change " + entrySequence + " of entry " + key
+          + " is out of order.");
+    }
+    if (size == sequences.length) {
+      grow();
+    }
+    sequences[size] = entrySequence;
+    keys[size] = key;
+    addedAt[size] = entryAddedAt;
+    firstAddedAt[size] = entryFirstAddedAt;
+    removed[size] = tombstone;
+    latest.put(key, size);
+    size++;
+  }
+
+  /**
+   * Returns the sequence the log started at, before its first change.
+   */
+  long first() {
+    return first;
+  }
+
+  /**
+   * Returns the sequence of the latest change, or {@link #first} if there has been none.
+   */
+  long sequence() {
+    return sequence;
+  }
+
+  /**
+   * Returns the sequence of the latest change to the entry with the given key, or 0 if it
+   * has not changed since the calendar was created or loaded.
+   */
+  long lastModified(long key) {
+    int entry = latest.get(key);
+    return entry == LongIntHashMap.MISSING ? 0 : sequences[entry];
+  }
+
+  /**
+   * Records that the entry with the given key was stored or changed.
+   */
+  void touched(long key) {
+    record(key, null);
+  }
+
+  /**
+   * Records that every entry of the calendar changed at once, in one step whatever their
+   * number.
+   */
+  void touchedAll() {
+    record(EVERY_ENTRY, null);
+  }
+
+  /**
+   * Returns whether the entry with the given key is stored and was added after
+   * {@code since}, as {@link #forEachSince} decides for the entries it lists.
+   */
+  boolean addedAfter(long key, long since) {
+    int entry = latest.get(key);
+    return entry != LongIntHashMap.MISSING && removed[entry] == null && addedAt[entry] > since;
+  }
+
+  /**
+   * Records that {@code event} was removed from the calendar.
+   */
+  void removed(CalendarSnapshot.FrozenEvent event) {
+    record(event.getEventId(), event);
+  }
+
+  /**
+   * Records that the entry with the given key was removed, keeping {@code tombstone} to
+   * describe it.
+   */
+  void removed(long key, Object tombstone) {
+    record(key, tombstone);
+  }
+
+  /**
+   * Passes the entries changed after {@code since} to {@code visitor}, in the order of their
+   * latest change. An entry first added after {@code since} and removed again is left out.
+   * An entry stored again after being removed, as an undone deletion is, counts as added
+   * if it was removed after {@code since}, and once removed again counts as removed if it
+   * had been added by then; replaying the changes by key gives the entries stored now.
+   * <p>
+   * After a change to every entry, {@code visitor} is passed {@link #EVERY_ENTRY} in its
+   * place, as edited, and is not passed the entries still stored whose latest change came
+   * before it; the caller lists those itself, as changed then. Entries changed since are
+   * passed as usual.
+   * </p>
+   */
+  void forEachSince(long since, Visitor visitor) {
+    int low = 0;
+    int high = size;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (sequences[middle] <= since) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    int everyEntry = latest.get(EVERY_ENTRY);
+    long everyAt = everyEntry == LongIntHashMap.MISSING ? 0 : sequences[everyEntry];
+    for (int entry = low; entry < size; entry++) {
+      if (latest.get(keys[entry]) != entry
+          || (removed[entry] == null && sequences[entry] < everyAt)) {
+        continue;
+      }
+      if (keys[entry] == EVERY_ENTRY) {
+        visitor.visit(IEventChange.Kind.EDITED, sequences[entry], EVERY_ENTRY, null);
+        continue;
+      }
+      if (removed[entry] != null) {
+        if (firstAddedAt[entry] <= since) {
+          visitor.visit(IEventChange.Kind.REMOVED, sequences[entry], keys[entry],
+              removed[entry]);
+        }
+      } else {
+        visitor.visit(addedAt[entry] > since ? IEventChange.Kind.ADDED
+                : IEventChange.Kind.EDITED,
+            sequences[entry], keys[entry], null);
+      }
+    }
+  }
+
+  private void record(long key, Object tombstone) {
+    long current = ++sequence;
+    int previous = latest.get(key);
+    // An event stored again after a removal starts a new stretch of being stored
+    long firstAdded = previous == LongIntHashMap.MISSING ? current : firstAddedAt[previous];
+    long added = previous == LongIntHashMap.MISSING || removed[previous] != null
+        ? current : addedAt[previous];
+    if (size == sequences.length) {
+      if (holds == 0 && (size - latest.size()) * 2 > size) {
+        compact();
+      } else {
+        grow();
+      }
+    }
+    if (holds > 0) {
+      if (displaced == displacedKeys.length) {
+        displacedKeys = Arrays.copyOf(displacedKeys, displaced * 2);
+        displacedEntries = Arrays.copyOf(displacedEntries, displaced * 2);
+      }
+      displacedKeys[displaced] = key;
+      displacedEntries[displaced] = previous;
+      displaced++;
+    }
+    sequences[size] = current;
+    keys[size] = key;
+    addedAt[size] = added;
+    firstAddedAt[size] = firstAdded;
+    removed[size] = tombstone;
+    latest.put(key, size);
+    size++;
+  }
+
+  // Drops the entries a later change to the same event superseded
+  private void compact() {
+    int kept = 0;
+    for (int entry = 0; entry < size; entry++) {
+      if (latest.get(keys[entry]) == entry) {
+        sequences[kept] = sequences[entry];
+        keys[kept] = keys[entry];
+        addedAt[kept] = addedAt[entry];
+        firstAddedAt[kept] = firstAddedAt[entry];
+        removed[kept] = removed[entry];
+        latest.put(keys[kept], kept);
+        kept++;
+      }
+    }
+    Arrays.fill(removed, kept, size, null);
+    size = kept;
+  }
+
+  private void grow() {
+    int capacity = sequences.length * 2;
+    sequences = Arrays.copyOf(sequences, capacity);
+    keys = Arrays.copyOf(keys, capacity);
+    addedAt = Arrays.copyOf(addedAt, capacity);
+    firstAddedAt = Arrays.copyOf(firstAddedAt, capacity);
+    removed = Arrays.copyOf(removed, capacity);
+  }
+}
@@ -0,0 +1,77 @@
+package model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checkpoints a {@link JournaledCalendarModel} in the background at a fixed interval, so
+ * its journal stays short and reopening it replays only the changes since the last
+ * checkpoint.
+ * <p>
+ * A checkpoint that fails is reported and retried at the next interval; the journal keeps
+ * every change in the meantime, so nothing is lost.
+ * </p>
+ */
+class Checkpointer implements Closeable {
+  private final JournaledCalendarModel model;
+  private final ScheduledExecutorService executor;
+  private volatile Exception lastFailure;
+
+  /**
+   * Starts checkpointing {@code model} every {@code interval}, counted from the end of the
+   * previous checkpoint.
+   */
+  Checkpointer(JournaledCalendarModel model, Duration interval) {
+    if (interval.isNegative() || interval.isZero()) {
+      throw new IllegalArgumentException("Checkpoint interval must be positive: " + interval);
+    }
+    this.model = model;
+    this.executor = Executors.newSingleThreadScheduledExecutor(task -> {
+      Thread thread = new Thread(task, "journal-checkpointer");
+      thread.setDaemon(true);
+      return thread;
+    });
+    long millis = Math.max(1, interval.toMillis());
+    executor.scheduleWithFixedDelay(this::run, millis, millis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Returns why the latest checkpoint failed, or {@code null} if it succeeded.
+   */
+  Exception getLastFailure() {
+    return lastFailure;
+  }
+
+  /**
+   * Stops checkpointing, waiting for a checkpoint in progress to finish.
+   */
+  @Override
+  public void close() {
+    executor.shutdown();
+    boolean interrupted = false;
+    while (!executor.isTerminated()) {
+      try {
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void run() {
+    try {
+      model.checkpoint();
+      lastFailure = null;
+    } catch (IOException | RuntimeException e) {
+      lastFailure = e;
+      System.err.println("Checkpoint failed: " + e.getMessage());
+    }
+  }
+}
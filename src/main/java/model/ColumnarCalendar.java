@@ -0,0 +1,627 @@
+package model;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+
+/**
+ * A calendar that stores its events column by column in primitive arrays instead of one
+ * object per event.
+ * <p>
+ * Start and end are kept as epoch seconds, names, descriptions and locations as ids into the
+ * model's {@link StringDictionary}, and the public flag in a bit set, so an event costs a few dozen
+ * bytes however many share the same strings. {@link ICalendarEvent} objects are only created
+ * when a caller asks for events; they are views that read and write the columns of their
+ * row. Times are kept to the second.
+ * </p>
+ * <p>
+ * Queries walk a row order sorted by start that is rebuilt lazily after out-of-order
+ * inserts or time edits. Because no event is longer than the longest one stored, a query
+ * only needs to look at rows starting between {@code from} minus that length and {@code to}.
+ * Lookups by name go through an {@link EventNameIndex} of row numbers, lookups by id through
+ * a {@link LongIntHashMap} from event ids to rows. Rows loaded from a snapshot file are
+ * only added to the name index when it is first needed. Removing an event moves the last row into
+ * its place, so rows stay dense.
+ * </p>
+ */
+class ColumnarCalendar extends AbstractCalendar {
+  private static final int INITIAL_CAPACITY = 16;
+
+  private long[] starts;
+  private long[] ends;
+  private int[] nameIds;
+  private int[] descriptionIds;
+  private int[] locationIds;
+  private BitSet publicFlags;
+  private long[] ids;
+  private int size;
+
+  private int[] byStart;
+  private boolean sorted;
+  private long maxLength;
+  private final EventNameIndex<Integer> names = new EventNameIndex<>();
+  private boolean namesStale;
+  private final LongIntHashMap rows = new LongIntHashMap();
+
+  private ColumnarCalendar(Builder builder) {
+    super(builder.calendarName, builder.timezone, builder.dictionary, builder.eventIds);
+    reset(builder.events.size());
+    builder.events.forEach(event -> append(CalendarEvent.copyOf(event)));
+  }
+
+  public static Builder builder() {
+    return new ColumnarCalendar.Builder();
+  }
+
+  public List<ICalendarEvent> getEventsCopy() {
+    List<ICalendarEvent> copy = new ArrayList<>(size);
+    for (int row = 0; row < size; row++) {
+      copy.add(detachedCopy(new EventView(row)));
+    }
+    return copy;
+  }
+
+  /**
+   * Returns the stored events in insertion order. Each element is created when it is read.
+   */
+  public List<ICalendarEvent> getEvents() {
+    return Collections.unmodifiableList(new AbstractList<ICalendarEvent>() {
+      @Override
+      public ICalendarEvent get(int row) {
+        if (row < 0 || row >= size) {
+          throw new IndexOutOfBoundsException("Row " + row + " out of " + size);
+        }
+        return new EventView(row);
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    });
+  }
+
+  /**
+   * Replaces the stored events. The columns are rebuilt from scratch and the old rows give
+   * up their dictionary references. Views handed out earlier must not be used afterwards.
+   */
+  public void setEvents(List<ICalendarEvent> events) {
+    // The new events may be views of this calendar, so read them before resetting
+    List<CalendarEvent> copies = new ArrayList<>(events.size());
+    for (ICalendarEvent event : events) {
+      copies.add(CalendarEvent.copyOf(event));
+    }
+    for (int row = 0; row < size; row++) {
+      recordRemoval(ids[row]);
+    }
+    reset(copies.size());
+    copies.forEach(this::append);
+  }
+
+  public void addEvents(List<CalendarEvent> events) {
+    ensureCapacity(size + events.size());
+    events.forEach(this::append);
+  }
+
+  public void addEvent(CalendarEvent event) {
+    append(event);
+  }
+
+  // Snapshot records already hold the columns' values, so they are copied without building
+  // an event per row
+  @Override
+  void load(SnapshotFile.EventRecords records) {
+    int count = records.size();
+    reset(count);
+    rows.ensureCapacity(count);
+    for (int row = 0; row < count; row++) {
+      starts[row] = records.startSecond(row);
+      ends[row] = records.endSecond(row);
+      nameIds[row] = records.nameId(row);
+      descriptionIds[row] = records.descriptionId(row);
+      locationIds[row] = records.locationId(row);
+      dictionary.retain(nameIds[row]);
+      dictionary.retain(descriptionIds[row]);
+      dictionary.retain(locationIds[row]);
+      publicFlags.set(row, records.isPublic(row));
+      ids[row] = records.eventId(row);
+      rows.put(ids[row], row);
+      maxLength = Math.max(maxLength, ends[row] - starts[row]);
+      if (row > 0 && starts[row] < starts[row - 1]) {
+        sorted = false;
+      }
+      byStart[row] = row;
+    }
+    size = count;
+    namesStale = true;
+  }
+
+  // Rows are appended in order, so the newest ones are the last rows
+  public void truncateEvents(int newSize) {
+    for (int row = newSize; row < size; row++) {
+      recordRemoval(ids[row]);
+      dictionary.release(nameIds[row]);
+      dictionary.release(descriptionIds[row]);
+      dictionary.release(locationIds[row]);
+      publicFlags.clear(row);
+      names().remove(row);
+      rows.remove(ids[row]);
+    }
+    if (newSize < size) {
+      size = newSize;
+      sorted = false;
+    }
+  }
+
+  public ICalendarEvent getEventById(long eventId) {
+    int row = rows.get(eventId);
+    return row == LongIntHashMap.MISSING ? null : new EventView(row);
+  }
+
+  public int removeEvent(long eventId) {
+    int row = rows.get(eventId);
+    if (row == LongIntHashMap.MISSING) {
+      return -1;
+    }
+    recordRemoval(eventId);
+    rows.remove(eventId);
+    dictionary.release(nameIds[row]);
+    dictionary.release(descriptionIds[row]);
+    dictionary.release(locationIds[row]);
+    names().remove(row);
+    int last = --size;
+    if (row != last) {
+      copyRow(last, row);
+      rows.put(ids[row], row);
+      names().move(last, row);
+    }
+    publicFlags.clear(last);
+    sorted = false;
+    return row;
+  }
+
+  public void restoreEvent(CalendarEvent event, int position) {
+    append(event);
+    int last = size - 1;
+    if (position < last) {
+      swapRows(position, last);
+      rows.put(ids[position], position);
+      rows.put(ids[last], last);
+      names().swap(position, last);
+      sorted = false;
+    }
+  }
+
+  // Views write straight into the columns and mark the start order stale themselves; only
+  // the name index keeps a copy of what it sorts by
+  public void reindexEvent(ICalendarEvent event) {
+    changes.touched(event.getEventId());
+    if (event instanceof EventView && ((EventView) event).owner() == this) {
+      int row = ((EventView) event).row;
+      names().reindex(row, dictionary.valueOf(nameIds[row]), Instant.ofEpochSecond(starts[row]));
+    }
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Shrinks the columns to the number of stored events and recomputes the longest event
+   * length, which only grows while events are added and edited.
+   */
+  public void compact() {
+    resize(size);
+    maxLength = 0;
+    for (int row = 0; row < size; row++) {
+      maxLength = Math.max(maxLength, ends[row] - starts[row]);
+    }
+  }
+
+  /**
+   * Returns the number of distinct strings in the dictionary the events are encoded with.
+   */
+  public int dictionarySize() {
+    return dictionary.size();
+  }
+
+  protected List<ICalendarEvent> storedInRange(Instant from, Instant to) {
+    long fromFloor = from.getEpochSecond();
+    long fromCeil = ceilSeconds(from);
+    long toFloor = to.getEpochSecond();
+    long toCeil = ceilSeconds(to);
+    return collect(fromFloor, toFloor,
+        row -> (starts[row] >= fromCeil && starts[row] <= toFloor)
+            || (ends[row] > fromFloor && ends[row] < toCeil));
+  }
+
+  protected List<ICalendarEvent> storedAt(Instant instant) {
+    long floor = instant.getEpochSecond();
+    long ceil = ceilSeconds(instant);
+    return collect(floor, floor, row -> starts[row] <= floor && ends[row] >= ceil);
+  }
+
+  protected List<ICalendarEvent> storedOverlapping(Instant from, Instant to) {
+    long fromCeil = ceilSeconds(from);
+    long toFloor = to.getEpochSecond();
+    return collect(from.getEpochSecond(), toFloor,
+        row -> starts[row] <= toFloor && ends[row] >= fromCeil);
+  }
+
+  protected List<ICalendarEvent> storedNamed(String name, Instant from, Instant to) {
+    List<ICalendarEvent> result = new ArrayList<>();
+    for (int row : names().query(name, Instant.ofEpochSecond(ceilSeconds(from)),
+        Instant.ofEpochSecond(to.getEpochSecond()))) {
+      result.add(new EventView(row));
+    }
+    return result;
+  }
+
+  protected void forEachStored(Consumer<? super ICalendarEvent> action) {
+    ensureSorted();
+    for (int i = 0; i < size; i++) {
+      action.accept(new EventView(byStart[i]));
+    }
+  }
+
+  protected void append(CalendarEvent event) {
+    // Brings the index up to date before the new row exists, so the row is indexed once
+    EventNameIndex<Integer> index = names();
+    event.bindTo(zone);
+    if (event.getStartInstant() == null || event.getEndInstant() == null) {
+      throw new IllegalArgumentException("Event must have a start and an end.");
+    }
+    ensureCapacity(size + 1);
+    int row = size++;
+    starts[row] = event.getStartInstant().getEpochSecond();
+    ends[row] = event.getEndInstant().getEpochSecond();
+    nameIds[row] = dictionary.acquire(event.getEventName());
+    descriptionIds[row] = dictionary.acquire(event.getEventDescription());
+    locationIds[row] = dictionary.acquire(event.getEventLocation());
+    publicFlags.set(row, event.isPublic());
+    ids[row] = idOf(event);
+    rows.put(ids[row], row);
+    index.insert(row, event.getEventName(), Instant.ofEpochSecond(starts[row]));
+    maxLength = Math.max(maxLength, ends[row] - starts[row]);
+    if (sorted && row > 0 && starts[row] < starts[byStart[row - 1]]) {
+      sorted = false;
+    }
+    byStart[row] = row;
+  }
+
+  protected List<CalendarSnapshot.FrozenEvent> frozenEvents() {
+    ensureSorted();
+    List<CalendarSnapshot.FrozenEvent> frozen = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      int row = byStart[i];
+      frozen.add(freeze(row));
+    }
+    return frozen;
+  }
+
+  public CalendarSnapshot.FrozenEvent frozenEvent(long eventId) {
+    int row = rows.get(eventId);
+    return row == LongIntHashMap.MISSING ? null : freeze(row);
+  }
+
+  private CalendarSnapshot.FrozenEvent freeze(int row) {
+    return new CalendarSnapshot.FrozenEvent(ids[row], dictionary.valueOf(nameIds[row]),
+        dictionary.valueOf(descriptionIds[row]), dictionary.valueOf(locationIds[row]),
+        publicFlags.get(row), Instant.ofEpochSecond(starts[row]),
+        Instant.ofEpochSecond(ends[row]));
+  }
+
+  /**
+   * Returns views of the rows whose start lies in {@code [lowestEnd - maxLength, highestStart]}
+   * and that pass the filter, in start order. Rows outside that window end before
+   * {@code lowestEnd} or start after {@code highestStart}.
+   */
+  private List<ICalendarEvent> collect(long lowestEnd, long highestStart, IntPredicate filter) {
+    ensureSorted();
+    List<ICalendarEvent> result = new ArrayList<>();
+    for (int i = firstStartAfter(lowestEnd - maxLength - 1); i < size; i++) {
+      int row = byStart[i];
+      if (starts[row] > highestStart) {
+        break;
+      }
+      if (filter.test(row)) {
+        result.add(new EventView(row));
+      }
+    }
+    return result;
+  }
+
+  // Index in the start order of the first row starting strictly after 'start'
+  private int firstStartAfter(long start) {
+    int low = 0;
+    int high = size;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (starts[byStart[mid]] <= start) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  // Bottom-up merge sort; stable, so rows that start together keep their insertion order
+  private void ensureSorted() {
+    if (sorted) {
+      return;
+    }
+    int[] source = byStart;
+    int[] target = new int[byStart.length];
+    for (int row = 0; row < size; row++) {
+      source[row] = row;
+    }
+    for (int width = 1; width < size; width *= 2) {
+      for (int low = 0; low < size; low += 2 * width) {
+        int mid = Math.min(low + width, size);
+        int high = Math.min(low + 2 * width, size);
+        int i = low;
+        int j = mid;
+        for (int k = low; k < high; k++) {
+          if (i < mid && (j >= high || starts[source[i]] <= starts[source[j]])) {
+            target[k] = source[i++];
+          } else {
+            target[k] = source[j++];
+          }
+        }
+      }
+      int[] swap = source;
+      source = target;
+      target = swap;
+    }
+    byStart = source;
+    sorted = true;
+  }
+
+  // Acquire before releasing so an unchanged value never drops out of the dictionary
+  private int replace(int oldId, String value) {
+    int newId = dictionary.acquire(value);
+    dictionary.release(oldId);
+    return newId;
+  }
+
+  // Overwrites row 'to' with row 'from'; the dictionary references move along
+  private void copyRow(int from, int to) {
+    starts[to] = starts[from];
+    ends[to] = ends[from];
+    nameIds[to] = nameIds[from];
+    descriptionIds[to] = descriptionIds[from];
+    locationIds[to] = locationIds[from];
+    publicFlags.set(to, publicFlags.get(from));
+    ids[to] = ids[from];
+  }
+
+  private void swapRows(int first, int second) {
+    long start = starts[first];
+    long end = ends[first];
+    int nameId = nameIds[first];
+    int descriptionId = descriptionIds[first];
+    int locationId = locationIds[first];
+    boolean isPublic = publicFlags.get(first);
+    long id = ids[first];
+    copyRow(second, first);
+    starts[second] = start;
+    ends[second] = end;
+    nameIds[second] = nameId;
+    descriptionIds[second] = descriptionId;
+    locationIds[second] = locationId;
+    publicFlags.set(second, isPublic);
+    ids[second] = id;
+  }
+
+  private EventNameIndex<Integer> names() {
+    if (namesStale) {
+      for (int row = 0; row < size; row++) {
+        names.insert(row, dictionary.valueOf(nameIds[row]), Instant.ofEpochSecond(starts[row]));
+      }
+      namesStale = false;
+    }
+    return names;
+  }
+
+  private void timesChanged(int row) {
+    sorted = false;
+    maxLength = Math.max(maxLength, ends[row] - starts[row]);
+  }
+
+  private void reset(int capacity) {
+    for (int row = 0; row < size; row++) {
+      dictionary.release(nameIds[row]);
+      dictionary.release(descriptionIds[row]);
+      dictionary.release(locationIds[row]);
+    }
+    int length = Math.max(INITIAL_CAPACITY, capacity);
+    starts = new long[length];
+    ends = new long[length];
+    nameIds = new int[length];
+    descriptionIds = new int[length];
+    locationIds = new int[length];
+    byStart = new int[length];
+    ids = new long[length];
+    publicFlags = new BitSet();
+    size = 0;
+    sorted = true;
+    maxLength = 0;
+    names.clear();
+    namesStale = false;
+    rows.clear();
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity > starts.length) {
+      resize(Math.max(capacity, starts.length * 2));
+    }
+  }
+
+  private void resize(int capacity) {
+    int length = Math.max(INITIAL_CAPACITY, capacity);
+    starts = Arrays.copyOf(starts, length);
+    ends = Arrays.copyOf(ends, length);
+    nameIds = Arrays.copyOf(nameIds, length);
+    descriptionIds = Arrays.copyOf(descriptionIds, length);
+    locationIds = Arrays.copyOf(locationIds, length);
+    byStart = Arrays.copyOf(byStart, length);
+    ids = Arrays.copyOf(ids, length);
+  }
+
+  private static long ceilSeconds(Instant instant) {
+    return instant.getNano() == 0 ? instant.getEpochSecond() : instant.getEpochSecond() + 1;
+  }
+
+  private static CalendarEvent detachedCopy(IReadOnlyCalendarEvent event) {
+    return CalendarEvent.builder()
+        .setEventName(event.getEventName())
+        .setStartDateTime(event.getStartDateTime())
+        .setEndDateTime(event.getEndDateTime())
+        .setEventDescription(event.getEventDescription())
+        .setEventLocation(event.getEventLocation())
+        .setPublic(event.isPublic())
+        .build();
+  }
+
+  /**
+   * A live view of one row. Two views of the same row are equal.
+   */
+  private final class EventView implements ICalendarEvent, IEncodedEvent {
+    private final int row;
+
+    private EventView(int row) {
+      this.row = row;
+    }
+
+    public String getEventName() {
+      return dictionary.valueOf(nameIds[row]);
+    }
+
+    public LocalDateTime getStartDateTime() {
+      return zone.toLocalDateTime(Instant.ofEpochSecond(starts[row]));
+    }
+
+    public LocalDateTime getEndDateTime() {
+      return zone.toLocalDateTime(Instant.ofEpochSecond(ends[row]));
+    }
+
+    public String getEventDescription() {
+      return dictionary.valueOf(descriptionIds[row]);
+    }
+
+    public String getEventLocation() {
+      return dictionary.valueOf(locationIds[row]);
+    }
+
+    public boolean isPublic() {
+      return publicFlags.get(row);
+    }
+
+    public long getEventId() {
+      return ids[row];
+    }
+
+    public boolean doesEventConflict(ICalendarEvent event) {
+      return getStartDateTime().isBefore(event.getEndDateTime())
+          && getEndDateTime().isAfter(event.getStartDateTime());
+    }
+
+    public void setEventName(String name) {
+      nameIds[row] = replace(nameIds[row], name);
+    }
+
+    public void setStartDateTime(LocalDateTime start) {
+      starts[row] = zone.toInstant(start).getEpochSecond();
+      timesChanged(row);
+    }
+
+    public void setEndDateTime(LocalDateTime end) {
+      ends[row] = zone.toInstant(end).getEpochSecond();
+      timesChanged(row);
+    }
+
+    public void setEventDescription(String desc) {
+      descriptionIds[row] = replace(descriptionIds[row], desc);
+    }
+
+    public void setEventLocation(String location) {
+      locationIds[row] = replace(locationIds[row], location);
+    }
+
+    public void setPublic(boolean isPublic) {
+      publicFlags.set(row, isPublic);
+    }
+
+    public int getNameId(StringDictionary strings) {
+      return strings == dictionary ? nameIds[row] : strings.find(getEventName());
+    }
+
+    private ColumnarCalendar owner() {
+      return ColumnarCalendar.this;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof EventView && ((EventView) other).owner() == owner()
+          && ((EventView) other).row == row;
+    }
+
+    @Override
+    public int hashCode() {
+      return row;
+    }
+  }
+
+  /**
+   * Builder class for constructing ColumnarCalendar instances.
+   */
+  public static class Builder implements ICalendarBuilder<ColumnarCalendar> {
+    private String calendarName;
+    private String timezone;
+    private StringDictionary dictionary;
+    private EventIds eventIds;
+    private List<ICalendarEvent> events = new ArrayList<>();
+
+    public Builder setCalendarName(String calendarName) {
+      this.calendarName = calendarName;
+      return this;
+    }
+
+    public Builder setEvents(List<ICalendarEvent> events) {
+      this.events = new ArrayList<>(events);
+      return this;
+    }
+
+    @Override
+    public boolean isCompact() {
+      return true;
+    }
+
+    public Builder setTimezone(String timezone) {
+      this.timezone = timezone;
+      return this;
+    }
+
+    public Builder setDictionary(StringDictionary dictionary) {
+      this.dictionary = dictionary;
+      return this;
+    }
+
+    public Builder setEventIds(EventIds eventIds) {
+      this.eventIds = eventIds;
+      return this;
+    }
+
+    public ColumnarCalendar build() {
+      return new ColumnarCalendar(this);
+    }
+  }
+}
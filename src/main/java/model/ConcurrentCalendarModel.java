@@ -0,0 +1,453 @@
+package model;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A {@link CalendarModel} that can be shared by several threads.
+ * <p>
+ * Calendars live in a copy-on-write list, so looking one up never blocks. Each calendar has
+ * its own read/write lock: queries take the read lock and run alongside each other, changes
+ * take the write lock, and operations on different calendars never wait for one another.
+ * Creating, renaming and deleting calendars are serialized on a registry lock so that names
+ * stay unique.
+ * </p>
+ * <p>
+ * Copies between calendars lock both of them, always in the order the calendars were
+ * created in, so two copies in opposite directions cannot deadlock.
+ * </p>
+ * <p>
+ * A transaction write-locks every calendar and holds the registry lock from its beginning to
+ * its end. Other threads wait for it before reading or changing any calendar, even one the
+ * transaction created, so they never see its changes before it commits and a rollback never
+ * undoes theirs.
+ * </p>
+ */
+class ConcurrentCalendarModel extends CalendarModel {
+  private final ReentrantLock registryLock = new ReentrantLock();
+  private final Map<ICalendar, CalendarLock> locks = new ConcurrentHashMap<>();
+  private final AtomicLong nextOrder = new AtomicLong();
+  private volatile Thread transactionOwner;
+  // Used by the transaction owner only
+  private List<Lock> transactionLocks;
+
+  private static final class CalendarLock {
+    private final long order;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private CalendarLock(long order) {
+      this.order = order;
+    }
+  }
+
+  /**
+   * An operation run while the calendars it touches are locked.
+   */
+  private interface Locked<T> {
+    T run();
+  }
+
+  public ConcurrentCalendarModel() {
+    this(Calendar::builder);
+  }
+
+  public ConcurrentCalendarModel(Supplier<ICalendarBuilder<?>> calendarFactory) {
+    super(calendarFactory, new CopyOnWriteArrayList<>());
+  }
+
+  @Override
+  public boolean createCalendar(String calName, String timezone) {
+    registryLock.lock();
+    try {
+      super.createCalendar(calName, timezone);
+      lockFor(getCalendarByName(calName));
+      return true;
+    } finally {
+      registryLock.unlock();
+    }
+  }
+
+  @Override
+  public boolean editCalendar(String calendarName, String property, String newValue) {
+    if ("name".equalsIgnoreCase(property)) {
+      registryLock.lock();
+      try {
+        return withWriteLock(calendarName,
+            () -> super.editCalendar(calendarName, property, newValue));
+      } finally {
+        registryLock.unlock();
+      }
+    }
+    return withWriteLock(calendarName,
+        () -> super.editCalendar(calendarName, property, newValue));
+  }
+
+  @Override
+  public boolean deleteCalendar(String calName) {
+    registryLock.lock();
+    try {
+      ICalendar calendar;
+      try {
+        calendar = getCalendarByName(calName);
+      } catch (IllegalArgumentException e) {
+        return false;
+      }
+      // Waits for operations still running on the calendar
+      return withWriteLock(calName, () -> {
+        boolean deleted = super.deleteCalendar(calName);
+        // A rollback may bring the calendar back, so its lock is kept until the end
+        if (transactionOwner == null) {
+          locks.remove(calendar);
+        }
+        return deleted;
+      });
+    } finally {
+      registryLock.unlock();
+    }
+  }
+
+  @Override
+  public boolean addEvent(String calendarName, ICalendarEventDTO eventDTO) {
+    return withWriteLock(calendarName, () -> super.addEvent(calendarName, eventDTO));
+  }
+
+  @Override
+  public boolean addEvents(String calendarName, List<ICalendarEventDTO> events,
+                           String sourceTimezone) {
+    return withWriteLock(calendarName,
+        () -> super.addEvents(calendarName, events, sourceTimezone));
+  }
+
+  @Override
+  public boolean restoreEvents(String calendarName, List<ICalendarEventDTO> events,
+                               String sourceTimezone) {
+    return withWriteLock(calendarName,
+        () -> super.restoreEvents(calendarName, events, sourceTimezone));
+  }
+
+  @Override
+  public boolean editEvents(String calendarName, String property, String eventName,
+                            LocalDateTime fromDateTime, String newValue, boolean editAll) {
+    return withWriteLock(calendarName, () -> super.editEvents(calendarName, property,
+        eventName, fromDateTime, newValue, editAll));
+  }
+
+  @Override
+  public boolean editEvent(String calendarName, String property, String eventName,
+                           LocalDateTime fromDateTime, LocalDateTime toDateTime,
+                           String newValue) {
+    return withWriteLock(calendarName, () -> super.editEvent(calendarName, property,
+        eventName, fromDateTime, toDateTime, newValue));
+  }
+
+  @Override
+  public boolean copyEvents(String sourceCalendarName, LocalDateTime sourceStart,
+                            LocalDateTime sourceEnd, String targetCalendarName,
+                            LocalDate targetStart) {
+    return withCopyLocks(sourceCalendarName, targetCalendarName,
+        () -> super.copyEvents(sourceCalendarName, sourceStart, sourceEnd,
+            targetCalendarName, targetStart));
+  }
+
+  @Override
+  public boolean copyEvent(String sourceCalendarName, LocalDateTime eventDateTime,
+                           String eventName, String targetCalendarName,
+                           LocalDateTime targetStart) {
+    if (sourceCalendarName == null || targetCalendarName == null) {
+      return super.copyEvent(sourceCalendarName, eventDateTime, eventName,
+          targetCalendarName, targetStart);
+    }
+    return withCopyLocks(sourceCalendarName, targetCalendarName,
+        () -> super.copyEvent(sourceCalendarName, eventDateTime, eventName,
+            targetCalendarName, targetStart));
+  }
+
+  @Override
+  public boolean editEventById(String calendarName, long eventId, String property,
+                               String newValue) {
+    return withWriteLock(calendarName,
+        () -> super.editEventById(calendarName, eventId, property, newValue));
+  }
+
+  @Override
+  public boolean deleteEventById(String calendarName, long eventId) {
+    return withWriteLock(calendarName, () -> super.deleteEventById(calendarName, eventId));
+  }
+
+  @Override
+  public boolean copyEventById(String sourceCalendarName, long eventId,
+                               String targetCalendarName, LocalDateTime targetStart) {
+    if (sourceCalendarName == null || targetCalendarName == null) {
+      return super.copyEventById(sourceCalendarName, eventId, targetCalendarName,
+          targetStart);
+    }
+    return withCopyLocks(sourceCalendarName, targetCalendarName,
+        () -> super.copyEventById(sourceCalendarName, eventId, targetCalendarName,
+            targetStart));
+  }
+
+  @Override
+  public List<ICalendarEventDTO> getEventsInRange(String calendarName,
+                                                  LocalDateTime fromDateTime,
+                                                  LocalDateTime toDateTime) {
+    return withReadLock(calendarName,
+        () -> super.getEventsInRange(calendarName, fromDateTime, toDateTime));
+  }
+
+  @Override
+  public void forEachEvent(String calendarName, Consumer<? super ICalendarEventDTO> action) {
+    withReadLock(calendarName, () -> {
+      super.forEachEvent(calendarName, action);
+      return null;
+    });
+  }
+
+  @Override
+  public void forEachEventOrSeries(String calendarName,
+                                   Consumer<? super ICalendarEventDTO> action) {
+    withReadLock(calendarName, () -> {
+      super.forEachEventOrSeries(calendarName, action);
+      return null;
+    });
+  }
+
+  @Override
+  public long forEachChangeSince(String calendarName, long since,
+                                 Consumer<? super IEventChange> action) {
+    return withReadLock(calendarName,
+        () -> super.forEachChangeSince(calendarName, since, action));
+  }
+
+  @Override
+  public List<ICalendarEventDTO> getEventsInSpecificDateTime(String calendarName,
+                                                             LocalDateTime dateTime) {
+    return withReadLock(calendarName,
+        () -> super.getEventsInSpecificDateTime(calendarName, dateTime));
+  }
+
+  @Override
+  public boolean isCalendarAvailable(String calName, LocalDate date) {
+    return withReadLock(calName, () -> super.isCalendarAvailable(calName, date));
+  }
+
+  /**
+   * Saves the model while every calendar is locked for reading, so each calendar is written
+   * together with its change log as of the same change.
+   */
+  @Override
+  public void saveSnapshot(Path file) throws IOException {
+    registryLock.lock();
+    try {
+      List<Lock> held = lockAll(false);
+      try {
+        super.saveSnapshot(file);
+      } finally {
+        unlockAll(held);
+      }
+    } finally {
+      registryLock.unlock();
+    }
+  }
+
+  /**
+   * Opens a transaction that write-locks every calendar, and holds the registry lock, until
+   * it is committed or rolled back by this thread.
+   */
+  @Override
+  public void beginTransaction() {
+    registryLock.lock();
+    try {
+      if (transactionOwner != null) {
+        throw new IllegalStateException("A transaction is already open.");
+      }
+      transactionLocks = lockAll(true);
+      super.beginTransaction();
+      transactionOwner = Thread.currentThread();
+    } catch (RuntimeException e) {
+      registryLock.unlock();
+      throw e;
+    }
+  }
+
+  @Override
+  public void commitTransaction() {
+    checkTransactionOwner();
+    try {
+      super.commitTransaction();
+    } finally {
+      endTransaction();
+    }
+  }
+
+  @Override
+  public void rollbackTransaction() {
+    checkTransactionOwner();
+    try {
+      super.rollbackTransaction();
+    } finally {
+      endTransaction();
+    }
+  }
+
+  private void checkTransactionOwner() {
+    if (transactionOwner != Thread.currentThread()) {
+      throw new IllegalStateException("No transaction is open.");
+    }
+  }
+
+  private void endTransaction() {
+    transactionOwner = null;
+    // Calendars the transaction deleted, or created and then lost to a rollback
+    locks.keySet().removeIf(calendar -> !isRegistered(calendar));
+    unlockAll(transactionLocks);
+    transactionLocks = null;
+    registryLock.unlock();
+  }
+
+  private <T> T withReadLock(String calendarName, Locked<T> operation) {
+    return withLock(calendarName, false, operation);
+  }
+
+  private <T> T withWriteLock(String calendarName, Locked<T> operation) {
+    return withLock(calendarName, true, operation);
+  }
+
+  private <T> T withLock(String calendarName, boolean write, Locked<T> operation) {
+    while (true) {
+      ICalendar calendar = getCalendarByName(calendarName);
+      Lock lock = lockOf(calendar, write);
+      lock.lock();
+      boolean inTransaction;
+      try {
+        inTransaction = isInOtherTransaction();
+        // The name may have been moved to another calendar while this thread waited
+        if (!inTransaction && isCurrent(calendar, calendarName)) {
+          return operation.run();
+        }
+      } finally {
+        lock.unlock();
+      }
+      if (inTransaction) {
+        awaitTransaction();
+      } else {
+        forgetIfDeleted(calendar);
+      }
+    }
+  }
+
+  /**
+   * Locks the source for reading and the target for writing, in creation order. A copy
+   * within one calendar only takes its write lock, since a read lock cannot be upgraded.
+   */
+  private <T> T withCopyLocks(String sourceName, String targetName, Locked<T> operation) {
+    while (true) {
+      ICalendar source = getCalendarByName(sourceName);
+      ICalendar target = getCalendarByName(targetName);
+      if (source == target) {
+        return withWriteLock(targetName, operation);
+      }
+      Lock sourceLock = lockOf(source, false);
+      Lock targetLock = lockOf(target, true);
+      boolean sourceFirst = lockFor(source).order < lockFor(target).order;
+      Lock first = sourceFirst ? sourceLock : targetLock;
+      Lock second = sourceFirst ? targetLock : sourceLock;
+      first.lock();
+      boolean inTransaction;
+      try {
+        second.lock();
+        try {
+          inTransaction = isInOtherTransaction();
+          if (!inTransaction && isCurrent(source, sourceName)
+              && isCurrent(target, targetName)) {
+            return operation.run();
+          }
+        } finally {
+          second.unlock();
+        }
+      } finally {
+        first.unlock();
+      }
+      if (inTransaction) {
+        awaitTransaction();
+      } else {
+        forgetIfDeleted(source);
+        forgetIfDeleted(target);
+      }
+    }
+  }
+
+  // Locks every calendar in creation order; called on the registry lock, so none is added
+  // or removed meanwhile
+  private List<Lock> lockAll(boolean write) {
+    List<ICalendar> all = new ArrayList<>();
+    for (String name : getCalendarNames()) {
+      all.add(getCalendarByName(name));
+    }
+    all.sort(Comparator.comparingLong(calendar -> lockFor(calendar).order));
+    List<Lock> held = new ArrayList<>();
+    try {
+      for (ICalendar calendar : all) {
+        Lock lock = lockOf(calendar, write);
+        lock.lock();
+        held.add(lock);
+      }
+    } catch (RuntimeException e) {
+      unlockAll(held);
+      throw e;
+    }
+    return held;
+  }
+
+  private static void unlockAll(List<Lock> held) {
+    for (int i = held.size() - 1; i >= 0; i--) {
+      held.get(i).unlock();
+    }
+  }
+
+  // Locks taken while another thread's transaction is open can only belong to calendars it
+  // created, since it holds the others' write locks
+  private boolean isInOtherTransaction() {
+    Thread owner = transactionOwner;
+    return owner != null && owner != Thread.currentThread();
+  }
+
+  // The owner holds the registry lock until its transaction ends
+  private void awaitTransaction() {
+    registryLock.lock();
+    registryLock.unlock();
+  }
+
+  // A thread that found a calendar just before it was deleted may have re-created its lock
+  private void forgetIfDeleted(ICalendar calendar) {
+    if (!isRegistered(calendar)) {
+      locks.remove(calendar);
+    }
+  }
+
+  private boolean isCurrent(ICalendar calendar, String calendarName) {
+    return isRegistered(calendar) && calendar.getCalendarName().equalsIgnoreCase(calendarName);
+  }
+
+  private Lock lockOf(ICalendar calendar, boolean write) {
+    ReentrantReadWriteLock lock = lockFor(calendar).lock;
+    return write ? lock.writeLock() : lock.readLock();
+  }
+
+  private CalendarLock lockFor(ICalendar calendar) {
+    return locks.computeIfAbsent(calendar, c -> new CalendarLock(nextOrder.getAndIncrement()));
+  }
+}
@@ -0,0 +1,118 @@
+package model;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Detects overlapping events in bulk using a single sweep over start times.
+ * <p>
+ * Two events conflict when each one starts before the other ends. Instead of comparing
+ * every pair, both batches are merged in start order while an "active" set per batch holds
+ * the events that have not ended yet; each event only meets the events it really overlaps.
+ * A batch of {@code m} candidates is checked against {@code n} events in
+ * O((n + m) log(n + m)) plus the number of overlapping pairs.
+ * </p>
+ * <p>
+ * For every candidate the detector reports the lowest index of an event it overlaps, so
+ * callers can build the same error messages a nested loop over the lists would produce.
+ * </p>
+ */
+final class ConflictDetector {
+  static final int NO_CONFLICT = -1;
+
+  private ConflictDetector() {
+  }
+
+  /**
+   * Finds, for every candidate, the first event in {@code existing} it overlaps.
+   *
+   * @param candidates the events about to be added
+   * @param existing   the events already stored
+   * @return for each candidate, the lowest index in {@code existing} of an overlapping event,
+   *         or {@link #NO_CONFLICT}
+   */
+  static int[] firstConflicts(List<? extends IReadOnlyCalendarEvent> candidates,
+                              List<? extends IReadOnlyCalendarEvent> existing) {
+    return sweep(candidates, existing);
+  }
+
+  /**
+   * Finds, for every candidate, the first other candidate it overlaps.
+   *
+   * @param candidates the events about to be added
+   * @return for each candidate, the lowest index of another overlapping candidate,
+   *         or {@link #NO_CONFLICT}
+   */
+  static int[] firstConflictsWithin(List<? extends IReadOnlyCalendarEvent> candidates) {
+    return sweep(candidates, null);
+  }
+
+  private static int[] sweep(List<? extends IReadOnlyCalendarEvent> candidates,
+                             List<? extends IReadOnlyCalendarEvent> existing) {
+    int candidateCount = candidates.size();
+    int total = candidateCount + (existing == null ? 0 : existing.size());
+
+    LocalDateTime[] starts = new LocalDateTime[total];
+    LocalDateTime[] ends = new LocalDateTime[total];
+    for (int i = 0; i < total; i++) {
+      IReadOnlyCalendarEvent event = i < candidateCount
+          ? candidates.get(i) : existing.get(i - candidateCount);
+      starts[i] = event.getStartDateTime();
+      ends[i] = event.getEndDateTime();
+    }
+
+    Integer[] order = new Integer[total];
+    for (int i = 0; i < total; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, Comparator.comparing(i -> starts[i]));
+
+    Comparator<Integer> byEnd = Comparator.comparing(i -> ends[i]);
+    PriorityQueue<Integer> activeCandidates = new PriorityQueue<>(byEnd);
+    PriorityQueue<Integer> activeExisting = existing == null
+        ? activeCandidates : new PriorityQueue<>(byEnd);
+
+    int[] first = new int[candidateCount];
+    Arrays.fill(first, NO_CONFLICT);
+
+    for (int item : order) {
+      boolean isCandidate = item < candidateCount;
+      PriorityQueue<Integer> others = isCandidate ? activeExisting : activeCandidates;
+
+      // Anything that ended at or before this start cannot overlap it or any later item.
+      while (!others.isEmpty() && !ends[others.peek()].isAfter(starts[item])) {
+        others.poll();
+      }
+
+      // Every remaining active item started no later than this one and ends after it
+      // starts, so each of them overlaps it.
+      for (int other : others) {
+        if (isCandidate) {
+          first[item] = lowest(first[item], indexOf(other, candidateCount, existing));
+        }
+        if (other < candidateCount) {
+          first[other] = lowest(first[other], indexOf(item, candidateCount, existing));
+        }
+      }
+
+      if (isCandidate) {
+        activeCandidates.add(item);
+      } else {
+        activeExisting.add(item);
+      }
+    }
+    return first;
+  }
+
+  private static int indexOf(int item, int candidateCount,
+                             List<? extends IReadOnlyCalendarEvent> existing) {
+    return existing == null ? item : item - candidateCount;
+  }
+
+  private static int lowest(int current, int index) {
+    return current == NO_CONFLICT || index < current ? index : current;
+  }
+}
@@ -0,0 +1,442 @@
+package model;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A calendar that keeps its events on disk, in the B+trees of a {@link DiskEventStore}
+ * shared by every calendar of the model.
+ * <p>
+ * Only the event count, the longest event length and the series rules are held in memory,
+ * so a calendar can hold more events than fit on the heap. {@link ICalendarEvent} objects
+ * are views that read their event from the store and write every change straight back,
+ * moving its index entries along; a view remembers what it read until the store changes.
+ * Times are kept to the second.
+ * </p>
+ * <p>
+ * Range queries scan the events by start from {@code from} minus the longest event length,
+ * like {@link ColumnarCalendar}, streaming the pages in key order. Removing an event moves
+ * the last one into its position, so positions stay dense.
+ * </p>
+ */
+class DiskCalendar extends AbstractCalendar {
+  private static final long[] NO_VALUE = new long[0];
+
+  private final DiskEventStore store;
+  private final int number;
+  private int size;
+  private long maxLength;
+
+  private DiskCalendar(Builder builder) {
+    super(builder.calendarName, builder.timezone, builder.dictionary, builder.eventIds);
+    if (builder.store == null) {
+      throw new IllegalArgumentException("A disk calendar needs a store.");
+    }
+    this.store = builder.store;
+    this.number = store.newCalendar();
+    builder.events.forEach(event -> append(CalendarEvent.copyOf(event)));
+  }
+
+  public static Builder builder() {
+    return new DiskCalendar.Builder();
+  }
+
+  public List<ICalendarEvent> getEventsCopy() {
+    List<ICalendarEvent> copy = new ArrayList<>(size);
+    for (int row = 0; row < size; row++) {
+      copy.add(detachedCopy(new EventView(store.idAt(number, row))));
+    }
+    return copy;
+  }
+
+  /**
+   * Returns the stored events in insertion order. Each element is read when it is asked for.
+   */
+  public List<ICalendarEvent> getEvents() {
+    return Collections.unmodifiableList(new AbstractList<ICalendarEvent>() {
+      @Override
+      public ICalendarEvent get(int row) {
+        if (row < 0 || row >= size) {
+          throw new IndexOutOfBoundsException("Row " + row + " out of " + size);
+        }
+        return new EventView(store.idAt(number, row));
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    });
+  }
+
+  public void setEvents(List<ICalendarEvent> events) {
+    // The new events may be views of this calendar, so read them before removing them
+    List<CalendarEvent> copies = new ArrayList<>(events.size());
+    for (ICalendarEvent event : events) {
+      copies.add(CalendarEvent.copyOf(event));
+    }
+    truncateEvents(0);
+    maxLength = 0;
+    copies.forEach(this::append);
+  }
+
+  public void addEvents(List<CalendarEvent> events) {
+    events.forEach(this::append);
+  }
+
+  public void addEvent(CalendarEvent event) {
+    append(event);
+  }
+
+  public void truncateEvents(int newSize) {
+    while (size > newSize) {
+      long id = store.idAt(number, size - 1);
+      recordRemoval(id);
+      store.delete(id, store.find(id));
+      size--;
+    }
+  }
+
+  public ICalendarEvent getEventById(long eventId) {
+    DiskEventStore.Record record = store.find(eventId);
+    return record == null || record.calendar != number ? null : new EventView(eventId);
+  }
+
+  public int removeEvent(long eventId) {
+    DiskEventStore.Record record = store.find(eventId);
+    if (record == null || record.calendar != number) {
+      return -1;
+    }
+    recordRemoval(eventId);
+    store.delete(eventId, record);
+    int last = --size;
+    if (record.row != last) {
+      moveRow(store.idAt(number, last), record.row);
+      store.vacate(number, last);
+    }
+    return record.row;
+  }
+
+  public void restoreEvent(CalendarEvent event, int position) {
+    append(event);
+    int last = size - 1;
+    if (position < last) {
+      long displaced = store.idAt(number, position);
+      long restored = store.idAt(number, last);
+      moveRow(displaced, last);
+      moveRow(restored, position);
+    }
+  }
+
+  // Views move their index entries when they are changed
+  public void reindexEvent(ICalendarEvent event) {
+    changes.touched(event.getEventId());
+  }
+
+  public int size() {
+    return size;
+  }
+
+  protected List<ICalendarEvent> storedInRange(Instant from, Instant to) {
+    long fromFloor = from.getEpochSecond();
+    long fromCeil = ceilSeconds(from);
+    long toFloor = to.getEpochSecond();
+    long toCeil = ceilSeconds(to);
+    return collect(fromFloor, toFloor,
+        (start, end) -> (start >= fromCeil && start <= toFloor)
+            || (end > fromFloor && end < toCeil));
+  }
+
+  protected List<ICalendarEvent> storedAt(Instant instant) {
+    long floor = instant.getEpochSecond();
+    long ceil = ceilSeconds(instant);
+    return collect(floor, floor, (start, end) -> start <= floor && end >= ceil);
+  }
+
+  protected List<ICalendarEvent> storedOverlapping(Instant from, Instant to) {
+    long fromCeil = ceilSeconds(from);
+    long toFloor = to.getEpochSecond();
+    return collect(from.getEpochSecond(), toFloor,
+        (start, end) -> start <= toFloor && end >= fromCeil);
+  }
+
+  protected List<ICalendarEvent> storedNamed(String name, Instant from, Instant to) {
+    long hash = DiskEventStore.nameHash(name);
+    long toFloor = to.getEpochSecond();
+    long[] key = new long[4];
+    BPlusTree.Cursor cursor = store.byName(number, name, ceilSeconds(from));
+    List<Long> candidates = new ArrayList<>();
+    while (cursor.next(key, NO_VALUE) && key[0] == number && key[1] == hash
+        && key[2] <= toFloor) {
+      candidates.add(key[3]);
+    }
+    // Names that only share the hash are told apart once the scan is done
+    List<ICalendarEvent> result = new ArrayList<>(candidates.size());
+    for (long id : candidates) {
+      if (store.isNamed(store.find(id), name)) {
+        result.add(new EventView(id));
+      }
+    }
+    return result;
+  }
+
+  protected void forEachStored(Consumer<? super ICalendarEvent> action) {
+    long[] key = new long[3];
+    long[] end = new long[1];
+    BPlusTree.Cursor cursor = store.byStart(number, Long.MIN_VALUE);
+    while (cursor.next(key, end) && key[0] == number) {
+      action.accept(new EventView(key[2]));
+    }
+  }
+
+  protected void append(CalendarEvent event) {
+    event.bindTo(zone);
+    if (event.getStartInstant() == null || event.getEndInstant() == null) {
+      throw new IllegalArgumentException("Event must have a start and an end.");
+    }
+    DiskEventStore.Record record = new DiskEventStore.Record();
+    record.calendar = number;
+    record.start = event.getStartInstant().getEpochSecond();
+    record.end = event.getEndInstant().getEpochSecond();
+    record.name = store.saveString(event.getEventName());
+    record.description = store.saveString(event.getEventDescription());
+    record.location = store.saveString(event.getEventLocation());
+    record.isPublic = event.isPublic();
+    record.row = size;
+    store.insert(idOf(event), record);
+    size++;
+    maxLength = Math.max(maxLength, record.end - record.start);
+  }
+
+  protected List<CalendarSnapshot.FrozenEvent> frozenEvents() {
+    List<Long> ids = new ArrayList<>(size);
+    long[] key = new long[3];
+    long[] end = new long[1];
+    BPlusTree.Cursor cursor = store.byStart(number, Long.MIN_VALUE);
+    while (cursor.next(key, end) && key[0] == number) {
+      ids.add(key[2]);
+    }
+    List<CalendarSnapshot.FrozenEvent> frozen = new ArrayList<>(ids.size());
+    for (long id : ids) {
+      frozen.add(freeze(id, store.find(id)));
+    }
+    return frozen;
+  }
+
+  public CalendarSnapshot.FrozenEvent frozenEvent(long eventId) {
+    DiskEventStore.Record record = store.find(eventId);
+    return record == null || record.calendar != number ? null : freeze(eventId, record);
+  }
+
+  private CalendarSnapshot.FrozenEvent freeze(long id, DiskEventStore.Record record) {
+    return new CalendarSnapshot.FrozenEvent(id, store.loadString(record.name),
+        store.loadString(record.description), store.loadString(record.location),
+        record.isPublic, Instant.ofEpochSecond(record.start), Instant.ofEpochSecond(record.end));
+  }
+
+  /**
+   * Returns views of the events whose start lies in
+   * {@code [lowestEnd - maxLength, highestStart]} and that pass the filter, in start order.
+   */
+  private List<ICalendarEvent> collect(long lowestEnd, long highestStart, TimeFilter filter) {
+    List<ICalendarEvent> result = new ArrayList<>();
+    long[] key = new long[3];
+    long[] end = new long[1];
+    BPlusTree.Cursor cursor = store.byStart(number, lowestEnd - maxLength);
+    while (cursor.next(key, end) && key[0] == number && key[1] <= highestStart) {
+      if (filter.test(key[1], end[0])) {
+        result.add(new EventView(key[2]));
+      }
+    }
+    return result;
+  }
+
+  private void moveRow(long id, int row) {
+    DiskEventStore.Record before = store.find(id);
+    DiskEventStore.Record after = before.copy();
+    after.row = row;
+    store.update(id, before, after);
+  }
+
+  private interface TimeFilter {
+    boolean test(long start, long end);
+  }
+
+  private static long ceilSeconds(Instant instant) {
+    return instant.getNano() == 0 ? instant.getEpochSecond() : instant.getEpochSecond() + 1;
+  }
+
+  private static CalendarEvent detachedCopy(IReadOnlyCalendarEvent event) {
+    return CalendarEvent.builder()
+        .setEventName(event.getEventName())
+        .setStartDateTime(event.getStartDateTime())
+        .setEndDateTime(event.getEndDateTime())
+        .setEventDescription(event.getEventDescription())
+        .setEventLocation(event.getEventLocation())
+        .setPublic(event.isPublic())
+        .build();
+  }
+
+  /**
+   * A live view of one stored event. Two views of the same event are equal.
+   */
+  private final class EventView implements ICalendarEvent {
+    private final long id;
+    private DiskEventStore.Record record;
+    private long readAt = -1;
+
+    private EventView(long id) {
+      this.id = id;
+    }
+
+    private DiskEventStore.Record record() {
+      if (readAt != store.version()) {
+        record = store.find(id);
+        if (record == null) {
+          throw new IllegalStateException("Event " + id + " is no longer stored.");
+        }
+        readAt = store.version();
+      }
+      return record;
+    }
+
+    private void change(Consumer<DiskEventStore.Record> edit) {
+      DiskEventStore.Record before = record();
+      DiskEventStore.Record after = before.copy();
+      edit.accept(after);
+      store.update(id, before, after);
+      maxLength = Math.max(maxLength, after.end - after.start);
+    }
+
+    public String getEventName() {
+      return store.loadString(record().name);
+    }
+
+    public LocalDateTime getStartDateTime() {
+      return zone.toLocalDateTime(Instant.ofEpochSecond(record().start));
+    }
+
+    public LocalDateTime getEndDateTime() {
+      return zone.toLocalDateTime(Instant.ofEpochSecond(record().end));
+    }
+
+    public String getEventDescription() {
+      return store.loadString(record().description);
+    }
+
+    public String getEventLocation() {
+      return store.loadString(record().location);
+    }
+
+    public boolean isPublic() {
+      return record().isPublic;
+    }
+
+    public long getEventId() {
+      return id;
+    }
+
+    public boolean doesEventConflict(ICalendarEvent event) {
+      return getStartDateTime().isBefore(event.getEndDateTime())
+          && getEndDateTime().isAfter(event.getStartDateTime());
+    }
+
+    public void setEventName(String name) {
+      long offset = store.saveString(name);
+      change(record -> record.name = offset);
+    }
+
+    public void setStartDateTime(LocalDateTime start) {
+      long second = zone.toInstant(start).getEpochSecond();
+      change(record -> record.start = second);
+    }
+
+    public void setEndDateTime(LocalDateTime end) {
+      long second = zone.toInstant(end).getEpochSecond();
+      change(record -> record.end = second);
+    }
+
+    public void setEventDescription(String desc) {
+      long offset = store.saveString(desc);
+      change(record -> record.description = offset);
+    }
+
+    public void setEventLocation(String location) {
+      long offset = store.saveString(location);
+      change(record -> record.location = offset);
+    }
+
+    public void setPublic(boolean isPublic) {
+      change(record -> record.isPublic = isPublic);
+    }
+
+    private DiskCalendar owner() {
+      return DiskCalendar.this;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof EventView && ((EventView) other).owner() == owner()
+          && ((EventView) other).id == id;
+    }
+
+    @Override
+    public int hashCode() {
+      return Long.hashCode(id);
+    }
+  }
+
+  /**
+   * Builder class for constructing DiskCalendar instances.
+   */
+  public static class Builder implements ICalendarBuilder<DiskCalendar> {
+    private String calendarName;
+    private String timezone;
+    private StringDictionary dictionary;
+    private EventIds eventIds;
+    private DiskEventStore store;
+    private List<ICalendarEvent> events = new ArrayList<>();
+
+    public Builder setCalendarName(String calendarName) {
+      this.calendarName = calendarName;
+      return this;
+    }
+
+    public Builder setEvents(List<ICalendarEvent> events) {
+      this.events = new ArrayList<>(events);
+      return this;
+    }
+
+    public Builder setTimezone(String timezone) {
+      this.timezone = timezone;
+      return this;
+    }
+
+    public Builder setDictionary(StringDictionary dictionary) {
+      this.dictionary = dictionary;
+      return this;
+    }
+
+    public Builder setEventIds(EventIds eventIds) {
+      this.eventIds = eventIds;
+      return this;
+    }
+
+    /**
+     * Sets the store the calendar keeps its events in, shared by the model's calendars.
+     */
+    public Builder setStore(DiskEventStore store) {
+      this.store = store;
+      return this;
+    }
+
+    public DiskCalendar build() {
+      return new DiskCalendar(this);
+    }
+  }
+}
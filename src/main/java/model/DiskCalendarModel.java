@@ -0,0 +1,69 @@
+package model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A calendar model whose events live on disk, in a {@link DiskEventStore}, so its calendars
+ * can hold more events than fit on the heap.
+ * <p>
+ * The events are read through a page cache of a fixed number of pages, so the memory the
+ * model uses does not grow with the number of events. For the same reason the model
+ * publishes no immutable versions of itself: a {@link ReadOnlyCalendarModel} over it reads
+ * the calendars directly. {@link #saveSnapshot} still works, but freezes every event first.
+ * </p>
+ * <p>
+ * The store's files are scratch space, deleted when the model is closed or the application
+ * exits.
+ * </p>
+ */
+class DiskCalendarModel extends CalendarModel implements Closeable {
+  static final int DEFAULT_CACHE_PAGES = 4096;
+
+  private final DiskEventStore store;
+  private final Path directory;
+
+  private DiskCalendarModel(Path directory, DiskEventStore store) {
+    super(() -> DiskCalendar.builder().setStore(store));
+    this.store = store;
+    this.directory = directory;
+  }
+
+  /**
+   * Creates an empty model whose store lives in a new directory under {@code parent}.
+   *
+   * @param cachePages the most pages of events kept in memory
+   * @throws IOException if the store cannot be created
+   */
+  static DiskCalendarModel create(Path parent, int cachePages) throws IOException {
+    Path directory = Files.createTempDirectory(parent, "calendar-pages");
+    // Registered before the files, so the directory is deleted after them
+    directory.toFile().deleteOnExit();
+    directory.resolve("events.pages").toFile().deleteOnExit();
+    directory.resolve("events.strings").toFile().deleteOnExit();
+    return new DiskCalendarModel(directory, new DiskEventStore(directory, cachePages));
+  }
+
+  @Override
+  protected boolean publishesVersions() {
+    return false;
+  }
+
+  /**
+   * Returns the file of pages the events are kept in, for its cache figures.
+   */
+  PageFile getPages() {
+    return store.getPages();
+  }
+
+  /**
+   * Closes the store and deletes its files.
+   */
+  @Override
+  public void close() throws IOException {
+    store.close();
+    Files.deleteIfExists(directory);
+  }
+}
@@ -0,0 +1,330 @@
+package model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Keeps the events of every {@link DiskCalendar} of a model in one {@link PageFile}, in four
+ * B+trees that share its page cache:
+ * <ul>
+ *   <li>records: {@code (id)} to the whole event, with the calendar and its position;</li>
+ *   <li>starts: {@code (calendar, start, id)} to the end, for range scans in start order;</li>
+ *   <li>rows: {@code (calendar, position)} to the id, for the insertion order;</li>
+ *   <li>names: {@code (calendar, name hash, start, id)}, for lookups by name.</li>
+ * </ul>
+ * <p>
+ * Times are kept to the second. Strings are appended to a second file and referred to by
+ * their offset; a bounded cache of the most recently used strings saves writing a repeated
+ * one again and reading a popular one back. Strings an edit replaces are not reclaimed.
+ * </p>
+ * <p>
+ * Memory use depends on the page cache and string cache sizes, not on the number of
+ * events. The store is not safe for concurrent use.
+ * </p>
+ */
+class DiskEventStore implements Closeable {
+  private static final int STRING_CACHE_SIZE = 4096;
+  private static final long NULL_STRING = -1;
+
+  private final Path directory;
+  private final PageFile pages;
+  private final FileChannel strings;
+  private long stringsEnd;
+  private final ByteBuffer lengthBuffer = ByteBuffer.allocate(4);
+  private final Map<String, Long> stringOffsets = lruMap();
+  private final Map<Long, String> stringValues = lruMap();
+
+  private final BPlusTree records;
+  private final BPlusTree starts;
+  private final BPlusTree rows;
+  private final BPlusTree names;
+  private int calendarCount;
+  private long version;
+
+  /**
+   * One stored event, as decoded from the records tree.
+   */
+  static final class Record {
+    int calendar;
+    long start;
+    long end;
+    long name;
+    long description;
+    long location;
+    boolean isPublic;
+    int row;
+
+    Record copy() {
+      Record copy = new Record();
+      copy.calendar = calendar;
+      copy.start = start;
+      copy.end = end;
+      copy.name = name;
+      copy.description = description;
+      copy.location = location;
+      copy.isPublic = isPublic;
+      copy.row = row;
+      return copy;
+    }
+  }
+
+  /**
+   * Creates an empty store in {@code directory}.
+   *
+   * @param cachePages the most pages kept in memory
+   * @throws IOException if the files cannot be created
+   */
+  DiskEventStore(Path directory, int cachePages) throws IOException {
+    this.directory = directory;
+    this.pages = new PageFile(directory.resolve("events.pages"), cachePages);
+    this.strings = FileChannel.open(directory.resolve("events.strings"),
+        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+        StandardOpenOption.READ, StandardOpenOption.WRITE);
+    this.records = new BPlusTree(pages, 1, 7);
+    this.starts = new BPlusTree(pages, 3, 1);
+    this.rows = new BPlusTree(pages, 2, 1);
+    this.names = new BPlusTree(pages, 4, 0);
+  }
+
+  /**
+   * Returns a new number for a calendar's keys.
+   */
+  int newCalendar() {
+    return calendarCount++;
+  }
+
+  /**
+   * Returns a number that changes whenever an event is stored, changed or removed, so views
+   * can tell whether what they read before is still current.
+   */
+  long version() {
+    return version;
+  }
+
+  PageFile getPages() {
+    return pages;
+  }
+
+  /**
+   * Returns the event with the given id, or {@code null} if none is stored.
+   */
+  Record find(long id) {
+    long[] value = new long[7];
+    if (!records.get(new long[] {id}, value)) {
+      return null;
+    }
+    Record record = new Record();
+    record.calendar = (int) value[0];
+    record.start = value[1];
+    record.end = value[2];
+    record.name = value[3];
+    record.description = value[4];
+    record.location = value[5];
+    record.isPublic = (value[6] & 1) != 0;
+    record.row = (int) (value[6] >>> 1);
+    return record;
+  }
+
+  /**
+   * Stores a new event, or replaces the stored event with the same id.
+   */
+  void insert(long id, Record record) {
+    version++;
+    putRecord(id, record);
+    starts.put(new long[] {record.calendar, record.start, id}, new long[] {record.end});
+    rows.put(new long[] {record.calendar, record.row}, new long[] {id});
+    names.put(nameKey(record, id), new long[0]);
+  }
+
+  /**
+   * Replaces a stored event, moving its index entries if its start or name changed.
+   */
+  void update(long id, Record before, Record after) {
+    version++;
+    putRecord(id, after);
+    if (before.start != after.start) {
+      starts.remove(new long[] {before.calendar, before.start, id});
+    }
+    starts.put(new long[] {after.calendar, after.start, id}, new long[] {after.end});
+    if (before.start != after.start || before.name != after.name) {
+      names.remove(nameKey(before, id));
+      names.put(nameKey(after, id), new long[0]);
+    }
+    if (before.row != after.row) {
+      rows.put(new long[] {after.calendar, after.row}, new long[] {id});
+    }
+  }
+
+  /**
+   * Removes a stored event and its index entries, its position included.
+   */
+  void delete(long id, Record record) {
+    version++;
+    records.remove(new long[] {id});
+    starts.remove(new long[] {record.calendar, record.start, id});
+    names.remove(nameKey(record, id));
+    rows.remove(new long[] {record.calendar, record.row});
+  }
+
+  /**
+   * Forgets that any event holds {@code row} of the calendar, once the event moved away.
+   */
+  void vacate(int calendar, int row) {
+    version++;
+    rows.remove(new long[] {calendar, row});
+  }
+
+  /**
+   * Returns the id of the event at {@code row} of the calendar.
+   *
+   * @throws IllegalStateException if no event holds that row
+   */
+  long idAt(int calendar, int row) {
+    long[] value = new long[1];
+    if (!rows.get(new long[] {calendar, row}, value)) {
+      throw new IllegalStateException("No event at row " + row + " of calendar " + calendar);
+    }
+    return value[0];
+  }
+
+  /**
+   * Returns a cursor over the calendar's events by start, beginning at {@code fromStart};
+   * its entries are {@code (calendar, start, id)} keys with the end as value.
+   */
+  BPlusTree.Cursor byStart(int calendar, long fromStart) {
+    return starts.seek(new long[] {calendar, fromStart, Long.MIN_VALUE});
+  }
+
+  /**
+   * Returns a cursor over the calendar's events whose name has the hash of {@code name},
+   * ignoring case, by start from {@code fromStart}; its entries are
+   * {@code (calendar, hash, start, id)} keys.
+   */
+  BPlusTree.Cursor byName(int calendar, String name, long fromStart) {
+    return names.seek(new long[] {calendar, nameHash(name), fromStart, Long.MIN_VALUE});
+  }
+
+  static long nameHash(String name) {
+    return normalized(name).hashCode();
+  }
+
+  /**
+   * Checks whether a stored name is {@code name}, ignoring case like the name lookups do.
+   */
+  boolean isNamed(Record record, String name) {
+    return normalized(loadString(record.name)).equals(normalized(name));
+  }
+
+  /**
+   * Writes a string unless it was written recently, and returns its offset.
+   */
+  long saveString(String value) {
+    if (value == null) {
+      return NULL_STRING;
+    }
+    Long cached = stringOffsets.get(value);
+    if (cached != null) {
+      return cached;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    ByteBuffer buffer = ByteBuffer.allocate(4 + bytes.length);
+    buffer.putInt(bytes.length).put(bytes).flip();
+    long offset = stringsEnd;
+    try {
+      while (buffer.hasRemaining()) {
+        strings.write(buffer, offset + buffer.position());
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not write a string", e);
+    }
+    stringsEnd += buffer.limit();
+    stringOffsets.put(value, offset);
+    stringValues.put(offset, value);
+    return offset;
+  }
+
+  /**
+   * Returns the string written at {@code offset}.
+   */
+  String loadString(long offset) {
+    if (offset == NULL_STRING) {
+      return null;
+    }
+    String cached = stringValues.get(offset);
+    if (cached != null) {
+      return cached;
+    }
+    try {
+      lengthBuffer.clear();
+      readFully(lengthBuffer, offset);
+      ByteBuffer bytes = ByteBuffer.allocate(lengthBuffer.getInt(0));
+      readFully(bytes, offset + 4);
+      String value = new String(bytes.array(), StandardCharsets.UTF_8);
+      stringValues.put(offset, value);
+      return value;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not read the string at " + offset, e);
+    }
+  }
+
+  /**
+   * Closes the files and deletes them.
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      pages.close();
+    } catch (IOException | RuntimeException e) {
+      try {
+        strings.close();
+      } catch (IOException | RuntimeException suppressed) {
+        e.addSuppressed(suppressed);
+      }
+      throw e;
+    }
+    strings.close();
+    Files.deleteIfExists(directory.resolve("events.pages"));
+    Files.deleteIfExists(directory.resolve("events.strings"));
+  }
+
+  private void putRecord(long id, Record record) {
+    records.put(new long[] {id}, new long[] {record.calendar, record.start, record.end,
+        record.name, record.description, record.location,
+        ((long) record.row << 1) | (record.isPublic ? 1 : 0)});
+  }
+
+  private long[] nameKey(Record record, long id) {
+    return new long[] {record.calendar, nameHash(loadString(record.name)), record.start, id};
+  }
+
+  private void readFully(ByteBuffer buffer, long position) throws IOException {
+    while (buffer.hasRemaining()) {
+      if (strings.read(buffer, position + buffer.position()) < 0) {
+        throw new IOException("String file ends at " + (position + buffer.position()));
+      }
+    }
+  }
+
+  private static String normalized(String name) {
+    return name == null ? "" : name.toLowerCase(Locale.ROOT);
+  }
+
+  private static <K, V> Map<K, V> lruMap() {
+    return new LinkedHashMap<K, V>(STRING_CACHE_SIZE * 4 / 3 + 1, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+        return size() > STRING_CACHE_SIZE;
+      }
+    };
+  }
+}
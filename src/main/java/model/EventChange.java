@@ -0,0 +1,38 @@
+package model;
+
+/**
+ * The {@link IEventChange} the model hands out.
+ */
+final class EventChange implements IEventChange {
+  private final Kind kind;
+  private final long sequence;
+  private final ICalendarEventDTO event;
+  private final boolean series;
+
+  EventChange(Kind kind, long sequence, ICalendarEventDTO event, boolean series) {
+    this.kind = kind;
+    this.sequence = sequence;
+    this.event = event;
+    this.series = series;
+  }
+
+  @Override
+  public Kind getKind() {
+    return kind;
+  }
+
+  @Override
+  public long getSequence() {
+    return sequence;
+  }
+
+  @Override
+  public ICalendarEventDTO getEvent() {
+    return event;
+  }
+
+  @Override
+  public boolean isSeries() {
+    return series;
+  }
+}
@@ -0,0 +1,41 @@
+package model;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out the ids that identify stored events. Calendars of one model share a source, so
+ * an id names one event in the whole model and an event copied to another calendar gets an
+ * id of its own.
+ * <p>
+ * Ids start at 1 and are never reused; 0 means "no id", as carried by series occurrences
+ * and by events no calendar stores. The source is safe to use from several threads, since
+ * writers to different calendars may run at the same time.
+ * </p>
+ */
+class EventIds {
+  static final long NONE = 0;
+
+  private final AtomicLong last = new AtomicLong();
+
+  /**
+   * Returns an id that has not been handed out before.
+   */
+  long next() {
+    return last.incrementAndGet();
+  }
+
+  /**
+   * Returns the most recent id handed out, or {@link #NONE} if there is none yet.
+   */
+  long last() {
+    return last.get();
+  }
+
+  /**
+   * Continues handing out ids after {@code lastId}. Replaying a journal uses this so that
+   * every event gets the id it had when the change was first made.
+   */
+  void resumeAfter(long lastId) {
+    last.set(lastId);
+  }
+}
@@ -0,0 +1,307 @@
+package model;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * An augmented AVL tree that indexes calendar events by their start/end interval.
+ * <p>
+ * Nodes are ordered by start instant (ties broken by insertion order) and every node
+ * tracks the latest end instant found in its subtree. This lets range and point
+ * queries prune whole subtrees, so they cost O(log n + k) instead of a full scan, and
+ * results are always produced in start-time order. Keys are instants, so the index stays
+ * valid when the calendar's timezone changes.
+ * </p>
+ * <p>
+ * Events are mutable, so the tree keeps its own copy of each event's interval. Callers
+ * that change the start or end of an indexed event must call {@link #reindex} afterwards.
+ * </p>
+ */
+class EventIntervalTree {
+  private Node root;
+  private long nextSequence;
+  private final Map<CalendarEvent, Node> nodes = new IdentityHashMap<>();
+
+  private static final class Node {
+    private final CalendarEvent event;
+    private final Instant start;
+    private final Instant end;
+    private final long sequence;
+    private Instant maxEnd;
+    private int height;
+    private Node left;
+    private Node right;
+
+    private Node(CalendarEvent event, long sequence) {
+      this.event = event;
+      this.start = event.getStartInstant();
+      this.end = event.getEndInstant();
+      this.sequence = sequence;
+      this.maxEnd = end;
+      this.height = 1;
+    }
+  }
+
+  /**
+   * Adds an event to the index.
+   *
+   * @param event the event to index
+   */
+  public void insert(CalendarEvent event) {
+    Node node = new Node(event, nextSequence++);
+    nodes.put(event, node);
+    root = insert(root, node);
+  }
+
+  /**
+   * Removes an event from the index.
+   *
+   * @param event the event to remove
+   * @return true if the event was indexed
+   */
+  public boolean remove(CalendarEvent event) {
+    Node node = nodes.remove(event);
+    if (node == null) {
+      return false;
+    }
+    root = remove(root, node);
+    return true;
+  }
+
+  /**
+   * Re-positions an event whose start or end has changed since it was indexed.
+   *
+   * @param event the modified event
+   */
+  public void reindex(CalendarEvent event) {
+    Node node = nodes.get(event);
+    if (node != null && node.start.equals(event.getStartInstant())
+        && node.end.equals(event.getEndInstant())) {
+      return;
+    }
+    remove(event);
+    insert(event);
+  }
+
+  public void clear() {
+    root = null;
+    nodes.clear();
+  }
+
+  public int size() {
+    return nodes.size();
+  }
+
+  /**
+   * Returns the events that start within {@code [from, to]} or that end strictly inside
+   * {@code (from, to)}, ordered by start.
+   *
+   * @param from the start of the range (inclusive)
+   * @param to   the end of the range (inclusive)
+   * @return the matching events in start-time order
+   */
+  public List<ICalendarEvent> queryRange(Instant from, Instant to) {
+    List<ICalendarEvent> result = new ArrayList<>();
+    collectRange(root, from, to, result);
+    return result;
+  }
+
+  /**
+   * Passes every indexed event to {@code action}, ordered by start.
+   *
+   * @param action the action to run on each event
+   */
+  public void forEach(Consumer<? super ICalendarEvent> action) {
+    forEach(root, action);
+  }
+
+  /**
+   * Returns the events whose interval contains {@code instant} (both ends inclusive),
+   * ordered by start.
+   *
+   * @param instant the instant to look up
+   * @return the matching events in start-time order
+   */
+  public List<ICalendarEvent> queryAt(Instant instant) {
+    List<ICalendarEvent> result = new ArrayList<>();
+    collectAt(root, instant, result);
+    return result;
+  }
+
+  /**
+   * Returns the events whose interval intersects {@code [from, to]}, including events that
+   * only touch one of its ends, ordered by start.
+   *
+   * @param from the start of the interval (inclusive)
+   * @param to   the end of the interval (inclusive)
+   * @return the intersecting events in start-time order
+   */
+  public List<ICalendarEvent> queryOverlapping(Instant from, Instant to) {
+    List<ICalendarEvent> result = new ArrayList<>();
+    collectOverlapping(root, from, to, result);
+    return result;
+  }
+
+  // Every qualifying event ends after 'from', so subtrees whose maxEnd is not after it
+  // can be skipped. Right subtrees only hold later starts, so they are skipped once the
+  // current start has moved past 'to'.
+  private void collectRange(Node node, Instant from, Instant to,
+                            List<ICalendarEvent> result) {
+    if (node == null || !node.maxEnd.isAfter(from)) {
+      return;
+    }
+    collectRange(node.left, from, to, result);
+    boolean startsInRange = !node.start.isBefore(from) && !node.start.isAfter(to);
+    boolean endsInRange = node.end.isAfter(from) && node.end.isBefore(to);
+    if (startsInRange || endsInRange) {
+      result.add(node.event);
+    }
+    if (!node.start.isAfter(to)) {
+      collectRange(node.right, from, to, result);
+    }
+  }
+
+  private static void forEach(Node node, Consumer<? super ICalendarEvent> action) {
+    if (node == null) {
+      return;
+    }
+    forEach(node.left, action);
+    action.accept(node.event);
+    forEach(node.right, action);
+  }
+
+  private void collectAt(Node node, Instant instant, List<ICalendarEvent> result) {
+    if (node == null || node.maxEnd.isBefore(instant)) {
+      return;
+    }
+    collectAt(node.left, instant, result);
+    if (!node.start.isAfter(instant) && !node.end.isBefore(instant)) {
+      result.add(node.event);
+    }
+    if (!node.start.isAfter(instant)) {
+      collectAt(node.right, instant, result);
+    }
+  }
+
+  private void collectOverlapping(Node node, Instant from, Instant to,
+                                  List<ICalendarEvent> result) {
+    if (node == null || node.maxEnd.isBefore(from)) {
+      return;
+    }
+    collectOverlapping(node.left, from, to, result);
+    if (!node.start.isAfter(to) && !node.end.isBefore(from)) {
+      result.add(node.event);
+    }
+    if (!node.start.isAfter(to)) {
+      collectOverlapping(node.right, from, to, result);
+    }
+  }
+
+  private static int compare(Node a, Node b) {
+    int byStart = a.start.compareTo(b.start);
+    return byStart != 0 ? byStart : Long.compare(a.sequence, b.sequence);
+  }
+
+  private static Node insert(Node node, Node added) {
+    if (node == null) {
+      return added;
+    }
+    if (compare(added, node) < 0) {
+      node.left = insert(node.left, added);
+    } else {
+      node.right = insert(node.right, added);
+    }
+    return rebalance(node);
+  }
+
+  private static Node remove(Node node, Node removed) {
+    if (node == null) {
+      return null;
+    }
+    int cmp = compare(removed, node);
+    if (cmp < 0) {
+      node.left = remove(node.left, removed);
+    } else if (cmp > 0) {
+      node.right = remove(node.right, removed);
+    } else {
+      if (node.left == null) {
+        return node.right;
+      }
+      if (node.right == null) {
+        return node.left;
+      }
+      Node successor = node.right;
+      while (successor.left != null) {
+        successor = successor.left;
+      }
+      successor.right = removeMin(node.right);
+      successor.left = node.left;
+      return rebalance(successor);
+    }
+    return rebalance(node);
+  }
+
+  private static Node removeMin(Node node) {
+    if (node.left == null) {
+      return node.right;
+    }
+    node.left = removeMin(node.left);
+    return rebalance(node);
+  }
+
+  private static int height(Node node) {
+    return node == null ? 0 : node.height;
+  }
+
+  private static void update(Node node) {
+    node.height = 1 + Math.max(height(node.left), height(node.right));
+    Instant maxEnd = node.end;
+    if (node.left != null && node.left.maxEnd.isAfter(maxEnd)) {
+      maxEnd = node.left.maxEnd;
+    }
+    if (node.right != null && node.right.maxEnd.isAfter(maxEnd)) {
+      maxEnd = node.right.maxEnd;
+    }
+    node.maxEnd = maxEnd;
+  }
+
+  private static Node rebalance(Node node) {
+    update(node);
+    int balance = height(node.left) - height(node.right);
+    if (balance > 1) {
+      if (height(node.left.left) < height(node.left.right)) {
+        node.left = rotateLeft(node.left);
+      }
+      return rotateRight(node);
+    }
+    if (balance < -1) {
+      if (height(node.right.right) < height(node.right.left)) {
+        node.right = rotateRight(node.right);
+      }
+      return rotateLeft(node);
+    }
+    return node;
+  }
+
+  private static Node rotateRight(Node node) {
+    Node pivot = node.left;
+    node.left = pivot.right;
+    pivot.right = node;
+    update(node);
+    update(pivot);
+    return pivot;
+  }
+
+  private static Node rotateLeft(Node node) {
+    Node pivot = node.right;
+    node.right = pivot.left;
+    pivot.left = node;
+    update(node);
+    update(pivot);
+    return pivot;
+  }
+}
@@ -0,0 +1,183 @@
+package model;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * A secondary index from event names to events, so that edits and copies that name their
+ * target find it in O(log n + k) instead of scanning the calendar.
+ * <p>
+ * Names are compared ignoring case. Each name maps to its events ordered by start instant,
+ * ties broken by insertion order. Events are identified by a handle chosen by the calendar:
+ * the event object itself, or its row number in a column store.
+ * </p>
+ * <p>
+ * Like {@link EventIntervalTree}, the index keeps its own copy of each event's name and
+ * start, so callers that change either in place must call {@link #reindex} afterwards.
+ * </p>
+ *
+ * @param <H> the type of the handles the calendar identifies its events by
+ */
+class EventNameIndex<H> {
+  private final Map<String, Events<H>> byName = new HashMap<>();
+  private final Map<H, Entry> entries = new HashMap<>();
+  private long nextSequence;
+
+  private static final class Key implements Comparable<Key> {
+    private final Instant start;
+    private final long sequence;
+
+    private Key(Instant start, long sequence) {
+      this.start = start;
+      this.sequence = sequence;
+    }
+
+    @Override
+    public int compareTo(Key other) {
+      int byStart = start.compareTo(other.start);
+      return byStart != 0 ? byStart : Long.compare(sequence, other.sequence);
+    }
+  }
+
+  // The events of one name by start; holds the one copy of the name they all share
+  private static final class Events<H> extends TreeMap<Key, H> {
+    private static final long serialVersionUID = 1L;
+
+    private final String name;
+
+    private Events(String name) {
+      this.name = name;
+    }
+  }
+
+  private static final class Entry {
+    private final String name;
+    private final Key key;
+
+    private Entry(String name, Key key) {
+      this.name = name;
+      this.key = key;
+    }
+  }
+
+  /**
+   * Returns the form names are compared in.
+   */
+  static String normalize(String name) {
+    return name == null ? "" : name.toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * Adds an event to the index.
+   *
+   * @param handle the event's handle
+   * @param name   the event's name
+   * @param start  the event's start
+   */
+  public void insert(H handle, String name, Instant start) {
+    insert(handle, normalize(name), new Key(start, nextSequence++));
+  }
+
+  /**
+   * Removes an event from the index.
+   *
+   * @param handle the event's handle
+   * @return true if the event was indexed
+   */
+  public boolean remove(H handle) {
+    Entry entry = entries.remove(handle);
+    if (entry == null) {
+      return false;
+    }
+    NavigableMap<Key, H> events = byName.get(entry.name);
+    events.remove(entry.key);
+    if (events.isEmpty()) {
+      byName.remove(entry.name);
+    }
+    return true;
+  }
+
+  /**
+   * Re-positions an event whose name or start has changed since it was indexed. The event
+   * keeps its place among events that start at the same time.
+   *
+   * @param handle the event's handle
+   * @param name   the event's current name
+   * @param start  the event's current start
+   */
+  public void reindex(H handle, String name, Instant start) {
+    Entry entry = entries.get(handle);
+    String normalized = normalize(name);
+    if (entry == null) {
+      insert(handle, normalized, new Key(start, nextSequence++));
+      return;
+    }
+    if (entry.name.equals(normalized) && entry.key.start.equals(start)) {
+      return;
+    }
+    remove(handle);
+    insert(handle, normalized, new Key(start, entry.key.sequence));
+  }
+
+  /**
+   * Gives the event indexed under {@code from} the handle {@code to}, which must not be in
+   * use, keeping its place. Column stores call this when an event moves to another row.
+   */
+  public void move(H from, H to) {
+    Entry entry = entries.remove(from);
+    if (entry != null) {
+      byName.get(entry.name).put(entry.key, to);
+      entries.put(to, entry);
+    }
+  }
+
+  /**
+   * Exchanges the handles of two indexed events, keeping the place of each.
+   */
+  public void swap(H first, H second) {
+    Entry firstEntry = entries.remove(first);
+    Entry secondEntry = entries.remove(second);
+    byName.get(firstEntry.name).put(firstEntry.key, second);
+    entries.put(second, firstEntry);
+    byName.get(secondEntry.name).put(secondEntry.key, first);
+    entries.put(first, secondEntry);
+  }
+
+  /**
+   * Returns the events with the given name, ignoring case, that start within
+   * {@code [from, to]}, in start order.
+   */
+  public List<H> query(String name, Instant from, Instant to) {
+    NavigableMap<Key, H> events = byName.get(normalize(name));
+    if (events == null) {
+      return new ArrayList<>();
+    }
+    return new ArrayList<>(events.subMap(new Key(from, Long.MIN_VALUE), true,
+        new Key(to, Long.MAX_VALUE), true).values());
+  }
+
+  public void clear() {
+    byName.clear();
+    entries.clear();
+  }
+
+  public int size() {
+    return entries.size();
+  }
+
+  private void insert(H handle, String normalized, Key key) {
+    Events<H> events = byName.get(normalized);
+    if (events == null) {
+      events = new Events<>(normalized);
+      byName.put(normalized, events);
+    }
+    events.put(key, handle);
+    entries.put(handle, new Entry(events.name, key));
+  }
+}
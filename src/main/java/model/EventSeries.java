@@ -0,0 +1,358 @@
+package model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A recurring event stored as a rule rather than as individual occurrences.
+ * <p>
+ * A series repeats on a set of weekdays at a fixed time of day, starting on its first date
+ * and ending after a number of occurrences or on an end date. The wall-clock times are
+ * interpreted in the zone the series was created in. Occurrences are only built for the
+ * window a caller asks for, so a series costs the same whatever its length.
+ * </p>
+ * <p>
+ * Dates that were taken out of the series (because the occurrence was edited on its own)
+ * are kept as exceptions and no longer produce occurrences.
+ * </p>
+ */
+class EventSeries {
+  private final String eventName;
+  private final String eventDescription;
+  private final String eventLocation;
+  private final boolean isPublic;
+  private final LocalDate startDate;
+  private final LocalTime startTime;
+  private final LocalTime endTime;
+  private final Set<DayOfWeek> recurrenceDays;
+  private final ZoneId zone;
+  private final CalendarZone occurrenceZone;
+  private final Set<LocalDate> exceptions = new HashSet<>();
+  private Integer recurrenceCount;
+  private LocalDate recurrenceEndDate;
+  private LocalDate firstDate;
+  private LocalDate lastDate;
+  private long id;
+  private long addedAfter;
+
+  /**
+   * Creates a series from a validated recurring event.
+   *
+   * @param eventDTO a recurring event with recurrence days, a count or end date, and the
+   *                 dates it skips
+   * @param zone     the zone the event's wall-clock times belong to
+   */
+  EventSeries(ICalendarEventDTO eventDTO, ZoneId zone) {
+    this.eventName = eventDTO.getEventName();
+    this.eventDescription = eventDTO.getEventDescription();
+    this.eventLocation = eventDTO.getEventLocation();
+    this.isPublic = !Boolean.TRUE.equals(eventDTO.isPrivate());
+    this.startDate = eventDTO.getStartDateTime().toLocalDate();
+    this.startTime = eventDTO.getStartDateTime().toLocalTime();
+    this.endTime = eventDTO.getEndDateTime().toLocalTime();
+    this.recurrenceDays = EnumSet.copyOf(eventDTO.getRecurrenceDays());
+    this.zone = zone;
+    this.occurrenceZone = new CalendarZone(zone);
+    this.recurrenceCount = eventDTO.getRecurrenceCount() != null
+        && eventDTO.getRecurrenceCount() > 0 ? eventDTO.getRecurrenceCount() : null;
+    this.recurrenceEndDate = eventDTO.getRecurrenceEndDate() != null
+        ? eventDTO.getRecurrenceEndDate().toLocalDate() : null;
+    this.exceptions.addAll(eventDTO.getRecurrenceExceptions());
+    computeBounds();
+  }
+
+  private EventSeries(EventSeries other) {
+    this.eventName = other.eventName;
+    this.eventDescription = other.eventDescription;
+    this.eventLocation = other.eventLocation;
+    this.isPublic = other.isPublic;
+    this.startDate = other.startDate;
+    this.startTime = other.startTime;
+    this.endTime = other.endTime;
+    this.recurrenceDays = EnumSet.copyOf(other.recurrenceDays);
+    this.zone = other.zone;
+    this.occurrenceZone = new CalendarZone(other.zone);
+    this.exceptions.addAll(other.exceptions);
+    this.recurrenceCount = other.recurrenceCount;
+    this.recurrenceEndDate = other.recurrenceEndDate;
+    this.firstDate = other.firstDate;
+    this.lastDate = other.lastDate;
+    this.id = other.id;
+    this.addedAfter = other.addedAfter;
+  }
+
+  /**
+   * Returns an independent copy of this series, with the same id, which later exclusions
+   * and truncations of this series do not affect.
+   */
+  public EventSeries copy() {
+    return new EventSeries(this);
+  }
+
+  /**
+   * Returns the number the calendar holding the series gave it, or 0 if none has. It is
+   * unrelated to event ids and only lasts as long as the calendar does.
+   */
+  public long getId() {
+    return id;
+  }
+
+  void setId(long id) {
+    this.id = id;
+  }
+
+  /**
+   * Returns the last event id handed out when the series was added to its calendar, so
+   * its occurrences can be ranked among stored events in the order they were added.
+   */
+  long getAddedAfter() {
+    return addedAfter;
+  }
+
+  void setAddedAfter(long eventId) {
+    this.addedAfter = eventId;
+  }
+
+  public String getEventName() {
+    return eventName;
+  }
+
+  public String getEventDescription() {
+    return eventDescription;
+  }
+
+  public String getEventLocation() {
+    return eventLocation;
+  }
+
+  public boolean isPublic() {
+    return isPublic;
+  }
+
+  public LocalDate getStartDate() {
+    return startDate;
+  }
+
+  public LocalTime getStartTime() {
+    return startTime;
+  }
+
+  public LocalTime getEndTime() {
+    return endTime;
+  }
+
+  public Set<DayOfWeek> getRecurrenceDays() {
+    return Collections.unmodifiableSet(recurrenceDays);
+  }
+
+  public Integer getRecurrenceCount() {
+    return recurrenceCount;
+  }
+
+  public LocalDate getRecurrenceEndDate() {
+    return recurrenceEndDate;
+  }
+
+  public Set<LocalDate> getExceptions() {
+    return Collections.unmodifiableSet(exceptions);
+  }
+
+  public ZoneId getZone() {
+    return zone;
+  }
+
+  /**
+   * Returns the date of the first occurrence, or null if the series has none.
+   */
+  public LocalDate getFirstDate() {
+    return firstDate;
+  }
+
+  /**
+   * Returns the date of the last occurrence, or null if the series has none.
+   */
+  public LocalDate getLastDate() {
+    return lastDate;
+  }
+
+  public boolean isEmpty() {
+    return firstDate == null;
+  }
+
+  /**
+   * Builds the occurrences dated within {@code [from, to]}, in the series' own zone.
+   *
+   * @param from the first date to include
+   * @param to   the last date to include
+   * @return the occurrences in start order
+   */
+  public List<CalendarEvent> occurrencesBetween(LocalDate from, LocalDate to) {
+    List<CalendarEvent> occurrences = new ArrayList<>();
+    if (isEmpty()) {
+      return occurrences;
+    }
+    LocalDate date = from.isBefore(firstDate) ? firstDate : from;
+    LocalDate last = to.isAfter(lastDate) ? lastDate : to;
+    for (; !date.isAfter(last); date = date.plusDays(1)) {
+      if (occursOn(date)) {
+        occurrences.add(createOccurrence(date));
+      }
+    }
+    return occurrences;
+  }
+
+  /**
+   * Builds every occurrence of the series, in the series' own zone.
+   */
+  public List<CalendarEvent> occurrences() {
+    return isEmpty() ? new ArrayList<>() : occurrencesBetween(firstDate, lastDate);
+  }
+
+  /**
+   * Returns the occurrences of the series one at a time, in start order and in the series'
+   * own zone, building each only when it is reached.
+   */
+  public Iterator<CalendarEvent> occurrenceIterator() {
+    return new Iterator<CalendarEvent>() {
+      private LocalDate date = isEmpty() ? null : nextOccurrenceDate(firstDate);
+
+      @Override
+      public boolean hasNext() {
+        return date != null;
+      }
+
+      @Override
+      public CalendarEvent next() {
+        if (date == null) {
+          throw new NoSuchElementException();
+        }
+        CalendarEvent occurrence = createOccurrence(date);
+        date = nextOccurrenceDate(date.plusDays(1));
+        return occurrence;
+      }
+    };
+  }
+
+  /**
+   * Returns the start of the earliest occurrence that overlaps {@code [start, end)}, or null
+   * if no occurrence does. The interval is expressed in the series' own zone.
+   *
+   * @param start the start of the interval
+   * @param end   the end of the interval
+   * @return the start of the first overlapping occurrence, or null
+   */
+  public LocalDateTime firstOverlap(LocalDateTime start, LocalDateTime end) {
+    if (isEmpty()) {
+      return null;
+    }
+    LocalDate date = start.toLocalDate().isBefore(firstDate) ? firstDate : start.toLocalDate();
+    LocalDate last = end.toLocalDate().isAfter(lastDate) ? lastDate : end.toLocalDate();
+    for (; !date.isAfter(last); date = date.plusDays(1)) {
+      if (occursOn(date)) {
+        LocalDateTime occurrenceStart = LocalDateTime.of(date, startTime);
+        LocalDateTime occurrenceEnd = LocalDateTime.of(date, endTime);
+        if (occurrenceStart.isBefore(end) && occurrenceEnd.isAfter(start)) {
+          return occurrenceStart;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Takes a single date out of the series.
+   *
+   * @param date the occurrence date to skip
+   */
+  public void exclude(LocalDate date) {
+    exceptions.add(date);
+  }
+
+  /**
+   * Drops every occurrence dated on or after {@code date}. The series keeps its remaining
+   * occurrences and from then on ends on a date rather than after a count.
+   *
+   * @param date the first date to drop
+   */
+  public void truncateBefore(LocalDate date) {
+    if (isEmpty() || date.isAfter(lastDate)) {
+      return;
+    }
+    recurrenceCount = null;
+    recurrenceEndDate = date.minusDays(1);
+    computeBounds();
+  }
+
+  private boolean occursOn(LocalDate date) {
+    return recurrenceDays.contains(date.getDayOfWeek()) && !exceptions.contains(date);
+  }
+
+  // Every block of seven days starting on the start date holds exactly one date per
+  // recurrence day, so the n-th occurrence can be found without walking the whole series.
+  private void computeBounds() {
+    LocalDate first = nextRecurrenceDate(startDate);
+    LocalDate last;
+    if (recurrenceCount != null) {
+      int perWeek = recurrenceDays.size();
+      int n = recurrenceCount - 1;
+      LocalDate blockStart = startDate.plusWeeks(n / perWeek);
+      last = nextRecurrenceDate(blockStart);
+      for (int i = 0; i < n % perWeek; i++) {
+        last = nextRecurrenceDate(last.plusDays(1));
+      }
+    } else {
+      last = recurrenceEndDate;
+      while (!last.isBefore(startDate) && !recurrenceDays.contains(last.getDayOfWeek())) {
+        last = last.minusDays(1);
+      }
+    }
+    if (last.isBefore(first)) {
+      firstDate = null;
+      lastDate = null;
+    } else {
+      firstDate = first;
+      lastDate = last;
+    }
+  }
+
+  // The first occurrence dated on or after date, or null if the series ends before it
+  private LocalDate nextOccurrenceDate(LocalDate date) {
+    for (; lastDate != null && !date.isAfter(lastDate); date = date.plusDays(1)) {
+      if (occursOn(date)) {
+        return date;
+      }
+    }
+    return null;
+  }
+
+  private LocalDate nextRecurrenceDate(LocalDate date) {
+    while (!recurrenceDays.contains(date.getDayOfWeek())) {
+      date = date.plusDays(1);
+    }
+    return date;
+  }
+
+  private CalendarEvent createOccurrence(LocalDate date) {
+    CalendarEvent occurrence = CalendarEvent.builder()
+          .setEventName(eventName)
+          .setStartDateTime(LocalDateTime.of(date, startTime))
+          .setEndDateTime(LocalDateTime.of(date, endTime))
+          .setEventDescription(eventDescription)
+          .setEventLocation(eventLocation)
+          .setPublic(isPublic)
+          .build();
+    occurrence.bindTo(occurrenceZone);
+    return occurrence;
+  }
+}
@@ -0,0 +1,129 @@
+package model;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed-size event records kept outside the Java heap, in direct {@link ByteBuffer} slabs.
+ * <p>
+ * A record is addressed by its slot number and holds the event's start and end in epoch
+ * seconds, its id, the dictionary ids of its name, description and location, its position
+ * in the calendar and its flags. Slabs are allocated {@link #SLAB_RECORDS} records at a time
+ * and never move, so adding events does not copy the ones already stored. Released slots
+ * go on a free list threaded through the records themselves and are handed out again before
+ * the slabs grow.
+ * </p>
+ * <p>
+ * The garbage collector sees one small object per slab instead of several per event, so
+ * a large calendar adds nothing to the live heap it has to trace or copy.
+ * </p>
+ */
+final class EventSlab {
+  static final int RECORD_BYTES = 48;
+  static final int SLAB_SHIFT = 13;
+  static final int SLAB_RECORDS = 1 << SLAB_SHIFT;
+
+  static final int START = 0;
+  static final int END = 8;
+  static final int ID = 16;
+  static final int NAME = 24;
+  static final int DESCRIPTION = 28;
+  static final int LOCATION = 32;
+  static final int POSITION = 36;
+  static final int FLAGS = 40;
+
+  static final int PUBLIC = 1;
+
+  private static final int NO_SLOT = -1;
+
+  private final List<ByteBuffer> slabs = new ArrayList<>();
+  // Slots below 'top' have been handed out at least once
+  private int top;
+  private int freeHead = NO_SLOT;
+  private int live;
+
+  /**
+   * Returns a slot for a new record. Its fields hold whatever the slot last held.
+   */
+  int allocate() {
+    int slot;
+    if (freeHead != NO_SLOT) {
+      slot = freeHead;
+      // A free record keeps the next free slot where its position normally is
+      freeHead = getInt(slot, POSITION);
+    } else {
+      if (top == slabs.size() * SLAB_RECORDS) {
+        slabs.add(ByteBuffer.allocateDirect(SLAB_RECORDS * RECORD_BYTES)
+            .order(ByteOrder.nativeOrder()));
+      }
+      slot = top++;
+    }
+    live++;
+    return slot;
+  }
+
+  /**
+   * Puts a slot on the free list. It must not be read again until it is allocated.
+   */
+  void release(int slot) {
+    putInt(slot, POSITION, freeHead);
+    freeHead = slot;
+    live--;
+  }
+
+  /**
+   * Releases every slot, keeping the slabs for the records stored next.
+   */
+  void clear() {
+    top = 0;
+    freeHead = NO_SLOT;
+    live = 0;
+  }
+
+  long getLong(int slot, int field) {
+    return slab(slot).getLong(offset(slot, field));
+  }
+
+  void putLong(int slot, int field, long value) {
+    slab(slot).putLong(offset(slot, field), value);
+  }
+
+  int getInt(int slot, int field) {
+    return slab(slot).getInt(offset(slot, field));
+  }
+
+  void putInt(int slot, int field, int value) {
+    slab(slot).putInt(offset(slot, field), value);
+  }
+
+  /**
+   * Returns the number of slots in use.
+   */
+  int live() {
+    return live;
+  }
+
+  /**
+   * Returns the number of records the allocated slabs hold.
+   */
+  int capacity() {
+    return slabs.size() * SLAB_RECORDS;
+  }
+
+  /**
+   * Returns the memory the slabs take outside the heap, in bytes.
+   */
+  long offHeapBytes() {
+    return (long) capacity() * RECORD_BYTES;
+  }
+
+  private ByteBuffer slab(int slot) {
+    return slabs.get(slot >>> SLAB_SHIFT);
+  }
+
+  private static int offset(int slot, int field) {
+    return (slot & (SLAB_RECORDS - 1)) * RECORD_BYTES + field;
+  }
+}
@@ -0,0 +1,119 @@
+package model;
+
+import java.time.Duration;
+
+/**
+ * Decides how often a {@link MutationJournal} forces what it has written to the disk.
+ * <p>
+ * Forcing after every record makes each change durable before the call that made it
+ * returns, at the price of one disk flush per change. Forcing at most every interval bounds
+ * the changes a power loss can take to those of the last interval; a {@link JournalFlusher}
+ * forces what is left over once the interval is up, even if no further record arrives.
+ * Never forcing leaves
+ * flushing to the operating system; the journal then survives a crash of the application
+ * but not of the machine.
+ * </p>
+ * <p>
+ * A grouped policy makes every change durable before its call returns, like forcing after
+ * every record, but lets one flush cover the changes of every caller waiting at the time;
+ * see {@link GroupCommitter}.
+ * </p>
+ */
+final class FsyncPolicy {
+  static final FsyncPolicy ALWAYS = new FsyncPolicy(0, false, 0, 0);
+  static final FsyncPolicy NEVER = new FsyncPolicy(-1, false, 0, 0);
+
+  private static final Duration DEFAULT_GROUP_DELAY = Duration.ofMillis(2);
+  private static final int DEFAULT_GROUP_SIZE = 256;
+
+  private final long intervalNanos;
+  private final boolean grouped;
+  private final long maxDelayNanos;
+  private final int maxBatchSize;
+
+  private FsyncPolicy(long intervalNanos, boolean grouped, long maxDelayNanos,
+                      int maxBatchSize) {
+    this.intervalNanos = intervalNanos;
+    this.grouped = grouped;
+    this.maxDelayNanos = maxDelayNanos;
+    this.maxBatchSize = maxBatchSize;
+  }
+
+  /**
+   * Returns a policy that forces the journal when {@code interval} has passed since it was
+   * last forced.
+   */
+  static FsyncPolicy atMostEvery(Duration interval) {
+    if (interval.isNegative()) {
+      throw new IllegalArgumentException("Fsync interval cannot be negative: " + interval);
+    }
+    return new FsyncPolicy(interval.toNanos(), false, 0, 0);
+  }
+
+  /**
+   * Returns a policy that commits changes in groups. A flush starts once
+   * {@code maxBatchSize} changes wait for it, or {@code maxDelay} after the first of them
+   * started waiting, whichever comes first.
+   */
+  static FsyncPolicy grouped(Duration maxDelay, int maxBatchSize) {
+    if (maxDelay.isNegative() || maxBatchSize < 1) {
+      throw new IllegalArgumentException("Invalid group commit settings: " + maxDelay
+          + ", " + maxBatchSize);
+    }
+    return new FsyncPolicy(-1, true, maxDelay.toNanos(), maxBatchSize);
+  }
+
+  /**
+   * Parses {@code always}, {@code never}, an interval in milliseconds, or
+   * {@code group[:maxDelayMillis[:maxBatchSize]]}.
+   *
+   * @throws IllegalArgumentException if the value is none of these
+   */
+  static FsyncPolicy parse(String value) {
+    if (value == null || value.equalsIgnoreCase("always")) {
+      return ALWAYS;
+    }
+    if (value.equalsIgnoreCase("never")) {
+      return NEVER;
+    }
+    try {
+      String[] parts = value.trim().split(":");
+      if (parts[0].equalsIgnoreCase("group") && parts.length <= 3) {
+        return grouped(parts.length > 1 ? Duration.ofMillis(Long.parseLong(parts[1]))
+                : DEFAULT_GROUP_DELAY,
+            parts.length > 2 ? Integer.parseInt(parts[2]) : DEFAULT_GROUP_SIZE);
+      }
+      return atMostEvery(Duration.ofMillis(Long.parseLong(value.trim())));
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid fsync policy: " + value);
+    }
+  }
+
+  /**
+   * Returns whether the journal should be forced now, {@code nanosSinceForce} after it was
+   * last forced.
+   */
+  boolean isDue(long nanosSinceForce) {
+    return intervalNanos >= 0 && nanosSinceForce >= intervalNanos;
+  }
+
+  /**
+   * Returns the interval between forces, 0 if every record is forced, or a negative number
+   * if the policy does not force on an interval.
+   */
+  long getIntervalNanos() {
+    return intervalNanos;
+  }
+
+  boolean isGrouped() {
+    return grouped;
+  }
+
+  long getMaxDelayNanos() {
+    return maxDelayNanos;
+  }
+
+  int getMaxBatchSize() {
+    return maxBatchSize;
+  }
+}
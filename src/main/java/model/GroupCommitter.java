@@ -0,0 +1,284 @@
+package model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Forces a {@link MutationJournal} on behalf of many writers at once.
+ * <p>
+ * Writers append their records without forcing them and then wait in
+ * {@link #awaitDurable} until a flush covers their sequence number. A single flusher thread
+ * collects the waiting writers and forces the journal once for all of them, so concurrent
+ * changes share the cost of a disk flush. A flush starts once the policy's batch size of
+ * records waits for it, or its maximum delay after the first of them started waiting.
+ * </p>
+ * <p>
+ * If a flush fails, the journal cannot tell which records reached the disk, so every writer
+ * waiting then, and every writer after, is told its change may not be durable. The records
+ * up to {@link #getDurableSequence} are still known to be on the disk.
+ * </p>
+ */
+class GroupCommitter implements Closeable {
+  private final long maxDelayNanos;
+  private final int maxBatchSize;
+  private final Thread flusher;
+  private final Object monitor = new Object();
+
+  // Guarded by monitor
+  private MutationJournal journal;
+  private boolean flushing;
+  private long requested;
+  private long durable;
+  private IOException failure;
+  private boolean closed;
+  private long flushes;
+  private long recordsFlushed;
+  private long largestBatch;
+  private long totalFlushNanos;
+  private long slowestFlushNanos;
+
+  /**
+   * Point-in-time figures about the flushes done so far.
+   */
+  static final class Metrics {
+    private final long flushes;
+    private final long recordsFlushed;
+    private final long largestBatch;
+    private final long totalFlushNanos;
+    private final long slowestFlushNanos;
+
+    private Metrics(long flushes, long recordsFlushed, long largestBatch,
+                    long totalFlushNanos, long slowestFlushNanos) {
+      this.flushes = flushes;
+      this.recordsFlushed = recordsFlushed;
+      this.largestBatch = largestBatch;
+      this.totalFlushNanos = totalFlushNanos;
+      this.slowestFlushNanos = slowestFlushNanos;
+    }
+
+    long getFlushes() {
+      return flushes;
+    }
+
+    long getRecordsFlushed() {
+      return recordsFlushed;
+    }
+
+    long getLargestBatch() {
+      return largestBatch;
+    }
+
+    double getAverageBatchSize() {
+      return flushes == 0 ? 0 : (double) recordsFlushed / flushes;
+    }
+
+    Duration getAverageFlushLatency() {
+      return Duration.ofNanos(flushes == 0 ? 0 : totalFlushNanos / flushes);
+    }
+
+    Duration getSlowestFlushLatency() {
+      return Duration.ofNanos(slowestFlushNanos);
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%d flushes, %d records, batch avg %.1f max %d, "
+              + "flush avg %d us max %d us", flushes, recordsFlushed, getAverageBatchSize(),
+          largestBatch, getAverageFlushLatency().toNanos() / 1000, slowestFlushNanos / 1000);
+    }
+  }
+
+  /**
+   * Starts committing for {@code journal} with the batch settings of a grouped policy.
+   */
+  GroupCommitter(MutationJournal journal, FsyncPolicy fsyncPolicy) {
+    if (!fsyncPolicy.isGrouped()) {
+      throw new IllegalArgumentException("Fsync policy does not group commits.");
+    }
+    this.journal = journal;
+    this.maxDelayNanos = fsyncPolicy.getMaxDelayNanos();
+    this.maxBatchSize = fsyncPolicy.getMaxBatchSize();
+    this.durable = journal.getLastSequence();
+    this.requested = durable;
+    this.flusher = new Thread(this::flushLoop, "journal-group-commit");
+    flusher.setDaemon(true);
+    flusher.start();
+  }
+
+  /**
+   * Blocks until the record with {@code sequence}, and every record before it, has been
+   * forced to the disk.
+   *
+   * @throws IOException if the flush failed or the committer was closed first
+   */
+  void awaitDurable(long sequence) throws IOException {
+    synchronized (monitor) {
+      if (sequence > requested) {
+        requested = sequence;
+        monitor.notifyAll();
+      }
+      boolean interrupted = false;
+      try {
+        while (durable < sequence) {
+          if (failure != null) {
+            throw new IOException("Journal flush failed: " + failure.getMessage(), failure);
+          }
+          if (closed && !flusher.isAlive()) {
+            throw new IOException("Journal closed before the change was flushed.");
+          }
+          try {
+            monitor.wait();
+          } catch (InterruptedException e) {
+            // The record is already written; leaving early would hide whether it is durable
+            interrupted = true;
+          }
+        }
+      } finally {
+        if (interrupted) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the sequence number of the last record known to be forced to the disk.
+   */
+  long getDurableSequence() {
+    synchronized (monitor) {
+      return durable;
+    }
+  }
+
+  /**
+   * Throws the failure of an earlier flush, after which no waiting record becomes durable.
+   *
+   * @throws IOException if a flush has failed
+   */
+  void checkFlushes() throws IOException {
+    synchronized (monitor) {
+      if (failure != null) {
+        throw new IOException("Journal flush failed: " + failure.getMessage(), failure);
+      }
+    }
+  }
+
+  /**
+   * Moves on to the next segment of the journal. Every record of the current segment must
+   * already be forced; waits for a flush in progress, after which the caller may close the
+   * current segment.
+   */
+  void switchTo(MutationJournal next) {
+    synchronized (monitor) {
+      boolean interrupted = false;
+      while (flushing) {
+        try {
+          monitor.wait();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      durable = Math.max(durable, journal.getLastSequence());
+      journal = next;
+      monitor.notifyAll();
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Returns the figures about the flushes done so far.
+   */
+  Metrics getMetrics() {
+    synchronized (monitor) {
+      return new Metrics(flushes, recordsFlushed, largestBatch, totalFlushNanos,
+          slowestFlushNanos);
+    }
+  }
+
+  /**
+   * Flushes whatever is still waiting and stops the flusher thread.
+   */
+  @Override
+  public void close() {
+    synchronized (monitor) {
+      closed = true;
+      monitor.notifyAll();
+    }
+    boolean interrupted = false;
+    while (flusher.isAlive()) {
+      try {
+        flusher.join();
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    synchronized (monitor) {
+      monitor.notifyAll();
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  // Runs on the flusher thread without the monitor; tests override it to fail a flush
+  void force(MutationJournal target) throws IOException {
+    target.force();
+  }
+
+  private void flushLoop() {
+    while (true) {
+      MutationJournal target;
+      synchronized (monitor) {
+        try {
+          while (requested <= durable && !closed) {
+            monitor.wait();
+          }
+          if (requested <= durable || failure != null) {
+            return;
+          }
+          // Give other writers a chance to join the batch
+          long deadline = System.nanoTime() + maxDelayNanos;
+          long remaining = maxDelayNanos;
+          while (!closed && remaining > 0 && journal.getLastSequence() - durable < maxBatchSize) {
+            TimeUnit.NANOSECONDS.timedWait(monitor, remaining);
+            remaining = deadline - System.nanoTime();
+          }
+        } catch (InterruptedException e) {
+          return;
+        }
+        target = journal;
+        flushing = true;
+      }
+      // Everything written before the force starts is covered by it
+      long upTo = target.getLastSequence();
+      long start = System.nanoTime();
+      IOException error = null;
+      try {
+        force(target);
+      } catch (IOException e) {
+        error = e;
+      }
+      long elapsed = System.nanoTime() - start;
+      synchronized (monitor) {
+        flushing = false;
+        if (error != null) {
+          failure = error;
+        } else {
+          // A switch to the next segment may have moved past this flush already
+          long batch = Math.max(0, upTo - durable);
+          durable = Math.max(durable, upTo);
+          flushes++;
+          recordsFlushed += batch;
+          largestBatch = Math.max(largestBatch, batch);
+          totalFlushNanos += elapsed;
+          slowestFlushNanos = Math.max(slowestFlushNanos, elapsed);
+        }
+        monitor.notifyAll();
+      }
+    }
+  }
+}
@@ -1,6 +1,8 @@
 package model;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Represents a calendar that can contain events.
@@ -30,6 +32,168 @@ public interface ICalendar {
 
   void addEvent(CalendarEvent event);
 
+  /**
+   * Removes the most recently added events until {@code size} remain, undoing the additions
+   * made since the calendar held that many events.
+   */
+  void truncateEvents(int size);
+
+  /**
+   * Returns the stored event with the given id, or {@code null} if this calendar stores no
+   * such event. Takes constant time.
+   */
+  ICalendarEvent getEventById(long eventId);
+
+  /**
+   * Removes the stored event with the given id in constant time. The most recently added
+   * event moves into the position the removed one held in {@link #getEvents()}.
+   *
+   * @return the position the event held, or -1 if this calendar stores no such event
+   */
+  int removeEvent(long eventId);
+
+  /**
+   * Puts back an event taken out by {@link #removeEvent}, at the position it held, and moves
+   * the event that took its place back to the end. The event keeps its id.
+   */
+  void restoreEvent(CalendarEvent event, int position);
+
+  /**
+   * Returns the events that start within {@code [fromDateTime, toDateTime]} or end strictly
+   * inside {@code (fromDateTime, toDateTime)}, ordered by start date-time.
+   */
+  List<ICalendarEvent> getEventsInRange(LocalDateTime fromDateTime, LocalDateTime toDateTime);
+
+  /**
+   * Passes every event, stored or a series occurrence, to {@code action} in start date-time
+   * order, without collecting the stored events first. The calendar must not be changed
+   * until it returns.
+   */
+  void forEachEvent(Consumer<? super ICalendarEvent> action);
+
+  /**
+   * Passes every stored event to {@code action} in start date-time order, leaving out series
+   * occurrences. The calendar must not be changed until it returns.
+   */
+  void forEachStoredEvent(Consumer<? super ICalendarEvent> action);
+
+  /**
+   * Passes the stored events and series added, changed or removed after mutation
+   * {@code since} to {@code visitor}, in the order of their latest change, taking time
+   * proportional to the number of changes. Passing 0 lists every stored event as added, in
+   * start date-time order, and then every series. A new calendar starts its sequence at a
+   * point of its own, so a sequence from before it was created, or from a calendar loaded
+   * from a file that did not keep its sequence, is rejected.
+   *
+   * @return the calendar's current sequence, to pass next time
+   * @throws IllegalArgumentException if {@code since} is negative, later than the current
+   *                                  sequence, or from before the calendar was created or
+   *                                  loaded
+   */
+  long forEachChangeSince(long since, ChangeVisitor visitor);
+
+  /**
+   * Returns a point of the calendar's change log that the changes made from now on can be
+   * rolled back to, so that a change undone leaves no trace in the sequence. Series
+   * numbers handed out since are taken back too.
+   */
+  ChangeLog.Mark markChanges();
+
+  /**
+   * Receives the changes listed by {@link #forEachChangeSince}.
+   */
+  interface ChangeVisitor {
+    /**
+     * Called for one changed event. A removed event is passed as it was when it was
+     * removed.
+     */
+    void visit(IEventChange.Kind kind, long sequence, ICalendarEvent event);
+
+    /**
+     * Called for one added, changed or removed series. A series that was truncated counts
+     * as changed, and a removed series is passed as it was before its last occurrences
+     * were turned into events.
+     */
+    void visitSeries(IEventChange.Kind kind, long sequence, EventSeries series);
+  }
+
+  /**
+   * Returns the events in progress at {@code dateTime} (both ends inclusive), ordered by
+   * start date-time.
+   */
+  List<ICalendarEvent> getEventsAt(LocalDateTime dateTime);
+
+  /**
+   * Returns the events whose interval intersects {@code [fromDateTime, toDateTime]},
+   * including ones that only touch an end, ordered by start date-time.
+   */
+  List<ICalendarEvent> getEventsOverlapping(LocalDateTime fromDateTime,
+                                            LocalDateTime toDateTime);
+
+  /**
+   * Returns the same events as {@link #getEventsOverlapping}, in the order they were added
+   * to the calendar: stored events by id, and the occurrences of each series, by start,
+   * where the series was added. Conflicts are reported against the earliest of them.
+   */
+  List<ICalendarEvent> getEventsOverlappingInOrderAdded(LocalDateTime fromDateTime,
+                                                        LocalDateTime toDateTime);
+
+  /**
+   * Returns the stored events named {@code name}, ignoring case, that start within
+   * {@code [fromDateTime, toDateTime]}, ordered by start date-time. Series occurrences are
+   * not included.
+   */
+  List<ICalendarEvent> getEventsNamed(String name, LocalDateTime fromDateTime,
+                                      LocalDateTime toDateTime);
+
+  /**
+   * Must be called after the name, start or end of one of this calendar's events is
+   * changed in place, so the calendar's indexes stay consistent.
+   */
+  void reindexEvent(ICalendarEvent event);
+
+  /**
+   * Stores a recurring event as a rule. Its occurrences are included in the range and point
+   * queries but are not part of {@link #getEvents()}.
+   */
+  void addSeries(EventSeries series);
+
+  List<EventSeries> getSeries();
+
+  /**
+   * Replaces the calendar's series rules.
+   */
+  void setSeries(List<EventSeries> series);
+
+  /**
+   * Turns the occurrences of series named {@code eventName} that start at or after
+   * {@code fromDateTime} into stored events, so they can be edited one by one.
+   *
+   * @return whether any occurrence was turned into a stored event
+   */
+  boolean materializeSeries(String eventName, LocalDateTime fromDateTime);
+
+  /**
+   * Turns the single series occurrence named {@code eventName} with the given start and end
+   * into a stored event, if there is one.
+   *
+   * @return whether there was such an occurrence
+   */
+  boolean detachOccurrence(String eventName, LocalDateTime startDateTime,
+                           LocalDateTime endDateTime);
+
+  /**
+   * Returns an immutable copy of the calendar as it is now, which later changes to the
+   * calendar do not affect.
+   */
+  CalendarSnapshot snapshot();
+
+  /**
+   * Returns an immutable copy of the stored event with the given id, or {@code null} if
+   * this calendar stores no such event.
+   */
+  CalendarSnapshot.FrozenEvent frozenEvent(long eventId);
+
   static ICalendarBuilder<?> builder() {
     return new Calendar.Builder();
   }
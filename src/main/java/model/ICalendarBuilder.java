@@ -7,5 +7,26 @@ interface ICalendarBuilder<T extends ICalendar> {
 
   ICalendarBuilder<T> setTimezone(String timezone);
 
+  /**
+   * Sets the dictionary the calendar encodes event strings with. Calendars of one model
+   * share a dictionary; a calendar built without one gets its own.
+   */
+  ICalendarBuilder<T> setDictionary(StringDictionary dictionary);
+
+  /**
+   * Sets the source of the ids the calendar gives the events it stores. Calendars of one
+   * model share a source; a calendar built without one gets its own.
+   */
+  ICalendarBuilder<T> setEventIds(EventIds eventIds);
+
+  /**
+   * Tells whether the calendars built keep their events in a compact form, such as
+   * columns of primitives, that a frozen copy of every event would outweigh. A model of
+   * such calendars publishes no versions of itself.
+   */
+  default boolean isCompact() {
+    return false;
+  }
+
   ICalendar build();
 }
\ No newline at end of file
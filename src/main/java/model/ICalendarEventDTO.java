@@ -1,7 +1,9 @@
 package model;
 
 import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -29,6 +31,14 @@ public interface ICalendarEventDTO {
 
   LocalDateTime getRecurrenceEndDate();
 
+  /**
+   * Returns the dates on which a recurring event does not occur, although its rule says it
+   * would, in ascending order.
+   */
+  default List<LocalDate> getRecurrenceExceptions() {
+    return Collections.emptyList();
+  }
+
   Boolean isAutoDecline();
 
   String getEventDescription();
@@ -37,6 +47,14 @@ public interface ICalendarEventDTO {
 
   Boolean isPrivate();
 
+  /**
+   * Returns the id of the stored event this DTO describes, or {@code null} if it describes
+   * a series occurrence or an event that is not stored yet.
+   */
+  default Long getEventId() {
+    return null;
+  }
+
   static ICalendarEventDTOBuilder<?> builder() {
     return new CalendarEventDTO.CalendarEventDTOBuilder();
   }
@@ -1,6 +1,7 @@
 package model;
 
 import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -31,6 +32,8 @@ public interface ICalendarEventDTOBuilder<T extends ICalendarEventDTO> {
 
   ICalendarEventDTOBuilder<T> setRecurrenceEndDate(LocalDateTime recurrenceEndDate);
 
+  ICalendarEventDTOBuilder<T> setRecurrenceExceptions(List<LocalDate> recurrenceExceptions);
+
   ICalendarEventDTOBuilder<T> setAutoDecline(Boolean autoDecline);
 
   ICalendarEventDTOBuilder<T> setEventDescription(String eventDescription);
@@ -39,5 +42,7 @@ public interface ICalendarEventDTOBuilder<T extends ICalendarEventDTO> {
 
   ICalendarEventDTOBuilder<T> setPrivate(Boolean isPrivate);
 
+  ICalendarEventDTOBuilder<T> setEventId(Long eventId);
+
   T build();
 }
@@ -1,8 +1,14 @@
 package model;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * Represents the data model interface for the Calendar application.
@@ -23,18 +29,97 @@ public interface ICalendarModel extends IReadOnlyCalendarModel {
    * string is not recognized, an {@link IllegalArgumentException} is thrown.
    * </p>
    *
-   * @param type a string that indicates which model implementation to create
+   * @param type a string that indicates which model implementation to create:
+   *             {@code listBased}, {@code columnar}, {@code concurrent},
+   *             {@code offHeap} for events kept in direct buffers outside the heap, or
+   *             {@code diskBased} for calendars kept in a temporary file on disk
    * @return a new instance of an {@code ICalendarModel} implementation
    * @throws IllegalArgumentException if the given {@code type} is invalid or unsupported
+   * @throws UncheckedIOException     if the file of a {@code diskBased} model cannot be
+   *                                  created
    */
   static ICalendarModel createInstance(String type) {
     if (type.equalsIgnoreCase("listBased")) {
       return new CalendarModel();
+    } else if (type.equalsIgnoreCase("columnar")) {
+      return new CalendarModel(ColumnarCalendar::builder);
+    } else if (type.equalsIgnoreCase("concurrent")) {
+      return new ConcurrentCalendarModel();
+    } else if (type.equalsIgnoreCase("offHeap")) {
+      return new OffHeapCalendarModel();
+    } else if (type.equalsIgnoreCase("diskBased")) {
+      try {
+        return DiskCalendarModel.create(Paths.get(System.getProperty("java.io.tmpdir")),
+            DiskCalendarModel.DEFAULT_CACHE_PAGES);
+      } catch (IOException e) {
+        throw new UncheckedIOException("Could not create the event store.", e);
+      }
     } else {
       throw new IllegalArgumentException("Invalid CalendarModel type.");
     }
   }
 
+  /**
+   * Opens a model of the given type that journals every change in {@code journalFile} and
+   * is rebuilt from it, so its calendars outlive the application.
+   *
+   * @param type        {@code listBased} or {@code columnar}
+   * @param journalFile the journal, created if it does not exist
+   * @param fsyncPolicy {@code always}, {@code never}, the most milliseconds between two
+   *                    flushes of the journal to the disk, or
+   *                    {@code group[:maxDelayMillis[:maxBatchSize]]} to share flushes
+   *                    between concurrent changes
+   * @return the model, holding every change the journal records
+   * @throws IOException              if the journal cannot be opened or read
+   * @throws IllegalArgumentException if the type or the fsync policy is invalid
+   */
+  static ICalendarModel openJournaled(String type, Path journalFile, String fsyncPolicy)
+      throws IOException {
+    return openJournaled(type, journalFile, fsyncPolicy, null);
+  }
+
+  /**
+   * Opens a journaled model like {@link #openJournaled(String, Path, String)} that also
+   * checkpoints itself in the background: every {@code checkpointInterval} it writes a
+   * snapshot of its calendars next to the journal and drops the journal written before it,
+   * so reopening replays only the changes since the last checkpoint.
+   *
+   * @param checkpointInterval the time between two checkpoints, or {@code null} for none
+   * @throws IOException              if the journal or its snapshots cannot be read
+   * @throws IllegalArgumentException if the type, the fsync policy or the interval is
+   *                                  invalid
+   */
+  static ICalendarModel openJournaled(String type, Path journalFile, String fsyncPolicy,
+                                      Duration checkpointInterval) throws IOException {
+    Supplier<ICalendarBuilder<?>> calendarFactory;
+    if (type.equalsIgnoreCase("listBased")) {
+      calendarFactory = Calendar::builder;
+    } else if (type.equalsIgnoreCase("columnar")) {
+      calendarFactory = ColumnarCalendar::builder;
+    } else {
+      throw new IllegalArgumentException("Invalid CalendarModel type.");
+    }
+    return new JournaledCalendarModel(calendarFactory, journalFile,
+        FsyncPolicy.parse(fsyncPolicy), checkpointInterval);
+  }
+
+  /**
+   * Loads a model of the given type from a file written by {@link #saveSnapshot}. The file
+   * is mapped into memory rather than parsed, so even a large model loads quickly.
+   *
+   * @param type {@code listBased}, {@code columnar}, {@code concurrent} or {@code offHeap}
+   * @param file the snapshot file
+   * @return the model, holding every calendar of the file with its events' ids
+   * @throws IOException              if the file cannot be read, is not a snapshot of a
+   *                                  supported version, or fails its checksums
+   * @throws IllegalArgumentException if the type is invalid
+   */
+  static ICalendarModel loadSnapshot(String type, Path file) throws IOException {
+    CalendarModel model = (CalendarModel) createInstance(type);
+    SnapshotFile.load(file, model);
+    return model;
+  }
+
   boolean createCalendar(String calName, String timezone);
 
   boolean addEvent(String calendarName, ICalendarEventDTO event);
@@ -74,4 +159,106 @@ public interface ICalendarModel extends IReadOnlyCalendarModel {
    */
   boolean addEvents(String calendarName, List<ICalendarEventDTO> events, String timezone);
 
+  /**
+   * Adds the events of a backup to the calendar, all or none, moving them from
+   * {@code timezone} to the calendar's. Every event is checked for conflicts with the
+   * events and series already in the calendar, whatever its autoDecline flag, but not with
+   * the other restored events, which may overlap as they did in the calendar backed up.
+   *
+   * @return true if the events were added
+   * @throws IllegalArgumentException      if the calendar is not found
+   * @throws IllegalStateException         if an event is invalid or conflicts with an event
+   *                                       already in the calendar
+   * @throws UnsupportedOperationException if the model does not support restoring
+   */
+  default boolean restoreEvents(String calendarName, List<ICalendarEventDTO> events,
+                                String timezone) {
+    throw new UnsupportedOperationException("This model does not support restoring.");
+  }
+
+  /**
+   * Edits one property of the stored event with the given id, which the event keeps however
+   * it is edited. Takes constant time to find the event.
+   *
+   * @param calendarName the calendar storing the event
+   * @param eventId      the id reported by {@link ICalendarEventDTO#getEventId()}
+   * @param property     the property to change, as named by the edit commands
+   * @param newValue     the new value of the property
+   * @return true if the event was edited
+   * @throws IllegalArgumentException      if the calendar is not found or the value is invalid
+   * @throws IllegalStateException         if no such event is stored or the edit conflicts
+   * @throws UnsupportedOperationException if the model does not support event ids
+   */
+  default boolean editEventById(String calendarName, long eventId, String property,
+                                String newValue) {
+    throw new UnsupportedOperationException("This model does not support event ids.");
+  }
+
+  /**
+   * Deletes the stored event with the given id.
+   *
+   * @throws IllegalArgumentException      if the calendar is not found
+   * @throws IllegalStateException         if no such event is stored
+   * @throws UnsupportedOperationException if the model does not support event ids
+   */
+  default boolean deleteEventById(String calendarName, long eventId) {
+    throw new UnsupportedOperationException("This model does not support event ids.");
+  }
+
+  /**
+   * Copies the stored event with the given id to {@code targetStart} in another calendar,
+   * keeping its length. The copy gets an id of its own.
+   *
+   * @throws IllegalArgumentException      if a calendar is not found
+   * @throws IllegalStateException         if no such event is stored or the copy conflicts
+   * @throws UnsupportedOperationException if the model does not support event ids
+   */
+  default boolean copyEventById(String sourceCalendarName, long eventId,
+                                String targetCalendarName, LocalDateTime targetStart) {
+    throw new UnsupportedOperationException("This model does not support event ids.");
+  }
+
+  /**
+   * Writes the whole model, event ids included, to a binary snapshot file that
+   * {@link #loadSnapshot} reads back. The file is replaced atomically.
+   *
+   * @throws IOException                   if the file cannot be written
+   * @throws UnsupportedOperationException if the model does not support snapshots
+   */
+  default void saveSnapshot(Path file) throws IOException {
+    throw new UnsupportedOperationException("This model does not support snapshots.");
+  }
+
+  /**
+   * Starts a transaction. Until it is committed or rolled back, the model journals every
+   * change made through it, so a command that makes several changes can undo all of them
+   * if a later step fails.
+   *
+   * @throws IllegalStateException         if a transaction is already open
+   * @throws UnsupportedOperationException if the model does not support transactions
+   */
+  default void beginTransaction() {
+    throw new UnsupportedOperationException("This model does not support transactions.");
+  }
+
+  /**
+   * Keeps the changes made since {@link #beginTransaction()} and closes the transaction.
+   *
+   * @throws IllegalStateException         if no transaction is open
+   * @throws UnsupportedOperationException if the model does not support transactions
+   */
+  default void commitTransaction() {
+    throw new UnsupportedOperationException("This model does not support transactions.");
+  }
+
+  /**
+   * Undoes the changes made since {@link #beginTransaction()} and closes the transaction.
+   *
+   * @throws IllegalStateException         if no transaction is open
+   * @throws UnsupportedOperationException if the model does not support transactions
+   */
+  default void rollbackTransaction() {
+    throw new UnsupportedOperationException("This model does not support transactions.");
+  }
+
 }
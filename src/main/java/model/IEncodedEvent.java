@@ -0,0 +1,16 @@
+package model;
+
+/**
+ * An event that can report its name as an id of a {@link StringDictionary}, so that name
+ * lookups compare integers instead of strings.
+ */
+interface IEncodedEvent {
+  /**
+   * Returns the id of this event's name in {@code dictionary}, or
+   * {@link StringDictionary#NOT_FOUND} if the dictionary does not hold it.
+   *
+   * @param dictionary the dictionary the caller resolved its name against
+   * @return the id of the event's name
+   */
+  int getNameId(StringDictionary dictionary);
+}
@@ -0,0 +1,45 @@
+package model;
+
+/**
+ * Describes how a stored event or a recurring series of a calendar changed after a given
+ * point of the calendar's mutation sequence.
+ * <p>
+ * Every change to a calendar's stored events or series advances its sequence by one.
+ * Series occurrences have no changes of their own: adding a series, giving it an
+ * exception or truncating it changes the series, and an occurrence turned into a stored
+ * event is reported as added.
+ * </p>
+ */
+public interface IEventChange {
+
+  /**
+   * How an event differs from what it was at the given point.
+   */
+  enum Kind {
+    /** The event was stored after that point. */
+    ADDED,
+    /** The event was stored at that point and has been changed since. */
+    EDITED,
+    /** The event was stored at that point and has been removed since. */
+    REMOVED
+  }
+
+  Kind getKind();
+
+  /**
+   * Returns the sequence of the event's latest change.
+   */
+  long getSequence();
+
+  /**
+   * Returns the event as it is now or, for a removed event, as it was when it was removed.
+   * Its id is always set. A series is returned as one recurring event, whose id numbers
+   * the series within its calendar and is unrelated to the ids of events.
+   */
+  ICalendarEventDTO getEvent();
+
+  /**
+   * Returns whether the change is to a recurring series rather than to a stored event.
+   */
+  boolean isSeries();
+}
@@ -9,5 +9,12 @@ public interface IReadOnlyCalendarEvent {
   String getEventDescription();
   String getEventLocation();
   boolean isPublic();
+
+  /**
+   * Returns the id the model gave this event when a calendar first stored it, which stays
+   * the same however the event is edited, or 0 for a series occurrence or an event that is
+   * not stored.
+   */
+  long getEventId();
   boolean doesEventConflict(ICalendarEvent other);
 }
\ No newline at end of file
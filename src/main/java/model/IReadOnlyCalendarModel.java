@@ -3,6 +3,7 @@ package model;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Represents a read-only view of the calendar model.
@@ -22,6 +23,55 @@ public interface IReadOnlyCalendarModel {
                                            LocalDateTime fromDateTime,
                                            LocalDateTime toDateTime);
 
+  /**
+   * Passes every event of a calendar to {@code action}, ordered by start date-time. Models
+   * that can walk their events in place do so without collecting them into a list, so
+   * the memory used stays the same whatever the size of the calendar; the others pass
+   * the events of {@link #getEventsInRange} over the whole time line.
+   *
+   * @throws IllegalArgumentException if the calendar does not exist
+   */
+  default void forEachEvent(String calendarName, Consumer<? super ICalendarEventDTO> action) {
+    getEventsInRange(calendarName, LocalDateTime.MIN, LocalDateTime.MAX).forEach(action);
+  }
+
+  /**
+   * Passes the events of a calendar as the model keeps them to {@code action}: each single
+   * event once, in start date-time order, then each recurring series once, as a recurring
+   * event that starts and ends like its first occurrence and lists the dates it skips as
+   * exceptions, and with the series' id as its event id. An occurrence taken out of its
+   * series to be edited is a single event.
+   * Models that do not keep series as rules pass every occurrence as a single event, as
+   * {@link #forEachEvent} does.
+   *
+   * @throws IllegalArgumentException if the calendar does not exist
+   */
+  default void forEachEventOrSeries(String calendarName,
+                                    Consumer<? super ICalendarEventDTO> action) {
+    forEachEvent(calendarName, action);
+  }
+
+  /**
+   * Passes the stored events and series of a calendar that were added, edited or removed
+   * after point {@code since} of its mutation sequence to {@code action}, in the order of
+   * their latest change, taking time proportional to the number of changes rather than to
+   * the size of the calendar. Passing 0 lists every stored event and series as added.
+   * Each calendar numbers its changes from a point of its own, picked when it is created
+   * and kept by journals and snapshot files, so a sequence carries on across restarts. One
+   * from before the calendar was created, or loaded from a file that did not keep it, is
+   * rejected rather than misread; start again from 0 then.
+   *
+   * @return the calendar's current sequence, to pass next time
+   * @throws IllegalArgumentException if the calendar does not exist, or {@code since} is
+   *                                  negative, later than the current sequence, or from
+   *                                  before the calendar was created or loaded
+   * @throws UnsupportedOperationException if the model does not record changes
+   */
+  default long forEachChangeSince(String calendarName, long since,
+                                  Consumer<? super IEventChange> action) {
+    throw new UnsupportedOperationException("This model does not record changes.");
+  }
+
   /**
    * Gets events at a specific date and time.
    */
@@ -0,0 +1,249 @@
+package model;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Binary encoding of the values model changes are made of, used for journal records.
+ * <p>
+ * Values are written big-endian without tags; a reader must ask for the same values in the
+ * same order. Strings, date-times and boxed values may be {@code null}. Date-times are kept
+ * as wall-clock seconds and nanoseconds, exactly as the model was given them.
+ * </p>
+ * <p>
+ * An event's recurrence exceptions came after the first journals were written. An event
+ * with exceptions marks its recurring flag with a value older records never hold and lists
+ * the exceptions after its other values, so older records read as they always did.
+ * </p>
+ */
+final class JournalCodec {
+  private static final int RECURRING_WITH_EXCEPTIONS = 3;
+
+  private JournalCodec() {
+  }
+
+  /**
+   * Appends values to a growing byte array.
+   */
+  static final class Writer {
+    private ByteBuffer buffer = ByteBuffer.allocate(128);
+
+    Writer writeByte(int value) {
+      ensure(1);
+      buffer.put((byte) value);
+      return this;
+    }
+
+    Writer writeInt(int value) {
+      ensure(Integer.BYTES);
+      buffer.putInt(value);
+      return this;
+    }
+
+    Writer writeLong(long value) {
+      ensure(Long.BYTES);
+      buffer.putLong(value);
+      return this;
+    }
+
+    Writer writeBoolean(boolean value) {
+      return writeByte(value ? 1 : 0);
+    }
+
+    Writer writeString(String value) {
+      if (value == null) {
+        return writeInt(-1);
+      }
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      writeInt(bytes.length);
+      ensure(bytes.length);
+      buffer.put(bytes);
+      return this;
+    }
+
+    Writer writeBytes(byte[] value) {
+      writeInt(value.length);
+      ensure(value.length);
+      buffer.put(value);
+      return this;
+    }
+
+    Writer writeDateTime(LocalDateTime value) {
+      if (value == null) {
+        return writeByte(0);
+      }
+      return writeByte(1).writeLong(value.toEpochSecond(ZoneOffset.UTC))
+          .writeInt(value.getNano());
+    }
+
+    Writer writeDate(LocalDate value) {
+      return value == null ? writeByte(0) : writeByte(1).writeLong(value.toEpochDay());
+    }
+
+    Writer writeBoxedBoolean(Boolean value) {
+      return writeByte(value == null ? 0 : value ? 2 : 1);
+    }
+
+    Writer writeBoxedInt(Integer value) {
+      return value == null ? writeByte(0) : writeByte(1).writeInt(value);
+    }
+
+    Writer writeEvent(ICalendarEventDTO event) {
+      List<LocalDate> exceptions = event.getRecurrenceExceptions();
+      writeString(event.getEventName())
+          .writeDateTime(event.getStartDateTime())
+          .writeDateTime(event.getEndDateTime());
+      if (exceptions.isEmpty()) {
+        writeBoxedBoolean(event.isRecurring());
+      } else {
+        writeByte(RECURRING_WITH_EXCEPTIONS);
+      }
+      List<DayOfWeek> days = event.getRecurrenceDays();
+      writeInt(days == null ? -1 : days.size());
+      if (days != null) {
+        for (DayOfWeek day : days) {
+          writeByte(day.getValue());
+        }
+      }
+      writeBoxedInt(event.getRecurrenceCount())
+          .writeDateTime(event.getRecurrenceEndDate())
+          .writeBoxedBoolean(event.isAutoDecline())
+          .writeString(event.getEventDescription())
+          .writeString(event.getEventLocation())
+          .writeBoxedBoolean(event.isPrivate());
+      if (!exceptions.isEmpty()) {
+        writeInt(exceptions.size());
+        exceptions.forEach(this::writeDate);
+      }
+      return this;
+    }
+
+    byte[] toBytes() {
+      return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    private void ensure(int bytes) {
+      if (buffer.remaining() < bytes) {
+        ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2,
+            buffer.position() + bytes));
+        buffer.flip();
+        grown.put(buffer);
+        buffer = grown;
+      }
+    }
+  }
+
+  /**
+   * Reads values back in the order they were written.
+   */
+  static final class Reader {
+    private final ByteBuffer buffer;
+
+    Reader(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    /**
+     * Tells whether any bytes are left to read, for fields added to the end of a record.
+     */
+    boolean hasRemaining() {
+      return buffer.hasRemaining();
+    }
+
+    int readByte() {
+      return buffer.get();
+    }
+
+    int readInt() {
+      return buffer.getInt();
+    }
+
+    long readLong() {
+      return buffer.getLong();
+    }
+
+    boolean readBoolean() {
+      return buffer.get() != 0;
+    }
+
+    String readString() {
+      int length = buffer.getInt();
+      if (length < 0) {
+        return null;
+      }
+      byte[] bytes = new byte[length];
+      buffer.get(bytes);
+      return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // A view of the bytes, which stay in the record
+    ByteBuffer readBytes() {
+      int length = buffer.getInt();
+      ByteBuffer bytes = buffer.slice();
+      bytes.limit(length);
+      buffer.position(buffer.position() + length);
+      return bytes;
+    }
+
+    LocalDateTime readDateTime() {
+      if (buffer.get() == 0) {
+        return null;
+      }
+      long seconds = buffer.getLong();
+      return LocalDateTime.ofEpochSecond(seconds, buffer.getInt(), ZoneOffset.UTC);
+    }
+
+    LocalDate readDate() {
+      return buffer.get() == 0 ? null : LocalDate.ofEpochDay(buffer.getLong());
+    }
+
+    Boolean readBoxedBoolean() {
+      int value = buffer.get();
+      return value == 0 ? null : value == 2;
+    }
+
+    Integer readBoxedInt() {
+      return buffer.get() == 0 ? null : buffer.getInt();
+    }
+
+    ICalendarEventDTO readEvent() {
+      ICalendarEventDTOBuilder<?> builder = ICalendarEventDTO.builder()
+          .setEventName(readString())
+          .setStartDateTime(readDateTime())
+          .setEndDateTime(readDateTime());
+      int recurring = readByte();
+      builder.setRecurring(recurring == 0 ? null : recurring != 1);
+      int dayCount = readInt();
+      List<DayOfWeek> days = null;
+      if (dayCount >= 0) {
+        days = new ArrayList<>(dayCount);
+        for (int i = 0; i < dayCount; i++) {
+          days.add(DayOfWeek.of(readByte()));
+        }
+      }
+      builder.setRecurrenceDays(days)
+          .setRecurrenceCount(readBoxedInt())
+          .setRecurrenceEndDate(readDateTime())
+          .setAutoDecline(readBoxedBoolean())
+          .setEventDescription(readString())
+          .setEventLocation(readString())
+          .setPrivate(readBoxedBoolean());
+      if (recurring == RECURRING_WITH_EXCEPTIONS) {
+        int exceptionCount = readInt();
+        List<LocalDate> exceptions = new ArrayList<>(exceptionCount);
+        for (int i = 0; i < exceptionCount; i++) {
+          exceptions.add(readDate());
+        }
+        builder.setRecurrenceExceptions(exceptions);
+      }
+      return builder.build();
+    }
+  }
+}
@@ -0,0 +1,74 @@
+package model;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Names the files a journaled model keeps next to its journal.
+ * <p>
+ * The journal is split into segments. The first segment is the journal file itself; every
+ * later one is named after the journal with the sequence number of its first record
+ * appended, as in {@code calendars.journal.1043}. Snapshots are named after the journal
+ * with {@code .snapshot.} and the sequence number of the last change they include.
+ * </p>
+ */
+final class JournalFiles {
+  private JournalFiles() {
+  }
+
+  /**
+   * Returns the segment of {@code journal} whose first record is {@code firstSequence}.
+   */
+  static Path segment(Path journal, long firstSequence) {
+    return firstSequence == 1 ? journal
+        : journal.resolveSibling(journal.getFileName() + "." + firstSequence);
+  }
+
+  /**
+   * Returns the snapshot of {@code journal} taken at {@code sequence}.
+   */
+  static Path snapshot(Path journal, long sequence) {
+    return journal.resolveSibling(journal.getFileName() + ".snapshot." + sequence);
+  }
+
+  /**
+   * Returns the existing segments of {@code journal} by the sequence number of their first
+   * record.
+   */
+  static NavigableMap<Long, Path> segments(Path journal) throws IOException {
+    NavigableMap<Long, Path> segments = find(journal, "");
+    if (Files.exists(journal)) {
+      segments.put(1L, journal);
+    }
+    return segments;
+  }
+
+  /**
+   * Returns the existing snapshots of {@code journal} by the sequence number they were
+   * taken at.
+   */
+  static NavigableMap<Long, Path> snapshots(Path journal) throws IOException {
+    return find(journal, ".snapshot");
+  }
+
+  private static NavigableMap<Long, Path> find(Path journal, String kind) throws IOException {
+    Path absolute = journal.toAbsolutePath();
+    Pattern name = Pattern.compile(Pattern.quote(absolute.getFileName() + kind) + "\\.(\\d+)");
+    NavigableMap<Long, Path> found = new TreeMap<>();
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(absolute.getParent())) {
+      for (Path file : files) {
+        Matcher matcher = name.matcher(file.getFileName().toString());
+        if (matcher.matches()) {
+          found.put(Long.parseLong(matcher.group(1)), journal.resolveSibling(file.getFileName()));
+        }
+      }
+    }
+    return found;
+  }
+}
@@ -0,0 +1,74 @@
+package model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Forces the journal of a {@link JournaledCalendarModel} whose fsync policy forces at most
+ * every interval, once the interval is up. Without it, the changes of a burst followed by
+ * silence would wait for the next change to be forced.
+ * <p>
+ * A force that fails is reported and retried at the next interval; the journal reports it
+ * again when it is closed.
+ * </p>
+ */
+class JournalFlusher implements Closeable {
+  private final JournaledCalendarModel model;
+  private final long intervalNanos;
+  private final ScheduledThreadPoolExecutor executor;
+
+  /**
+   * Starts forcing the journal of {@code model} whenever {@code intervalNanos} has passed
+   * since it was last forced and changes wait.
+   */
+  JournalFlusher(JournaledCalendarModel model, long intervalNanos) {
+    if (intervalNanos <= 0) {
+      throw new IllegalArgumentException("Fsync interval must be positive: " + intervalNanos);
+    }
+    this.model = model;
+    this.intervalNanos = intervalNanos;
+    this.executor = new ScheduledThreadPoolExecutor(1, task -> {
+      Thread thread = new Thread(task, "journal-flusher");
+      thread.setDaemon(true);
+      return thread;
+    });
+    executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    executor.schedule(this::run, intervalNanos, TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * Stops forcing, waiting for a force in progress to finish.
+   */
+  @Override
+  public void close() {
+    executor.shutdown();
+    boolean interrupted = false;
+    while (!executor.isTerminated()) {
+      try {
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void run() {
+    long delay = intervalNanos;
+    try {
+      delay = model.forceJournalIfDue();
+    } catch (IOException | RuntimeException e) {
+      System.err.println("Journal force failed: " + e.getMessage());
+    }
+    try {
+      executor.schedule(this::run, Math.max(1, delay), TimeUnit.NANOSECONDS);
+    } catch (RejectedExecutionException e) {
+      // Closed while forcing
+    }
+  }
+}
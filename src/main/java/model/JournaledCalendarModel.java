@@ -0,0 +1,836 @@
+package model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A {@link CalendarModel} that records every successful change in a {@link MutationJournal}
+ * and rebuilds itself from the journal when it is opened.
+ * <p>
+ * A record holds the operation and its arguments, not its effect: replaying the records
+ * in order against an empty model repeats every change. Each record also holds the last
+ * event id handed out before the change, so replayed events get the ids they had, and a new
+ * calendar's record holds the point its change sequence started at. Failed changes leave
+ * no trace in a calendar's sequence, so replayed changes are numbered as they were and
+ * high-water marks taken before a restart stay valid; snapshots keep the sequences too.
+ * </p>
+ * <p>
+ * Changes are applied and journaled one at a time under a write lock, so the journal order
+ * is the order the changes were made in. A change runs inside a transaction; if it fails,
+ * or its record cannot be written, the transaction rolls it back and nothing is journaled.
+ * </p>
+ * <p>
+ * A caller's own transaction holds the write lock from its beginning to its end, so other
+ * threads wait to read or change the model meanwhile. Its changes are applied as they are
+ * made but journaled only when it commits, as one record, so replaying the journal after
+ * a crash repeats all of them or none; a rollback leaves nothing to journal.
+ * </p>
+ * <p>
+ * Under a grouped {@link FsyncPolicy} a change is written under the lock but waits for its
+ * flush after releasing it, so other changes can join the same flush through the
+ * {@link GroupCommitter}. Such a change is visible to readers before it is durable, and its
+ * transaction's undo log is kept until the flush is settled. If the flush fails, the change
+ * and every later one, whose flushes fail too, are rolled back newest first and their
+ * callers get an exception; changes after that are refused. Their records may still have
+ * reached the disk, so reopening the model may bring them back.
+ * </p>
+ * <p>
+ * A checkpoint writes a {@link SnapshotFile} of the model as of the latest change and
+ * starts a new journal segment after it; see {@link JournalFiles} for the file names.
+ * Changes only wait while the segment is switched, not while the snapshot is written; with
+ * a compact store, which publishes no versions, they also wait while it is frozen.
+ * Opening the model loads the newest snapshot that passes its checks and replays only the
+ * changes journaled after it. The two newest snapshots are kept, so a damaged one can be
+ * skipped, together with the segments the older of them needs.
+ * </p>
+ */
+class JournaledCalendarModel extends CalendarModel implements Closeable {
+  private static final int CREATE_CALENDAR = 1;
+  private static final int ADD_EVENT = 2;
+  private static final int ADD_EVENTS = 3;
+  private static final int EDIT_EVENTS = 4;
+  private static final int EDIT_EVENT = 5;
+  private static final int COPY_EVENTS = 6;
+  private static final int COPY_EVENT = 7;
+  private static final int EDIT_CALENDAR = 8;
+  private static final int DELETE_CALENDAR = 9;
+  private static final int EDIT_EVENT_BY_ID = 10;
+  private static final int DELETE_EVENT_BY_ID = 11;
+  private static final int COPY_EVENT_BY_ID = 12;
+  private static final int RESTORE_EVENTS = 13;
+  private static final int TRANSACTION = 14;
+
+  private static final int SNAPSHOTS_KEPT = 2;
+
+  private final Path journalFile;
+  private final FsyncPolicy fsyncPolicy;
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  // Guarded by lock
+  private MutationJournal journal;
+  private long segmentStart;
+  // The records of an open transaction's changes, journaled together when it commits
+  private JournalCodec.Writer transactionRecord;
+  private int transactionChanges;
+  // Changes written under a grouped policy whose flush is not settled yet, by sequence
+  private final NavigableMap<Long, UndoLog> unflushed = new TreeMap<>();
+  private final Object checkpointing = new Object();
+  // Guarded by checkpointing
+  private long checkpointSequence;
+  private final GroupCommitter committer;
+  private final Checkpointer checkpointer;
+  private final JournalFlusher flusher;
+
+  /**
+   * Opens the model journaled in {@code journalFile}, replaying the changes it holds.
+   *
+   * @param calendarFactory supplies a fresh builder for every new calendar
+   * @param journalFile     the journal, created if it does not exist
+   * @param fsyncPolicy     how often the journal is forced to the disk
+   * @throws IOException           if the journal cannot be opened or read
+   * @throws IllegalStateException if a journaled change cannot be repeated
+   */
+  JournaledCalendarModel(Supplier<ICalendarBuilder<?>> calendarFactory, Path journalFile,
+                         FsyncPolicy fsyncPolicy) throws IOException {
+    this(calendarFactory, journalFile, fsyncPolicy, null);
+  }
+
+  /**
+   * Opens the model journaled in {@code journalFile}, loading its newest snapshot and
+   * replaying the changes journaled after it.
+   *
+   * @param calendarFactory    supplies a fresh builder for every new calendar
+   * @param journalFile        the journal, created if it does not exist
+   * @param fsyncPolicy        how often the journal is forced to the disk
+   * @param checkpointInterval how often to checkpoint in the background, or {@code null}
+   *                           to checkpoint only when {@link #checkpoint} is called
+   * @throws IOException           if the journal cannot be opened or read, or changes
+   *                               between the snapshot and the journal are missing
+   * @throws IllegalStateException if a journaled change cannot be repeated
+   */
+  JournaledCalendarModel(Supplier<ICalendarBuilder<?>> calendarFactory, Path journalFile,
+                         FsyncPolicy fsyncPolicy, Duration checkpointInterval)
+      throws IOException {
+    this(calendarFactory, journalFile, fsyncPolicy, checkpointInterval, GroupCommitter::new);
+  }
+
+  /**
+   * Opens the model like the constructor above, with the group committer of a grouped
+   * policy made by {@code committers}.
+   */
+  JournaledCalendarModel(Supplier<ICalendarBuilder<?>> calendarFactory, Path journalFile,
+                         FsyncPolicy fsyncPolicy, Duration checkpointInterval,
+                         BiFunction<MutationJournal, FsyncPolicy, GroupCommitter> committers)
+      throws IOException {
+    super(calendarFactory, new CopyOnWriteArrayList<>());
+    this.journalFile = journalFile;
+    this.fsyncPolicy = fsyncPolicy;
+    this.checkpointSequence = loadNewestSnapshot();
+    this.journal = replaySegments(checkpointSequence);
+    this.committer = fsyncPolicy.isGrouped() ? committers.apply(journal, fsyncPolicy) : null;
+    this.checkpointer = checkpointInterval == null ? null
+        : new Checkpointer(this, checkpointInterval);
+    this.flusher = fsyncPolicy.getIntervalNanos() > 0
+        ? new JournalFlusher(this, fsyncPolicy.getIntervalNanos()) : null;
+  }
+
+  @Override
+  public boolean createCalendar(String calName, String timezone) {
+    return journaled(CREATE_CALENDAR,
+        record -> record.writeString(calName).writeString(timezone)
+            .writeLong(firstChangeOf(calName)),
+        () -> super.createCalendar(calName, timezone));
+  }
+
+  @Override
+  public boolean addEvent(String calendarName, ICalendarEventDTO eventDTO) {
+    return journaled(ADD_EVENT,
+        record -> record.writeString(calendarName).writeEvent(eventDTO),
+        () -> super.addEvent(calendarName, eventDTO));
+  }
+
+  @Override
+  public boolean addEvents(String calendarName, List<ICalendarEventDTO> events,
+                           String timezone) {
+    return journaled(ADD_EVENTS, record -> {
+      record.writeString(calendarName).writeString(timezone).writeInt(events.size());
+      events.forEach(record::writeEvent);
+    }, () -> super.addEvents(calendarName, events, timezone));
+  }
+
+  @Override
+  public boolean restoreEvents(String calendarName, List<ICalendarEventDTO> events,
+                               String timezone) {
+    return journaled(RESTORE_EVENTS, record -> {
+      record.writeString(calendarName).writeString(timezone).writeInt(events.size());
+      events.forEach(record::writeEvent);
+    }, () -> super.restoreEvents(calendarName, events, timezone));
+  }
+
+  @Override
+  public boolean editEvents(String calendarName, String property, String eventName,
+                            LocalDateTime fromDateTime, String newValue, boolean editAll) {
+    return journaled(EDIT_EVENTS,
+        record -> record.writeString(calendarName).writeString(property)
+            .writeString(eventName).writeDateTime(fromDateTime).writeString(newValue)
+            .writeBoolean(editAll),
+        () -> super.editEvents(calendarName, property, eventName, fromDateTime, newValue,
+            editAll));
+  }
+
+  @Override
+  public boolean editEvent(String calendarName, String property, String eventName,
+                           LocalDateTime fromDateTime, LocalDateTime toDateTime,
+                           String newValue) {
+    return journaled(EDIT_EVENT,
+        record -> record.writeString(calendarName).writeString(property)
+            .writeString(eventName).writeDateTime(fromDateTime).writeDateTime(toDateTime)
+            .writeString(newValue),
+        () -> super.editEvent(calendarName, property, eventName, fromDateTime, toDateTime,
+            newValue));
+  }
+
+  @Override
+  public boolean copyEvents(String sourceCalendarName, LocalDateTime sourceStart,
+                            LocalDateTime sourceEnd, String targetCalendarName,
+                            LocalDate targetStart) {
+    return journaled(COPY_EVENTS,
+        record -> record.writeString(sourceCalendarName).writeDateTime(sourceStart)
+            .writeDateTime(sourceEnd).writeString(targetCalendarName).writeDate(targetStart),
+        () -> super.copyEvents(sourceCalendarName, sourceStart, sourceEnd, targetCalendarName,
+            targetStart));
+  }
+
+  @Override
+  public boolean copyEvent(String sourceCalendarName, LocalDateTime eventDateTime,
+                           String eventName, String targetCalendarName,
+                           LocalDateTime targetStart) {
+    return journaled(COPY_EVENT,
+        record -> record.writeString(sourceCalendarName).writeDateTime(eventDateTime)
+            .writeString(eventName).writeString(targetCalendarName)
+            .writeDateTime(targetStart),
+        () -> super.copyEvent(sourceCalendarName, eventDateTime, eventName,
+            targetCalendarName, targetStart));
+  }
+
+  @Override
+  public boolean editCalendar(String calendarName, String property, String newValue) {
+    return journaled(EDIT_CALENDAR,
+        record -> record.writeString(calendarName).writeString(property)
+            .writeString(newValue),
+        () -> super.editCalendar(calendarName, property, newValue));
+  }
+
+  @Override
+  public boolean deleteCalendar(String calName) {
+    return journaled(DELETE_CALENDAR, record -> record.writeString(calName),
+        () -> super.deleteCalendar(calName));
+  }
+
+  @Override
+  public boolean editEventById(String calendarName, long eventId, String property,
+                               String newValue) {
+    return journaled(EDIT_EVENT_BY_ID,
+        record -> record.writeString(calendarName).writeLong(eventId).writeString(property)
+            .writeString(newValue),
+        () -> super.editEventById(calendarName, eventId, property, newValue));
+  }
+
+  @Override
+  public boolean deleteEventById(String calendarName, long eventId) {
+    return journaled(DELETE_EVENT_BY_ID,
+        record -> record.writeString(calendarName).writeLong(eventId),
+        () -> super.deleteEventById(calendarName, eventId));
+  }
+
+  @Override
+  public boolean copyEventById(String sourceCalendarName, long eventId,
+                               String targetCalendarName, LocalDateTime targetStart) {
+    return journaled(COPY_EVENT_BY_ID,
+        record -> record.writeString(sourceCalendarName).writeLong(eventId)
+            .writeString(targetCalendarName).writeDateTime(targetStart),
+        () -> super.copyEventById(sourceCalendarName, eventId, targetCalendarName,
+            targetStart));
+  }
+
+  @Override
+  public List<ICalendarEventDTO> getEventsInRange(String calendarName,
+                                                  LocalDateTime fromDateTime,
+                                                  LocalDateTime toDateTime) {
+    lock.readLock().lock();
+    try {
+      return super.getEventsInRange(calendarName, fromDateTime, toDateTime);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public void forEachEvent(String calendarName, Consumer<? super ICalendarEventDTO> action) {
+    lock.readLock().lock();
+    try {
+      super.forEachEvent(calendarName, action);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public void forEachEventOrSeries(String calendarName,
+                                   Consumer<? super ICalendarEventDTO> action) {
+    lock.readLock().lock();
+    try {
+      super.forEachEventOrSeries(calendarName, action);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public long forEachChangeSince(String calendarName, long since,
+                                 Consumer<? super IEventChange> action) {
+    lock.readLock().lock();
+    try {
+      return super.forEachChangeSince(calendarName, since, action);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public List<ICalendarEventDTO> getEventsInSpecificDateTime(String calendarName,
+                                                             LocalDateTime dateTime) {
+    lock.readLock().lock();
+    try {
+      return super.getEventsInSpecificDateTime(calendarName, dateTime);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Override
+  public boolean isCalendarAvailable(String calName, LocalDate date) {
+    lock.readLock().lock();
+    try {
+      return super.isCalendarAvailable(calName, date);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Opens a transaction that holds the write lock until this thread commits or rolls it back.
+   */
+  @Override
+  public void beginTransaction() {
+    lock.writeLock().lock();
+    if (transactionRecord != null) {
+      lock.writeLock().unlock();
+      throw new IllegalStateException("A transaction is already open.");
+    }
+    super.beginTransaction();
+    transactionRecord = new JournalCodec.Writer()
+        .writeLong(getEventIds().last())
+        .writeByte(TRANSACTION);
+    transactionChanges = 0;
+  }
+
+  /**
+   * Journals the transaction's changes as one record and keeps them.
+   *
+   * @throws UncheckedIOException if the record cannot be written, in which case the changes
+   *                              are undone, or if its group flush fails
+   */
+  @Override
+  public void commitTransaction() {
+    byte[] record = endTransaction();
+    long sequence = 0;
+    try {
+      try {
+        if (record != null) {
+          sequence = write(record);
+        }
+      } catch (IOException e) {
+        super.rollbackTransaction();
+        throw new UncheckedIOException("Could not journal the transaction: " + e.getMessage(),
+            e);
+      } catch (RuntimeException e) {
+        super.rollbackTransaction();
+        throw e;
+      }
+      keep(sequence);
+    } finally {
+      lock.writeLock().unlock();
+    }
+    awaitDurable(sequence);
+  }
+
+  @Override
+  public void rollbackTransaction() {
+    endTransaction();
+    try {
+      super.rollbackTransaction();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the sequence number of the last journaled change, or 0 if there is none.
+   */
+  long getLastSequence() {
+    lock.readLock().lock();
+    try {
+      return journal.getLastSequence();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Forces the journal if changes wait for the fsync interval to pass and it has passed.
+   *
+   * @return the nanoseconds until the interval is up again
+   * @throws IOException if the journal cannot be forced
+   */
+  long forceJournalIfDue() throws IOException {
+    lock.readLock().lock();
+    try {
+      return journal.forceIfDue();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Writes a snapshot of the model as of the latest journaled change, starts a new journal
+   * segment after that change, and deletes the snapshots and segments no longer needed.
+   * Changes wait only while the segment is switched, and while a compact store is frozen.
+   *
+   * @return false if nothing changed since the last checkpoint, so none was written
+   * @throws IOException if the snapshot cannot be written; the journal still holds every
+   *                     change
+   */
+  boolean checkpoint() throws IOException {
+    synchronized (checkpointing) {
+      ModelSnapshot version;
+      Map<CalendarSnapshot, ChangeLog> changes;
+      long sequence;
+      long lastEventId;
+      lock.writeLock().lock();
+      try {
+        checkNoTransaction();
+        sequence = journal.getLastSequence();
+        if (sequence == checkpointSequence) {
+          return false;
+        }
+        version = currentVersion();
+        changes = copyChangeLogs(version);
+        lastEventId = getEventIds().last();
+        startSegment(sequence + 1);
+        releaseFlushed();
+      } finally {
+        lock.writeLock().unlock();
+      }
+      SnapshotFile.write(version, changes, sequence, lastEventId,
+          JournalFiles.snapshot(journalFile, sequence));
+      checkpointSequence = sequence;
+      deleteUnneededFiles();
+      return true;
+    }
+  }
+
+  @Override
+  public void saveSnapshot(Path file) throws IOException {
+    ModelSnapshot version;
+    Map<CalendarSnapshot, ChangeLog> changes;
+    long sequence;
+    long lastEventId;
+    lock.readLock().lock();
+    try {
+      checkNoTransaction();
+      version = currentVersion();
+      changes = copyChangeLogs(version);
+      sequence = journal.getLastSequence();
+      lastEventId = getEventIds().last();
+    } finally {
+      lock.readLock().unlock();
+    }
+    SnapshotFile.write(version, changes, sequence, lastEventId, file);
+  }
+
+  /**
+   * Returns the flush figures of the group committer, or {@code null} if the fsync policy
+   * does not group commits.
+   */
+  GroupCommitter.Metrics getCommitMetrics() {
+    return committer == null ? null : committer.getMetrics();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (flusher != null) {
+      flusher.close();
+    }
+    if (checkpointer != null) {
+      checkpointer.close();
+    }
+    if (committer != null) {
+      committer.close();
+    }
+    lock.writeLock().lock();
+    try {
+      journal.close();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Makes a change and journals it if it succeeds.
+   *
+   * @param operation the kind of record to write
+   * @param arguments writes the change's arguments into the record, once it is made
+   * @param change    makes the change and reports whether it succeeded
+   * @return what {@code change} returned
+   * @throws UncheckedIOException if the record cannot be written, in which case the change
+   *                              is undone, or if its group flush fails
+   */
+  private boolean journaled(int operation, Consumer<JournalCodec.Writer> arguments,
+                            BooleanSupplier change) {
+    long sequence = 0;
+    lock.writeLock().lock();
+    try {
+      JournalCodec.Writer record = new JournalCodec.Writer()
+          .writeLong(getEventIds().last())
+          .writeByte(operation);
+      if (transactionRecord != null) {
+        // The caller's transaction undoes a failed change itself and journals the rest later
+        if (!change.getAsBoolean()) {
+          return false;
+        }
+        arguments.accept(record);
+        transactionRecord.writeBytes(record.toBytes());
+        transactionChanges++;
+        return true;
+      }
+      super.beginTransaction();
+      boolean changed;
+      try {
+        changed = change.getAsBoolean();
+        if (changed) {
+          arguments.accept(record);
+          sequence = write(record.toBytes());
+        }
+      } catch (IOException e) {
+        super.rollbackTransaction();
+        throw new UncheckedIOException("Could not journal the change: " + e.getMessage(), e);
+      } catch (RuntimeException e) {
+        super.rollbackTransaction();
+        throw e;
+      }
+      if (changed) {
+        keep(sequence);
+      } else {
+        super.rollbackTransaction();
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+    awaitDurable(sequence);
+    return sequence > 0;
+  }
+
+  // Called under the write lock; a grouped policy leaves the flush to awaitDurable
+  private long write(byte[] record) throws IOException {
+    if (committer == null) {
+      return journal.append(record);
+    }
+    committer.checkFlushes();
+    return journal.write(record);
+  }
+
+  // Called under the write lock once a change is written; a grouped policy keeps it open to
+  // a rollback until its flush is settled
+  private void keep(long sequence) {
+    if (committer == null || sequence == 0) {
+      super.commitTransaction();
+    } else {
+      unflushed.put(sequence, detachTransaction());
+    }
+  }
+
+  // Called after releasing the write lock, so other changes can join the flush
+  private void awaitDurable(long sequence) {
+    if (committer == null || sequence == 0) {
+      return;
+    }
+    IOException failure = null;
+    try {
+      committer.awaitDurable(sequence);
+    } catch (IOException e) {
+      failure = e;
+    }
+    lock.writeLock().lock();
+    try {
+      releaseFlushed();
+      // A checkpoint may have forced the change after its flush failed
+      if (failure == null || sequence <= committer.getDurableSequence()) {
+        return;
+      }
+      // The failed flush may have lost any change not yet durable, and no later flush
+      // succeeds, so the model goes back to the last durable change
+      for (UndoLog log : unflushed.descendingMap().values()) {
+        rollBack(log);
+      }
+      unflushed.clear();
+    } finally {
+      lock.writeLock().unlock();
+    }
+    throw new UncheckedIOException("Could not flush the change: " + failure.getMessage(),
+        failure);
+  }
+
+  // Called under the write lock; keeps the changes known to be durable
+  private void releaseFlushed() {
+    if (committer == null) {
+      return;
+    }
+    NavigableMap<Long, UndoLog> flushed = unflushed.headMap(committer.getDurableSequence(),
+        true);
+    for (UndoLog log : flushed.values()) {
+      log.release();
+    }
+    flushed.clear();
+  }
+
+  // Closes this thread's transaction, still holding its write lock, and returns its record,
+  // or null if it changed nothing
+  private byte[] endTransaction() {
+    if (!lock.isWriteLockedByCurrentThread() || transactionRecord == null) {
+      throw new IllegalStateException("No transaction is open.");
+    }
+    byte[] record = transactionChanges > 0 ? transactionRecord.toBytes() : null;
+    transactionRecord = null;
+    return record;
+  }
+
+  // Only the transaction's own thread gets past the lock while it is open; a snapshot taken
+  // then would hold changes that may still be rolled back
+  private void checkNoTransaction() {
+    if (transactionRecord != null) {
+      throw new IllegalStateException("Cannot save a snapshot inside a transaction.");
+    }
+  }
+
+  // The point a new calendar's change sequence started at, replayed with its creation
+  private long firstChangeOf(String calendarName) {
+    return ((AbstractCalendar) getCalendarByName(calendarName)).changes.first();
+  }
+
+  // Loads the newest snapshot that passes its checks and returns the sequence number it was
+  // taken at, or 0 if there is none
+  private long loadNewestSnapshot() throws IOException {
+    for (Map.Entry<Long, Path> snapshot
+        : JournalFiles.snapshots(journalFile).descendingMap().entrySet()) {
+      try {
+        return SnapshotFile.load(snapshot.getValue(), this);
+      } catch (IOException e) {
+        if (!getCalendarNames().isEmpty()) {
+          throw e;
+        }
+        System.err.println("Skipping snapshot " + snapshot.getValue() + ": " + e.getMessage());
+      }
+    }
+    return 0;
+  }
+
+  // Replays the changes after the snapshot from the segments that hold them and returns the
+  // last segment, open for appending
+  private MutationJournal replaySegments(long snapshotSequence) throws IOException {
+    NavigableMap<Long, Path> segments = JournalFiles.segments(journalFile);
+    Long first = segments.floorKey(snapshotSequence + 1);
+    MutationJournal current = null;
+    try {
+      for (Map.Entry<Long, Path> segment
+          : (first == null ? segments : segments.tailMap(first, true)).entrySet()) {
+        long start = segment.getKey();
+        long expected = current == null ? snapshotSequence + 1 : current.getLastSequence() + 1;
+        if (current == null ? start > expected : start != expected) {
+          throw new IOException("Journal segment " + segment.getValue()
+              + " does not continue the journal at change " + expected);
+        }
+        if (current != null) {
+          current.close();
+        }
+        current = MutationJournal.open(segment.getValue(), fsyncPolicy, start);
+        segmentStart = start;
+        current.replay((sequence, payload) -> {
+          if (sequence > snapshotSequence) {
+            replay(sequence, payload);
+          }
+        });
+      }
+      if (current == null || current.getLastSequence() < snapshotSequence) {
+        if (current != null) {
+          current.close();
+        }
+        current = openSegment(snapshotSequence + 1);
+        segmentStart = snapshotSequence + 1;
+      }
+      return current;
+    } catch (IOException | RuntimeException e) {
+      if (current != null) {
+        current.close();
+      }
+      throw e;
+    }
+  }
+
+  private MutationJournal openSegment(long firstSequence) throws IOException {
+    MutationJournal segment = MutationJournal.open(
+        JournalFiles.segment(journalFile, firstSequence), fsyncPolicy, firstSequence);
+    segment.replay((sequence, payload) -> {
+      throw new IllegalStateException("New journal segment already holds change " + sequence);
+    });
+    return segment;
+  }
+
+  // Called under the write lock; the finished segment is forced before it is closed
+  private void startSegment(long firstSequence) throws IOException {
+    if (segmentStart == firstSequence) {
+      return;
+    }
+    journal.force();
+    MutationJournal next = openSegment(firstSequence);
+    if (committer != null) {
+      committer.switchTo(next);
+    }
+    MutationJournal finished = journal;
+    journal = next;
+    segmentStart = firstSequence;
+    finished.close();
+  }
+
+  // Keeps the newest snapshots and the segments holding changes after the oldest of them
+  private void deleteUnneededFiles() throws IOException {
+    NavigableMap<Long, Path> snapshots = JournalFiles.snapshots(journalFile);
+    while (snapshots.size() > SNAPSHOTS_KEPT) {
+      Files.deleteIfExists(snapshots.pollFirstEntry().getValue());
+    }
+    if (snapshots.isEmpty()) {
+      return;
+    }
+    NavigableMap<Long, Path> segments = JournalFiles.segments(journalFile);
+    Long needed = segments.floorKey(snapshots.firstKey() + 1);
+    if (needed != null) {
+      for (Path segment : segments.headMap(needed, false).values()) {
+        Files.deleteIfExists(segment);
+      }
+    }
+  }
+
+  // Repeats one journaled change, or every change of a transaction
+  private void replay(long sequence, ByteBuffer payload) {
+    try {
+      replayChange(new JournalCodec.Reader(payload));
+    } catch (RuntimeException e) {
+      throw new IllegalStateException("Journal record " + sequence + " could not be replayed: "
+          + e.getMessage(), e);
+    }
+  }
+
+  // Arguments are read in the order they were written
+  private void replayChange(JournalCodec.Reader record) {
+    getEventIds().resumeAfter(record.readLong());
+    int operation = record.readByte();
+    switch (operation) {
+      case CREATE_CALENDAR: {
+        String calendarName = record.readString();
+        super.createCalendar(calendarName, record.readString());
+        // Records written before calendars kept their sequences start a new one
+        if (record.hasRemaining()) {
+          ((AbstractCalendar) getCalendarByName(calendarName))
+              .restoreChanges(new ChangeLog(record.readLong()));
+        }
+        break;
+      }
+      case ADD_EVENT:
+        super.addEvent(record.readString(), record.readEvent());
+        break;
+      case ADD_EVENTS:
+      case RESTORE_EVENTS: {
+        String calendarName = record.readString();
+        String timezone = record.readString();
+        int count = record.readInt();
+        List<ICalendarEventDTO> events = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+          events.add(record.readEvent());
+        }
+        if (operation == ADD_EVENTS) {
+          super.addEvents(calendarName, events, timezone);
+        } else {
+          super.restoreEvents(calendarName, events, timezone);
+        }
+        break;
+      }
+      case EDIT_EVENTS:
+        super.editEvents(record.readString(), record.readString(), record.readString(),
+            record.readDateTime(), record.readString(), record.readBoolean());
+        break;
+      case EDIT_EVENT:
+        super.editEvent(record.readString(), record.readString(), record.readString(),
+            record.readDateTime(), record.readDateTime(), record.readString());
+        break;
+      case COPY_EVENTS:
+        super.copyEvents(record.readString(), record.readDateTime(), record.readDateTime(),
+            record.readString(), record.readDate());
+        break;
+      case COPY_EVENT:
+        super.copyEvent(record.readString(), record.readDateTime(), record.readString(),
+            record.readString(), record.readDateTime());
+        break;
+      case EDIT_CALENDAR:
+        super.editCalendar(record.readString(), record.readString(), record.readString());
+        break;
+      case DELETE_CALENDAR:
+        super.deleteCalendar(record.readString());
+        break;
+      case EDIT_EVENT_BY_ID:
+        super.editEventById(record.readString(), record.readLong(), record.readString(),
+            record.readString());
+        break;
+      case DELETE_EVENT_BY_ID:
+        super.deleteEventById(record.readString(), record.readLong());
+        break;
+      case COPY_EVENT_BY_ID:
+        super.copyEventById(record.readString(), record.readLong(), record.readString(),
+            record.readDateTime());
+        break;
+      case TRANSACTION:
+        while (record.hasRemaining()) {
+          replayChange(new JournalCodec.Reader(record.readBytes()));
+        }
+        break;
+      default:
+        throw new IllegalStateException("Unknown record type " + operation);
+    }
+  }
+}
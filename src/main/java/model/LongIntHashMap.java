@@ -0,0 +1,153 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * A hash map from {@code long} keys to {@code int} values that stores both in primitive
+ * arrays, so neither lookups nor updates allocate.
+ * <p>
+ * Collisions are resolved by linear probing. A removal shifts the entries that follow it
+ * back into the gap instead of leaving a tombstone, so a long-lived map never slows down
+ * however many entries come and go. Key 0 marks an empty slot and cannot be stored; it is
+ * {@link EventIds#NONE}, which no stored event carries.
+ * </p>
+ */
+class LongIntHashMap {
+  static final int MISSING = -1;
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  private long[] keys;
+  private int[] values;
+  private int size;
+  private int mask;
+
+  LongIntHashMap() {
+    allocate(INITIAL_CAPACITY);
+  }
+
+  /**
+   * Returns the value stored for {@code key}, or {@link #MISSING} if there is none.
+   */
+  int get(long key) {
+    for (int slot = slotOf(key); keys[slot] != 0; slot = (slot + 1) & mask) {
+      if (keys[slot] == key) {
+        return values[slot];
+      }
+    }
+    return MISSING;
+  }
+
+  /**
+   * Stores {@code value} for {@code key}, replacing any value stored before.
+   *
+   * @throws IllegalArgumentException if {@code key} is 0
+   */
+  void put(long key, int value) {
+    if (key == 0) {
+      throw new IllegalArgumentException("Key 0 cannot be stored.");
+    }
+    int slot = slotOf(key);
+    for (; keys[slot] != 0; slot = (slot + 1) & mask) {
+      if (keys[slot] == key) {
+        values[slot] = value;
+        return;
+      }
+    }
+    keys[slot] = key;
+    values[slot] = value;
+    // Keep the table at most half full so probe sequences stay short
+    if (++size * 2 > keys.length) {
+      rehash(keys.length * 2);
+    }
+  }
+
+  /**
+   * Removes {@code key} and returns the value it had, or {@link #MISSING} if it had none.
+   */
+  int remove(long key) {
+    int slot = slotOf(key);
+    for (; keys[slot] != key; slot = (slot + 1) & mask) {
+      if (keys[slot] == 0) {
+        return MISSING;
+      }
+    }
+    int removed = values[slot];
+    // Move back every entry of the run that would no longer be found past the gap
+    int gap = slot;
+    for (int next = (gap + 1) & mask; keys[next] != 0; next = (next + 1) & mask) {
+      int home = slotOf(keys[next]);
+      if (((next - home) & mask) >= ((next - gap) & mask)) {
+        keys[gap] = keys[next];
+        values[gap] = values[next];
+        gap = next;
+      }
+    }
+    keys[gap] = 0;
+    size--;
+    return removed;
+  }
+
+  /**
+   * Makes room for {@code expectedSize} entries in all, so adding that many does not
+   * rehash.
+   */
+  void ensureCapacity(int expectedSize) {
+    int capacity = keys.length;
+    while (capacity < 2 * (long) expectedSize + 2) {
+      capacity *= 2;
+    }
+    if (capacity > keys.length) {
+      rehash(capacity);
+    }
+  }
+
+  /**
+   * Returns a map holding the same entries, which later changes to either do not affect.
+   */
+  LongIntHashMap copy() {
+    LongIntHashMap copy = new LongIntHashMap();
+    copy.keys = keys.clone();
+    copy.values = values.clone();
+    copy.size = size;
+    copy.mask = mask;
+    return copy;
+  }
+
+  void clear() {
+    Arrays.fill(keys, 0);
+    size = 0;
+  }
+
+  int size() {
+    return size;
+  }
+
+  private int slotOf(long key) {
+    // Ids are handed out consecutively; mixing spreads them over the whole table
+    long mixed = key * 0x9E3779B97F4A7C15L;
+    return (int) (mixed ^ (mixed >>> 32)) & mask;
+  }
+
+  private void rehash(int capacity) {
+    long[] oldKeys = keys;
+    int[] oldValues = values;
+    allocate(capacity);
+    for (int slot = 0; slot < oldKeys.length; slot++) {
+      if (oldKeys[slot] != 0) {
+        int target = slotOf(oldKeys[slot]);
+        while (keys[target] != 0) {
+          target = (target + 1) & mask;
+        }
+        keys[target] = oldKeys[slot];
+        values[target] = oldValues[slot];
+      }
+    }
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    values = new int[capacity];
+    mask = capacity - 1;
+  }
+}
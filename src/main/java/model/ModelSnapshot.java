@@ -0,0 +1,84 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * An immutable, numbered version of a whole model: one {@link CalendarSnapshot} per
+ * calendar, in creation order.
+ * <p>
+ * Each change produces a new version that shares the snapshots of every calendar it did
+ * not touch. A reader that fetches a version once answers its whole query from it, so it
+ * never sees a change half applied, however long the query runs.
+ * </p>
+ */
+final class ModelSnapshot {
+  static final ModelSnapshot EMPTY = new ModelSnapshot(0, Collections.emptyList());
+
+  private final long version;
+  private final List<CalendarSnapshot> calendars;
+
+  private ModelSnapshot(long version, List<CalendarSnapshot> calendars) {
+    this.version = version;
+    this.calendars = calendars;
+  }
+
+  long getVersion() {
+    return version;
+  }
+
+  List<CalendarSnapshot> getCalendars() {
+    return calendars;
+  }
+
+  /**
+   * Finds a calendar by name, ignoring case, like the model does.
+   *
+   * @throws IllegalArgumentException if no calendar has that name
+   */
+  CalendarSnapshot getCalendar(String calendarName) {
+    for (CalendarSnapshot calendar : calendars) {
+      if (calendar.getName().equalsIgnoreCase(calendarName)) {
+        return calendar;
+      }
+    }
+    throw new IllegalArgumentException("Calendar not found: " + calendarName);
+  }
+
+  ModelSnapshot adding(CalendarSnapshot calendar) {
+    List<CalendarSnapshot> next = new ArrayList<>(calendars);
+    next.add(calendar);
+    return new ModelSnapshot(version + 1, Collections.unmodifiableList(next));
+  }
+
+  ModelSnapshot removing(ICalendar calendar) {
+    List<CalendarSnapshot> next = new ArrayList<>(calendars);
+    next.removeIf(snapshot -> snapshot.isOf(calendar));
+    return new ModelSnapshot(version + 1, Collections.unmodifiableList(next));
+  }
+
+  /**
+   * Returns a version holding exactly the given calendars.
+   */
+  ModelSnapshot replacing(List<CalendarSnapshot> newCalendars) {
+    return new ModelSnapshot(version + 1,
+        Collections.unmodifiableList(new ArrayList<>(newCalendars)));
+  }
+
+  /**
+   * Returns a version in which the snapshot of {@code calendar} is replaced by the result
+   * of {@code change}, or this version if the calendar is not part of it.
+   */
+  ModelSnapshot updating(ICalendar calendar, UnaryOperator<CalendarSnapshot> change) {
+    for (int i = 0; i < calendars.size(); i++) {
+      if (calendars.get(i).isOf(calendar)) {
+        List<CalendarSnapshot> next = new ArrayList<>(calendars);
+        next.set(i, change.apply(calendars.get(i)));
+        return new ModelSnapshot(version + 1, Collections.unmodifiableList(next));
+      }
+    }
+    return this;
+  }
+}
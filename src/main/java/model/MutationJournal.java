@@ -0,0 +1,300 @@
+package model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only file of numbered records, written through a {@link FileChannel}.
+ * <p>
+ * The file starts with a magic number and a format version. Each record is framed as its
+ * payload length, a CRC-32 of its sequence number and payload, its sequence number, and
+ * the payload. Sequence numbers grow by one per record. They start at 1, or, in a file that
+ * continues an earlier one, at the number its opener passes in.
+ * </p>
+ * <p>
+ * A crash can leave the last record half written. {@link #replay} cuts such a torn tail
+ * off, so the next append continues after the last complete record. A record that does not
+ * hold but is followed by more of the file was damaged after it was written; replay then
+ * fails and leaves the file as it is, rather than drop the committed records after it.
+ * </p>
+ */
+class MutationJournal implements Closeable {
+  static final int MAGIC = 0x43414C4A;
+  static final short VERSION = 1;
+
+  private static final int FILE_HEADER_BYTES = 6;
+  private static final int RECORD_HEADER_BYTES = 16;
+  private static final int MAX_PAYLOAD_BYTES = 64 * 1024 * 1024;
+
+  private final Path file;
+  private final FileChannel channel;
+  private final FsyncPolicy fsyncPolicy;
+  private volatile long lastSequence;
+  private volatile long lastForce = System.nanoTime();
+  private volatile boolean unforced;
+
+  /**
+   * Receives the records of a journal in order.
+   */
+  interface Replayer {
+    void replay(long sequence, ByteBuffer payload);
+  }
+
+  private MutationJournal(Path file, FileChannel channel, FsyncPolicy fsyncPolicy,
+                          long firstSequence) {
+    this.file = file;
+    this.channel = channel;
+    this.fsyncPolicy = fsyncPolicy;
+    this.lastSequence = firstSequence - 1;
+  }
+
+  /**
+   * Opens the journal at {@code file}, creating it if it does not exist.
+   *
+   * @throws IOException if the file cannot be opened or is not a journal of this version
+   */
+  static MutationJournal open(Path file, FsyncPolicy fsyncPolicy) throws IOException {
+    return open(file, fsyncPolicy, 1);
+  }
+
+  /**
+   * Opens the journal at {@code file}, whose first record has the sequence number
+   * {@code firstSequence}, creating it if it does not exist.
+   *
+   * @throws IOException if the file cannot be opened or is not a journal of this version
+   */
+  static MutationJournal open(Path file, FsyncPolicy fsyncPolicy, long firstSequence)
+      throws IOException {
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE);
+    try {
+      ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES);
+      if (channel.size() == 0) {
+        header.putInt(MAGIC).putShort(VERSION).flip();
+        writeFully(channel, header, 0);
+        channel.force(true);
+      } else {
+        readFully(channel, header, 0);
+        header.flip();
+        if (header.remaining() < FILE_HEADER_BYTES || header.getInt() != MAGIC) {
+          throw new IOException("Not a calendar journal: " + file);
+        }
+        short version = header.getShort();
+        if (version != VERSION) {
+          throw new IOException("Unsupported journal version " + version + ": " + file);
+        }
+      }
+      return new MutationJournal(file, channel, fsyncPolicy, firstSequence);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Hands every complete record to {@code replayer}, in order, and cuts off a torn last
+   * record. Must be called once, before the first append.
+   *
+   * @return the number of records replayed
+   * @throws IOException if the file cannot be read or cut, or a record before the last one
+   *                     is damaged; the records before it have been replayed then, and the
+   *                     file is left as it is
+   */
+  long replay(Replayer replayer) throws IOException {
+    long position = FILE_HEADER_BYTES;
+    long size = channel.size();
+    ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+    long count = 0;
+    while (position + RECORD_HEADER_BYTES <= size) {
+      header.clear();
+      readFully(channel, header, position);
+      header.flip();
+      int length = header.getInt();
+      int checksum = header.getInt();
+      long sequence = header.getLong();
+      if (length < 0 || length > MAX_PAYLOAD_BYTES
+          || position + RECORD_HEADER_BYTES + length > size
+          || sequence != lastSequence + 1) {
+        checkTorn(position, length, size);
+        break;
+      }
+      ByteBuffer payload = ByteBuffer.allocate(length);
+      readFully(channel, payload, position + RECORD_HEADER_BYTES);
+      payload.flip();
+      if (checksum(sequence, payload) != checksum) {
+        checkTorn(position, length, size);
+        break;
+      }
+      replayer.replay(sequence, payload);
+      lastSequence = sequence;
+      position += RECORD_HEADER_BYTES + length;
+      count++;
+    }
+    if (position < size) {
+      channel.truncate(position);
+      channel.force(true);
+    }
+    channel.position(position);
+    return count;
+  }
+
+  // A record that does not hold is a torn tail if it runs to the end of the file, or if
+  // only zeros follow it, as when the file grew but the write never reached the disk
+  private void checkTorn(long position, int length, long size) throws IOException {
+    long end = length >= 0 && length <= MAX_PAYLOAD_BYTES
+        ? position + RECORD_HEADER_BYTES + length : position;
+    ByteBuffer rest = ByteBuffer.allocate(64 * 1024);
+    for (long at = end; at < size; at += rest.limit()) {
+      rest.clear();
+      readFully(channel, rest, at);
+      rest.flip();
+      if (rest.limit() == 0) {
+        return;
+      }
+      while (rest.hasRemaining()) {
+        if (rest.get() != 0) {
+          throw new IOException("Journal record " + (lastSequence + 1) + " at byte "
+              + position + " is damaged and more records follow it; the journal was left "
+              + "as it is: " + file);
+        }
+      }
+    }
+  }
+
+  /**
+   * Appends a record and forces it to the disk if the policy says so.
+   *
+   * @return the record's sequence number
+   * @throws IOException if the record cannot be written or forced
+   */
+  long append(byte[] payload) throws IOException {
+    long sequence = write(payload);
+    if (fsyncPolicy.isDue(System.nanoTime() - lastForce)) {
+      force();
+    }
+    return sequence;
+  }
+
+  /**
+   * Appends a record without forcing it, for callers that force batches themselves.
+   *
+   * @return the record's sequence number
+   */
+  long write(byte[] payload) throws IOException {
+    long sequence = lastSequence + 1;
+    ByteBuffer frame = ByteBuffer.allocate(RECORD_HEADER_BYTES + payload.length);
+    frame.putInt(payload.length)
+        .putInt(checksum(sequence, ByteBuffer.wrap(payload)))
+        .putLong(sequence)
+        .put(payload)
+        .flip();
+    long start = channel.position();
+    try {
+      while (frame.hasRemaining()) {
+        channel.write(frame);
+      }
+    } catch (IOException e) {
+      // Leave no partial record behind for the next append to follow
+      channel.truncate(start);
+      channel.position(start);
+      throw e;
+    }
+    lastSequence = sequence;
+    unforced = true;
+    return sequence;
+  }
+
+  /**
+   * Forces every record written so far to the disk. May run while another thread writes;
+   * records written before the call starts are covered.
+   */
+  void force() throws IOException {
+    // Cleared first, so a record written while the force runs is forced again later
+    unforced = false;
+    try {
+      channel.force(false);
+    } catch (IOException | RuntimeException e) {
+      unforced = true;
+      throw e;
+    }
+    lastForce = System.nanoTime();
+  }
+
+  /**
+   * Forces the records written since the last force if the policy's interval is up, so
+   * they do not wait for the next append to be forced.
+   *
+   * @return the nanoseconds until the interval is up again
+   * @throws IOException if the records cannot be forced
+   */
+  long forceIfDue() throws IOException {
+    long interval = fsyncPolicy.getIntervalNanos();
+    long remaining = interval - (System.nanoTime() - lastForce);
+    if (unforced && remaining <= 0) {
+      force();
+      return interval;
+    }
+    return remaining > 0 ? remaining : interval;
+  }
+
+  /**
+   * Returns whether records were written since the journal was last forced.
+   */
+  boolean hasUnforcedRecords() {
+    return unforced;
+  }
+
+  /**
+   * Returns the sequence number of the last record, or the one before the first record if
+   * there is none.
+   */
+  long getLastSequence() {
+    return lastSequence;
+  }
+
+  /**
+   * Forces the records written since the last force, whatever the policy, and closes the
+   * file.
+   */
+  @Override
+  public void close() throws IOException {
+    try {
+      if (unforced) {
+        force();
+      }
+    } finally {
+      channel.close();
+    }
+  }
+
+  private static int checksum(long sequence, ByteBuffer payload) {
+    CRC32 crc = new CRC32();
+    ByteBuffer number = ByteBuffer.allocate(Long.BYTES).putLong(sequence);
+    number.flip();
+    crc.update(number);
+    crc.update(payload.duplicate());
+    return (int) crc.getValue();
+  }
+
+  private static void readFully(FileChannel channel, ByteBuffer buffer, long position)
+      throws IOException {
+    while (buffer.hasRemaining()) {
+      int read = channel.read(buffer, position + buffer.position());
+      if (read < 0) {
+        return;
+      }
+    }
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer, long position)
+      throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer, position + buffer.position());
+    }
+  }
+}
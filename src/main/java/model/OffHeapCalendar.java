@@ -0,0 +1,575 @@
+package model;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.Map;
+
+/**
+ * A calendar that keeps its events outside the Java heap, one fixed-size record each in
+ * the direct buffers of an {@link EventSlab}.
+ * <p>
+ * Records hold start and end as epoch seconds and strings as ids into the model's
+ * {@link StringDictionary}, like the columns of a {@link ColumnarCalendar}. On the heap the
+ * calendar keeps only primitive arrays: the slots in insertion order, the slots in start
+ * order, and a {@link LongIntHashMap} from event ids to slots. None of them hold references,
+ * so a calendar of millions of events gives the garbage collector nothing to trace.
+ * {@link ICalendarEvent} objects are flyweight views created when a caller asks for events;
+ * they read and write the record of their slot. Times are kept to the second.
+ * </p>
+ * <p>
+ * Queries walk the start order, rebuilt lazily after out-of-order inserts or time edits,
+ * from {@code from} minus the longest event length. Lookups by name walk the same order
+ * between the bounds of the lookup and compare name ids, so no name index is kept on the
+ * heap. Removing an event returns its slot to the slab's free list and moves the last
+ * event into its position, so positions stay dense while slots are reused.
+ * </p>
+ */
+class OffHeapCalendar extends AbstractCalendar {
+  private static final int INITIAL_CAPACITY = 16;
+
+  private final EventSlab slab = new EventSlab();
+  private int[] slots;
+  private int size;
+
+  private int[] byStart;
+  private boolean sorted;
+  private long maxLength;
+  private final LongIntHashMap slotsById = new LongIntHashMap();
+
+  private OffHeapCalendar(Builder builder) {
+    super(builder.calendarName, builder.timezone, builder.dictionary, builder.eventIds);
+    reset(builder.events.size());
+    builder.events.forEach(event -> append(CalendarEvent.copyOf(event)));
+  }
+
+  public static Builder builder() {
+    return new OffHeapCalendar.Builder();
+  }
+
+  public List<ICalendarEvent> getEventsCopy() {
+    List<ICalendarEvent> copy = new ArrayList<>(size);
+    for (int position = 0; position < size; position++) {
+      copy.add(detachedCopy(new EventView(slots[position])));
+    }
+    return copy;
+  }
+
+  /**
+   * Returns the stored events in insertion order. Each element is created when it is read.
+   */
+  public List<ICalendarEvent> getEvents() {
+    return Collections.unmodifiableList(new AbstractList<ICalendarEvent>() {
+      @Override
+      public ICalendarEvent get(int position) {
+        if (position < 0 || position >= size) {
+          throw new IndexOutOfBoundsException("Position " + position + " out of " + size);
+        }
+        return new EventView(slots[position]);
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    });
+  }
+
+  /**
+   * Replaces the stored events. Views handed out earlier must not be used afterwards.
+   */
+  public void setEvents(List<ICalendarEvent> events) {
+    // The new events may be views of this calendar, so read them before resetting
+    List<CalendarEvent> copies = new ArrayList<>(events.size());
+    for (ICalendarEvent event : events) {
+      copies.add(CalendarEvent.copyOf(event));
+    }
+    for (int position = 0; position < size; position++) {
+      recordRemoval(slab.getLong(slots[position], EventSlab.ID));
+    }
+    reset(copies.size());
+    copies.forEach(this::append);
+  }
+
+  public void addEvents(List<CalendarEvent> events) {
+    ensureCapacity(size + events.size());
+    events.forEach(this::append);
+  }
+
+  public void addEvent(CalendarEvent event) {
+    append(event);
+  }
+
+  // Snapshot records already hold the values a slot stores, so they are copied without
+  // building an event per record
+  @Override
+  void load(SnapshotFile.EventRecords records) {
+    int count = records.size();
+    reset(count);
+    slotsById.ensureCapacity(count);
+    for (int i = 0; i < count; i++) {
+      int slot = slab.allocate();
+      long start = records.startSecond(i);
+      long end = records.endSecond(i);
+      int nameId = records.nameId(i);
+      int descriptionId = records.descriptionId(i);
+      int locationId = records.locationId(i);
+      dictionary.retain(nameId);
+      dictionary.retain(descriptionId);
+      dictionary.retain(locationId);
+      store(slot, records.eventId(i), start, end, nameId, descriptionId, locationId,
+          records.isPublic(i));
+      if (i > 0 && start < slab.getLong(byStart[i - 1], EventSlab.START)) {
+        sorted = false;
+      }
+      byStart[i] = slot;
+    }
+  }
+
+  // Events are appended in order, so the newest ones hold the last positions
+  public void truncateEvents(int newSize) {
+    for (int position = newSize; position < size; position++) {
+      int slot = slots[position];
+      recordRemoval(slab.getLong(slot, EventSlab.ID));
+      releaseStrings(slot);
+      slotsById.remove(slab.getLong(slot, EventSlab.ID));
+      slab.release(slot);
+    }
+    if (newSize < size) {
+      size = newSize;
+      sorted = false;
+    }
+  }
+
+  public ICalendarEvent getEventById(long eventId) {
+    int slot = slotsById.get(eventId);
+    return slot == LongIntHashMap.MISSING ? null : new EventView(slot);
+  }
+
+  public int removeEvent(long eventId) {
+    int slot = slotsById.get(eventId);
+    if (slot == LongIntHashMap.MISSING) {
+      return -1;
+    }
+    recordRemoval(eventId);
+    slotsById.remove(eventId);
+    int position = slab.getInt(slot, EventSlab.POSITION);
+    releaseStrings(slot);
+    slab.release(slot);
+    int last = --size;
+    if (position != last) {
+      place(slots[last], position);
+    }
+    sorted = false;
+    return position;
+  }
+
+  public void restoreEvent(CalendarEvent event, int position) {
+    append(event);
+    int last = size - 1;
+    if (position < last) {
+      int restored = slots[last];
+      place(slots[position], last);
+      place(restored, position);
+      sorted = false;
+    }
+  }
+
+  // Views write straight into the slab and mark the start order stale themselves
+  public void reindexEvent(ICalendarEvent event) {
+    changes.touched(event.getEventId());
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the memory the calendar's records take outside the heap, in bytes.
+   */
+  long offHeapBytes() {
+    return slab.offHeapBytes();
+  }
+
+  protected List<ICalendarEvent> storedInRange(Instant from, Instant to) {
+    long fromFloor = from.getEpochSecond();
+    long fromCeil = ceilSeconds(from);
+    long toFloor = to.getEpochSecond();
+    long toCeil = ceilSeconds(to);
+    return collect(fromFloor, toFloor,
+        (start, end) -> (start >= fromCeil && start <= toFloor)
+            || (end > fromFloor && end < toCeil));
+  }
+
+  protected List<ICalendarEvent> storedAt(Instant instant) {
+    long floor = instant.getEpochSecond();
+    long ceil = ceilSeconds(instant);
+    return collect(floor, floor, (start, end) -> start <= floor && end >= ceil);
+  }
+
+  protected List<ICalendarEvent> storedOverlapping(Instant from, Instant to) {
+    long fromCeil = ceilSeconds(from);
+    long toFloor = to.getEpochSecond();
+    return collect(from.getEpochSecond(), toFloor,
+        (start, end) -> start <= toFloor && end >= fromCeil);
+  }
+
+  protected List<ICalendarEvent> storedNamed(String name, Instant from, Instant to) {
+    ensureSorted();
+    String normalized = EventNameIndex.normalize(name);
+    long toFloor = to.getEpochSecond();
+    // Names differing only in case have ids of their own, so each id is compared once
+    Map<Integer, Boolean> matches = new HashMap<>();
+    List<ICalendarEvent> result = new ArrayList<>();
+    for (int i = firstStartAfter(ceilSeconds(from) - 1); i < size; i++) {
+      int slot = byStart[i];
+      if (slab.getLong(slot, EventSlab.START) > toFloor) {
+        break;
+      }
+      if (matches.computeIfAbsent(slab.getInt(slot, EventSlab.NAME), nameId ->
+          EventNameIndex.normalize(dictionary.valueOf(nameId)).equals(normalized))) {
+        result.add(new EventView(slot));
+      }
+    }
+    return result;
+  }
+
+  protected void forEachStored(Consumer<? super ICalendarEvent> action) {
+    ensureSorted();
+    for (int i = 0; i < size; i++) {
+      action.accept(new EventView(byStart[i]));
+    }
+  }
+
+  protected void append(CalendarEvent event) {
+    event.bindTo(zone);
+    if (event.getStartInstant() == null || event.getEndInstant() == null) {
+      throw new IllegalArgumentException("Event must have a start and an end.");
+    }
+    ensureCapacity(size + 1);
+    long start = event.getStartInstant().getEpochSecond();
+    int slot = slab.allocate();
+    int position = size;
+    store(slot, idOf(event), start, event.getEndInstant().getEpochSecond(),
+        dictionary.acquire(event.getEventName()),
+        dictionary.acquire(event.getEventDescription()),
+        dictionary.acquire(event.getEventLocation()), event.isPublic());
+    if (sorted && position > 0 && start < slab.getLong(byStart[position - 1], EventSlab.START)) {
+      sorted = false;
+    }
+    byStart[position] = slot;
+  }
+
+  protected List<CalendarSnapshot.FrozenEvent> frozenEvents() {
+    ensureSorted();
+    List<CalendarSnapshot.FrozenEvent> frozen = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      frozen.add(freeze(byStart[i]));
+    }
+    return frozen;
+  }
+
+  public CalendarSnapshot.FrozenEvent frozenEvent(long eventId) {
+    int slot = slotsById.get(eventId);
+    return slot == LongIntHashMap.MISSING ? null : freeze(slot);
+  }
+
+  private CalendarSnapshot.FrozenEvent freeze(int slot) {
+    return new CalendarSnapshot.FrozenEvent(slab.getLong(slot, EventSlab.ID),
+        dictionary.valueOf(slab.getInt(slot, EventSlab.NAME)),
+        dictionary.valueOf(slab.getInt(slot, EventSlab.DESCRIPTION)),
+        dictionary.valueOf(slab.getInt(slot, EventSlab.LOCATION)),
+        (slab.getInt(slot, EventSlab.FLAGS) & EventSlab.PUBLIC) != 0,
+        Instant.ofEpochSecond(slab.getLong(slot, EventSlab.START)),
+        Instant.ofEpochSecond(slab.getLong(slot, EventSlab.END)));
+  }
+
+  // Fills a freshly allocated slot and gives it the next position
+  private void store(int slot, long id, long start, long end, int nameId, int descriptionId,
+                     int locationId, boolean isPublic) {
+    slab.putLong(slot, EventSlab.START, start);
+    slab.putLong(slot, EventSlab.END, end);
+    slab.putLong(slot, EventSlab.ID, id);
+    slab.putInt(slot, EventSlab.NAME, nameId);
+    slab.putInt(slot, EventSlab.DESCRIPTION, descriptionId);
+    slab.putInt(slot, EventSlab.LOCATION, locationId);
+    slab.putInt(slot, EventSlab.FLAGS, isPublic ? EventSlab.PUBLIC : 0);
+    place(slot, size++);
+    slotsById.put(id, slot);
+    maxLength = Math.max(maxLength, end - start);
+  }
+
+  private void place(int slot, int position) {
+    slots[position] = slot;
+    slab.putInt(slot, EventSlab.POSITION, position);
+  }
+
+  /**
+   * Returns views of the slots whose start lies in
+   * {@code [lowestEnd - maxLength, highestStart]} and that pass the filter, in start order.
+   */
+  private List<ICalendarEvent> collect(long lowestEnd, long highestStart, TimeFilter filter) {
+    ensureSorted();
+    List<ICalendarEvent> result = new ArrayList<>();
+    for (int i = firstStartAfter(lowestEnd - maxLength - 1); i < size; i++) {
+      int slot = byStart[i];
+      long start = slab.getLong(slot, EventSlab.START);
+      if (start > highestStart) {
+        break;
+      }
+      if (filter.test(start, slab.getLong(slot, EventSlab.END))) {
+        result.add(new EventView(slot));
+      }
+    }
+    return result;
+  }
+
+  // Index in the start order of the first slot starting strictly after 'start'
+  private int firstStartAfter(long start) {
+    int low = 0;
+    int high = size;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (slab.getLong(byStart[mid], EventSlab.START) <= start) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  // Bottom-up merge sort of the slots in insertion order; stable, so events that start
+  // together keep their insertion order
+  private void ensureSorted() {
+    if (sorted) {
+      return;
+    }
+    int[] source = byStart;
+    int[] target = new int[byStart.length];
+    long[] starts = new long[size];
+    for (int position = 0; position < size; position++) {
+      source[position] = position;
+      starts[position] = slab.getLong(slots[position], EventSlab.START);
+    }
+    for (int width = 1; width < size; width *= 2) {
+      for (int low = 0; low < size; low += 2 * width) {
+        int mid = Math.min(low + width, size);
+        int high = Math.min(low + 2 * width, size);
+        int i = low;
+        int j = mid;
+        for (int k = low; k < high; k++) {
+          if (i < mid && (j >= high || starts[source[i]] <= starts[source[j]])) {
+            target[k] = source[i++];
+          } else {
+            target[k] = source[j++];
+          }
+        }
+      }
+      int[] swap = source;
+      source = target;
+      target = swap;
+    }
+    for (int i = 0; i < size; i++) {
+      source[i] = slots[source[i]];
+    }
+    byStart = source;
+    sorted = true;
+  }
+
+  // Acquire before releasing so an unchanged value never drops out of the dictionary
+  private void replace(int slot, int field, String value) {
+    int newId = dictionary.acquire(value);
+    dictionary.release(slab.getInt(slot, field));
+    slab.putInt(slot, field, newId);
+  }
+
+  private void releaseStrings(int slot) {
+    dictionary.release(slab.getInt(slot, EventSlab.NAME));
+    dictionary.release(slab.getInt(slot, EventSlab.DESCRIPTION));
+    dictionary.release(slab.getInt(slot, EventSlab.LOCATION));
+  }
+
+  private void timesChanged(int slot) {
+    sorted = false;
+    maxLength = Math.max(maxLength,
+        slab.getLong(slot, EventSlab.END) - slab.getLong(slot, EventSlab.START));
+  }
+
+  private void reset(int capacity) {
+    for (int position = 0; position < size; position++) {
+      releaseStrings(slots[position]);
+    }
+    slab.clear();
+    int length = Math.max(INITIAL_CAPACITY, capacity);
+    slots = new int[length];
+    byStart = new int[length];
+    size = 0;
+    sorted = true;
+    maxLength = 0;
+    slotsById.clear();
+  }
+
+  private void ensureCapacity(int capacity) {
+    if (capacity > slots.length) {
+      int length = Math.max(capacity, slots.length * 2);
+      slots = Arrays.copyOf(slots, length);
+      byStart = Arrays.copyOf(byStart, length);
+    }
+  }
+
+  private interface TimeFilter {
+    boolean test(long start, long end);
+  }
+
+  private static long ceilSeconds(Instant instant) {
+    return instant.getNano() == 0 ? instant.getEpochSecond() : instant.getEpochSecond() + 1;
+  }
+
+  private static CalendarEvent detachedCopy(IReadOnlyCalendarEvent event) {
+    return CalendarEvent.builder()
+        .setEventName(event.getEventName())
+        .setStartDateTime(event.getStartDateTime())
+        .setEndDateTime(event.getEndDateTime())
+        .setEventDescription(event.getEventDescription())
+        .setEventLocation(event.getEventLocation())
+        .setPublic(event.isPublic())
+        .build();
+  }
+
+  /**
+   * A live view of one slot. Two views of the same slot are equal.
+   */
+  private final class EventView implements ICalendarEvent, IEncodedEvent {
+    private final int slot;
+
+    private EventView(int slot) {
+      this.slot = slot;
+    }
+
+    public String getEventName() {
+      return dictionary.valueOf(slab.getInt(slot, EventSlab.NAME));
+    }
+
+    public LocalDateTime getStartDateTime() {
+      return zone.toLocalDateTime(Instant.ofEpochSecond(slab.getLong(slot, EventSlab.START)));
+    }
+
+    public LocalDateTime getEndDateTime() {
+      return zone.toLocalDateTime(Instant.ofEpochSecond(slab.getLong(slot, EventSlab.END)));
+    }
+
+    public String getEventDescription() {
+      return dictionary.valueOf(slab.getInt(slot, EventSlab.DESCRIPTION));
+    }
+
+    public String getEventLocation() {
+      return dictionary.valueOf(slab.getInt(slot, EventSlab.LOCATION));
+    }
+
+    public boolean isPublic() {
+      return (slab.getInt(slot, EventSlab.FLAGS) & EventSlab.PUBLIC) != 0;
+    }
+
+    public long getEventId() {
+      return slab.getLong(slot, EventSlab.ID);
+    }
+
+    public boolean doesEventConflict(ICalendarEvent event) {
+      return getStartDateTime().isBefore(event.getEndDateTime())
+          && getEndDateTime().isAfter(event.getStartDateTime());
+    }
+
+    public void setEventName(String name) {
+      replace(slot, EventSlab.NAME, name);
+    }
+
+    public void setStartDateTime(LocalDateTime start) {
+      slab.putLong(slot, EventSlab.START, zone.toInstant(start).getEpochSecond());
+      timesChanged(slot);
+    }
+
+    public void setEndDateTime(LocalDateTime end) {
+      slab.putLong(slot, EventSlab.END, zone.toInstant(end).getEpochSecond());
+      timesChanged(slot);
+    }
+
+    public void setEventDescription(String desc) {
+      replace(slot, EventSlab.DESCRIPTION, desc);
+    }
+
+    public void setEventLocation(String location) {
+      replace(slot, EventSlab.LOCATION, location);
+    }
+
+    public void setPublic(boolean isPublic) {
+      slab.putInt(slot, EventSlab.FLAGS, isPublic ? EventSlab.PUBLIC : 0);
+    }
+
+    public int getNameId(StringDictionary strings) {
+      return strings == dictionary ? slab.getInt(slot, EventSlab.NAME)
+          : strings.find(getEventName());
+    }
+
+    private OffHeapCalendar owner() {
+      return OffHeapCalendar.this;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      return other instanceof EventView && ((EventView) other).owner() == owner()
+          && ((EventView) other).slot == slot;
+    }
+
+    @Override
+    public int hashCode() {
+      return slot;
+    }
+  }
+
+  /**
+   * Builder class for constructing OffHeapCalendar instances.
+   */
+  public static class Builder implements ICalendarBuilder<OffHeapCalendar> {
+    private String calendarName;
+    private String timezone;
+    private StringDictionary dictionary;
+    private EventIds eventIds;
+    private List<ICalendarEvent> events = new ArrayList<>();
+
+    public Builder setCalendarName(String calendarName) {
+      this.calendarName = calendarName;
+      return this;
+    }
+
+    public Builder setEvents(List<ICalendarEvent> events) {
+      this.events = new ArrayList<>(events);
+      return this;
+    }
+
+    public Builder setTimezone(String timezone) {
+      this.timezone = timezone;
+      return this;
+    }
+
+    public Builder setDictionary(StringDictionary dictionary) {
+      this.dictionary = dictionary;
+      return this;
+    }
+
+    public Builder setEventIds(EventIds eventIds) {
+      this.eventIds = eventIds;
+      return this;
+    }
+
+    public OffHeapCalendar build() {
+      return new OffHeapCalendar(this);
+    }
+  }
+}
@@ -0,0 +1,23 @@
+package model;
+
+/**
+ * A calendar model whose events live outside the Java heap, in the slabs of its
+ * {@link OffHeapCalendar}s, so large imports and scans put little pressure on the garbage
+ * collector.
+ * <p>
+ * A published version of the model would hold a frozen copy of every event on the heap,
+ * so, like a {@link DiskCalendarModel}, the model publishes none: a
+ * {@link ReadOnlyCalendarModel} over it reads the calendars directly.
+ * </p>
+ */
+class OffHeapCalendarModel extends CalendarModel {
+
+  OffHeapCalendarModel() {
+    super(OffHeapCalendar::builder);
+  }
+
+  @Override
+  protected boolean publishesVersions() {
+    return false;
+  }
+}
@@ -0,0 +1,169 @@
+package model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A file of fixed-size pages read and written through a bounded cache.
+ * <p>
+ * At most {@code capacity} pages are held in memory. When another page is needed, the
+ * least recently used one is dropped, written back first if it was changed, and its buffer
+ * reused, so memory use stays the same however large the file grows. A buffer handed out by
+ * {@link #read} or {@link #write} stays valid while fewer than {@code capacity} other pages
+ * are accessed; callers hold no more than a few pages at once and fetch them again after
+ * descending elsewhere.
+ * </p>
+ * <p>
+ * Failures to read or write the file are thrown as {@link UncheckedIOException}, since the
+ * calendars built on the pages cannot report checked exceptions.
+ * </p>
+ */
+class PageFile implements Closeable {
+  static final int PAGE_SIZE = 4096;
+  static final int MIN_CAPACITY = 16;
+
+  private final FileChannel channel;
+  private final int capacity;
+  // Access-ordered, so iteration starts at the least recently used page
+  private final LinkedHashMap<Long, Page> cache;
+  private long pageCount;
+  private long hits;
+  private long misses;
+
+  private static final class Page {
+    private final ByteBuffer buffer;
+    private boolean dirty;
+
+    private Page(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+  }
+
+  /**
+   * Creates an empty page file, replacing {@code file} if it exists.
+   *
+   * @param capacity the most pages kept in memory
+   * @throws IOException if the file cannot be created
+   */
+  PageFile(Path file, int capacity) throws IOException {
+    if (capacity < MIN_CAPACITY) {
+      throw new IllegalArgumentException("Page cache must hold at least " + MIN_CAPACITY
+          + " pages: " + capacity);
+    }
+    this.capacity = capacity;
+    this.cache = new LinkedHashMap<>(capacity * 4 / 3 + 1, 0.75f, true);
+    this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+  }
+
+  /**
+   * Adds a zero-filled page to the end of the file and returns its id.
+   */
+  long allocate() {
+    long pageId = pageCount++;
+    Page page = new Page(freeBuffer());
+    page.dirty = true;
+    cache.put(pageId, page);
+    return pageId;
+  }
+
+  /**
+   * Returns the page to read from.
+   */
+  ByteBuffer read(long pageId) {
+    return fetch(pageId).buffer;
+  }
+
+  /**
+   * Returns the page to change; it is written back to the file when it leaves the cache.
+   */
+  ByteBuffer write(long pageId) {
+    Page page = fetch(pageId);
+    page.dirty = true;
+    return page.buffer;
+  }
+
+  long getPageCount() {
+    return pageCount;
+  }
+
+  int getCachedPages() {
+    return cache.size();
+  }
+
+  long getHits() {
+    return hits;
+  }
+
+  long getMisses() {
+    return misses;
+  }
+
+  @Override
+  public void close() throws IOException {
+    cache.clear();
+    channel.close();
+  }
+
+  private Page fetch(long pageId) {
+    if (pageId < 0 || pageId >= pageCount) {
+      throw new IllegalArgumentException("No page " + pageId + " in a file of " + pageCount);
+    }
+    Page page = cache.get(pageId);
+    if (page != null) {
+      hits++;
+      return page;
+    }
+    misses++;
+    page = new Page(freeBuffer());
+    ByteBuffer buffer = page.buffer;
+    long position = pageId * PAGE_SIZE;
+    try {
+      while (buffer.hasRemaining()) {
+        // Allocated pages are only written once they leave the cache; the rest stays zero
+        if (channel.read(buffer, position + buffer.position()) < 0) {
+          break;
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not read page " + pageId, e);
+    }
+    cache.put(pageId, page);
+    return page;
+  }
+
+  // Returns a cleared buffer, taken from the least recently used page once the cache is full
+  private ByteBuffer freeBuffer() {
+    if (cache.size() < capacity) {
+      return ByteBuffer.allocate(PAGE_SIZE);
+    }
+    Iterator<Map.Entry<Long, Page>> eldest = cache.entrySet().iterator();
+    Map.Entry<Long, Page> evicted = eldest.next();
+    eldest.remove();
+    ByteBuffer buffer = evicted.getValue().buffer;
+    if (evicted.getValue().dirty) {
+      long position = evicted.getKey() * PAGE_SIZE;
+      buffer.clear();
+      try {
+        while (buffer.hasRemaining()) {
+          channel.write(buffer, position + buffer.position());
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException("Could not write page " + evicted.getKey(), e);
+      }
+    }
+    Arrays.fill(buffer.array(), (byte) 0);
+    buffer.clear();
+    return buffer;
+  }
+}
@@ -2,13 +2,23 @@ package model;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * An adapter that provides read-only access to an ICalendarModel.
+ * <p>
+ * When the model is a {@link CalendarModel} that publishes versions, every query is
+ * answered from the latest {@link ModelSnapshot} the model published. Queries take no lock,
+ * never wait for a writer and always see the calendars as they were between two changes.
+ * Other models are queried directly.
+ * </p>
  */
 public class ReadOnlyCalendarModel implements IReadOnlyCalendarModel {
   private final ICalendarModel model;
+  private final CalendarModel versioned;
 
   /**
    * Creates a read-only adapter for the given model.
@@ -17,39 +27,130 @@ public class ReadOnlyCalendarModel implements IReadOnlyCalendarModel {
    */
   public ReadOnlyCalendarModel(ICalendarModel model) {
     this.model = model;
+    this.versioned = model instanceof CalendarModel
+        && ((CalendarModel) model).publishesVersions() ? (CalendarModel) model : null;
   }
 
   @Override
   public List<ICalendarEventDTO> getEventsInRange(String calendarName,
                                                   LocalDateTime fromDateTime,
                                                   LocalDateTime toDateTime) {
-    return model.getEventsInRange(calendarName, fromDateTime, toDateTime);
+    if (versioned == null) {
+      return model.getEventsInRange(calendarName, fromDateTime, toDateTime);
+    }
+    CalendarSnapshot calendar = versioned.snapshot().getCalendar(calendarName);
+    if (fromDateTime == null || toDateTime == null) {
+      throw new IllegalArgumentException("Both start and end date-times must be " +
+          "provided.");
+    }
+    if (toDateTime.isBefore(fromDateTime)) {
+      throw new IllegalArgumentException("The end date-time must not be before the " +
+          "start date-time.");
+    }
+    return calendar.getEventsInRange(fromDateTime, toDateTime);
+  }
+
+  @Override
+  public void forEachEvent(String calendarName, Consumer<? super ICalendarEventDTO> action) {
+    if (versioned == null) {
+      model.forEachEvent(calendarName, action);
+    } else {
+      // A published snapshot never changes, so its events are read as a list
+      IReadOnlyCalendarModel.super.forEachEvent(calendarName, action);
+    }
+  }
+
+  @Override
+  public void forEachEventOrSeries(String calendarName,
+                                   Consumer<? super ICalendarEventDTO> action) {
+    if (versioned == null) {
+      model.forEachEventOrSeries(calendarName, action);
+    } else {
+      IReadOnlyCalendarModel.super.forEachEventOrSeries(calendarName, action);
+    }
+  }
+
+  // Published snapshots do not carry the change log, so only a live model can list changes
+  @Override
+  public long forEachChangeSince(String calendarName, long since,
+                                 Consumer<? super IEventChange> action) {
+    if (versioned == null) {
+      return model.forEachChangeSince(calendarName, since, action);
+    }
+    return IReadOnlyCalendarModel.super.forEachChangeSince(calendarName, since, action);
   }
 
   @Override
   public List<ICalendarEventDTO> getEventsInSpecificDateTime(String calendarName,
                                                              LocalDateTime dateTime) {
-    return model.getEventsInSpecificDateTime(calendarName, dateTime);
+    if (versioned == null) {
+      return model.getEventsInSpecificDateTime(calendarName, dateTime);
+    }
+    CalendarSnapshot calendar = versioned.snapshot().getCalendar(calendarName);
+    if (dateTime == null) {
+      throw new IllegalArgumentException("date time cannot be null");
+    }
+    return calendar.getEventsAt(dateTime);
   }
 
   @Override
   public boolean isCalendarPresent(String calName) {
-    return model.isCalendarPresent(calName);
+    if (versioned == null) {
+      return model.isCalendarPresent(calName);
+    }
+    for (CalendarSnapshot calendar : versioned.snapshot().getCalendars()) {
+      if (calName != null && calName.equals(calendar.getName())) {
+        return true;
+      }
+    }
+    return false;
   }
 
   @Override
   public boolean isCalendarAvailable(String calName, LocalDate date) {
-    return model.isCalendarAvailable(calName, date);
+    if (versioned == null) {
+      return model.isCalendarAvailable(calName, date);
+    }
+    for (CalendarSnapshot calendar : versioned.snapshot().getCalendars()) {
+      if (calendar.getName().equalsIgnoreCase(calName)) {
+        if (date == null) {
+          return true;
+        }
+        for (ICalendarEventDTO event : calendar.getEventsInRange(date.atStartOfDay(),
+            date.atTime(LocalTime.MAX))) {
+          if (event.getStartDateTime().toLocalDate().equals(date)) {
+            return false;
+          }
+        }
+        return true;
+      }
+    }
+    return false;
   }
 
   @Override
   public List<String> getCalendarNames() {
-    return model.getCalendarNames();
+    if (versioned == null) {
+      return model.getCalendarNames();
+    }
+    List<String> names = new ArrayList<>();
+    for (CalendarSnapshot calendar : versioned.snapshot().getCalendars()) {
+      names.add(calendar.getName());
+    }
+    return names;
   }
 
   @Override
   public String getCalendarTimeZone(String calendarName) {
-    return model.getCalendarTimeZone(calendarName);
+    if (versioned == null) {
+      return model.getCalendarTimeZone(calendarName);
+    }
+    for (CalendarSnapshot calendar : versioned.snapshot().getCalendars()) {
+      if (calendar.getName().equals(calendarName)) {
+        return calendar.getTimezone();
+      }
+    }
+    throw new IllegalArgumentException("Calendar not found: " + calendarName);
   }
 
 
@@ -0,0 +1,537 @@
+package model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * A binary file holding a whole model, which loads far faster than replaying its changes.
+ * <p>
+ * After a header with a magic number, a format version, the journal sequence number the
+ * file was taken at and the last event id handed out, the file holds four sections. Each
+ * starts with its length and a CRC-32C of its contents:
+ * </p>
+ * <ol>
+ *   <li>the calendars: name, timezone, event count and series rules of each;</li>
+ *   <li>the events: fixed-width records, calendar by calendar, each calendar's sorted by
+ *   start, with their strings given as positions in the string table;</li>
+ *   <li>the string table: every distinct name, description and location once;</li>
+ *   <li>the changes: for each calendar, the number of each series and the last event id
+ *   handed out when it was added, and the calendar's {@link ChangeLog},
+ *   so the calendar's sequence carries on after loading and earlier high-water marks stay
+ *   valid. Files of version 1, which lack this section, still load, with new logs.</li>
+ * </ol>
+ * <p>
+ * Loading maps the file with {@link FileChannel#map} and hands each calendar a view of its
+ * records, so the events are read straight from the mapping without being parsed or
+ * copied into an intermediate form. Files are written to a temporary file first and moved
+ * into place, so a crash never leaves a half-written snapshot under the real name.
+ * </p>
+ */
+final class SnapshotFile {
+  static final int MAGIC = 0x43414C53;
+  static final short VERSION = 2;
+  private static final short VERSION_WITHOUT_CHANGES = 1;
+
+  private static final int HEADER_BYTES = 28;
+  private static final int SECTION_HEADER_BYTES = 12;
+  private static final int RECORD_BYTES = 48;
+  private static final int RECORDS_PER_WRITE = 1024;
+  private static final int NO_STRING = -1;
+  private static final int NOT_REMOVED = 0;
+  private static final int REMOVED_EVENT = 1;
+  private static final int REMOVED_SERIES = 2;
+
+  private SnapshotFile() {
+  }
+
+  /**
+   * The fixed-width event records of one calendar. String ids belong to the dictionary of
+   * the model being loaded; a calendar that keeps an id counts a reference of its own.
+   */
+  interface EventRecords {
+    int size();
+
+    long startSecond(int index);
+
+    int startNano(int index);
+
+    long endSecond(int index);
+
+    int endNano(int index);
+
+    long eventId(int index);
+
+    int nameId(int index);
+
+    int descriptionId(int index);
+
+    int locationId(int index);
+
+    boolean isPublic(int index);
+  }
+
+  /**
+   * Writes {@code model} to {@code file}, replacing it atomically.
+   *
+   * @param model       the version of the model to write
+   * @param changes     the change log of each calendar of the version, as of the version;
+   *                    a calendar without one gets a new log when loaded
+   * @param sequence    the number of the last journaled change the version includes, or 0
+   * @param lastEventId the last event id handed out when the version was taken
+   * @param file        the file to write
+   * @throws IOException if the file cannot be written
+   */
+  static void write(ModelSnapshot model, Map<CalendarSnapshot, ChangeLog> changes,
+                    long sequence, long lastEventId, Path file) throws IOException {
+    Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+    try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+      header.putInt(MAGIC).putShort(VERSION).putShort((short) 0)
+          .putLong(sequence).putLong(lastEventId);
+      header.putInt(checksum(ByteBuffer.wrap(header.array(), 0, HEADER_BYTES - 4)));
+      header.flip();
+      writeFully(channel, header);
+
+      writeSection(channel, ByteBuffer.wrap(calendars(model)));
+
+      // Events go out in buffers as they are encoded; their section header is filled in last
+      Map<String, Integer> strings = new HashMap<>();
+      List<String> table = new ArrayList<>();
+      long sectionStart = channel.position();
+      channel.position(sectionStart + SECTION_HEADER_BYTES);
+      CRC32C crc = new CRC32C();
+      long length = 0;
+      ByteBuffer records = ByteBuffer.allocate(RECORD_BYTES * RECORDS_PER_WRITE);
+      for (CalendarSnapshot calendar : model.getCalendars()) {
+        for (CalendarSnapshot.FrozenEvent event : calendar.events()) {
+          if (!records.hasRemaining()) {
+            length += flush(channel, records, crc);
+          }
+          records.putLong(event.getStart().getEpochSecond())
+              .putInt(event.getStart().getNano())
+              .putLong(event.getEnd().getEpochSecond())
+              .putInt(event.getEnd().getNano())
+              .putLong(event.getEventId())
+              .putInt(indexOf(event.getName(), strings, table))
+              .putInt(indexOf(event.getDescription(), strings, table))
+              .putInt(indexOf(event.getLocation(), strings, table))
+              .put((byte) (event.isPublic() ? 1 : 0))
+              .put(new byte[3]);
+        }
+      }
+      length += flush(channel, records, crc);
+      long sectionEnd = channel.position();
+      ByteBuffer sectionHeader = ByteBuffer.allocate(SECTION_HEADER_BYTES)
+          .putLong(length).putInt((int) crc.getValue());
+      sectionHeader.flip();
+      channel.position(sectionStart);
+      writeFully(channel, sectionHeader);
+      channel.position(sectionEnd);
+
+      JournalCodec.Writer stringSection = new JournalCodec.Writer().writeInt(table.size());
+      table.forEach(stringSection::writeString);
+      writeSection(channel, ByteBuffer.wrap(stringSection.toBytes()));
+      writeSection(channel, ByteBuffer.wrap(changes(model, changes)));
+      channel.force(true);
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(temporary);
+      throw e;
+    }
+    Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Fills an empty model with the calendars of {@code file} and lets its event ids continue
+   * after the last one the file records.
+   *
+   * @return the journal sequence number the file was taken at
+   * @throws IOException           if the file cannot be read, is not a snapshot of this
+   *                               version, or fails its checksums; the model may then hold
+   *                               part of the file and should be discarded
+   * @throws IllegalStateException if the model already holds calendars
+   */
+  static long load(Path file, CalendarModel model) throws IOException {
+    if (!model.getCalendarNames().isEmpty()) {
+      throw new IllegalStateException("A snapshot can only be loaded into an empty model.");
+    }
+    ByteBuffer map;
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IOException("Snapshot is too large to map: " + file);
+      }
+      map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    if (map.remaining() < HEADER_BYTES || map.getInt(0) != MAGIC) {
+      throw new IOException("Not a calendar snapshot: " + file);
+    }
+    short version = map.getShort(4);
+    if (version != VERSION && version != VERSION_WITHOUT_CHANGES) {
+      throw new IOException("Unsupported snapshot version " + version + ": " + file);
+    }
+    if (map.getInt(HEADER_BYTES - 4) != checksum(slice(map, 0, HEADER_BYTES - 4))) {
+      throw new IOException("Snapshot header is damaged: " + file);
+    }
+    long sequence = map.getLong(8);
+    long lastEventId = map.getLong(16);
+
+    int position = HEADER_BYTES;
+    ByteBuffer[] sections = new ByteBuffer[version == VERSION ? 4 : 3];
+    for (int i = 0; i < sections.length; i++) {
+      if (position + SECTION_HEADER_BYTES > map.limit()) {
+        throw new IOException("Snapshot is truncated: " + file);
+      }
+      long length = map.getLong(position);
+      int expected = map.getInt(position + 8);
+      position += SECTION_HEADER_BYTES;
+      if (length < 0 || length > map.limit() - position) {
+        throw new IOException("Snapshot is truncated: " + file);
+      }
+      sections[i] = slice(map, position, (int) length);
+      if (checksum(sections[i]) != expected) {
+        throw new IOException("Snapshot section " + (i + 1) + " fails its checksum: " + file);
+      }
+      position += (int) length;
+    }
+
+    try {
+      StringDictionary dictionary = model.getDictionary();
+      // The table holds one reference per string while calendars take their own
+      JournalCodec.Reader strings = new JournalCodec.Reader(sections[2]);
+      int[] stringIds = new int[strings.readInt()];
+      for (int i = 0; i < stringIds.length; i++) {
+        stringIds[i] = dictionary.acquire(strings.readString());
+      }
+      try {
+        readCalendars(sections[0], sections[1],
+            version == VERSION ? new JournalCodec.Reader(sections[3]) : null, stringIds, model);
+      } finally {
+        for (int id : stringIds) {
+          dictionary.release(id);
+        }
+      }
+    } catch (RuntimeException e) {
+      throw new IOException("Snapshot could not be read: " + file + ": " + e.getMessage(), e);
+    }
+    model.getEventIds().resumeAfter(lastEventId);
+    return sequence;
+  }
+
+  private static void readCalendars(ByteBuffer calendarSection, ByteBuffer eventSection,
+                                    JournalCodec.Reader changes, int[] stringIds,
+                                    CalendarModel model) {
+    JournalCodec.Reader calendars = new JournalCodec.Reader(calendarSection);
+    int calendarCount = calendars.readInt();
+    int firstRecord = 0;
+    for (int c = 0; c < calendarCount; c++) {
+      String name = calendars.readString();
+      String timezone = calendars.readString();
+      int eventCount = calendars.readInt();
+      int seriesCount = calendars.readInt();
+      List<EventSeries> series = new ArrayList<>(seriesCount);
+      for (int s = 0; s < seriesCount; s++) {
+        series.add(readSeries(calendars));
+      }
+      if ((long) (firstRecord + eventCount) * RECORD_BYTES > eventSection.limit()) {
+        throw new IllegalStateException("Calendar " + name + " has fewer event records than "
+            + eventCount);
+      }
+      EventRecords records = new MappedRecords(
+          slice(eventSection, firstRecord * RECORD_BYTES, eventCount * RECORD_BYTES),
+          eventCount, stringIds);
+      ChangeLog log = changes == null ? null : readChanges(changes, name, series);
+      model.restoreCalendar(name, timezone, calendar -> {
+        calendar.load(records);
+        calendar.setSeries(series);
+        if (log != null) {
+          calendar.restoreChanges(log);
+        }
+      });
+      firstRecord += eventCount;
+    }
+  }
+
+  private static byte[] calendars(ModelSnapshot model) {
+    JournalCodec.Writer section = new JournalCodec.Writer()
+        .writeInt(model.getCalendars().size());
+    for (CalendarSnapshot calendar : model.getCalendars()) {
+      section.writeString(calendar.getName())
+          .writeString(calendar.getTimezone())
+          .writeInt(calendar.size())
+          .writeInt(calendar.getSeries().size());
+      for (EventSeries series : calendar.getSeries()) {
+        writeSeries(section, series);
+      }
+    }
+    return section.toBytes();
+  }
+
+  private static byte[] changes(ModelSnapshot model, Map<CalendarSnapshot, ChangeLog> logs) {
+    JournalCodec.Writer section = new JournalCodec.Writer();
+    for (CalendarSnapshot calendar : model.getCalendars()) {
+      for (EventSeries series : calendar.getSeries()) {
+        section.writeLong(series.getId()).writeLong(series.getAddedAfter());
+      }
+      ChangeLog log = logs.get(calendar);
+      section.writeBoolean(log != null);
+      if (log == null) {
+        continue;
+      }
+      section.writeLong(log.first()).writeLong(log.sequence()).writeInt(log.entries());
+      log.forEachEntry((sequence, key, addedAt, firstAddedAt, removed) -> {
+        section.writeLong(sequence).writeLong(key).writeLong(addedAt).writeLong(firstAddedAt);
+        if (removed instanceof CalendarSnapshot.FrozenEvent) {
+          CalendarSnapshot.FrozenEvent event = (CalendarSnapshot.FrozenEvent) removed;
+          section.writeByte(REMOVED_EVENT)
+              .writeLong(event.getEventId())
+              .writeString(event.getName())
+              .writeString(event.getDescription())
+              .writeString(event.getLocation())
+              .writeBoolean(event.isPublic());
+          writeInstant(section, event.getStart());
+          writeInstant(section, event.getEnd());
+        } else if (removed instanceof EventSeries) {
+          section.writeByte(REMOVED_SERIES).writeLong(((EventSeries) removed).getId());
+          writeSeries(section, (EventSeries) removed);
+        } else {
+          section.writeByte(NOT_REMOVED);
+        }
+      });
+    }
+    return section.toBytes();
+  }
+
+  // Gives the calendar's series their numbers and places and returns its log, or null if it has none
+  private static ChangeLog readChanges(JournalCodec.Reader section, String name,
+                                       List<EventSeries> series) {
+    for (EventSeries eventSeries : series) {
+      eventSeries.setId(section.readLong());
+      eventSeries.setAddedAfter(section.readLong());
+    }
+    if (!section.readBoolean()) {
+      return null;
+    }
+    ChangeLog log = new ChangeLog(section.readLong(), section.readLong());
+    int entries = section.readInt();
+    for (int i = 0; i < entries; i++) {
+      long sequence = section.readLong();
+      long key = section.readLong();
+      long addedAt = section.readLong();
+      long firstAddedAt = section.readLong();
+      int kind = section.readByte();
+      Object removed;
+      switch (kind) {
+        case NOT_REMOVED:
+          removed = null;
+          break;
+        case REMOVED_EVENT:
+          removed = new CalendarSnapshot.FrozenEvent(section.readLong(), section.readString(),
+              section.readString(), section.readString(), section.readBoolean(),
+              readInstant(section), readInstant(section));
+          break;
+        case REMOVED_SERIES:
+          long id = section.readLong();
+          EventSeries removedSeries = readSeries(section);
+          removedSeries.setId(id);
+          removed = removedSeries;
+          break;
+        default:
+          throw new IllegalStateException("Calendar " + name + " has a change of unknown kind "
+              + kind);
+      }
+      log.restore(sequence, key, addedAt, firstAddedAt, removed);
+    }
+    return log;
+  }
+
+  private static void writeInstant(JournalCodec.Writer section, Instant instant) {
+    section.writeLong(instant.getEpochSecond()).writeInt(instant.getNano());
+  }
+
+  private static Instant readInstant(JournalCodec.Reader section) {
+    return Instant.ofEpochSecond(section.readLong(), section.readInt());
+  }
+
+  private static void writeSeries(JournalCodec.Writer section, EventSeries series) {
+    int days = 0;
+    for (DayOfWeek day : series.getRecurrenceDays()) {
+      days |= 1 << day.ordinal();
+    }
+    section.writeString(series.getEventName())
+        .writeString(series.getEventDescription())
+        .writeString(series.getEventLocation())
+        .writeBoolean(series.isPublic())
+        .writeDate(series.getStartDate())
+        .writeLong(series.getStartTime().toNanoOfDay())
+        .writeLong(series.getEndTime().toNanoOfDay())
+        .writeByte(days)
+        .writeString(series.getZone().getId())
+        .writeBoxedInt(series.getRecurrenceCount())
+        .writeDate(series.getRecurrenceEndDate())
+        .writeInt(series.getExceptions().size());
+    for (LocalDate exception : series.getExceptions()) {
+      section.writeDate(exception);
+    }
+  }
+
+  private static EventSeries readSeries(JournalCodec.Reader section) {
+    String name = section.readString();
+    String description = section.readString();
+    String location = section.readString();
+    boolean isPublic = section.readBoolean();
+    LocalDate startDate = section.readDate();
+    LocalTime startTime = LocalTime.ofNanoOfDay(section.readLong());
+    LocalTime endTime = LocalTime.ofNanoOfDay(section.readLong());
+    int dayMask = section.readByte();
+    List<DayOfWeek> days = new ArrayList<>();
+    for (DayOfWeek day : DayOfWeek.values()) {
+      if ((dayMask & 1 << day.ordinal()) != 0) {
+        days.add(day);
+      }
+    }
+    ZoneId zone = ZoneId.of(section.readString());
+    Integer count = section.readBoxedInt();
+    LocalDate endDate = section.readDate();
+    EventSeries series = new EventSeries(ICalendarEventDTO.builder()
+        .setEventName(name)
+        .setEventDescription(description)
+        .setEventLocation(location)
+        .setPrivate(!isPublic)
+        .setStartDateTime(LocalDateTime.of(startDate, startTime))
+        .setEndDateTime(LocalDateTime.of(startDate, endTime))
+        .setRecurring(true)
+        .setRecurrenceDays(days)
+        .setRecurrenceCount(count)
+        .setRecurrenceEndDate(endDate == null ? null : endDate.atStartOfDay())
+        .build(), zone);
+    int exceptions = section.readInt();
+    for (int i = 0; i < exceptions; i++) {
+      series.exclude(section.readDate());
+    }
+    return series;
+  }
+
+  // Reads the records in place; nothing is copied until a calendar stores a value
+  private static final class MappedRecords implements EventRecords {
+    private final ByteBuffer records;
+    private final int size;
+    private final int[] stringIds;
+
+    private MappedRecords(ByteBuffer records, int size, int[] stringIds) {
+      this.records = records;
+      this.size = size;
+      this.stringIds = stringIds;
+    }
+
+    public int size() {
+      return size;
+    }
+
+    public long startSecond(int index) {
+      return records.getLong(index * RECORD_BYTES);
+    }
+
+    public int startNano(int index) {
+      return records.getInt(index * RECORD_BYTES + 8);
+    }
+
+    public long endSecond(int index) {
+      return records.getLong(index * RECORD_BYTES + 12);
+    }
+
+    public int endNano(int index) {
+      return records.getInt(index * RECORD_BYTES + 20);
+    }
+
+    public long eventId(int index) {
+      return records.getLong(index * RECORD_BYTES + 24);
+    }
+
+    public int nameId(int index) {
+      return string(records.getInt(index * RECORD_BYTES + 32));
+    }
+
+    public int descriptionId(int index) {
+      return string(records.getInt(index * RECORD_BYTES + 36));
+    }
+
+    public int locationId(int index) {
+      return string(records.getInt(index * RECORD_BYTES + 40));
+    }
+
+    public boolean isPublic(int index) {
+      return records.get(index * RECORD_BYTES + 44) != 0;
+    }
+
+    private int string(int position) {
+      return position == NO_STRING ? StringDictionary.NULL_ID : stringIds[position];
+    }
+  }
+
+  private static int indexOf(String value, Map<String, Integer> strings, List<String> table) {
+    if (value == null) {
+      return NO_STRING;
+    }
+    Integer index = strings.get(value);
+    if (index == null) {
+      index = table.size();
+      strings.put(value, index);
+      table.add(value);
+    }
+    return index;
+  }
+
+  private static long flush(FileChannel channel, ByteBuffer records, CRC32C crc)
+      throws IOException {
+    records.flip();
+    int length = records.remaining();
+    crc.update(records.duplicate());
+    writeFully(channel, records);
+    records.clear();
+    return length;
+  }
+
+  private static void writeSection(FileChannel channel, ByteBuffer contents)
+      throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(SECTION_HEADER_BYTES)
+        .putLong(contents.remaining()).putInt(checksum(contents));
+    header.flip();
+    writeFully(channel, header);
+    writeFully(channel, contents);
+  }
+
+  private static int checksum(ByteBuffer contents) {
+    CRC32C crc = new CRC32C();
+    crc.update(contents.duplicate());
+    return (int) crc.getValue();
+  }
+
+  private static ByteBuffer slice(ByteBuffer buffer, int position, int length) {
+    ByteBuffer slice = buffer.duplicate();
+    slice.position(position).limit(position + length);
+    return slice.slice();
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+}
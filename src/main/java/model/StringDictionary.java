@@ -0,0 +1,166 @@
+package model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps strings to small integer ids so that repeated names, locations and descriptions are
+ * stored once per model rather than once per event.
+ * <p>
+ * Every stored reference to a string is counted: {@link #acquire} adds one and
+ * {@link #release} removes one. A string whose count drops to zero is dropped and its id is
+ * handed out again later, so the dictionary only holds strings that events still use. Two
+ * events carry the same string exactly when they carry the same id.
+ * </p>
+ * <p>
+ * Calendars of one model share the dictionary, so it is safe to use from several threads.
+ * Changes are synchronized; {@link #valueOf} takes no lock, because a caller can only hold
+ * an id whose acquisition it is already ordered after.
+ * </p>
+ */
+class StringDictionary {
+  static final int NULL_ID = -1;
+  static final int NOT_FOUND = -2;
+
+  // Rough sizes on a 64-bit JVM with compressed references and compact strings
+  private static final int STRING_OVERHEAD = 24 + 16;
+  private static final int ENTRY_OVERHEAD = 32 + 16 + 4 + 4 + 4;
+
+  private final Map<String, Integer> ids = new HashMap<>();
+  private volatile String[] values = new String[16];
+  private int valueCount;
+  private int[] references = new int[16];
+  private int[] freeIds = new int[16];
+  private int freeCount;
+  private long totalReferences;
+
+  /**
+   * Returns the id of {@code value} and counts one more reference to it, adding it to the
+   * dictionary if it is new.
+   *
+   * @param value the string to encode, may be null
+   * @return the id of the string, or {@link #NULL_ID} for null
+   */
+  public synchronized int acquire(String value) {
+    if (value == null) {
+      return NULL_ID;
+    }
+    Integer id = ids.get(value);
+    if (id == null) {
+      id = freeCount > 0 ? freeIds[--freeCount] : valueCount++;
+      if (id >= references.length) {
+        references = Arrays.copyOf(references, references.length * 2);
+      }
+      // A grown array is published only after it holds the new value
+      String[] current = values;
+      if (id >= current.length) {
+        current = Arrays.copyOf(current, current.length * 2);
+      }
+      current[id] = value;
+      values = current;
+      ids.put(value, id);
+    }
+    references[id]++;
+    totalReferences++;
+    return id;
+  }
+
+  /**
+   * Counts one more reference to a string that is already in use, without looking it up.
+   *
+   * @param id an id that is in use, or {@link #NULL_ID}
+   */
+  public synchronized void retain(int id) {
+    if (id == NULL_ID) {
+      return;
+    }
+    if (references[id] <= 0) {
+      throw new IllegalStateException("String id " + id + " is not in use");
+    }
+    references[id]++;
+    totalReferences++;
+  }
+
+  /**
+   * Drops one reference to the string with the given id, removing the string once nothing
+   * refers to it.
+   *
+   * @param id an id returned by {@link #acquire}, or {@link #NULL_ID}
+   */
+  public synchronized void release(int id) {
+    if (id == NULL_ID) {
+      return;
+    }
+    if (references[id] <= 0) {
+      throw new IllegalStateException("String id " + id + " is not in use");
+    }
+    totalReferences--;
+    if (--references[id] == 0) {
+      ids.remove(values[id]);
+      values[id] = null;
+      if (freeCount == freeIds.length) {
+        freeIds = Arrays.copyOf(freeIds, freeIds.length * 2);
+      }
+      freeIds[freeCount++] = id;
+    }
+  }
+
+  /**
+   * Looks up the id of a string without counting a reference.
+   *
+   * @param value the string to look up, may be null
+   * @return its id, {@link #NULL_ID} for null, or {@link #NOT_FOUND} if no event uses it
+   */
+  public synchronized int find(String value) {
+    if (value == null) {
+      return NULL_ID;
+    }
+    Integer id = ids.get(value);
+    return id == null ? NOT_FOUND : id;
+  }
+
+  /**
+   * Returns the string with the given id.
+   *
+   * @param id an id returned by {@link #acquire}
+   * @return the string, or null for {@link #NULL_ID}
+   */
+  public String valueOf(int id) {
+    return id == NULL_ID ? null : values[id];
+  }
+
+  /**
+   * Returns the number of distinct strings in use.
+   */
+  public synchronized int size() {
+    return ids.size();
+  }
+
+  /**
+   * Returns the number of references held across all strings.
+   */
+  public synchronized long totalReferences() {
+    return totalReferences;
+  }
+
+  /**
+   * Estimates the bytes saved by sharing strings, compared with every reference holding its
+   * own copy. The estimate counts string headers and contents and subtracts the
+   * dictionary's own per-entry cost.
+   */
+  public synchronized long estimatedSavedBytes() {
+    long saved = 0;
+    for (Map.Entry<String, Integer> entry : ids.entrySet()) {
+      long copies = references[entry.getValue()] - 1L;
+      saved += copies * stringBytes(entry.getKey()) - ENTRY_OVERHEAD;
+    }
+    return saved;
+  }
+
+  private static long stringBytes(String value) {
+    boolean latin1 = value.chars().allMatch(c -> c < 256);
+    long content = latin1 ? value.length() : 2L * value.length();
+    return STRING_OVERHEAD + ((content + 7) & ~7L);
+  }
+}
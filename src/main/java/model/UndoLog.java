@@ -0,0 +1,153 @@
+package model;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Records how to reverse changes made to a model's calendars, so that a failed bulk edit or
+ * an abandoned transaction can be rolled back without copying the calendars beforehand.
+ * <p>
+ * Only what a change touches is recorded: the old value of the edited field of each event,
+ * the number of events a calendar held before more were appended, the previous name or
+ * timezone of a calendar. Rolling back applies the records newest first, so every record
+ * sees the calendar exactly as it was when the record was made.
+ * </p>
+ * <p>
+ * The first record made for a calendar after a {@link #mark} also marks the calendar's
+ * change log, so rolling back drops the changes the log counted as well, the undos' own
+ * included. Those marks are held until {@link #release} once the changes are kept.
+ * </p>
+ */
+class UndoLog {
+  private final List<Runnable> undos = new ArrayList<>();
+  private final List<ChangeLog.Mark> held = new ArrayList<>();
+  private final Set<ICalendar> marked = Collections.newSetFromMap(new IdentityHashMap<>());
+
+  /**
+   * Returns a position that {@link #rollbackTo} can later return to.
+   */
+  int mark() {
+    marked.clear();
+    return undos.size();
+  }
+
+  /**
+   * Marks the change log of a calendar about to be changed, unless it was marked since the
+   * last {@link #mark}. The record methods below do this themselves.
+   */
+  void recordChanges(ICalendar calendar) {
+    if (marked.add(calendar)) {
+      ChangeLog.Mark mark = calendar.markChanges();
+      held.add(mark);
+      undos.add(() -> {
+        held.remove(mark);
+        mark.rollback();
+      });
+    }
+  }
+
+  /**
+   * Records an arbitrary action that reverses a change.
+   */
+  void record(Runnable undo) {
+    undos.add(undo);
+  }
+
+  /**
+   * Records the current value of {@code property} of an event that is about to be edited.
+   * A start or end edit records both times, since the calendar has to reindex the event.
+   *
+   * @param calendar the calendar holding the event
+   * @param event    the event about to be edited
+   * @param property the property that will change, as named by the edit commands
+   */
+  void recordEdit(ICalendar calendar, ICalendarEvent event, String property) {
+    recordChanges(calendar);
+    switch (property.toLowerCase()) {
+      case "name":
+        String name = event.getEventName();
+        undos.add(() -> {
+          event.setEventName(name);
+          calendar.reindexEvent(event);
+        });
+        break;
+      case "start":
+      case "end":
+        LocalDateTime start = event.getStartDateTime();
+        LocalDateTime end = event.getEndDateTime();
+        undos.add(() -> {
+          event.setStartDateTime(start);
+          event.setEndDateTime(end);
+          calendar.reindexEvent(event);
+        });
+        break;
+      case "description":
+        String description = event.getEventDescription();
+        undos.add(() -> event.setEventDescription(description));
+        break;
+      case "location":
+        String location = event.getEventLocation();
+        undos.add(() -> event.setEventLocation(location));
+        break;
+      case "isprivate":
+        boolean isPublic = event.isPublic();
+        undos.add(() -> event.setPublic(isPublic));
+        break;
+      default:
+        // Unsupported properties are rejected before anything changes
+        break;
+    }
+  }
+
+  /**
+   * Records the number of events the calendar holds, before more events are appended.
+   */
+  void recordAppends(ICalendar calendar) {
+    recordChanges(calendar);
+    int size = calendar.getEvents().size();
+    undos.add(() -> calendar.truncateEvents(size));
+  }
+
+  /**
+   * Records the calendar's series before one is added, truncated or given an exception.
+   * Series are few and small, so they are copied whole.
+   */
+  void recordSeries(ICalendar calendar) {
+    recordChanges(calendar);
+    List<EventSeries> copies = new ArrayList<>();
+    for (EventSeries series : calendar.getSeries()) {
+      copies.add(series.copy());
+    }
+    undos.add(() -> calendar.setSeries(copies));
+  }
+
+  /**
+   * Reverses every change recorded after {@code mark}, newest first, and forgets them.
+   */
+  void rollbackTo(int mark) {
+    for (int i = undos.size() - 1; i >= mark; i--) {
+      undos.remove(i).run();
+    }
+  }
+
+  /**
+   * Reverses every recorded change.
+   */
+  void rollback() {
+    rollbackTo(0);
+  }
+
+  /**
+   * Keeps the changes recorded so far: releases the change log marks, newest first.
+   */
+  void release() {
+    for (int i = held.size() - 1; i >= 0; i--) {
+      held.remove(i).release();
+    }
+    marked.clear();
+  }
+}
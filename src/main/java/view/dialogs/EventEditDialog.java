@@ -279,8 +279,14 @@ public class EventEditDialog extends JDialog {
       }
 
 
-      commandAdapter.editEvent(propertyName, event.getEventName(),
-          event.getStartDateTime(), event.getEndDateTime(), newValue);
+      // Stored events are edited by id; series occurrences have none and are matched by
+      // name and time
+      if (event.getEventId() != null) {
+        commandAdapter.editEventById(propertyName, event.getEventId(), newValue);
+      } else {
+        commandAdapter.editEvent(propertyName, event.getEventName(),
+            event.getStartDateTime(), event.getEndDateTime(), newValue);
+      }
 
       // For now, just mark as edited and close dialog
       edited = true;
@@ -2252,8 +2252,8 @@ public class CalendarAppTest {
             "Location,Private",
         "\"MorningBlock\",06/03/2024,08:00 AM,06/03/2024,09:00 AM,False,\"\",\"\"," +
             "False",
-        "\"LateBlock\",06/03/2024,10:00 AM,06/03/2024,11:00 AM,False,\"\",\"\",False",
         "\"Standup\",06/03/2024,09:00 AM,06/03/2024,09:30 AM,False,\"\",\"\",False",
+        "\"LateBlock\",06/03/2024,10:00 AM,06/03/2024,11:00 AM,False,\"\",\"\",False",
         "\"Standup\",06/06/2024,09:00 AM,06/06/2024,09:30 AM,False,\"\",\"\",False"
     ));
     assertEquals(expected, content);
@@ -2886,10 +2886,10 @@ public class CalendarAppTest {
         "Subject,Start Date,Start Time,End Date,End Time,All Day Event,Description,Location," +
          "Private",
         "\"Conflict\",04/24/2025,08:45 AM,04/24/2025,09:15 AM,False,\"\",\"\",False",
-        "\"Conflict\",05/01/2025,08:45 AM,05/01/2025,09:15 AM,False,\"\",\"\",False",
-        "\"Conflict\",05/08/2025,08:45 AM,05/08/2025,09:15 AM,False,\"\",\"\",False",
         "\"Standup\",04/24/2025,09:30 AM,04/24/2025,10:00 AM,False,\"\",\"\",False",
+        "\"Conflict\",05/01/2025,08:45 AM,05/01/2025,09:15 AM,False,\"\",\"\",False",
         "\"Standup\",05/01/2025,09:30 AM,05/01/2025,10:00 AM,False,\"\",\"\",False",
+        "\"Conflict\",05/08/2025,08:45 AM,05/08/2025,09:15 AM,False,\"\",\"\",False",
         "\"Standup\",05/08/2025,09:30 AM,05/08/2025,10:00 AM,False,\"\",\"\",False"
     );
 
@@ -2921,9 +2921,9 @@ public class CalendarAppTest {
         "Subject,Start Date,Start Time,End Date,End Time,All Day Event,Description,Location," +
          "Private",
         "\"Standup\",04/24/2025,09:00 AM,04/24/2025,09:30 AM,False,\"\",\"\",False",
+        "\"Overlap\",05/01/2025,08:45 AM,05/01/2025,09:00 AM,False,\"\",\"\",False",
         "\"Standup\",05/01/2025,09:00 AM,05/01/2025,09:30 AM,False,\"\",\"\",False",
-        "\"Standup\",05/08/2025,09:00 AM,05/08/2025,09:30 AM,False,\"\",\"\",False",
-        "\"Overlap\",05/01/2025,08:45 AM,05/01/2025,09:00 AM,False,\"\",\"\",False"
+        "\"Standup\",05/08/2025,09:00 AM,05/08/2025,09:30 AM,False,\"\",\"\",False"
     );
 
     assertEquals(expected, readExportedFile());
@@ -3755,8 +3755,8 @@ public class CalendarAppTest {
     String expected = String.join("\n",
         "Subject,Start Date,Start Time,End Date,End Time,All Day Event,Description," +
             "Location,Private",
-        "\"WrapUp\",06/20/2025,10:00 AM,06/20/2025,11:00 AM,False,\"\",\"\",False",
-        "\"Review\",06/20/2025,09:00 AM,06/20/2025,10:00 AM,False,\"\",\"\",False"
+        "\"Review\",06/20/2025,09:00 AM,06/20/2025,10:00 AM,False,\"\",\"\",False",
+        "\"WrapUp\",06/20/2025,10:00 AM,06/20/2025,11:00 AM,False,\"\",\"\",False"
     );
     assertEquals(expected, readExportedFile());
   }
@@ -5170,8 +5170,8 @@ public class CalendarAppTest {
     String expected = String.join("\n",
         "Subject,Start Date,Start Time,End Date,End Time,All Day Event,Description," +
             "Location,Private",
-        "\"B\",12/01/2025,09:00 AM,12/01/2025,10:00 AM,False,\"\",\"\",False",
-        "\"A\",12/01/2025,08:00 AM,12/01/2025,09:00 AM,False,\"\",\"\",False"
+        "\"A\",12/01/2025,08:00 AM,12/01/2025,09:00 AM,False,\"\",\"\",False",
+        "\"B\",12/01/2025,09:00 AM,12/01/2025,10:00 AM,False,\"\",\"\",False"
     );
     assertEquals(expected, readExportedFile());
   }
@@ -5269,8 +5269,8 @@ public class CalendarAppTest {
     String expected = String.join("\n",
         "Subject,Start Date,Start Time,End Date,End Time,All Day Event,Description," +
             "Location,Private",
-        "\"PastEvent\",12/01/2025,01:00 PM,12/01/2025,02:00 PM,False,\"\",\"\",False",
-        "\"PastEvent\",11/01/2025,01:00 PM,11/01/2025,02:00 PM,False,\"\",\"\",False"
+        "\"PastEvent\",11/01/2025,01:00 PM,11/01/2025,02:00 PM,False,\"\",\"\",False",
+        "\"PastEvent\",12/01/2025,01:00 PM,12/01/2025,02:00 PM,False,\"\",\"\",False"
     );
     assertEquals(expected, readExportedFile());
   }
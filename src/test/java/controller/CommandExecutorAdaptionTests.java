@@ -59,6 +59,11 @@ public class CommandExecutorAdaptionTests {
       return true;
     }
 
+    @Override
+    public boolean editEventById(String property, long eventId, String newValue) {
+      return true;
+    }
+
     @Override
     public boolean editEvents(String property, String eventName, java.time.LocalDateTime fromDateTime,
                               String newValue) {
@@ -71,6 +71,13 @@ public class CommandExecutorAdaptorTest2 {
       return true;
     }
 
+    @Override
+    public boolean editEventById(String property, long eventId, String newValue) {
+      methodCalled = true;
+      lastCalledMethod = "editEventById";
+      return true;
+    }
+
     @Override
     public boolean editEvents(String property, String eventName, java.time.LocalDateTime fromDateTime,
                               String newValue) {
@@ -0,0 +1,99 @@
+package controller.command;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import model.ICalendarModel;
+
+/**
+ * Reports, for each CSV sample in {@code project-files/}, the size of the calendar as CSV
+ * and as a binary backup, and the best time of a round trip through each: an export or
+ * backup, then an import or restore into an empty calendar.
+ * <p>
+ * Run with {@code java -cp target/classes:target/test-classes
+ * controller.command.BackupBenchmark [directory] [rounds]} from the project root. Samples
+ * that do not import are reported and skipped; small samples are repeated enough times to
+ * be measured.
+ * </p>
+ */
+public class BackupBenchmark {
+
+  public static void main(String[] args) throws IOException {
+    Path samples = Paths.get(args.length > 0 ? args[0] : "project-files");
+    int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+    Path dir = Files.createTempDirectory("backup-benchmark");
+    Path csv = dir.resolve("round-trip.csv");
+    Path backup = dir.resolve("round-trip.bak");
+    System.out.printf("%-24s %7s %10s %10s %12s %12s%n", "sample", "events", "csv bytes",
+        "bak bytes", "csv us/trip", "bak us/trip");
+    List<Path> files;
+    try (Stream<Path> listing = Files.list(samples)) {
+      files = listing.filter(file -> file.toString().endsWith(".csv")).sorted()
+          .collect(Collectors.toList());
+    }
+    try {
+      for (Path sample : files) {
+        ICalendarModel model = ICalendarModel.createInstance("listBased");
+        model.createCalendar("Sample", "UTC");
+        String imported = new ImportCalendarCommand(Arrays.asList(sample.toString(),
+            "--timezone", "UTC"), model, "Sample").execute();
+        if (!imported.startsWith("Successfully imported")) {
+          System.out.printf("%-24s skipped: %s%n", sample.getFileName(),
+              imported.split("\n")[0]);
+          continue;
+        }
+        int events = model.getEventsInRange("Sample", LocalDateTime.MIN,
+            LocalDateTime.MAX).size();
+
+        double csvMicros = best(rounds, () -> {
+          new ExportEventsCommand(Collections.singletonList(csv.toString()), model, "Sample")
+              .execute();
+          ICalendarModel copy = ICalendarModel.createInstance("listBased");
+          copy.createCalendar("Copy", "UTC");
+          return new ImportCalendarCommand(Arrays.asList(csv.toString(), "--timezone", "UTC"),
+              copy, "Copy").execute();
+        });
+        double backupMicros = best(rounds, () -> {
+          new BackupCalendarCommand(Collections.singletonList(backup.toString()), model,
+              "Sample").execute();
+          ICalendarModel copy = ICalendarModel.createInstance("listBased");
+          copy.createCalendar("Copy", "UTC");
+          return new RestoreCalendarCommand(Collections.singletonList(backup.toString()),
+              copy, "Copy").execute();
+        });
+        System.out.printf("%-24s %7d %10d %10d %12.1f %12.1f%n", sample.getFileName(),
+            events, Files.size(csv), Files.size(backup), csvMicros, backupMicros);
+      }
+    } finally {
+      Files.deleteIfExists(csv);
+      Files.deleteIfExists(backup);
+      Files.delete(dir);
+    }
+  }
+
+  // The best of several runs after a warm-up, in microseconds
+  private static double best(int rounds, Supplier<String> roundTrip) {
+    for (int i = 0; i < rounds; i++) {
+      roundTrip.get();
+    }
+    long best = Long.MAX_VALUE;
+    for (int i = 0; i < rounds; i++) {
+      long started = System.nanoTime();
+      String result = roundTrip.get();
+      best = Math.min(best, System.nanoTime() - started);
+      if (result.startsWith("Error") || result.startsWith("An unexpected")) {
+        throw new IllegalStateException(result);
+      }
+    }
+    return best / 1e3;
+  }
+}
@@ -0,0 +1,245 @@
+package controller.command;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import model.ICalendarEventDTO;
+import model.ICalendarModel;
+
+/**
+ * Unit tests for the {@link BackupCalendarCommand} class.
+ * Verifies that a backup restores every event exactly, seconds, visibility and series
+ * included, and that it is much smaller than a CSV export of the same calendar.
+ */
+public class BackupCalendarCommandTest {
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private static ICalendarModel calendar() {
+    ICalendarModel model = ICalendarModel.createInstance("listBased");
+    model.createCalendar("Work", "Asia/Kolkata");
+    model.addEvent("Work", ICalendarEventDTO.builder()
+        .setEventName("Review, \"final\"")
+        .setStartDateTime(LocalDateTime.of(2025, 6, 5, 13, 0, 17, 250_000_000))
+        .setEndDateTime(LocalDateTime.of(2025, 6, 5, 14, 30, 45))
+        .setEventDescription("Agenda:\nbudget — 日本 📅")
+        .setPrivate(true)
+        .setAutoDecline(false)
+        .build());
+    model.addEvent("Work", ICalendarEventDTO.builder()
+        .setEventName("Offsite")
+        .setStartDateTime(LocalDateTime.of(2025, 6, 13, 0, 0))
+        .setEndDateTime(LocalDateTime.of(2025, 6, 14, 23, 59, 59))
+        .setEventLocation("Lake house")
+        .setPrivate(false)
+        .setAutoDecline(false)
+        .build());
+    model.addEvent("Work", ICalendarEventDTO.builder()
+        .setEventName("Standup")
+        .setStartDateTime(LocalDateTime.of(2025, 6, 2, 9, 0))
+        .setEndDateTime(LocalDateTime.of(2025, 6, 2, 9, 15))
+        .setRecurring(true)
+        .setRecurrenceDays(Arrays.asList(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY))
+        .setRecurrenceCount(20)
+        .setPrivate(false)
+        .setAutoDecline(false)
+        .build());
+    model.addEvent("Work", ICalendarEventDTO.builder()
+        .setEventName("Planning")
+        .setStartDateTime(LocalDateTime.of(2025, 6, 3, 22, 0))
+        .setEndDateTime(LocalDateTime.of(2025, 6, 3, 23, 0))
+        .setRecurring(true)
+        .setRecurrenceDays(Collections.singletonList(DayOfWeek.TUESDAY))
+        .setRecurrenceEndDate(LocalDateTime.of(2025, 9, 30, 22, 0))
+        .setPrivate(false)
+        .setAutoDecline(false)
+        .build());
+    model.editEvent("Work", "location", "Standup", LocalDateTime.of(2025, 6, 4, 9, 0),
+        LocalDateTime.of(2025, 6, 4, 9, 15), "Room 9");
+    return model;
+  }
+
+  private static List<String> describe(ICalendarModel model, String calendar) {
+    return model.getEventsInRange(calendar, LocalDateTime.of(2025, 1, 1, 0, 0),
+            LocalDateTime.of(2026, 1, 1, 0, 0)).stream()
+        .map(event -> event.getEventName() + " " + event.getStartDateTime() + " "
+            + event.getEndDateTime() + " " + event.getEventDescription() + " "
+            + event.getEventLocation() + " " + event.isPrivate())
+        .sorted()
+        .collect(Collectors.toList());
+  }
+
+  @Test
+  public void testRestoreReproducesTheCalendarExactly() throws Exception {
+    ICalendarModel model = calendar();
+    File file = new File(tempFolder.getRoot(), "work.bak");
+    assertEquals("Calendar backed up successfully to " + file.getPath(),
+        new BackupCalendarCommand(Collections.singletonList(file.getPath()), model, "Work")
+            .execute());
+
+    model.createCalendar("Copy", "Asia/Kolkata");
+    assertEquals("Restored 5 events from calendar 'Work' to calendar 'Copy'",
+        new RestoreCalendarCommand(Collections.singletonList(file.getPath()), model, "Copy")
+            .execute());
+    List<String> original = describe(model, "Work");
+    assertEquals(original, describe(model, "Copy"));
+    assertTrue(original.get(original.size() - 1),
+        original.contains("Review, \"final\" 2025-06-05T13:00:17.250 2025-06-05T14:30:45 "
+            + "Agenda:\nbudget — 日本 📅  true"));
+
+    File csv = new File(tempFolder.getRoot(), "work.csv");
+    new ExportEventsCommand(Collections.singletonList(csv.getPath()), model, "Work").execute();
+    assertTrue(Files.size(file.toPath()) * 10 < Files.size(csv.toPath()));
+  }
+
+  @Test
+  public void testRestoringTwiceIsRejectedAsAConflict() throws Exception {
+    ICalendarModel model = calendar();
+    File file = new File(tempFolder.getRoot(), "work.bak");
+    new BackupCalendarCommand(Collections.singletonList(file.getPath()), model, "Work")
+        .execute();
+    model.createCalendar("Copy", "Asia/Kolkata");
+    RestoreCalendarCommand restore = new RestoreCalendarCommand(
+        Collections.singletonList(file.getPath()), model, "Copy");
+    assertEquals("Restored 5 events from calendar 'Work' to calendar 'Copy'", restore.execute());
+    List<String> restored = describe(model, "Copy");
+
+    String again = restore.execute();
+    assertTrue(again, again.startsWith("Error restoring calendar: Cannot add all events: "));
+    assertTrue(again, again.contains("conflicts with existing event"));
+    assertEquals(restored, describe(model, "Copy"));
+  }
+
+  @Test
+  public void testOverlappingEventsAreRestored() throws Exception {
+    ICalendarModel model = calendar();
+    // Overlaps the Standup on 4 June, which the model allows without autoDecline
+    model.addEvent("Work", ICalendarEventDTO.builder()
+        .setEventName("Interview")
+        .setStartDateTime(LocalDateTime.of(2025, 6, 4, 9, 0))
+        .setEndDateTime(LocalDateTime.of(2025, 6, 4, 10, 0))
+        .setPrivate(false)
+        .setAutoDecline(false)
+        .build());
+    File file = new File(tempFolder.getRoot(), "work.bak");
+    new BackupCalendarCommand(Collections.singletonList(file.getPath()), model, "Work")
+        .execute();
+    model.createCalendar("Copy", "Asia/Kolkata");
+
+    assertEquals("Restored 6 events from calendar 'Work' to calendar 'Copy'",
+        new RestoreCalendarCommand(Collections.singletonList(file.getPath()), model, "Copy")
+            .execute());
+    assertEquals(describe(model, "Work"), describe(model, "Copy"));
+  }
+
+  @Test
+  public void testRestoreMovesTimesToTheCurrentTimezone() throws Exception {
+    ICalendarModel model = calendar();
+    File file = new File(tempFolder.getRoot(), "work.bak");
+    new BackupCalendarCommand(Collections.singletonList(file.getPath()), model, "Work")
+        .execute();
+    model.createCalendar("London", "Europe/London");
+    new RestoreCalendarCommand(Collections.singletonList(file.getPath()), model, "London")
+        .execute();
+    List<ICalendarEventDTO> standups = model.getEventsInRange("London",
+        LocalDateTime.of(2025, 6, 2, 0, 0), LocalDateTime.of(2025, 6, 3, 0, 0));
+    assertEquals(1, standups.size());
+    assertEquals(LocalDateTime.of(2025, 6, 2, 4, 30), standups.get(0).getStartDateTime());
+  }
+
+  @Test
+  public void testRestoreAcrossMidnightKeepsEveryOccurrence() throws Exception {
+    ICalendarModel model = calendar();
+    File file = new File(tempFolder.getRoot(), "work.bak");
+    new BackupCalendarCommand(Collections.singletonList(file.getPath()), model, "Work")
+        .execute();
+    // 09:00 in Kolkata is 20:30 the day before in Los Angeles
+    model.createCalendar("Coast", "America/Los_Angeles");
+    new RestoreCalendarCommand(Collections.singletonList(file.getPath()), model, "Coast")
+        .execute();
+
+    assertEquals(instants(model, "Work", ZoneId.of("Asia/Kolkata")),
+        instants(model, "Coast", ZoneId.of("America/Los_Angeles")));
+    List<ICalendarEventDTO> first = model.getEventsInRange("Coast",
+        LocalDateTime.of(2025, 6, 1, 0, 0), LocalDateTime.of(2025, 6, 2, 0, 0));
+    assertEquals(1, first.size());
+    assertEquals(LocalDateTime.of(2025, 6, 1, 20, 30), first.get(0).getStartDateTime());
+  }
+
+  // The instants every event starts and ends at, whatever the calendar's zone
+  private static List<String> instants(ICalendarModel model, String calendar, ZoneId zone) {
+    return model.getEventsInRange(calendar, LocalDateTime.of(2025, 1, 1, 0, 0),
+            LocalDateTime.of(2026, 1, 1, 0, 0)).stream()
+        .map(event -> event.getEventName() + " "
+            + event.getStartDateTime().atZone(zone).toInstant() + " "
+            + event.getEndDateTime().atZone(zone).toInstant())
+        .sorted()
+        .collect(Collectors.toList());
+  }
+
+  @Test
+  public void testDamagedBackupsAreRejected() throws Exception {
+    ICalendarModel model = calendar();
+    File file = new File(tempFolder.getRoot(), "work.bak");
+    new BackupCalendarCommand(Collections.singletonList(file.getPath()), model, "Work")
+        .execute();
+    byte[] bytes = Files.readAllBytes(file.toPath());
+    model.createCalendar("Copy", "UTC");
+
+    byte[] flipped = bytes.clone();
+    flipped[bytes.length / 2] ^= 0x10;
+    Files.write(file.toPath(), flipped);
+    assertEquals("Error restoring calendar: Backup checksum does not match; the file is damaged",
+        new RestoreCalendarCommand(Collections.singletonList(file.getPath()), model, "Copy")
+            .execute());
+
+    Files.write(file.toPath(), Arrays.copyOf(bytes, bytes.length - 7));
+    assertTrue(new RestoreCalendarCommand(Collections.singletonList(file.getPath()), model,
+        "Copy").execute().startsWith("Error restoring calendar: "));
+
+    Files.write(file.toPath(), "Subject,Start Date\n".getBytes("UTF-8"));
+    assertEquals("Error restoring calendar: Not a calendar backup",
+        new RestoreCalendarCommand(Collections.singletonList(file.getPath()), model, "Copy")
+            .execute());
+    assertTrue(model.getEventsInRange("Copy", LocalDateTime.of(2025, 1, 1, 0, 0),
+        LocalDateTime.of(2026, 1, 1, 0, 0)).isEmpty());
+  }
+
+  @Test
+  public void testArguments() {
+    for (List<String> args : Arrays.asList(Collections.<String>emptyList(),
+        Arrays.asList("a.bak", "extra"))) {
+      try {
+        new BackupCalendarCommand(args, calendar(), "Work");
+        fail("Expected " + args + " to be rejected");
+      } catch (IllegalArgumentException e) {
+        assertEquals("Invalid syntax. Expected: backup cal <filename>", e.getMessage());
+      }
+      try {
+        new RestoreCalendarCommand(args, calendar(), "Work");
+        fail("Expected " + args + " to be rejected");
+      } catch (IllegalArgumentException e) {
+        assertEquals("Invalid syntax. Expected: restore cal <filename>", e.getMessage());
+      }
+    }
+    assertEquals("Error restoring calendar: " + new File("missing.bak").getPath(),
+        new RestoreCalendarCommand(Collections.singletonList("missing.bak"), calendar(),
+            "Work").execute());
+  }
+}
@@ -0,0 +1,64 @@
+package controller.command;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link ChannelWriter}.
+ * Verifies that text written in pieces of every size through a small buffer reaches the
+ * channel as the charset encodes it, including characters split across buffer refills.
+ */
+public class ChannelWriterTest {
+
+  @Test
+  public void testSmallBufferEncodesLikeTheCharset() throws IOException {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 500; i++) {
+      text.append("row ").append(i).append(", café 日本 📅\n");
+    }
+    String expected = text.toString();
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    WritableByteChannel channel = Channels.newChannel(out);
+    ChannelWriter writer = new ChannelWriter(channel, StandardCharsets.UTF_8, 16);
+    int position = 0;
+    for (int piece = 1; position < expected.length(); piece = piece % 13 + 1) {
+      int end = Math.min(expected.length(), position + piece);
+      if (piece == 1) {
+        writer.write(expected.charAt(position));
+      } else if (piece % 2 == 0) {
+        writer.write(expected, position, end - position);
+      } else {
+        writer.write(expected.substring(position, end).toCharArray());
+      }
+      position = end;
+      if (piece == 7) {
+        writer.flush();
+      }
+    }
+    writer.close();
+    writer.close();
+
+    assertArrayEquals(expected.getBytes(StandardCharsets.UTF_8), out.toByteArray());
+    assertFalse(channel.isOpen());
+  }
+
+  @Test
+  public void testUnmappableCharactersAreReplaced() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (ChannelWriter writer = new ChannelWriter(Channels.newChannel(out),
+          StandardCharsets.US_ASCII, 16)) {
+      writer.write("café,📅");
+    }
+    assertEquals("caf?,?", out.toString(StandardCharsets.US_ASCII));
+  }
+}
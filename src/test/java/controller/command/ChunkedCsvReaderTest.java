@@ -0,0 +1,137 @@
+package controller.command;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import model.ICalendarEventDTO;
+import model.ICalendarModel;
+
+/**
+ * Tests for {@link ChunkedCsvReader} and the parallel mode of {@link ImportCalendarCommand}.
+ * Verifies that chunks as small as a few lines yield the same events and the same
+ * line-numbered errors as the sequential import.
+ */
+public class ChunkedCsvReaderTest {
+
+  private static final String HEADER =
+        "Subject,Start Date,Start Time,End Date,End Time,All Day Event,Description,Location,Private";
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private File write(String content) throws IOException {
+    File file = tempFolder.newFile();
+    File csv = new File(file.getPath() + ".csv");
+    Files.write(csv.toPath(), content.getBytes(Charset.defaultCharset()));
+    return csv;
+  }
+
+  // Events two hours apart, so none conflict; every seventh line ends in \r\n, every
+  // eleventh is followed by a blank line and every fifth description spans two lines
+  private static String events(int count) {
+    StringBuilder csv = new StringBuilder(HEADER).append('\n');
+    LocalDateTime start = LocalDateTime.of(2025, 1, 1, 8, 0);
+    for (int i = 0; i < count; i++) {
+      LocalDateTime at = start.plusHours(2L * i);
+      csv.append(String.format("\"Review, part %d\",%02d/%02d/%d,%02d:00 %s,%02d/%02d/%d,"
+                  + "%02d:30 %s,FALSE,\"Notes \"\"%d\"\"%s\",Room %d,%s",
+            i, at.getMonthValue(), at.getDayOfMonth(), at.getYear(),
+            at.getHour() % 12 == 0 ? 12 : at.getHour() % 12, at.getHour() < 12 ? "AM" : "PM",
+            at.getMonthValue(), at.getDayOfMonth(), at.getYear(),
+            at.getHour() % 12 == 0 ? 12 : at.getHour() % 12, at.getHour() < 12 ? "AM" : "PM",
+            i, i % 5 == 0 ? "\nsecond, line" : "", i % 9, i % 2 == 0 ? "TRUE" : "false"));
+      csv.append(i % 7 == 0 ? "\r\n" : "\n");
+      if (i % 11 == 0) {
+        csv.append('\n');
+      }
+    }
+    return csv.toString();
+  }
+
+  private static String describe(ICalendarModel model) {
+    StringBuilder description = new StringBuilder();
+    for (ICalendarEventDTO event : model.getEventsInRange("Work",
+          LocalDateTime.of(2024, 1, 1, 0, 0), LocalDateTime.of(2027, 1, 1, 0, 0))) {
+      description.append(event.getEventName()).append('|').append(event.getStartDateTime())
+            .append('|').append(event.getEndDateTime()).append('|')
+            .append(event.getEventDescription()).append('|').append(event.getEventLocation())
+            .append('|').append(event.isPrivate()).append('\n');
+    }
+    return description.toString();
+  }
+
+  private static String importInto(ICalendarModel model, File csv, boolean parallel,
+                                   int chunkBytes) {
+    List<String> args = parallel
+          ? Arrays.asList(csv.getPath(), "--timezone", "UTC", "--parallel")
+          : Arrays.asList(csv.getPath(), "--timezone", "UTC");
+    return new ImportCalendarCommand(args, model, "Work", chunkBytes).execute();
+  }
+
+  @Test
+  public void testParallelImportMatchesSequential() throws IOException {
+    File csv = write(events(500));
+    for (int chunkBytes : new int[] {1, 97, 4096, 1 << 20}) {
+      ICalendarModel sequential = ICalendarModel.createInstance("listBased");
+      ICalendarModel parallel = ICalendarModel.createInstance("listBased");
+      sequential.createCalendar("Work", "UTC");
+      parallel.createCalendar("Work", "UTC");
+      String expected = importInto(sequential, csv, false, chunkBytes);
+      assertTrue(expected, expected.startsWith("Successfully imported 500 events"));
+      assertEquals(expected, importInto(parallel, csv, true, chunkBytes));
+      assertEquals(describe(sequential), describe(parallel));
+    }
+  }
+
+  @Test
+  public void testParallelErrorsMatchSequential() throws IOException {
+    String csv = events(300)
+          .replace("\"Review, part 4\",", "Too,Few,Fields\n\"Review, part 4\",")
+          .replace("FALSE,\"Notes \"\"40\"\"", "MAYBE,\"Notes \"\"40\"\"")
+          .replaceFirst("(\"Review, part 121\",\\d\\d/\\d\\d)/2025", "$1/20x5")
+          + "\"\",01/01/2025,10:00 AM,01/01/2025,11:00 AM,FALSE,,,FALSE\r";
+    File file = write(csv);
+
+    String expected = importInto(ICalendarModel.createInstance("listBased"), file, false, 0);
+    assertTrue(expected, expected.contains("Expected 9 fields"));
+    assertEquals(4, expected.split("\n").length - 1);
+    for (int chunkBytes : new int[] {1, 250, 1 << 20}) {
+      assertEquals(expected,
+            importInto(ICalendarModel.createInstance("listBased"), file, true, chunkBytes));
+    }
+  }
+
+  @Test
+  public void testHeaderAndEmptyFiles() throws IOException {
+    File empty = write("");
+    assertEquals("No events found to import.",
+          importInto(ICalendarModel.createInstance("listBased"), empty, true, 1));
+    File wrongHeader = write("Wrong,Header\r\nMeeting\n");
+    assertEquals(importInto(ICalendarModel.createInstance("listBased"), wrongHeader, false, 1),
+          importInto(ICalendarModel.createInstance("listBased"), wrongHeader, true, 1));
+
+    // No chunk ends inside the quoted line break, however small the chunks
+    ChunkedCsvReader reader = ChunkedCsvReader.open(
+          write(HEADER + "\r\n\"a\nb\",x\n\nc\r\nd\n").toPath());
+    assertEquals(9, reader.header().size());
+    assertEquals("Private", reader.header().get(8));
+    ChunkedCsvReader.Result<String> result = reader.parse(1, 2, (record, records) -> {
+      records.add(record.get(0));
+      return record.get(0).equals("c") ? "bad" : null;
+    });
+    assertEquals(Arrays.asList("a\nb", "c", "d"), result.records);
+    assertEquals(Arrays.asList("Line 3: bad"), result.errors);
+  }
+}
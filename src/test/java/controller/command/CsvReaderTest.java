@@ -0,0 +1,114 @@
+package controller.command;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link CsvReader} and {@link CsvWriter}.
+ * Verifies quoted commas, quotes and line breaks, the lenient reading of malformed fields,
+ * and that what the writer writes reads back field for field.
+ */
+public class CsvReaderTest {
+
+  private static List<List<String>> readAll(CsvReader reader) throws IOException {
+    List<List<String>> records = new ArrayList<>();
+    while (reader.next()) {
+      List<String> fields = new ArrayList<>();
+      for (int i = 0; i < reader.size(); i++) {
+        fields.add(reader.get(i));
+      }
+      records.add(fields);
+    }
+    return records;
+  }
+
+  // Hands out one character per read, so every record crosses a buffer refill
+  private static Reader trickle(String text) {
+    return new StringReader(text) {
+      @Override
+      public int read(char[] buffer, int offset, int length) throws IOException {
+        return super.read(buffer, offset, Math.min(length, 1));
+      }
+    };
+  }
+
+  @Test
+  public void testQuotedFieldsKeepCommasQuotesAndLineBreaks() throws IOException {
+    String text = "a,\"b, c\",\"say \"\"hi\"\"\"\r\n\"two\r\nlines\",,\"\"\n";
+    List<List<String>> expected = Arrays.asList(
+          Arrays.asList("a", "b, c", "say \"hi\""),
+          Arrays.asList("two\r\nlines", "", ""));
+    assertEquals(expected, readAll(new CsvReader(new StringReader(text))));
+    assertEquals(expected, readAll(new CsvReader(trickle(text))));
+    assertEquals(expected, readAll(new CsvReader(CharBuffer.wrap(text))));
+
+    CsvReader reader = new CsvReader(CharBuffer.wrap(text));
+    reader.next();
+    assertFalse(reader.isQuoted(0));
+    assertTrue(reader.isQuoted(1));
+  }
+
+  @Test
+  public void testBlankLinesAndMalformedFields() throws IOException {
+    CsvReader reader = new CsvReader(new StringReader(
+          "\r\n  \"padded\" ,x\"y,\"a\"\"b\"c \t\n\"open,\nnever closed"));
+    assertTrue(reader.next());
+    assertTrue(reader.isBlank());
+    assertEquals(1, reader.size());
+
+    assertTrue(reader.next());
+    assertFalse(reader.isBlank());
+    assertEquals("padded", reader.get(0));
+    assertTrue(reader.isQuoted(0));
+    assertEquals("x\"y", reader.get(1));
+    assertEquals("a\"bc", reader.get(2));
+
+    // A quote left open runs to the end of the input
+    assertTrue(reader.next());
+    assertEquals(1, reader.size());
+    assertEquals("open,\nnever closed", reader.get(0));
+    assertFalse(reader.next());
+  }
+
+  @Test
+  public void testManyFieldsAndLastLineWithoutBreak() throws IOException {
+    StringBuilder text = new StringBuilder();
+    for (int i = 0; i < 100; i++) {
+      text.append(i == 0 ? "" : ",").append(i);
+    }
+    CsvReader reader = new CsvReader(new StringReader(text.toString()));
+    assertTrue(reader.next());
+    assertEquals(100, reader.size());
+    assertEquals("99", reader.get(99));
+    assertFalse(reader.next());
+  }
+
+  @Test
+  public void testWrittenRecordsReadBack() throws IOException {
+    StringWriter out = new StringWriter();
+    CsvWriter writer = new CsvWriter(out);
+    writer.quoted("Review, \"final\"").plain("05/01/2025").quoted("line one\nline two")
+          .quoted("").quoted("\"").endRecord();
+    writer.plain("x").endRecord();
+
+    String separator = System.lineSeparator();
+    assertEquals("\"Review, \"\"final\"\"\",05/01/2025,\"line one\nline two\",\"\",\"\"\"\""
+          + separator + "x" + separator, out.toString());
+    assertEquals(Arrays.asList(
+          Arrays.asList("Review, \"final\"", "05/01/2025", "line one\nline two", "", "\""),
+          Arrays.asList("x")),
+          readAll(new CsvReader(new StringReader(out.toString()))));
+  }
+}
@@ -0,0 +1,65 @@
+package controller.command;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * Compares {@link DateTimeCodec} with the formatters it replaces on the work of one CSV
+ * row: a date and a time parsed on import, then written twice on export.
+ * <p>
+ * Run with {@code java -cp target/classes:target/test-classes
+ * controller.command.DateTimeCodecBenchmark [rows]}.
+ * </p>
+ */
+public class DateTimeCodecBenchmark {
+
+  public static void main(String[] args) throws IOException {
+    int rowCount = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+    String[] dates = new String[rowCount];
+    String[] times = new String[rowCount];
+    LocalDateTime base = LocalDateTime.of(2025, 1, 1, 8, 0);
+    for (int i = 0; i < rowCount; i++) {
+      LocalDateTime at = base.plusMinutes(37L * i);
+      dates[i] = at.format(DateTimeCodec.DATE_FORMATTER);
+      times[i] = at.format(DateTimeCodec.TIME_FORMATTER);
+    }
+
+    for (int round = 0; round < 5; round++) {
+      long started = System.nanoTime();
+      long check = 0;
+      StringBuilder out = new StringBuilder();
+      for (int i = 0; i < rowCount; i++) {
+        LocalDate date = LocalDate.parse(dates[i], DateTimeCodec.DATE_FORMATTER);
+        LocalTime time = LocalTime.parse(times[i], DateTimeCodec.TIME_FORMATTER);
+        out.setLength(0);
+        for (int field = 0; field < 2; field++) {
+          out.append(date.format(DateTimeCodec.DATE_FORMATTER))
+              .append(time.format(DateTimeCodec.TIME_FORMATTER));
+        }
+        check += out.length() + date.getDayOfYear() + time.getMinute();
+      }
+      long formatterNanos = System.nanoTime() - started;
+
+      started = System.nanoTime();
+      for (int i = 0; i < rowCount; i++) {
+        String dateText = dates[i];
+        String timeText = times[i];
+        LocalDate date = DateTimeCodec.parseCsvDate(dateText, 0, dateText.length());
+        LocalTime time = DateTimeCodec.parseCsvTime(timeText, 0, timeText.length());
+        out.setLength(0);
+        for (int field = 0; field < 2; field++) {
+          DateTimeCodec.appendCsvDate(out, date);
+          DateTimeCodec.appendCsvTime(out, time);
+        }
+        check -= out.length() + date.getDayOfYear() + time.getMinute();
+      }
+      long codecNanos = System.nanoTime() - started;
+
+      System.out.printf("round %d: formatters %d ms, codec %d ms (%.1fx)%s%n", round,
+          formatterNanos / 1_000_000, codecNanos / 1_000_000,
+          (double) formatterNanos / codecNanos, check == 0 ? "" : " MISMATCH");
+    }
+  }
+}
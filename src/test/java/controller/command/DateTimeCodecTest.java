@@ -0,0 +1,104 @@
+package controller.command;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.Callable;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link DateTimeCodec}.
+ * Verifies that every value, valid or not, parses to what the formatters give or fails with
+ * the message they give, and that values are written as the formatters write them.
+ */
+public class DateTimeCodecTest {
+
+  // The result of a parse, or the message it failed with
+  private static String outcome(Callable<Object> parse) throws Exception {
+    try {
+      return String.valueOf(parse.call());
+    } catch (DateTimeParseException e) {
+      return "error: " + e.getMessage();
+    }
+  }
+
+  private static final String[] CSV_DATES = {
+      "05/01/2025", "12/31/1999", "02/29/2024", "02/29/2025", "02/30/2024", "04/31/2025",
+      "13/01/2025", "00/10/2025", "01/00/2025", "01/32/2025", "01/11/20x5", "1/11/2025",
+      "01/11/25", "01-11-2025", "01/11/0000", "01/11/0001", "01/11/20255", " 01/11/2025", ""};
+
+  private static final String[] CSV_TIMES = {
+      "09:30 AM", "12:00 AM", "12:00 PM", "12:59 PM", "01:05 PM", "11:59 PM", "00:30 AM",
+      "13:00 PM", "09:60 AM", "9:30 AM", "09:30 am", "09:30AM", "09:30 XM", "09:30 AMX",
+      "09:30", "x9:30 AM", ""};
+
+  private static final String[] ISO_DATE_TIMES = {
+      "2025-05-01T09:30", "2024-02-29T00:00", "2025-02-29T10:00", "2025-04-31T10:00",
+      "2025-13-01T10:00", "2025-05-01T24:00", "2025-05-01T10:60", "2025-05-01T10:30:15",
+      "2025-05-01T10:30:15.5", "2025-05-01 10:30", "2025-5-01T10:30", "0000-01-01T00:00",
+      "+12025-05-01T10:30", "2025-05-01", ""};
+
+  private static final String[] ISO_DATES = {
+      "2025-05-01", "2024-02-29", "2025-02-29", "2025-00-10", "2025-05-1", "2025/05/01",
+      "20250501", "2025-05-01T09:30", ""};
+
+  @Test
+  public void testParsingMatchesFormatters() throws Exception {
+    for (String text : CSV_DATES) {
+      assertEquals(text,
+            outcome(() -> LocalDate.parse(text, DateTimeCodec.DATE_FORMATTER)),
+            outcome(() -> DateTimeCodec.parseCsvDate(text, 0, text.length())));
+    }
+    for (String text : CSV_TIMES) {
+      assertEquals(text,
+            outcome(() -> LocalTime.parse(text, DateTimeCodec.TIME_FORMATTER)),
+            outcome(() -> DateTimeCodec.parseCsvTime(text, 0, text.length())));
+    }
+    for (String text : ISO_DATE_TIMES) {
+      assertEquals(text, outcome(() -> LocalDateTime.parse(text)),
+            outcome(() -> DateTimeCodec.parseIsoDateTime(text, 0, text.length())));
+    }
+    for (String text : ISO_DATES) {
+      assertEquals(text, outcome(() -> LocalDate.parse(text)),
+            outcome(() -> DateTimeCodec.parseIsoDate(text, 0, text.length())));
+    }
+  }
+
+  @Test
+  public void testParsingARange() {
+    String record = "x,05/01/2025,09:30 PM,2025-05-01T21:30";
+    assertEquals(LocalDate.of(2025, 5, 1), DateTimeCodec.parseCsvDate(record, 2, 12));
+    assertEquals(LocalTime.of(21, 30), DateTimeCodec.parseCsvTime(record, 13, 21));
+    assertEquals(LocalDateTime.of(2025, 5, 1, 21, 30),
+          DateTimeCodec.parseIsoDateTime(record, 22, record.length()));
+    try {
+      DateTimeCodec.parseCsvDate(record, 0, 10);
+      fail("Expected the range to be rejected");
+    } catch (DateTimeParseException e) {
+      assertEquals("x,05/01/20", e.getParsedString());
+    }
+  }
+
+  @Test
+  public void testFormattingMatchesFormatters() throws IOException {
+    LocalDateTime[] values = {
+        LocalDateTime.of(2025, 5, 1, 0, 0), LocalDateTime.of(2025, 12, 31, 12, 0),
+        LocalDateTime.of(1, 1, 1, 11, 59, 59), LocalDateTime.of(9999, 2, 28, 23, 7),
+        LocalDateTime.of(10000, 6, 15, 13, 45), LocalDateTime.of(0, 3, 3, 1, 1),
+        LocalDateTime.of(-44, 3, 15, 12, 30)};
+    for (LocalDateTime value : values) {
+      StringBuilder out = new StringBuilder();
+      DateTimeCodec.appendCsvDate(out, value.toLocalDate());
+      out.append(' ');
+      DateTimeCodec.appendCsvTime(out, value.toLocalTime());
+      assertEquals(value.format(DateTimeCodec.DATE_FORMATTER) + " "
+            + value.format(DateTimeCodec.TIME_FORMATTER), out.toString());
+    }
+  }
+}
@@ -28,6 +28,7 @@ public class EditEventCommandTest {
     String newValue;
     LocalDateTime from;
     LocalDateTime to;
+    long eventId;
     boolean shouldSucceed = true;
 
     @Override
@@ -46,6 +47,15 @@ public class EditEventCommandTest {
       return false;
     }
 
+    @Override
+    public boolean editEventById(String calendar, long eventId, String property,
+                                 String newValue) {
+      this.property = property;
+      this.eventId = eventId;
+      this.newValue = newValue;
+      return shouldSucceed;
+    }
+
     @Override
     public boolean editEvent(String calendar, String property, String name,
                              LocalDateTime fromTime, LocalDateTime toTime, String newValue) {
@@ -195,4 +205,26 @@ public class EditEventCommandTest {
         new MockModel(), "Cal"
     );
   }
+
+  @Test
+  public void testEditEventById() {
+    MockModel model = new MockModel();
+    EditEventCommand command = new EditEventCommand(
+        Arrays.asList("location", "--id", "42", "with", "Room 7"),
+        model, "Work"
+    );
+
+    assertEquals("Event(s) edited successfully.", command.execute());
+    assertEquals(42L, model.eventId);
+    assertEquals("location", model.property);
+    assertEquals("Room 7", model.newValue);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidEventId() {
+    new EditEventCommand(
+        Arrays.asList("location", "--id", "abc", "with", "Room 7"),
+        new MockModel(), "Cal"
+    );
+  }
 }
@@ -4,18 +4,25 @@ import model.ICalendarEventDTO;
 import model.ICalendarModel;
 
 import org.junit.After;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
@@ -32,6 +39,9 @@ public class ExportEventsCommandTest {
 
   private static final String TEST_FILE = "test_export.csv";
 
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
   private static class MockEvent implements ICalendarEventDTO {
     private final String name;
     private final LocalDateTime start;
@@ -512,4 +522,300 @@ public class ExportEventsCommandTest {
     assertEquals(LocalDateTime.MIN, capturedStart[0]);
     assertEquals(LocalDateTime.MAX, capturedEnd[0]);
   }
+
+  @Test
+  public void testExportReplacesFileInOnePieceAndLeavesNoTemporaryFile() throws Exception {
+    File dir = tempFolder.getRoot();
+    File target = new File(dir, "export.csv");
+    Files.write(target.toPath(), "old contents\n".getBytes(StandardCharsets.UTF_8));
+
+    ICalendarModel model = ICalendarModel.createInstance("columnar");
+    model.createCalendar("Work", "UTC");
+    LocalDateTime start = LocalDateTime.of(2025, 6, 1, 9, 0);
+    for (int i = 0; i < 5000; i++) {
+      // Added out of order; the export lists them by start
+      model.addEvent("Work", ICalendarEventDTO.builder()
+          .setEventName("Event " + i)
+          .setStartDateTime(start.plusHours((i * 7919L) % 5000))
+          .setEndDateTime(start.plusHours((i * 7919L) % 5000).plusMinutes(30))
+          .setEventDescription("Notes, \"" + i + "\"")
+          .setEventLocation("Room " + i % 9)
+          .setPrivate(i % 2 == 0)
+          .setAutoDecline(false)
+          .build());
+    }
+
+    String result = new ExportEventsCommand(Collections.singletonList(target.getPath()), model,
+        "Work").execute();
+
+    assertEquals("Events exported successfully to " + target.getPath(), result);
+    assertEquals(Collections.singletonList("export.csv"), Arrays.asList(dir.list()));
+    List<String> lines = Files.readAllLines(target.toPath(), Charset.defaultCharset());
+    assertEquals(5001, lines.size());
+    assertEquals("\"Event 0\",06/01/2025,09:00 AM,06/01/2025,09:30 AM,False,"
+        + "\"Notes, \"\"0\"\"\",\"Room 0\",True", lines.get(1));
+    assertEquals("\"Event 716\",06/01/2025,01:00 PM,06/01/2025,01:30 PM,False,"
+        + "\"Notes, \"\"716\"\"\",\"Room 5\",True", lines.get(5));
+  }
+
+  @Test
+  public void testFailedExportKeepsEarlierFile() throws Exception {
+    File dir = tempFolder.getRoot();
+    File target = new File(dir, "export.csv");
+    Files.write(target.toPath(), "old contents\n".getBytes(StandardCharsets.UTF_8));
+
+    ICalendarModel model = ICalendarModel.createInstance("listBased");
+    String result = new ExportEventsCommand(Collections.singletonList(target.getPath()), model,
+        "Missing").execute();
+
+    assertEquals("Error: Calendar not found: Missing", result);
+    assertEquals(Collections.singletonList("export.csv"), Arrays.asList(dir.list()));
+    assertEquals("old contents\n",
+        new String(Files.readAllBytes(target.toPath()), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testParallelExportWritesTheSameFile() throws Exception {
+    ICalendarModel model = ICalendarModel.createInstance("listBased");
+    model.createCalendar("Work", "UTC");
+    LocalDateTime start = LocalDateTime.of(2025, 6, 1, 9, 0);
+    for (int i = 0; i < 1000; i++) {
+      model.addEvent("Work", ICalendarEventDTO.builder()
+          .setEventName("Event " + i + (i % 3 == 0 ? ", \"review\"" : ""))
+          .setStartDateTime(start.plusMinutes((i * 7919L) % 1000 * 45))
+          .setEndDateTime(start.plusMinutes((i * 7919L) % 1000 * 45 + 30))
+          .setEventDescription(i % 4 == 0 ? null : "Line one\nline two " + i)
+          .setEventLocation("Room " + i % 9)
+          .setPrivate(i % 2 == 0)
+          .setAutoDecline(false)
+          .build());
+    }
+    File sequential = new File(tempFolder.getRoot(), "sequential.csv");
+    new ExportEventsCommand(Collections.singletonList(sequential.getPath()), model, "Work")
+        .execute();
+    byte[] expected = Files.readAllBytes(sequential.toPath());
+
+    File parallel = new File(tempFolder.getRoot(), "parallel.csv");
+    for (int threads : new int[] {1, 3, 8}) {
+      for (int rowsPerChunk : new int[] {1, 7, 4096}) {
+        String result = new ExportEventsCommand(Arrays.asList(parallel.getPath(), "--parallel"),
+            model, "Work", threads, rowsPerChunk).execute();
+        assertEquals("Events exported successfully to " + parallel.getPath(), result);
+        assertArrayEquals(threads + "/" + rowsPerChunk, expected,
+            Files.readAllBytes(parallel.toPath()));
+      }
+    }
+    assertEquals(2, tempFolder.getRoot().list().length);
+  }
+
+  @Test
+  public void testParallelFlagArguments() {
+    new ExportEventsCommand(Arrays.asList("file.csv", "--parallel"), new MockModel(), "Cal");
+    try {
+      new ExportEventsCommand(Arrays.asList("file.csv", "--parallel", "extra"), new MockModel(),
+          "Cal");
+      fail("Expected extra arguments to be rejected");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Too many arguments for export command.", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testSinceExportWritesOnlyChangesWithTombstones() throws Exception {
+    ICalendarModel model = ICalendarModel.createInstance("columnar");
+    model.createCalendar("Work", "UTC");
+    LocalDateTime start = LocalDateTime.of(2025, 6, 2, 9, 0);
+    for (int i = 0; i < 3; i++) {
+      model.addEvent("Work", ICalendarEventDTO.builder()
+          .setEventName("Event " + i)
+          .setStartDateTime(start.plusHours(i))
+          .setEndDateTime(start.plusHours(i).plusMinutes(30))
+          .setEventLocation("Room, " + i)
+          .setPrivate(false)
+          .setAutoDecline(false)
+          .build());
+    }
+    File file = new File(tempFolder.getRoot(), "changes.csv");
+    String baseline = new ExportEventsCommand(Arrays.asList(file.getPath(), "--since", "0"),
+        model, "Work").execute();
+    String prefix = "Changes since 0 exported successfully to " + file.getPath()
+        + ". High-water mark: ";
+    assertTrue(baseline, baseline.startsWith(prefix));
+    long mark = Long.parseLong(baseline.substring(prefix.length()));
+    List<String> lines = Files.readAllLines(file.toPath(), Charset.defaultCharset());
+    assertEquals(4, lines.size());
+    assertEquals("Subject,Start Date,Start Time,End Date,End Time,All Day Event,Description,"
+        + "Location,Private,Event Id,Change,Recurrence,Skipped Dates", lines.get(0));
+    assertEquals("\"Event 0\",06/02/2025,09:00 AM,06/02/2025,09:30 AM,False,\"\",\"Room, 0\","
+        + "False,1,Added,,", lines.get(1));
+
+    long[] ids = new long[3];
+    model.forEachEvent("Work", event -> ids[event.getEventName().charAt(6) - '0'] =
+        event.getEventId());
+    model.editEventById("Work", ids[2], "location", "Hall");
+    model.deleteEventById("Work", ids[0]);
+    String delta = new ExportEventsCommand(Arrays.asList(file.getPath(), "--since",
+        String.valueOf(mark)), model, "Work").execute();
+    assertEquals("Changes since " + mark + " exported successfully to " + file.getPath()
+        + ". High-water mark: " + (mark + 2), delta);
+    lines = Files.readAllLines(file.toPath(), Charset.defaultCharset());
+    assertEquals(Arrays.asList(lines.get(0),
+        "\"Event 2\",06/02/2025,11:00 AM,06/02/2025,11:30 AM,False,\"\",\"Hall\",False,3,Edited,,",
+        "\"Event 0\",06/02/2025,09:00 AM,06/02/2025,09:30 AM,False,\"\",\"Room, 0\",False,1,"
+            + "Removed,,"), lines);
+
+    assertEquals("Error: Sequence " + (mark + 3) + " is not between 0 and " + (mark + 2) + ".",
+        new ExportEventsCommand(Arrays.asList(file.getPath(), "--since",
+            String.valueOf(mark + 3)), model, "Work").execute());
+    assertEquals("Error: Sequence 2 is from before the calendar was created or loaded; start "
+        + "again from 0.", new ExportEventsCommand(Arrays.asList(file.getPath(), "--since",
+            "2"), model, "Work").execute());
+    assertEquals(1, tempFolder.getRoot().list().length);
+  }
+
+  @Test
+  public void testSinceExportWritesSeriesWithTheirRules() throws Exception {
+    ICalendarModel model = ICalendarModel.createInstance("listBased");
+    model.createCalendar("Work", "UTC");
+    File file = new File(tempFolder.getRoot(), "changes.csv");
+    String baseline = new ExportEventsCommand(Arrays.asList(file.getPath(), "--since", "0"),
+        model, "Work").execute();
+    long mark = Long.parseLong(baseline.substring(baseline.lastIndexOf(' ') + 1));
+
+    model.addEvent("Work", ICalendarEventDTO.builder()
+        .setEventName("Standup")
+        .setStartDateTime(LocalDateTime.of(2025, 6, 2, 9, 0))
+        .setEndDateTime(LocalDateTime.of(2025, 6, 2, 9, 15))
+        .setRecurring(true)
+        .setRecurrenceDays(Arrays.asList(DayOfWeek.MONDAY, DayOfWeek.THURSDAY))
+        .setRecurrenceCount(4)
+        .setPrivate(false)
+        .setAutoDecline(false)
+        .build());
+    model.editEvent("Work", "location", "Standup", LocalDateTime.of(2025, 6, 5, 9, 0),
+        LocalDateTime.of(2025, 6, 5, 9, 15), "Hall");
+    new ExportEventsCommand(Arrays.asList(file.getPath(), "--since", String.valueOf(mark)),
+        model, "Work").execute();
+
+    List<String> lines = Files.readAllLines(file.toPath(), Charset.defaultCharset());
+    assertEquals(Arrays.asList(lines.get(0),
+        "\"Standup\",06/02/2025,09:00 AM,06/02/2025,09:15 AM,False,\"\",\"\",False,series-1,"
+            + "Added,\"FREQ=WEEKLY;BYDAY=MO,TH;COUNT=4\",06/05/2025",
+        "\"Standup\",06/05/2025,09:00 AM,06/05/2025,09:15 AM,False,\"\",\"Hall\",False,1,"
+            + "Added,,"), lines);
+  }
+
+  @Test
+  public void testSinceFlagArguments() {
+    for (List<String> args : Arrays.asList(Arrays.asList("file.csv", "--since"),
+        Arrays.asList("file.csv", "--since", "-1"), Arrays.asList("file.csv", "--since", "x"),
+        Arrays.asList("file.csv", "--since", "4", "--parallel"))) {
+      try {
+        new ExportEventsCommand(args, new MockModel(), "Cal");
+        fail("Expected " + args + " to be rejected");
+      } catch (IllegalArgumentException e) {
+        assertTrue(e.getMessage(), e.getMessage().startsWith("Missing sequence")
+            || e.getMessage().startsWith("Invalid sequence")
+            || e.getMessage().startsWith("Too many arguments"));
+      }
+    }
+    assertEquals("An unexpected error occurred: This model does not record changes.",
+        new ExportEventsCommand(Arrays.asList(
+            new File(tempFolder.getRoot(), "out.csv").getPath(), "--since", "0"),
+            new MockModel(), "Cal").execute());
+  }
+
+  @Test
+  public void testIcsExportKeepsSeriesAsRulesAndImportsBack() throws Exception {
+    ICalendarModel model = ICalendarModel.createInstance("columnar");
+    model.createCalendar("Work", "America/New_York");
+    model.addEvent("Work", ICalendarEventDTO.builder()
+        .setEventName("Review")
+        .setStartDateTime(LocalDateTime.of(2025, 6, 5, 13, 0))
+        .setEndDateTime(LocalDateTime.of(2025, 6, 5, 14, 30))
+        .setEventDescription("Agenda:\nbudget; hiring, and \\ backlog")
+        .setEventLocation("Room 4")
+        .setPrivate(true)
+        .setAutoDecline(false)
+        .build());
+    model.addEvent("Work", ICalendarEventDTO.builder()
+        .setEventName("Offsite")
+        .setStartDateTime(LocalDateTime.of(2025, 6, 13, 0, 0))
+        .setEndDateTime(LocalDateTime.of(2025, 6, 14, 23, 59, 59))
+        .setPrivate(false)
+        .setAutoDecline(false)
+        .build());
+    model.addEvent("Work", ICalendarEventDTO.builder()
+        .setEventName("Standup")
+        .setStartDateTime(LocalDateTime.of(2025, 6, 2, 9, 0))
+        .setEndDateTime(LocalDateTime.of(2025, 6, 2, 9, 15))
+        .setRecurring(true)
+        .setRecurrenceDays(Arrays.asList(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY))
+        .setRecurrenceCount(6)
+        .setPrivate(false)
+        .setAutoDecline(false)
+        .build());
+    model.addEvent("Work", ICalendarEventDTO.builder()
+        .setEventName("Planning")
+        .setStartDateTime(LocalDateTime.of(2025, 6, 3, 22, 0))
+        .setEndDateTime(LocalDateTime.of(2025, 6, 3, 23, 0))
+        .setRecurring(true)
+        .setRecurrenceDays(Collections.singletonList(DayOfWeek.TUESDAY))
+        .setRecurrenceEndDate(LocalDateTime.of(2025, 7, 1, 22, 0))
+        .setPrivate(false)
+        .setAutoDecline(false)
+        .build());
+    assertTrue(model.editEvent("Work", "location", "Standup", LocalDateTime.of(2025, 6, 4, 9, 0),
+        LocalDateTime.of(2025, 6, 4, 9, 15), "Room 9"));
+
+    File file = new File(tempFolder.getRoot(), "work.ics");
+    assertEquals("Events exported successfully to " + file.getPath(),
+        new ExportEventsCommand(Collections.singletonList(file.getPath()), model, "Work")
+            .execute());
+    String ics = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    assertTrue(ics, ics.contains("RRULE:FREQ=WEEKLY;BYDAY=MO,WE;COUNT=6\r\n"));
+    assertTrue(ics, ics.contains("EXDATE;TZID=America/New_York:20250604T090000\r\n"));
+    // 22:00 in New York on 1 July is 02:00 on 2 July in UTC
+    assertTrue(ics, ics.contains("RRULE:FREQ=WEEKLY;BYDAY=TU;UNTIL=20250702T020000Z\r\n"));
+    assertTrue(ics, ics.contains("DTSTART;VALUE=DATE:20250613\r\nDTEND;VALUE=DATE:20250615\r\n"));
+    assertTrue(ics, ics.contains("DESCRIPTION:Agenda:\\nbudget\\; hiring\\, and \\\\ backlog\r\n"));
+    assertTrue(ics, ics.contains("CLASS:PRIVATE\r\n"));
+    // Series keep the ids the delta export gives them
+    assertTrue(ics, ics.contains("UID:series-1@calendly\r\n"));
+    assertTrue(ics, ics.contains("UID:series-2@calendly\r\n"));
+    assertEquals(5, ics.split("BEGIN:VEVENT", -1).length - 1);
+
+    model.createCalendar("Copy", "America/New_York");
+    assertEquals("Successfully imported 5 events to calendar 'Copy' with timezone "
+            + "'America/New_York'",
+        new ImportCalendarCommand(Arrays.asList(file.getPath(), "--timezone", "America/New_York"),
+            model, "Copy").execute());
+    LocalDateTime from = LocalDateTime.of(2025, 6, 1, 0, 0);
+    LocalDateTime to = LocalDateTime.of(2025, 8, 1, 0, 0);
+    assertEquals(describe(model.getEventsInRange("Work", from, to)),
+        describe(model.getEventsInRange("Copy", from, to)));
+    assertEquals(13, model.getEventsInRange("Copy", from, to).size());
+  }
+
+  @Test
+  public void testIcsExportRejectsCsvOptions() {
+    for (String option : Arrays.asList("--parallel", "--since")) {
+      try {
+        new ExportEventsCommand(Arrays.asList("file.ics", option, "0").subList(0,
+            option.equals("--since") ? 3 : 2), new MockModel(), "Cal");
+        fail("Expected " + option + " to be rejected");
+      } catch (IllegalArgumentException e) {
+        assertEquals("--parallel and --since apply to CSV exports only.", e.getMessage());
+      }
+    }
+  }
+
+  private static List<String> describe(List<ICalendarEventDTO> events) {
+    return events.stream()
+        .map(event -> event.getEventName() + " " + event.getStartDateTime() + " "
+            + event.getEndDateTime() + " " + event.getEventDescription() + " "
+            + event.getEventLocation() + " " + event.isPrivate())
+        .sorted()
+        .collect(Collectors.toList());
+  }
 }
@@ -0,0 +1,77 @@
+package controller.command;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+
+import model.ICalendarEventDTO;
+import model.ICalendarModel;
+
+/**
+ * Reports export throughput in rows per second, sequentially and in parallel with 1, 2, 4
+ * and 8 formatting threads.
+ * <p>
+ * Run with {@code java -cp target/classes:target/test-classes
+ * controller.command.ExportThroughputBenchmark [rows] [model type]}. Each mode is run five
+ * times after a warm-up and the best run is reported. Threads beyond the machine's
+ * processors cannot help.
+ * </p>
+ */
+public class ExportThroughputBenchmark {
+
+  public static void main(String[] args) throws IOException {
+    int rowCount = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+    String type = args.length > 1 ? args[1] : "columnar";
+
+    ICalendarModel model = ICalendarModel.createInstance(type);
+    model.createCalendar("Work", "UTC");
+    LocalDateTime base = LocalDateTime.of(2025, 1, 1, 8, 0);
+    for (int i = 0; i < rowCount; i++) {
+      LocalDateTime start = base.plusMinutes(15L * i);
+      model.addEvent("Work", ICalendarEventDTO.builder()
+          .setEventName("Project sync " + i % 300)
+          .setStartDateTime(start)
+          .setEndDateTime(start.plusMinutes(15))
+          .setEventDescription("Agenda: status, blockers and \"next steps\" for stream " + i % 60)
+          .setEventLocation("Building " + i % 5 + ", Room " + (100 + i % 25))
+          .setPrivate(i % 7 == 0)
+          .setAutoDecline(false)
+          .build());
+    }
+
+    Path dir = Files.createTempDirectory("export-benchmark");
+    Path file = dir.resolve("export.csv");
+    System.out.printf("%d processors, %d rows, %s model%n",
+        Runtime.getRuntime().availableProcessors(), rowCount, type);
+    try {
+      report("sequential", new ExportEventsCommand(
+          Collections.singletonList(file.toString()), model, "Work"), rowCount);
+      for (int threads : new int[] {1, 2, 4, 8}) {
+        report(threads + (threads == 1 ? " thread" : " threads"), new ExportEventsCommand(
+            Arrays.asList(file.toString(), "--parallel"), model, "Work", threads,
+            ExportEventsCommand.DEFAULT_ROWS_PER_CHUNK), rowCount);
+      }
+      System.out.printf("file size %d bytes%n", Files.size(file));
+    } finally {
+      Files.deleteIfExists(file);
+      Files.delete(dir);
+    }
+  }
+
+  private static void report(String mode, ExportEventsCommand export, int rowCount) {
+    export.execute();
+    long best = Long.MAX_VALUE;
+    for (int run = 0; run < 5; run++) {
+      long started = System.nanoTime();
+      String result = export.execute();
+      best = Math.min(best, System.nanoTime() - started);
+      if (!result.startsWith("Events exported successfully")) {
+        throw new IllegalStateException(result);
+      }
+    }
+    System.out.printf("%-12s %,12.0f rows/s%n", mode, rowCount * 1e9 / best);
+  }
+}
@@ -0,0 +1,196 @@
+package controller.command;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import model.ICalendarEventDTO;
+
+/**
+ * Tests for {@link IcsWriter}, {@link IcsReader} and {@link IcsCodec}.
+ * Verifies that long lines are folded within 75 octets and unfolded again, that text keeps
+ * its escaped characters, and that events from other applications are read, or rejected,
+ * as this model can hold them.
+ */
+public class IcsCodecTest {
+
+  @Test
+  public void testFoldedTextReadsBack() throws IOException {
+    String text = "Notes; with, commas \\ and a line\nbreak — café 日本語 📅📅📅 "
+        + String.join(" ", Collections.nCopies(40, "word"));
+    StringWriter out = new StringWriter();
+    new IcsWriter(out).text("DESCRIPTION", text).property("SUMMARY", "Short");
+
+    String written = out.toString();
+    for (String line : written.split("\r\n")) {
+      assertTrue(line, line.getBytes(StandardCharsets.UTF_8).length <= 75);
+      assertFalse(line, line.isEmpty() || Character.isLowSurrogate(line.charAt(0))
+          || Character.isLowSurrogate(line.charAt(line.length() > 1 ? 1 : 0)));
+    }
+    assertTrue(written.split("\r\n").length > 3);
+
+    IcsReader reader = new IcsReader(new StringReader(written));
+    assertTrue(reader.next());
+    assertEquals("DESCRIPTION", reader.name());
+    assertEquals(1, reader.lineNumber());
+    assertEquals(text, reader.text());
+    assertTrue(reader.next());
+    assertEquals("SUMMARY", reader.name());
+    assertEquals(written.split("\r\n").length, reader.lineNumber());
+    assertFalse(reader.next());
+  }
+
+  @Test
+  public void testReaderParsesParametersAndLists() throws IOException {
+    IcsReader reader = new IcsReader(new StringReader(
+        "\nexdate;tzid=\"Europe/Paris\";X-NOTE=\"a:b;c\":20250601T090000,\n\t20250608T090000\r\n"
+            + "BROKEN LINE\n"));
+    assertTrue(reader.next());
+    assertEquals("EXDATE", reader.name());
+    assertEquals(2, reader.lineNumber());
+    assertEquals("Europe/Paris", reader.parameter("TZID"));
+    assertEquals("a:b;c", reader.parameter("x-note"));
+    assertNull(reader.parameter("VALUE"));
+    assertEquals(Arrays.asList("20250601T090000", "20250608T090000"), reader.values());
+    try {
+      reader.next();
+      fail("Expected a line without a value to be rejected");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Missing value for BROKEN LINE", e.getMessage());
+    }
+    assertFalse(reader.next());
+  }
+
+  @Test
+  public void testDatesFormatAndParse() {
+    LocalDateTime time = LocalDateTime.of(2025, 3, 9, 7, 5, 3);
+    assertEquals("20250309T070503", IcsWriter.formatDateTime(time));
+    assertEquals(time, IcsReader.parseDateTime("20250309T070503"));
+    assertEquals(LocalDate.of(999, 1, 2), IcsReader.parseDate(IcsWriter.formatDate(
+        LocalDate.of(999, 1, 2))));
+    for (String bad : Arrays.asList("20250230", "2025013", "2025-1-01")) {
+      try {
+        IcsReader.parseDate(bad);
+        fail("Expected " + bad + " to be rejected");
+      } catch (RuntimeException e) {
+        assertEquals("Invalid date: " + bad, e.getMessage());
+      }
+    }
+  }
+
+  @Test
+  public void testEventsFromOtherApplicationsAreRead() throws IOException {
+    String ics = String.join("\r\n",
+        "BEGIN:VCALENDAR",
+        "VERSION:2.0",
+        "BEGIN:VTIMEZONE",
+        "TZID:Europe/Paris",
+        "BEGIN:STANDARD",
+        "DTSTART:19701025T030000",
+        "END:STANDARD",
+        "END:VTIMEZONE",
+        "BEGIN:VEVENT",
+        "UID:weekly@example.com",
+        "DTSTART;TZID=Europe/Paris:20250602T150000",
+        "DURATION:PT45M",
+        "RRULE:FREQ=DAILY;COUNT=10;WKST=MO",
+        "EXDATE;TZID=Europe/Paris:20250604T150000",
+        "SUMMARY:Sync",
+        "CLASS:CONFIDENTIAL",
+        "BEGIN:VALARM",
+        "TRIGGER:-PT15M",
+        "SUMMARY:Not the event",
+        "END:VALARM",
+        "END:VEVENT",
+        "BEGIN:VEVENT",
+        "UID:weekly@example.com",
+        "RECURRENCE-ID;TZID=Europe/Paris:20250606T150000",
+        "DTSTART:20250606T140000Z",
+        "DTEND:20250606T150000Z",
+        "SUMMARY:Sync (moved)",
+        "END:VEVENT",
+        "BEGIN:VEVENT",
+        "DTSTART;VALUE=DATE:20250610",
+        "SUMMARY:Holiday",
+        "END:VEVENT",
+        "END:VCALENDAR", "");
+    List<String> errors = new ArrayList<>();
+    List<ICalendarEventDTO> events = IcsCodec.readEvents(new StringReader(ics),
+        ZoneId.of("UTC"), errors);
+
+    assertEquals(Collections.emptyList(), errors);
+    assertEquals(3, events.size());
+    ICalendarEventDTO series = events.get(0);
+    assertEquals("Sync", series.getEventName());
+    assertEquals(LocalDateTime.of(2025, 6, 2, 13, 0), series.getStartDateTime());
+    assertEquals(LocalDateTime.of(2025, 6, 2, 13, 45), series.getEndDateTime());
+    assertTrue(series.isRecurring());
+    assertTrue(series.isPrivate());
+    assertEquals(Arrays.asList(DayOfWeek.values()), series.getRecurrenceDays());
+    assertEquals(Integer.valueOf(10), series.getRecurrenceCount());
+    assertEquals(Arrays.asList(LocalDate.of(2025, 6, 4), LocalDate.of(2025, 6, 6)),
+        series.getRecurrenceExceptions());
+
+    assertEquals("Sync (moved)", events.get(1).getEventName());
+    assertEquals(LocalDateTime.of(2025, 6, 6, 14, 0), events.get(1).getStartDateTime());
+    assertFalse(events.get(1).isRecurring());
+    assertEquals(LocalDateTime.of(2025, 6, 10, 0, 0), events.get(2).getStartDateTime());
+    assertEquals(LocalDateTime.of(2025, 6, 10, 23, 59, 59), events.get(2).getEndDateTime());
+  }
+
+  @Test
+  public void testUnsupportedEventsAreReportedWithTheirLines() throws IOException {
+    String ics = String.join("\n",
+        "BEGIN:VEVENT",
+        "DTSTART:20250602T090000",
+        "DTEND:20250602T100000",
+        "RRULE:FREQ=MONTHLY;BYMONTHDAY=2;COUNT=3",
+        "SUMMARY:Monthly",
+        "END:VEVENT",
+        "BEGIN:VEVENT",
+        "DTSTART;TZID=Mars/Olympus:20250602T090000",
+        "SUMMARY:Far away",
+        "END:VEVENT",
+        "BEGIN:VEVENT",
+        "DTSTART:20250602T090000",
+        "DTEND:20250602T100000",
+        "RRULE:FREQ=WEEKLY;INTERVAL=2;COUNT=3",
+        "SUMMARY:Fortnightly",
+        "END:VEVENT",
+        "BEGIN:VEVENT",
+        "DTSTART:20250602T090000",
+        "DTEND:20250602T100000",
+        "SUMMARY:Kept",
+        "END:VEVENT",
+        "BEGIN:VEVENT",
+        "SUMMARY:Unfinished");
+    List<String> errors = new ArrayList<>();
+    List<ICalendarEventDTO> events = IcsCodec.readEvents(new StringReader(ics),
+        ZoneId.of("UTC"), errors);
+
+    assertEquals(1, events.size());
+    assertEquals("Kept", events.get(0).getEventName());
+    assertEquals(Arrays.asList(
+        "Line 22: Event is not ended",
+        "Line 1: Unsupported recurrence rule: FREQ=MONTHLY;BYMONTHDAY=2;COUNT=3",
+        "Line 8: Unknown time zone: Mars/Olympus",
+        "Line 11: Unsupported recurrence interval: 2"), errors);
+  }
+}
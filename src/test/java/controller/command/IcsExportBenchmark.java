@@ -0,0 +1,79 @@
+package controller.command;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+
+import model.ICalendarEventDTO;
+import model.ICalendarModel;
+
+/**
+ * Reports the size and export time of a calendar of weekly series as CSV, with a row per
+ * occurrence, and as iCalendar, with an event per series.
+ * <p>
+ * Run with {@code java -cp target/classes:target/test-classes
+ * controller.command.IcsExportBenchmark [series] [weeks]}. Each format is exported five
+ * times after a warm-up and the best run is reported.
+ * </p>
+ */
+public class IcsExportBenchmark {
+
+  public static void main(String[] args) throws IOException {
+    int seriesCount = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+    int weeks = args.length > 1 ? Integer.parseInt(args[1]) : 52;
+
+    ICalendarModel model = ICalendarModel.createInstance("listBased");
+    model.createCalendar("Work", "Europe/Paris");
+    LocalDateTime base = LocalDateTime.of(2025, 1, 6, 8, 0);
+    for (int i = 0; i < seriesCount; i++) {
+      // Series a minute apart never overlap, whatever their days
+      LocalDateTime start = base.plusMinutes(i % 600).plusDays(i / 600 % 5);
+      model.addEvent("Work", ICalendarEventDTO.builder()
+          .setEventName("Project sync " + i % 300)
+          .setStartDateTime(start)
+          .setEndDateTime(start.plusSeconds(50))
+          .setEventDescription("Agenda: status, blockers and next steps for stream " + i % 60)
+          .setEventLocation("Building " + i % 5 + ", Room " + (100 + i % 25))
+          .setRecurring(true)
+          .setRecurrenceDays(Collections.singletonList(start.getDayOfWeek()))
+          .setRecurrenceCount(weeks)
+          .setPrivate(i % 7 == 0)
+          .setAutoDecline(false)
+          .build());
+    }
+
+    Path dir = Files.createTempDirectory("ics-benchmark");
+    System.out.printf("%d series of %d weeks, %d occurrences%n", seriesCount, weeks,
+        (long) seriesCount * weeks);
+    try {
+      for (String name : Arrays.asList("export.csv", "export.ics")) {
+        Path file = dir.resolve(name);
+        report(name.substring(name.indexOf('.') + 1), new ExportEventsCommand(
+            Collections.singletonList(file.toString()), model, "Work"), file);
+      }
+    } finally {
+      for (String name : Arrays.asList("export.csv", "export.ics")) {
+        Files.deleteIfExists(dir.resolve(name));
+      }
+      Files.delete(dir);
+    }
+  }
+
+  private static void report(String format, ExportEventsCommand export, Path file)
+      throws IOException {
+    export.execute();
+    long best = Long.MAX_VALUE;
+    for (int run = 0; run < 5; run++) {
+      long started = System.nanoTime();
+      String result = export.execute();
+      best = Math.min(best, System.nanoTime() - started);
+      if (!result.startsWith("Events exported successfully")) {
+        throw new IllegalStateException(result);
+      }
+    }
+    System.out.printf("%-4s %,14d bytes %,10.1f ms%n", format, Files.size(file), best / 1e6);
+  }
+}
@@ -326,4 +326,23 @@ public class ImportCalendarAdditionalTest {
       return true;
     }
   }
-}
\ No newline at end of file
+
+  // Spaces around a quoted subject are not part of it, on either side of the quotes
+  @Test
+  public void testSpacesAroundQuotedSubjectAreDropped() throws IOException {
+    File csvFile = tempFolder.newFile("spaced.csv");
+    try (FileWriter writer = new FileWriter(csvFile)) {
+      writer.write("Subject,Start Date,Start Time,End Date,End Time,All Day Event,Description,Location,Private\n");
+      writer.write("  \"Spaced Name\"  ,01/01/2023,10:00 AM,01/01/2023,11:00 AM,False,\"Notes\" ,Room,False\n");
+    }
+    ICalendarModel calendars = ICalendarModel.createInstance("listBased");
+    calendars.createCalendar("Work", "UTC");
+    String result = new ImportCalendarCommand(Arrays.asList(csvFile.getAbsolutePath(),
+        "--timezone", "UTC"), calendars, "Work").execute();
+    assertTrue(result, result.startsWith("Successfully imported 1 events"));
+    ICalendarEventDTO event = calendars.getEventsInSpecificDateTime("Work",
+        LocalDateTime.of(2023, 1, 1, 10, 30)).get(0);
+    assertEquals("Spaced Name", event.getEventName());
+    assertEquals("Notes", event.getEventDescription());
+  }
+}
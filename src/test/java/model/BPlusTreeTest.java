@@ -0,0 +1,130 @@
+package model;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link BPlusTree} and {@link PageFile} classes.
+ * Verifies lookups and ordered scans against a {@link TreeMap} while a small page cache
+ * keeps evicting pages.
+ */
+
+public class BPlusTreeTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private PageFile pages;
+
+  @Before
+  public void setup() throws IOException {
+    pages = new PageFile(folder.getRoot().toPath().resolve("tree.pages"),
+        PageFile.MIN_CAPACITY);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    pages.close();
+  }
+
+  @Test
+  public void testPutGetReplaceAndRemove() {
+    BPlusTree tree = new BPlusTree(pages, 2, 1);
+    long[] value = new long[1];
+    assertTrue(tree.put(new long[] {1, -5}, new long[] {10}));
+    assertTrue(tree.put(new long[] {1, 7}, new long[] {20}));
+    assertFalse(tree.put(new long[] {1, -5}, new long[] {30}));
+
+    assertEquals(2, tree.size());
+    assertTrue(tree.get(new long[] {1, -5}, value));
+    assertEquals(30, value[0]);
+    assertFalse(tree.get(new long[] {2, -5}, value));
+    assertTrue(tree.remove(new long[] {1, 7}));
+    assertFalse(tree.remove(new long[] {1, 7}));
+    assertEquals(1, tree.size());
+  }
+
+  @Test
+  public void testMatchesTreeMapWhilePagesAreEvicted() {
+    BPlusTree tree = new BPlusTree(pages, 2, 2);
+    TreeMap<String, long[]> expected = new TreeMap<>();
+    Random random = new Random(7);
+    for (int i = 0; i < 60_000; i++) {
+      long[] key = {random.nextInt(4), random.nextInt(40_000) - 20_000};
+      if (random.nextInt(4) == 0) {
+        assertEquals(expected.remove(name(key)) != null, tree.remove(key));
+      } else {
+        long[] value = {i, -i};
+        assertEquals(!expected.containsKey(name(key)), tree.put(key, value));
+        expected.put(name(key), value);
+      }
+    }
+    assertEquals(expected.size(), tree.size());
+    assertTrue(pages.getPageCount() > 10 * PageFile.MIN_CAPACITY);
+    assertTrue(pages.getCachedPages() <= PageFile.MIN_CAPACITY);
+
+    // A scan from the middle of calendar 2 visits every later key in order
+    long[] from = {2, 0};
+    Iterator<Map.Entry<String, long[]>> expectedEntries =
+        expected.tailMap(name(from), true).entrySet().iterator();
+    BPlusTree.Cursor cursor = tree.seek(from);
+    long[] key = new long[2];
+    long[] value = new long[2];
+    while (cursor.next(key, value)) {
+      Map.Entry<String, long[]> entry = expectedEntries.next();
+      assertEquals(entry.getKey(), name(key));
+      assertArrayEquals(entry.getValue(), value);
+    }
+    assertFalse(expectedEntries.hasNext());
+    for (Map.Entry<String, long[]> entry : expected.entrySet()) {
+      String[] parts = entry.getKey().split(",");
+      assertTrue(tree.get(new long[] {Long.parseLong(parts[0]),
+          Long.parseLong(parts[1]) - 100_000}, value));
+      assertArrayEquals(entry.getValue(), value);
+    }
+  }
+
+  @Test
+  public void testOrderedLoadFillsPages() {
+    BPlusTree tree = new BPlusTree(pages, 1, 0);
+    for (long key = 0; key < 100_000; key++) {
+      tree.put(new long[] {key}, new long[0]);
+    }
+    // 511 keys fit in a leaf; half-full pages would need twice as many
+    assertTrue(pages.getPageCount() < 100_000 / 511 + 10);
+    BPlusTree.Cursor cursor = tree.seek(new long[] {Long.MIN_VALUE});
+    long[] key = new long[1];
+    for (long expected = 0; expected < 100_000; expected++) {
+      assertTrue(cursor.next(key, new long[0]));
+      assertEquals(expected, key[0]);
+    }
+    assertFalse(cursor.next(key, new long[0]));
+  }
+
+  @Test
+  public void testPageCacheMustHoldAFewPages() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new PageFile(folder.getRoot().toPath().resolve("small.pages"), 2));
+    assertThrows(IllegalArgumentException.class, () -> pages.read(0));
+  }
+
+  // Orders like the tree, as long as the keys stay within the offset
+  private static String name(long[] key) {
+    return String.format("%d,%07d", key[0], key[1] + 100_000);
+  }
+}
@@ -4,6 +4,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -81,4 +82,28 @@ public class CalendarEventTest {
 
     assertFalse(event.doesEventConflict(nonOverlapping));
   }
+
+  @Test
+  public void testBindToKeepsWallClockTimes() {
+    CalendarZone zone = new CalendarZone(ZoneId.of("America/New_York"));
+    event.bindTo(zone);
+
+    assertEquals(LocalDateTime.of(2025, 5, 1, 10, 0), event.getStartDateTime());
+    zone.setZoneId(ZoneId.of("Europe/London"));
+    assertEquals(LocalDateTime.of(2025, 5, 1, 15, 0), event.getStartDateTime());
+    assertEquals(LocalDateTime.of(2025, 5, 1, 16, 0), event.getEndDateTime());
+  }
+
+  @Test
+  public void testBindToMovesEventStartingInGap() {
+    CalendarEvent gap = CalendarEvent.builder()
+          .setEventName("Gap")
+          .setStartDateTime(LocalDateTime.of(2025, 3, 9, 2, 0))
+          .setEndDateTime(LocalDateTime.of(2025, 3, 9, 3, 0))
+          .build();
+    gap.bindTo(new CalendarZone(ZoneId.of("America/New_York")));
+
+    assertEquals(LocalDateTime.of(2025, 3, 9, 3, 0), gap.getStartDateTime());
+    assertEquals(LocalDateTime.of(2025, 3, 9, 4, 0), gap.getEndDateTime());
+  }
 }
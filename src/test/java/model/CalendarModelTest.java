@@ -56,6 +56,45 @@ public class CalendarModelTest {
     assertNotNull(model);
   }
 
+  @Test
+  public void createInstance_withColumnarType_storesEvents() {
+    ICalendarModel model = ICalendarModel.createInstance("columnar");
+    model.createCalendar("Work", "America/New_York");
+    model.addEvent("Work", CalendarEventDTO.builder()
+        .setEventName("Meeting")
+        .setStartDateTime(LocalDateTime.of(2025, 5, 1, 10, 0))
+        .setEndDateTime(LocalDateTime.of(2025, 5, 1, 11, 0))
+        .setAutoDecline(true)
+        .build());
+
+    List<ICalendarEventDTO> events = model.getEventsInSpecificDateTime("Work",
+        LocalDateTime.of(2025, 5, 1, 10, 30));
+    assertEquals(1, events.size());
+    assertEquals("Meeting", events.get(0).getEventName());
+  }
+
+  @Test
+  public void editEvents_renameReleasesOldNameFromDictionary() {
+    model.createCalendar("Work", "America/New_York");
+    for (int day = 1; day <= 3; day++) {
+      model.addEvent("Work", CalendarEventDTO.builder()
+          .setEventName("Standup")
+          .setStartDateTime(LocalDateTime.of(2025, 5, day, 9, 0))
+          .setEndDateTime(LocalDateTime.of(2025, 5, day, 9, 30))
+          .setAutoDecline(true)
+          .build());
+    }
+    assertTrue(model.getDictionary().find("Standup") >= 0);
+
+    model.editEvents("Work", "name", "Standup", LocalDateTime.of(2025, 5, 1, 0, 0),
+        "Sync", true);
+
+    assertEquals(StringDictionary.NOT_FOUND, model.getDictionary().find("Standup"));
+    assertEquals(3, model.getEventsInRange("Work", LocalDateTime.of(2025, 5, 1, 0, 0),
+        LocalDateTime.of(2025, 5, 4, 0, 0)).stream()
+        .filter(e -> e.getEventName().equals("Sync")).count());
+  }
+
   @Test(expected = IllegalArgumentException.class)
   public void createInstance_withInvalidType_throwsException() {
     ICalendarModel.createInstance("mongoBased");
@@ -367,6 +406,65 @@ public class CalendarModelTest {
     assertTrue(addedEvents.isEmpty());
   }
 
+  @Test
+  public void testAddEvents_ConflictNamesTheEarliestAddedEvent() {
+    model = new CalendarModel();
+    LocalDateTime nine = LocalDateTime.of(2025, 7, 15, 9, 0);
+    ICalendarEventDTO standup = ICalendarEventDTO.builder()
+        .setEventName("Standup")
+        .setStartDateTime(nine.plusHours(1))
+        .setEndDateTime(nine.plusHours(2))
+        .setRecurring(true)
+        .setRecurrenceDays(Arrays.asList(DayOfWeek.TUESDAY))
+        .setRecurrenceCount(3)
+        .setAutoDecline(true)
+        .build();
+    ICalendarEventDTO call = ICalendarEventDTO.builder()
+        .setEventName("Call")
+        .setStartDateTime(nine)
+        .setEndDateTime(nine.plusMinutes(45))
+        .setAutoDecline(true)
+        .build();
+    ICalendarEventDTO review = ICalendarEventDTO.builder()
+        .setEventName("Review")
+        .setStartDateTime(nine.plusHours(1).plusMinutes(30))
+        .setEndDateTime(nine.plusHours(3))
+        .setAutoDecline(true)
+        .build();
+    // Overlaps all three; the message names whichever was added first, not the earliest
+    ICalendarEventDTO clash = ICalendarEventDTO.builder()
+        .setEventName("Clash")
+        .setStartDateTime(nine.plusMinutes(30))
+        .setEndDateTime(nine.plusHours(2))
+        .setAutoDecline(true)
+        .build();
+
+    model.createCalendar("SeriesFirst", "UTC");
+    model.addEvent("SeriesFirst", standup);
+    model.addEvent("SeriesFirst", call);
+    model.createCalendar("ReviewFirst", "UTC");
+    model.addEvent("ReviewFirst", review);
+    model.addEvent("ReviewFirst", call);
+    model.addEvent("ReviewFirst", ICalendarEventDTO.builder()
+        .setEventName("Standup")
+        .setStartDateTime(nine.plusDays(7).plusHours(1))
+        .setEndDateTime(nine.plusDays(7).plusHours(2))
+        .setRecurring(true)
+        .setRecurrenceDays(Arrays.asList(DayOfWeek.TUESDAY))
+        .setRecurrenceCount(2)
+        .setAutoDecline(true)
+        .build());
+
+    IllegalStateException seriesFirst = assertThrows(IllegalStateException.class,
+        () -> model.addEvents("SeriesFirst", Arrays.asList(clash), "UTC"));
+    assertTrue(seriesFirst.getMessage(),
+        seriesFirst.getMessage().contains("conflicts with existing event Standup"));
+    IllegalStateException reviewFirst = assertThrows(IllegalStateException.class,
+        () -> model.addEvents("ReviewFirst", Arrays.asList(clash), "UTC"));
+    assertTrue(reviewFirst.getMessage(),
+        reviewFirst.getMessage().contains("conflicts with existing event Review"));
+  }
+
   @Test
   public void testAddEvents_ConflictingEventsWithoutAutoDecline_ShouldSucceed() {
     model = new CalendarModel();
@@ -4463,9 +4561,404 @@ public class CalendarModelTest {
     }
   }
 
+  private static ICalendarEventDTO timedEvent(String name, LocalDateTime start, int minutes) {
+    return ICalendarEventDTO.builder()
+          .setEventName(name)
+          .setStartDateTime(start)
+          .setEndDateTime(start.plusMinutes(minutes))
+          .setAutoDecline(true)
+          .setPrivate(false)
+          .build();
+  }
 
+  @Test
+  public void testEditEventsRollsBackEarlierEditsOnConflict() {
+    model.createCalendar("Work", "UTC");
+    LocalDateTime day = LocalDateTime.of(2025, 5, 1, 9, 0);
+    for (int i = 0; i < 3; i++) {
+      model.addEvent("Work", timedEvent("Standup", day.plusDays(i), 15));
+    }
+    model.addEvent("Work", timedEvent("Blocker", day.plusDays(2).plusMinutes(30), 30));
 
+    try {
+      model.editEvents("Work", "end", "Standup", day, "2025-05-01T09:45", true);
+      fail("Expected conflict exception");
+    } catch (IllegalStateException e) {
+      assertEquals("Conflict detected after editing end", e.getMessage());
+    }
 
-}
+    // The first two were extended before the third conflicted; all are restored
+    List<ICalendarEventDTO> events = model.getEventsInRange("Work", day, day.plusDays(3));
+    assertEquals(4, events.size());
+    for (ICalendarEventDTO event : events) {
+      if (event.getEventName().equals("Standup")) {
+        assertEquals(LocalTime.of(9, 15), event.getEndDateTime().toLocalTime());
+      }
+    }
+  }
 
+  @Test
+  public void testTransactionRollbackRestoresEveryChange() {
+    model.createCalendar("Work", "America/New_York");
+    model.createCalendar("Home", "UTC");
+    LocalDateTime start = LocalDateTime.of(2025, 5, 1, 10, 0);
+    model.addEvent("Work", timedEvent("Meeting", start, 60));
+    IReadOnlyCalendarModel readOnly = new ReadOnlyCalendarModel(model);
+
+    model.beginTransaction();
+    model.createCalendar("Travel", "Europe/London");
+    model.addEvent("Work", timedEvent("Review", start.plusHours(2), 60));
+    model.editEvents("Work", "name", "Meeting", start, "Sync", true);
+    model.editCalendar("Work", "timezone", "Asia/Tokyo");
+    model.editCalendar("Work", "name", "Office");
+    model.deleteCalendar("Home");
+    model.rollbackTransaction();
+
+    assertEquals(Arrays.asList("Work", "Home"), model.getCalendarNames());
+    assertEquals("America/New_York", model.getCalendarTimeZone("Work"));
+    List<ICalendarEventDTO> events = model.getEventsInRange("Work", start, start.plusDays(1));
+    assertEquals(1, events.size());
+    assertEquals("Meeting", events.get(0).getEventName());
+    assertEquals(start, events.get(0).getStartDateTime());
+    assertEquals(Arrays.asList("Work", "Home"), readOnly.getCalendarNames());
+    assertEquals(1, readOnly.getEventsInRange("Work", start, start.plusDays(1)).size());
+    assertEquals(2, model.getDictionary().size());
+  }
+
+  @Test
+  public void testTransactionCommitKeepsChanges() {
+    ICalendarModel columnar = ICalendarModel.createInstance("columnar");
+    columnar.createCalendar("Work", "UTC");
+    LocalDateTime start = LocalDateTime.of(2025, 5, 1, 10, 0);
+
+    columnar.beginTransaction();
+    columnar.addEvent("Work", timedEvent("Kept", start, 30));
+    columnar.commitTransaction();
+
+    columnar.beginTransaction();
+    columnar.addEvent("Work", timedEvent("Dropped", start.plusHours(1), 30));
+    columnar.copyEvents("Work", start, start.plusHours(2), "Work", LocalDate.of(2025, 5, 2));
+    columnar.rollbackTransaction();
+
+    List<ICalendarEventDTO> events = columnar.getEventsInRange("Work", start,
+          start.plusDays(2));
+    assertEquals(1, events.size());
+    assertEquals("Kept", events.get(0).getEventName());
+  }
+
+  @Test
+  public void testTransactionsMustBeOpenedOnce() {
+    assertThrows(IllegalStateException.class, () -> model.commitTransaction());
+    assertThrows(IllegalStateException.class, () -> model.rollbackTransaction());
+    model.beginTransaction();
+    assertThrows(IllegalStateException.class, () -> model.beginTransaction());
+    model.commitTransaction();
+
+    ICalendarModel concurrent = ICalendarModel.createInstance("concurrent");
+    assertThrows(IllegalStateException.class, () -> concurrent.rollbackTransaction());
+    concurrent.beginTransaction();
+    assertThrows(IllegalStateException.class, () -> concurrent.beginTransaction());
+    concurrent.commitTransaction();
+  }
+
+  @Test
+  public void testNameLookupsFollowRenames() {
+    for (String type : Arrays.asList("listBased", "columnar", "offHeap", "diskBased")) {
+      ICalendarModel calendarModel = ICalendarModel.createInstance(type);
+      calendarModel.createCalendar("Work", "UTC");
+      calendarModel.createCalendar("Copy", "UTC");
+      LocalDateTime day = LocalDateTime.of(2025, 5, 1, 9, 0);
+      for (int i = 0; i < 5; i++) {
+        calendarModel.addEvent("Work", timedEvent("Standup", day.plusDays(i), 15));
+      }
+
+      calendarModel.editEvents("Work", "name", "Standup", day.plusDays(2), "Sync", true);
+
+      assertEquals(type, 3, calendarModel.getEventsInRange("Work", day, day.plusDays(5))
+            .stream().filter(e -> e.getEventName().equals("Sync")).count());
+      assertTrue(calendarModel.editEvent("Work", "location", "Sync", day.plusDays(3),
+            day.plusDays(3).plusMinutes(15), "Room 4"));
+      assertThrows(IllegalStateException.class, () -> calendarModel.editEvent("Work",
+            "location", "Standup", day.plusDays(3), day.plusDays(3).plusMinutes(15), "Room 5"));
+      assertTrue(calendarModel.copyEvent("Work", day.plusDays(4), "sync", "Copy",
+            day.plusDays(10)));
+      assertEquals("Sync", calendarModel.getEventsInRange("Copy", day, day.plusDays(20))
+            .get(0).getEventName());
+    }
+  }
+
+  @Test
+  public void testEventIdsStayStableAcrossEdits() {
+    for (String type : Arrays.asList("listBased", "columnar", "offHeap", "diskBased")) {
+      ICalendarModel calendarModel = ICalendarModel.createInstance(type);
+      calendarModel.createCalendar("Work", "UTC");
+      calendarModel.createCalendar("Home", "UTC");
+      LocalDateTime start = LocalDateTime.of(2025, 5, 1, 9, 0);
+      calendarModel.addEvent("Work", timedEvent("Standup", start, 15));
+      calendarModel.addEvent("Work", timedEvent("Review", start.plusHours(2), 60));
+      Long id = calendarModel.getEventsInSpecificDateTime("Work", start).get(0).getEventId();
+      assertNotNull(type, id);
+
+      calendarModel.editEvents("Work", "name", "Standup", start, "Sync", true);
+      assertTrue(calendarModel.editEventById("Work", id, "start", "2025-05-01T08:30"));
+
+      ICalendarEventDTO edited = calendarModel.getEventsInSpecificDateTime("Work",
+            start.minusMinutes(15)).get(0);
+      assertEquals(type, id, edited.getEventId());
+      assertEquals("Sync", edited.getEventName());
+
+      assertTrue(calendarModel.copyEventById("Work", id, "Home", start.plusDays(1)));
+      ICalendarEventDTO copy = calendarModel.getEventsInRange("Home", start,
+            start.plusDays(2)).get(0);
+      assertEquals("Sync", copy.getEventName());
+      assertNotNull(copy.getEventId());
+      assertFalse(id.equals(copy.getEventId()));
+
+      assertTrue(calendarModel.deleteEventById("Work", id));
+      List<ICalendarEventDTO> left = calendarModel.getEventsInRange("Work", start.minusDays(1),
+            start.plusDays(1));
+      assertEquals(type, 1, left.size());
+      assertEquals("Review", left.get(0).getEventName());
+      assertThrows(IllegalStateException.class,
+            () -> calendarModel.editEventById("Work", id, "location", "Room 1"));
+      assertEquals(1, new ReadOnlyCalendarModel(calendarModel).getEventsInRange("Work",
+            start.minusDays(1), start.plusDays(1)).size());
+    }
+  }
+
+  @Test
+  public void testRollbackRestoresDeletedEventsUnderTheirIds() {
+    for (String type : Arrays.asList("listBased", "columnar", "offHeap", "diskBased")) {
+      ICalendarModel calendarModel = ICalendarModel.createInstance(type);
+      calendarModel.createCalendar("Work", "UTC");
+      LocalDateTime start = LocalDateTime.of(2025, 5, 1, 9, 0);
+      List<Long> ids = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        calendarModel.addEvent("Work", timedEvent("E" + i, start.plusHours(i), 30));
+        ids.add(calendarModel.getEventsInSpecificDateTime("Work", start.plusHours(i)).get(0)
+              .getEventId());
+      }
+
+      calendarModel.beginTransaction();
+      calendarModel.editEventById("Work", ids.get(1), "location", "Room 9");
+      calendarModel.deleteEventById("Work", ids.get(1));
+      calendarModel.addEvent("Work", timedEvent("Late", start.plusHours(8), 30));
+      calendarModel.deleteEventById("Work", ids.get(0));
+      calendarModel.rollbackTransaction();
+
+      List<ICalendarEventDTO> events = calendarModel.getEventsInRange("Work", start,
+            start.plusDays(1));
+      assertEquals(type, 4, events.size());
+      for (int i = 0; i < 4; i++) {
+        assertEquals(type, "E" + i, events.get(i).getEventName());
+        assertEquals(type, ids.get(i), events.get(i).getEventId());
+        assertEquals(type, "", events.get(i).getEventLocation());
+      }
+      assertTrue(calendarModel.editEventById("Work", ids.get(3), "name", "Last"));
+    }
+  }
+
+  @Test
+  public void testForEachEventMatchesWholeRangeQuery() {
+    for (String type : Arrays.asList("listBased", "columnar", "concurrent", "offHeap",
+          "diskBased")) {
+      ICalendarModel calendarModel = ICalendarModel.createInstance(type);
+      calendarModel.createCalendar("Work", "UTC");
+      LocalDateTime start = LocalDateTime.of(2025, 5, 1, 9, 0);
+      for (int i = 0; i < 40; i++) {
+        calendarModel.addEvent("Work", timedEvent("E" + i, start.plusHours(i * 17 % 40), 30));
+      }
+      calendarModel.addEvent("Work", CalendarEventDTO.builder()
+            .setEventName("Standup")
+            .setStartDateTime(start.plusMinutes(30))
+            .setEndDateTime(start.plusMinutes(45))
+            .setAutoDecline(false)
+            .setRecurring(true)
+            .setRecurrenceCount(4)
+            .setRecurrenceDays(Arrays.asList(DayOfWeek.MONDAY, DayOfWeek.THURSDAY))
+            .setPrivate(false)
+            .build());
+      calendarModel.addEvent("Work", CalendarEventDTO.builder()
+            .setEventName("Review")
+            .setStartDateTime(start.plusMinutes(30))
+            .setEndDateTime(start.plusMinutes(50))
+            .setAutoDecline(false)
+            .setRecurring(true)
+            .setRecurrenceCount(3)
+            .setRecurrenceDays(Arrays.asList(DayOfWeek.THURSDAY, DayOfWeek.FRIDAY))
+            .setPrivate(false)
+            .build());
+
+      List<String> expected = new ArrayList<>();
+      for (ICalendarEventDTO event : calendarModel.getEventsInRange("Work", LocalDateTime.MIN,
+            LocalDateTime.MAX)) {
+        expected.add(event.getEventName() + "@" + event.getStartDateTime());
+      }
+      List<String> actual = new ArrayList<>();
+      calendarModel.forEachEvent("Work",
+            event -> actual.add(event.getEventName() + "@" + event.getStartDateTime()));
+      assertEquals(type, 47, actual.size());
+      assertEquals(type, expected, actual);
+      assertThrows(IllegalArgumentException.class,
+            () -> calendarModel.forEachEvent("Missing", event -> { }));
+    }
+  }
+
+  @Test
+  public void testChangesSinceListSeries() {
+    for (String type : Arrays.asList("listBased", "columnar", "concurrent", "offHeap",
+          "diskBased")) {
+      ICalendarModel calendarModel = ICalendarModel.createInstance(type);
+      calendarModel.createCalendar("Work", "UTC");
+      LocalDateTime start = LocalDateTime.of(2025, 5, 1, 9, 0);
+      calendarModel.addEvent("Work", timedEvent("Lunch", start.plusHours(3), 30));
+      calendarModel.addEvent("Work", CalendarEventDTO.builder()
+            .setEventName("Standup")
+            .setStartDateTime(start)
+            .setEndDateTime(start.plusMinutes(15))
+            .setAutoDecline(false)
+            .setRecurring(true)
+            .setRecurrenceCount(4)
+            .setRecurrenceDays(Arrays.asList(DayOfWeek.MONDAY, DayOfWeek.THURSDAY))
+            .setPrivate(false)
+            .build());
+
+      List<String> baseline = new ArrayList<>();
+      long mark = calendarModel.forEachChangeSince("Work", 0, change -> baseline.add(
+            change.getKind() + " " + change.getEvent().getEventName() + " "
+                + change.isSeries() + " " + change.getEvent().getRecurrenceCount()));
+      assertEquals(type, Arrays.asList("ADDED Lunch false null", "ADDED Standup true 4"),
+            baseline);
+
+      calendarModel.editEvent("Work", "location", "Standup", start.plusDays(4),
+            start.plusDays(4).plusMinutes(15), "Hall");
+      List<String> detached = new ArrayList<>();
+      long next = calendarModel.forEachChangeSince("Work", mark, change -> detached.add(
+            change.getKind() + " " + change.isSeries() + " " + change.getEvent()
+                .getRecurrenceExceptions()));
+      assertEquals(type, Arrays.asList("EDITED true [2025-05-05]", "ADDED false []"),
+            detached);
+
+      calendarModel.editEvents("Work", "location", "Standup", start, "Room", false);
+      List<String> materialized = new ArrayList<>();
+      calendarModel.forEachChangeSince("Work", next, change -> {
+        if (change.isSeries()) {
+          materialized.add(change.getKind() + " " + change.getEvent().getEventId());
+        }
+      });
+      assertEquals(type, Collections.singletonList("REMOVED 1"), materialized);
+
+      ICalendarModel restarted = ICalendarModel.createInstance(type);
+      restarted.createCalendar("Work", "UTC");
+      for (int i = 0; i < 5; i++) {
+        restarted.addEvent("Work", timedEvent("E" + i, start.plusHours(i), 30));
+      }
+      assertThrows(type, IllegalArgumentException.class,
+            () -> restarted.forEachChangeSince("Work", mark, change -> { }));
+    }
+  }
+
+  @Test
+  public void testTimezoneChangeIsOneChangeListedForEveryEvent() {
+    for (String type : Arrays.asList("listBased", "columnar", "concurrent", "offHeap",
+          "diskBased")) {
+      ICalendarModel calendarModel = ICalendarModel.createInstance(type);
+      calendarModel.createCalendar("Work", "UTC");
+      LocalDateTime start = LocalDateTime.of(2025, 5, 1, 9, 0);
+      for (int i = 0; i < 3; i++) {
+        calendarModel.addEvent("Work", timedEvent("E" + i, start.plusHours(i), 30));
+      }
+      long mark = calendarModel.forEachChangeSince("Work", 0, change -> { });
+      calendarModel.addEvent("Work", timedEvent("E3", start.plusHours(3), 30));
+      calendarModel.editCalendar("Work", "timezone", "Asia/Tokyo");
+      long afterZone = calendarModel.forEachChangeSince("Work", mark, change -> { });
+      assertEquals(type, mark + 2, afterZone);
+      calendarModel.editEvent("Work", "location", "E1", start.plusHours(10),
+            start.plusHours(10).plusMinutes(30), "Hall");
+
+      List<String> changes = new ArrayList<>();
+      calendarModel.forEachChangeSince("Work", mark, change -> changes.add(change.getKind()
+            + " " + change.getEvent().getEventName() + "@"
+            + change.getEvent().getStartDateTime().toLocalTime() + " "
+            + (change.getSequence() - mark)));
+      assertEquals(type, Arrays.asList("EDITED E0@18:00 2", "EDITED E2@20:00 2",
+            "ADDED E3@21:00 2", "EDITED E1@19:00 3"), changes);
+
+      List<String> later = new ArrayList<>();
+      calendarModel.forEachChangeSince("Work", afterZone,
+            change -> later.add(change.getEvent().getEventName()));
+      assertEquals(type, Collections.singletonList("E1"), later);
+    }
+  }
+
+  @Test
+  public void testChangesSinceListAddedEditedAndRemovedEvents() {
+    for (String type : Arrays.asList("listBased", "columnar", "concurrent", "offHeap",
+          "diskBased")) {
+      ICalendarModel calendarModel = ICalendarModel.createInstance(type);
+      calendarModel.createCalendar("Work", "UTC");
+      LocalDateTime start = LocalDateTime.of(2025, 5, 1, 9, 0);
+      for (int i = 0; i < 5; i++) {
+        calendarModel.addEvent("Work", timedEvent("E" + i, start.plusHours(4 - i), 30));
+      }
+      List<String> baseline = new ArrayList<>();
+      long mark = calendarModel.forEachChangeSince("Work", 0,
+            change -> baseline.add(change.getKind() + " " + change.getEvent().getEventName()));
+      assertEquals(type, Arrays.asList("ADDED E4", "ADDED E3", "ADDED E2", "ADDED E1",
+            "ADDED E0"), baseline);
+
+      Map<String, Long> ids = new HashMap<>();
+      calendarModel.forEachEvent("Work",
+            event -> ids.put(event.getEventName(), event.getEventId()));
+      calendarModel.editEventById("Work", ids.get("E1"), "name", "Renamed");
+      calendarModel.deleteEventById("Work", ids.get("E3"));
+      calendarModel.addEvent("Work", timedEvent("E5", start.minusHours(1), 30));
+      calendarModel.addEvent("Work", timedEvent("E6", start.minusHours(2), 30));
+      calendarModel.deleteEventById("Work", calendarModel.getEventsInRange("Work",
+            start.minusHours(2), start.minusHours(2)).get(0).getEventId());
+
+      List<String> changes = new ArrayList<>();
+      long next = calendarModel.forEachChangeSince("Work", mark, change -> {
+        assertTrue(change.getSequence() > mark);
+        changes.add(change.getKind() + " " + change.getEvent().getEventName() + "@"
+            + change.getEvent().getStartDateTime().toLocalTime());
+      });
+      assertEquals(type, Arrays.asList("EDITED Renamed@12:00", "REMOVED E3@10:00",
+            "ADDED E5@08:00"), changes);
+      assertTrue(type, next > mark);
+
+      List<String> none = new ArrayList<>();
+      assertEquals(type, next, calendarModel.forEachChangeSince("Work", next,
+            change -> none.add(change.getEvent().getEventName())));
+      assertEquals(type, Collections.emptyList(), none);
+      assertThrows(IllegalArgumentException.class,
+            () -> calendarModel.forEachChangeSince("Work", next + 1, change -> { }));
+      assertThrows(IllegalArgumentException.class,
+            () -> calendarModel.forEachChangeSince("Work", -1, change -> { }));
+    }
+  }
+
+  @Test
+  public void testAddedSeriesMovesToTheWeekdaysOfTheTargetZone() {
+    ICalendarModel model = ICalendarModel.createInstance("listBased");
+    model.createCalendar("Tokyo", "Asia/Tokyo");
+    // 21:00 on Mondays and Wednesdays in New York is 10:00 on Tuesdays and Thursdays in Tokyo
+    model.addEvents("Tokyo", Collections.singletonList(ICalendarEventDTO.builder()
+        .setEventName("Sync")
+        .setStartDateTime(LocalDateTime.of(2025, 5, 5, 21, 0))
+        .setEndDateTime(LocalDateTime.of(2025, 5, 5, 22, 0))
+        .setRecurring(true)
+        .setRecurrenceDays(Arrays.asList(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY))
+        .setRecurrenceCount(4)
+        .setRecurrenceExceptions(Collections.singletonList(LocalDate.of(2025, 5, 7)))
+        .setAutoDecline(true)
+        .build()), "America/New_York");
 
+    assertEquals(Arrays.asList(LocalDateTime.of(2025, 5, 6, 10, 0),
+            LocalDateTime.of(2025, 5, 13, 10, 0), LocalDateTime.of(2025, 5, 15, 10, 0)),
+        model.getEventsInRange("Tokyo", LocalDateTime.of(2025, 5, 1, 0, 0),
+                LocalDateTime.of(2025, 6, 1, 0, 0)).stream()
+            .map(ICalendarEventDTO::getStartDateTime)
+            .collect(Collectors.toList()));
+  }
+}
@@ -3,7 +3,9 @@ package model;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.time.DayOfWeek;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -12,6 +14,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 /**
  * Unit tests for the {@link Calendar} class.
@@ -118,6 +121,20 @@ public class CalendarTest {
     assertNotEquals(sampleEvent1.getStartDateTime(), updatedEvents.get(0).getStartDateTime());
   }
 
+  @Test
+  public void testTimezoneChangeKeepsEventsAndIndex() {
+    ICalendarEvent meeting = calendar.getEvents().get(0);
+
+    calendar.setTimezone("Europe/London");
+
+    assertSame(meeting, calendar.getEvents().get(0));
+    assertEquals(LocalDateTime.of(2025, 5, 1, 15, 0), meeting.getStartDateTime());
+    assertEquals(LocalDateTime.of(2025, 5, 1, 16, 0), meeting.getEndDateTime());
+    assertEquals(List.of(meeting), calendar.getEventsAt(LocalDateTime.of(2025, 5, 1, 15, 30)));
+    assertEquals(2, calendar.getEventsInRange(LocalDateTime.of(2025, 5, 1, 15, 0),
+          LocalDateTime.of(2025, 5, 1, 18, 30)).size());
+  }
+
   @Test
   public void testSetEventsOverridesList() {
     CalendarEvent sampleEvent1;
@@ -158,4 +175,59 @@ public class CalendarTest {
     assertEquals("Asia/Kolkata", cal.getTimezone());
     assertEquals(1, cal.getEvents().size());
   }
+
+  private EventSeries weeklySeries() {
+    return new EventSeries(ICalendarEventDTO.builder()
+          .setEventName("Standup")
+          .setStartDateTime(LocalDateTime.of(2025, 5, 1, 9, 0))
+          .setEndDateTime(LocalDateTime.of(2025, 5, 1, 9, 30))
+          .setRecurring(true)
+          .setRecurrenceDays(Arrays.asList(DayOfWeek.THURSDAY))
+          .setRecurrenceCount(4)
+          .build(), ZoneId.of("America/New_York"));
+  }
+
+  @Test
+  public void testSeriesOccurrencesAppearInRangeQueriesOnly() {
+    calendar.addSeries(weeklySeries());
+
+    assertEquals(2, calendar.getEvents().size());
+    List<ICalendarEvent> range = calendar.getEventsInRange(LocalDateTime.of(2025, 5, 1, 0, 0),
+          LocalDateTime.of(2025, 5, 31, 0, 0));
+    assertEquals(6, range.size());
+    assertEquals("Standup", range.get(0).getEventName());
+    assertEquals("Meeting", range.get(1).getEventName());
+  }
+
+  @Test
+  public void testSeriesFollowsTimezoneChange() {
+    calendar.addSeries(weeklySeries());
+    calendar.setTimezone("Europe/London");
+
+    List<ICalendarEvent> at = calendar.getEventsAt(LocalDateTime.of(2025, 5, 8, 14, 15));
+    assertEquals(1, at.size());
+    assertEquals(LocalDateTime.of(2025, 5, 8, 14, 0), at.get(0).getStartDateTime());
+  }
+
+  @Test
+  public void testMaterializeSeriesSplitsAtDate() {
+    calendar.addSeries(weeklySeries());
+    calendar.materializeSeries("Standup", LocalDateTime.of(2025, 5, 15, 0, 0));
+
+    assertEquals(4, calendar.getEvents().size());
+    assertEquals(LocalDateTime.of(2025, 5, 8, 9, 0).toLocalDate(),
+          calendar.getSeries().get(0).getLastDate());
+    assertEquals(6, calendar.getEventsInRange(LocalDateTime.of(2025, 5, 1, 0, 0),
+          LocalDateTime.of(2025, 5, 31, 0, 0)).size());
+  }
+
+  @Test
+  public void testDetachOccurrence() {
+    calendar.addSeries(weeklySeries());
+    calendar.detachOccurrence("Standup", LocalDateTime.of(2025, 5, 8, 9, 0),
+          LocalDateTime.of(2025, 5, 8, 9, 30));
+
+    assertEquals(3, calendar.getEvents().size());
+    assertEquals(1, calendar.getEventsAt(LocalDateTime.of(2025, 5, 8, 9, 0)).size());
+  }
 }
@@ -0,0 +1,232 @@
+package model;
+
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link ChangeLog} class.
+ * Verifies that the changes listed after any point match a replay of the full history,
+ * across the compactions a long run of changes causes.
+ */
+
+public class ChangeLogTest {
+
+  private static CalendarSnapshot.FrozenEvent frozen(long eventId) {
+    return new CalendarSnapshot.FrozenEvent(eventId, "Event " + eventId, null, null, true,
+        Instant.ofEpochSecond(eventId * 60), Instant.ofEpochSecond(eventId * 60 + 30));
+  }
+
+  private static List<String> changesSince(ChangeLog log, long since) {
+    List<String> changes = new ArrayList<>();
+    log.forEachSince(since, (kind, sequence, eventId, removed) -> {
+      assertEquals(kind == IEventChange.Kind.REMOVED, removed != null);
+      changes.add(kind + " " + eventId + "@" + sequence);
+    });
+    return changes;
+  }
+
+  @Test
+  public void testKindsOfChanges() {
+    ChangeLog log = new ChangeLog(0);
+    log.touched(1);
+    log.touched(2);
+    log.touched(3);
+    log.touched(2);
+    CalendarSnapshot.FrozenEvent removed = frozen(3);
+    log.removed(removed);
+    log.touched(4);
+    log.removed(frozen(4));
+
+    assertEquals(7, log.sequence());
+    assertEquals(4, log.lastModified(2));
+    assertEquals(0, log.lastModified(9));
+    assertEquals(List.of("ADDED 1@1", "ADDED 2@4"), changesSince(log, 0));
+    assertEquals(List.of("EDITED 2@4", "REMOVED 3@5"), changesSince(log, 3));
+    assertEquals(List.of(), changesSince(log, 7));
+    log.forEachSince(4, (kind, sequence, eventId, event) -> assertSame(removed, event));
+  }
+
+  @Test
+  public void testLogsNumberTheirChangesApart() {
+    ChangeLog first = new ChangeLog();
+    ChangeLog second = new ChangeLog();
+    assertTrue(first.first() > 0);
+    assertNotEquals(first.first(), second.first());
+    assertEquals(first.first(), first.sequence());
+
+    first.touched(1);
+    first.touched(-2);
+    long mark = first.sequence();
+    first.removed(-2, "series");
+    assertEquals(first.first() + 3, first.sequence());
+    assertEquals(List.of("ADDED 1@" + (first.first() + 1)), changesSince(first, first.first()));
+    List<Object> tombstones = new ArrayList<>();
+    first.forEachSince(mark, (kind, sequence, key, removed) -> tombstones.add(removed));
+    assertEquals(List.of("series"), tombstones);
+  }
+
+  @Test
+  public void testChangeToEveryEntryHidesEarlierChanges() {
+    ChangeLog log = new ChangeLog(0);
+    log.touched(1);
+    log.touched(2);
+    log.touched(3);
+    log.removed(frozen(2));
+    log.touchedAll();
+    log.touched(3);
+
+    assertEquals(6, log.sequence());
+    String every = "EDITED " + ChangeLog.EVERY_ENTRY + "@5";
+    assertEquals(List.of(every, "ADDED 3@6"), changesSince(log, 0));
+    assertEquals(List.of("REMOVED 2@4", every, "EDITED 3@6"), changesSince(log, 3));
+    assertEquals(List.of("EDITED 3@6"), changesSince(log, 5));
+    assertTrue(log.addedAfter(3, 2));
+    assertFalse(log.addedAfter(1, 2));
+    assertFalse(log.addedAfter(2, 0));
+  }
+
+  @Test
+  public void testEventAddedBackAfterRemovalCountsAsAdded() {
+    ChangeLog log = new ChangeLog(0);
+    log.touched(1);
+    log.removed(frozen(1));
+    log.touched(1);
+
+    assertEquals(List.of("ADDED 1@3"), changesSince(log, 1));
+    assertEquals(List.of("ADDED 1@3"), changesSince(log, 2));
+    log.removed(frozen(1));
+    assertEquals(List.of("REMOVED 1@4"), changesSince(log, 1));
+    assertEquals(List.of(), changesSince(log, 0));
+  }
+
+  @Test
+  public void testRollbackDropsChangesSinceMark() {
+    ChangeLog log = new ChangeLog(0);
+    // Enough changes under the marks to grow the log past its first capacity
+    for (long id = 1; id <= 10; id++) {
+      log.touched(id);
+    }
+    long[] seriesIds = {5};
+    ChangeLog.Mark outer = log.mark(() -> seriesIds[0] = 5);
+    log.touched(1);
+    ChangeLog.Mark inner = log.mark(() -> { });
+    for (int step = 0; step < 40; step++) {
+      log.touched(11 + step % 3);
+      log.removed(frozen(2));
+    }
+    seriesIds[0] = 9;
+    inner.rollback();
+    assertEquals(11, log.sequence());
+    assertEquals(List.of("EDITED 1@11"), changesSince(log, 10));
+    assertEquals(9, seriesIds[0]);
+
+    log.removed(frozen(3));
+    outer.rollback();
+    assertEquals(10, log.sequence());
+    assertEquals(5, seriesIds[0]);
+    assertEquals(1, log.lastModified(1));
+    assertEquals(0, log.lastModified(11));
+    assertEquals(List.of("ADDED 3@3"), changesSince(log, 2).subList(0, 1));
+
+    // Released changes stay, and the next change continues the sequence
+    ChangeLog.Mark kept = log.mark(() -> { });
+    log.touched(4);
+    kept.release();
+    log.touched(5);
+    assertEquals(List.of("EDITED 4@11", "EDITED 5@12"), changesSince(log, 10));
+  }
+
+  @Test
+  public void testRestoredCopyListsTheSameChanges() {
+    ChangeLog log = new ChangeLog(0);
+    for (long id = 1; id <= 30; id++) {
+      log.touched(1 + id % 7);
+    }
+    log.removed(frozen(3));
+    log.touchedAll();
+    log.touched(-1);
+    ChangeLog copy = log.copy();
+    log.touched(1);
+
+    ChangeLog restored = new ChangeLog(copy.first(), copy.sequence());
+    copy.forEachEntry(restored::restore);
+    assertEquals(copy.entries(), restored.entries());
+    for (long since = 0; since <= copy.sequence(); since++) {
+      assertEquals(changesSince(copy, since), changesSince(restored, since));
+    }
+    assertEquals(33, restored.sequence());
+    assertEquals(List.of("EDITED 1@34"), changesSince(log, 33));
+  }
+
+  @Test
+  public void testMatchesReplayOfHistory() {
+    Random random = new Random(23);
+    ChangeLog log = new ChangeLog(0);
+    // For each sequence, the ids present after it
+    List<Map<Long, Boolean>> present = new ArrayList<>();
+    Map<Long, Long> lastChange = new HashMap<>();
+    Map<Long, Boolean> current = new HashMap<>();
+    present.add(new HashMap<>(current));
+    for (int step = 1; step <= 5000; step++) {
+      long id = 1 + random.nextInt(60);
+      if (Boolean.TRUE.equals(current.get(id)) && random.nextInt(3) == 0) {
+        log.removed(frozen(id));
+        current.put(id, false);
+      } else {
+        log.touched(id);
+        current.put(id, true);
+      }
+      lastChange.put(id, (long) step);
+      present.add(new HashMap<>(current));
+    }
+
+    for (long since = 0; since <= log.sequence(); since += 1 + random.nextInt(97)) {
+      Map<Long, Boolean> before = present.get((int) since);
+      List<long[]> expected = new ArrayList<>();
+      for (Map.Entry<Long, Long> entry : lastChange.entrySet()) {
+        if (entry.getValue() > since) {
+          expected.add(new long[] {entry.getValue(), entry.getKey()});
+        }
+      }
+      expected.sort((a, b) -> Long.compare(a[0], b[0]));
+      List<String> expectedChanges = new ArrayList<>();
+      for (long[] change : expected) {
+        boolean wasThere = Boolean.TRUE.equals(before.get(change[1]));
+        boolean isThere = current.get(change[1]);
+        if (isThere) {
+          // An id removed and stored again in between is new to whoever saw it removed
+          IEventChange.Kind kind = wasThere && !removedBetween(present, since, change[1])
+              ? IEventChange.Kind.EDITED : IEventChange.Kind.ADDED;
+          expectedChanges.add(kind + " " + change[1] + "@" + change[0]);
+        } else if (before.containsKey(change[1])) {
+          expectedChanges.add(IEventChange.Kind.REMOVED + " " + change[1] + "@" + change[0]);
+        }
+      }
+      assertEquals("since " + since, expectedChanges, changesSince(log, since));
+    }
+    assertNull(present.get(0).get(1L));
+  }
+
+  private static boolean removedBetween(List<Map<Long, Boolean>> present, long since,
+                                        long id) {
+    for (int sequence = (int) since + 1; sequence < present.size(); sequence++) {
+      if (!present.get(sequence).get(id)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,201 @@
+package model;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for checkpoints of a {@link JournaledCalendarModel} and the {@link Checkpointer}
+ * taking them in the background.
+ * Verifies that a model reopens from its newest valid snapshot plus the journal after it,
+ * and that files no longer needed are deleted.
+ */
+
+public class CheckpointerTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private static final LocalDateTime START = LocalDateTime.of(2025, 5, 5, 9, 0);
+
+  private Path journal;
+
+  @Before
+  public void setUp() {
+    journal = folder.getRoot().toPath().resolve("calendars.journal");
+  }
+
+  private JournaledCalendarModel open(String fsyncPolicy, Duration interval)
+      throws IOException {
+    return (JournaledCalendarModel) ICalendarModel.openJournaled("columnar", journal,
+        fsyncPolicy, interval);
+  }
+
+  private static ICalendarEventDTO event(String name, LocalDateTime start) {
+    return ICalendarEventDTO.builder()
+        .setEventName(name)
+        .setStartDateTime(start)
+        .setEndDateTime(start.plusMinutes(30))
+        .setEventLocation("Room 1")
+        .setAutoDecline(true)
+        .build();
+  }
+
+  // Every field of every event in every calendar, ids included
+  private static String describe(ICalendarModel model) {
+    StringBuilder description = new StringBuilder();
+    for (String calendar : model.getCalendarNames()) {
+      description.append(calendar).append(' ').append(model.getCalendarTimeZone(calendar));
+      for (ICalendarEventDTO dto : model.getEventsInRange(calendar,
+          LocalDateTime.of(2025, 1, 1, 0, 0), LocalDateTime.of(2026, 1, 1, 0, 0))) {
+        description.append('|').append(dto.getEventId()).append(',')
+            .append(dto.getEventName()).append(',').append(dto.getStartDateTime()).append(',')
+            .append(dto.getEndDateTime()).append(',').append(dto.getEventLocation());
+      }
+      description.append('\n');
+    }
+    return description.toString();
+  }
+
+  @Test
+  public void testReopeningLoadsTheSnapshotAndReplaysTheTail() throws IOException {
+    String before;
+    try (JournaledCalendarModel model = open("always", null)) {
+      model.createCalendar("Work", "America/New_York");
+      model.addEvent("Work", event("Standup", START));
+      assertTrue(model.checkpoint());
+      assertFalse(model.checkpoint());
+
+      model.addEvent("Work", event("Review", START.plusHours(2)));
+      model.editEvents("Work", "location", "Standup", START, "Room 2", true);
+      assertTrue(model.checkpoint());
+      model.createCalendar("Home", "UTC");
+      model.addEvent("Home", event("Dinner", START.plusHours(10)));
+      assertTrue(model.checkpoint());
+      model.addEvent("Work", event("Lunch", START.plusHours(3)));
+      assertEquals(7, model.getLastSequence());
+      before = describe(model);
+    }
+
+    // The first snapshot and the segments before the older kept one are gone
+    assertEquals(Arrays.asList(4L, 6L),
+        new ArrayList<>(JournalFiles.snapshots(journal).keySet()));
+    assertEquals(Arrays.asList(5L, 7L),
+        new ArrayList<>(JournalFiles.segments(journal).keySet()));
+
+    try (JournaledCalendarModel reopened = open("always", null)) {
+      assertEquals(before, describe(reopened));
+      assertEquals(7, reopened.getLastSequence());
+      reopened.addEvent("Home", event("Late", START.plusHours(12)));
+      assertEquals(8, reopened.getLastSequence());
+      before = describe(reopened);
+    }
+    try (JournaledCalendarModel reopened = open("always", null)) {
+      assertEquals(before, describe(reopened));
+    }
+  }
+
+  @Test
+  public void testDamagedSnapshotFallsBackToTheOlderOne() throws IOException {
+    String before;
+    try (JournaledCalendarModel model = open("always", null)) {
+      model.createCalendar("Work", "UTC");
+      model.addEvent("Work", event("Standup", START));
+      model.checkpoint();
+      model.addEvent("Work", event("Review", START.plusHours(2)));
+      model.checkpoint();
+      model.addEvent("Work", event("Lunch", START.plusHours(3)));
+      before = describe(model);
+    }
+    Path newest = JournalFiles.snapshots(journal).lastEntry().getValue();
+    try (FileChannel channel = FileChannel.open(newest, StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.wrap(new byte[] {1, 2, 3, 4}), Files.size(newest) - 8);
+    }
+    try (JournaledCalendarModel reopened = open("always", null)) {
+      assertEquals(before, describe(reopened));
+    }
+  }
+
+  @Test
+  public void testMissingSegmentIsRefused() throws IOException {
+    try (JournaledCalendarModel model = open("always", null)) {
+      model.createCalendar("Work", "UTC");
+      model.checkpoint();
+      model.addEvent("Work", event("Standup", START));
+      model.checkpoint();
+      model.addEvent("Work", event("Review", START.plusHours(2)));
+    }
+    for (Path snapshot : JournalFiles.snapshots(journal).values()) {
+      Files.delete(snapshot);
+    }
+    Files.delete(JournalFiles.segments(journal).firstEntry().getValue());
+    IOException error = assertThrows(IOException.class, () -> open("always", null));
+    assertTrue(error.getMessage().contains("does not continue"));
+  }
+
+  @Test
+  public void testBackgroundCheckpointsDoNotStopChanges() throws Exception {
+    String before;
+    try (JournaledCalendarModel model = open("group:1", Duration.ofMillis(5))) {
+      model.createCalendar("Work", "UTC");
+      List<Thread> writers = new ArrayList<>();
+      for (int w = 0; w < 4; w++) {
+        int writer = w;
+        writers.add(new Thread(() -> {
+          for (int i = 0; i < 200; i++) {
+            model.addEvent("Work", event("Writer " + writer,
+                START.plusDays(7L * writer).plusMinutes(30L * i)));
+          }
+        }));
+      }
+      for (Thread writer : writers) {
+        writer.start();
+      }
+      for (Thread writer : writers) {
+        writer.join();
+      }
+      model.checkpoint();
+      before = describe(model);
+      assertEquals(801, model.getLastSequence());
+    }
+    assertTrue(JournalFiles.snapshots(journal).size() <= 2);
+    try (JournaledCalendarModel reopened = open("always", null)) {
+      assertEquals(before, describe(reopened));
+      assertEquals(801, reopened.getLastSequence());
+    }
+  }
+
+  @Test
+  public void testCheckpointerReportsFailuresAndKeepsRunning() throws Exception {
+    JournaledCalendarModel model = open("always", null);
+    model.createCalendar("Work", "UTC");
+    model.close();
+    try (Checkpointer checkpointer = new Checkpointer(model, Duration.ofMillis(1))) {
+      long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+      while (checkpointer.getLastFailure() == null && System.nanoTime() < deadline) {
+        Thread.sleep(1);
+      }
+      assertTrue(checkpointer.getLastFailure() instanceof IOException);
+    }
+    assertThrows(IllegalArgumentException.class,
+        () -> new Checkpointer(model, Duration.ZERO));
+  }
+}
@@ -0,0 +1,146 @@
+package model;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link ColumnarCalendar} class.
+ * Verifies that the column store answers queries like the list-based calendar and that
+ * event views write through to the columns.
+ */
+
+public class ColumnarCalendarTest {
+
+  private ColumnarCalendar calendar;
+
+  @Before
+  public void setup() {
+    calendar = ColumnarCalendar.builder()
+          .setCalendarName("Work")
+          .setTimezone("America/New_York")
+          .build();
+  }
+
+  private static CalendarEvent event(String name, LocalDateTime start, LocalDateTime end) {
+    return CalendarEvent.builder()
+          .setEventName(name)
+          .setStartDateTime(start)
+          .setEndDateTime(end)
+          .setEventLocation("Room 101")
+          .setPublic(true)
+          .build();
+  }
+
+  private static List<String> describe(List<ICalendarEvent> events) {
+    List<String> described = new ArrayList<>();
+    for (ICalendarEvent event : events) {
+      described.add(event.getEventName() + "@" + event.getStartDateTime());
+    }
+    return described;
+  }
+
+  @Test
+  public void testViewsWriteThroughToColumns() {
+    calendar.addEvent(event("Meeting", LocalDateTime.of(2025, 5, 1, 10, 0),
+          LocalDateTime.of(2025, 5, 1, 11, 0)));
+
+    ICalendarEvent view = calendar.getEvents().get(0);
+    view.setEventName("Review");
+    view.setStartDateTime(LocalDateTime.of(2025, 5, 2, 9, 0));
+    view.setEndDateTime(LocalDateTime.of(2025, 5, 2, 10, 0));
+    view.setPublic(false);
+
+    ICalendarEvent reread = calendar.getEvents().get(0);
+    assertNotSame(view, reread);
+    assertEquals(view, reread);
+    assertEquals("Review", reread.getEventName());
+    assertEquals("Room 101", reread.getEventLocation());
+    assertFalse(reread.isPublic());
+    assertTrue(calendar.getEventsAt(LocalDateTime.of(2025, 5, 1, 10, 30)).isEmpty());
+    assertEquals(1, calendar.getEventsAt(LocalDateTime.of(2025, 5, 2, 9, 30)).size());
+  }
+
+  @Test
+  public void testTimezoneChangeShiftsStoredTimes() {
+    calendar.addEvent(event("Meeting", LocalDateTime.of(2025, 5, 1, 10, 0),
+          LocalDateTime.of(2025, 5, 1, 11, 0)));
+
+    calendar.setTimezone("Europe/London");
+
+    assertEquals(LocalDateTime.of(2025, 5, 1, 15, 0),
+          calendar.getEvents().get(0).getStartDateTime());
+    assertEquals(1, calendar.getEventsAt(LocalDateTime.of(2025, 5, 1, 16, 0)).size());
+  }
+
+  @Test
+  public void testRenamesReleaseStringsNoLongerUsed() {
+    for (int i = 0; i < 100; i++) {
+      LocalDateTime start = LocalDateTime.of(2025, 5, 1, 0, 0).plusHours(i);
+      calendar.addEvent(event("Standup", start, start.plusMinutes(30)));
+    }
+    assertEquals(2, calendar.dictionarySize());
+
+    calendar.getEvents().get(0).setEventName("Retro");
+    calendar.getEvents().get(0).setEventName("Planning");
+    assertEquals(3, calendar.dictionarySize());
+
+    calendar.compact();
+    assertEquals(100, calendar.size());
+    assertEquals("Planning", calendar.getEvents().get(0).getEventName());
+    assertEquals("Standup", calendar.getEvents().get(99).getEventName());
+  }
+
+  @Test
+  public void testSetEventsAcceptsItsOwnViews() {
+    calendar.addEvent(event("A", LocalDateTime.of(2025, 5, 1, 9, 0),
+          LocalDateTime.of(2025, 5, 1, 10, 0)));
+    calendar.addEvent(event("B", LocalDateTime.of(2025, 5, 1, 8, 0),
+          LocalDateTime.of(2025, 5, 1, 9, 0)));
+
+    List<ICalendarEvent> reversed = new ArrayList<>(calendar.getEvents());
+    Collections.reverse(reversed);
+    calendar.setEvents(reversed);
+
+    assertEquals("B", calendar.getEvents().get(0).getEventName());
+    assertEquals("A", calendar.getEvents().get(1).getEventName());
+  }
+
+  @Test
+  public void testQueriesMatchListCalendar() {
+    Calendar reference = Calendar.builder()
+          .setCalendarName("Reference")
+          .setTimezone("America/New_York")
+          .build();
+    Random random = new Random(11);
+    LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+    for (int i = 0; i < 1500; i++) {
+      LocalDateTime start = base.plusMinutes(random.nextInt(60 * 24 * 90));
+      LocalDateTime end = start.plusMinutes(1 + random.nextInt(60 * 24 * 2));
+      calendar.addEvent(event("E" + i, start, end));
+      reference.addEvent(event("E" + i, start, end));
+    }
+
+    for (int q = 0; q < 100; q++) {
+      LocalDateTime from = base.plusMinutes(random.nextInt(60 * 24 * 90));
+      LocalDateTime to = from.plusMinutes(random.nextInt(60 * 24 * 3));
+
+      assertEquals(describe(reference.getEventsInRange(from, to)),
+            describe(calendar.getEventsInRange(from, to)));
+      assertEquals(describe(reference.getEventsAt(from)),
+            describe(calendar.getEventsAt(from)));
+      assertEquals(describe(reference.getEventsOverlapping(from, to)),
+            describe(calendar.getEventsOverlapping(from, to)));
+    }
+  }
+}
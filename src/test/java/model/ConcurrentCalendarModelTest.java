@@ -0,0 +1,205 @@
+package model;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link ConcurrentCalendarModel} class.
+ * Verifies that the model behaves like {@link CalendarModel} and stays consistent and
+ * deadlock-free when several threads use it at once.
+ */
+
+public class ConcurrentCalendarModelTest {
+
+  private ConcurrentCalendarModel model;
+
+  @Before
+  public void setUp() {
+    model = new ConcurrentCalendarModel();
+  }
+
+  private static ICalendarEventDTO event(String name, LocalDateTime start) {
+    return CalendarEventDTO.builder()
+        .setEventName(name)
+        .setStartDateTime(start)
+        .setEndDateTime(start.plusMinutes(30))
+        .setAutoDecline(true)
+        .build();
+  }
+
+  private static void runAll(List<Callable<Object>> tasks) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+    try {
+      List<Future<Object>> futures = new ArrayList<>();
+      for (Callable<Object> task : tasks) {
+        futures.add(executor.submit(task));
+      }
+      for (Future<Object> future : futures) {
+        future.get(30, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testCreateInstanceReturnsConcurrentModel() {
+    ICalendarModel created = ICalendarModel.createInstance("concurrent");
+    assertTrue(created instanceof ConcurrentCalendarModel);
+  }
+
+  @Test
+  public void testBehavesLikeCalendarModel() {
+    model.createCalendar("Work", "America/New_York");
+    model.addEvent("Work", event("Meeting", LocalDateTime.of(2025, 5, 1, 10, 0)));
+    model.editCalendar("Work", "name", "Office");
+
+    assertFalse(model.isCalendarPresent("Work"));
+    assertEquals(1, model.getEventsInSpecificDateTime("Office",
+        LocalDateTime.of(2025, 5, 1, 10, 15)).size());
+    assertTrue(model.deleteCalendar("Office"));
+    assertFalse(model.deleteCalendar("Office"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMissingCalendarStillFails() {
+    model.addEvent("Nowhere", event("Meeting", LocalDateTime.of(2025, 5, 1, 10, 0)));
+  }
+
+  @Test(timeout = 60000)
+  public void testParallelWritersOnSeparateCalendars() throws Exception {
+    int calendars = 4;
+    int eventsPerCalendar = 500;
+    List<Callable<Object>> tasks = new ArrayList<>();
+    for (int c = 0; c < calendars; c++) {
+      String name = "Cal" + c;
+      model.createCalendar(name, "UTC");
+      tasks.add(() -> {
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+        for (int i = 0; i < eventsPerCalendar; i++) {
+          model.addEvent(name, event("E" + i, start.plusHours(i)));
+        }
+        return null;
+      });
+    }
+    runAll(tasks);
+
+    for (int c = 0; c < calendars; c++) {
+      assertEquals(eventsPerCalendar, model.getEventsInRange("Cal" + c,
+          LocalDateTime.of(2025, 1, 1, 0, 0), LocalDateTime.of(2026, 1, 1, 0, 0)).size());
+    }
+  }
+
+  @Test(timeout = 60000)
+  public void testReadersSeeConsistentCalendarWhileWriterEdits() throws Exception {
+    model.createCalendar("Shared", "UTC");
+    LocalDateTime start = LocalDateTime.of(2025, 1, 1, 0, 0);
+    for (int i = 0; i < 200; i++) {
+      model.addEvent("Shared", event("Standup", start.plusDays(i)));
+    }
+
+    List<Callable<Object>> tasks = new ArrayList<>();
+    tasks.add(() -> {
+      for (int i = 0; i < 50; i++) {
+        model.editEvents("Shared", "name", i % 2 == 0 ? "Standup" : "Sync", start,
+            i % 2 == 0 ? "Sync" : "Standup", true);
+      }
+      return null;
+    });
+    for (int r = 0; r < 3; r++) {
+      tasks.add(() -> {
+        for (int i = 0; i < 200; i++) {
+          List<ICalendarEventDTO> events = model.getEventsInRange("Shared", start,
+              start.plusDays(200));
+          assertEquals(200, events.size());
+          // A bulk rename is applied under the write lock, so readers never see it halfway
+          long renamed = events.stream().filter(e -> e.getEventName().equals("Sync")).count();
+          assertTrue(renamed == 0 || renamed == 200);
+        }
+        return null;
+      });
+    }
+    runAll(tasks);
+  }
+
+  @Test(timeout = 60000)
+  public void testOppositeCopiesDoNotDeadlock() throws Exception {
+    model.createCalendar("A", "UTC");
+    model.createCalendar("B", "UTC");
+    model.addEvent("A", event("FromA", LocalDateTime.of(2025, 1, 1, 9, 0)));
+    model.addEvent("B", event("FromB", LocalDateTime.of(2025, 1, 1, 12, 0)));
+
+    int rounds = 200;
+    List<Callable<Object>> tasks = new ArrayList<>();
+    tasks.add(() -> {
+      for (int i = 0; i < rounds; i++) {
+        model.copyEvents("A", LocalDateTime.of(2025, 1, 1, 0, 0),
+            LocalDateTime.of(2025, 1, 1, 10, 0), "B", LocalDate.of(2025, 2, 1).plusDays(i));
+      }
+      return null;
+    });
+    tasks.add(() -> {
+      for (int i = 0; i < rounds; i++) {
+        model.copyEvent("B", LocalDateTime.of(2025, 1, 1, 12, 0), "FromB", "A",
+            LocalDateTime.of(2025, 3, 1, 12, 0).plusDays(i));
+      }
+      return null;
+    });
+    runAll(tasks);
+
+    assertEquals(rounds + 1, model.getEventsInRange("B", LocalDateTime.of(2025, 1, 1, 0, 0),
+        LocalDateTime.of(2026, 1, 1, 0, 0)).size());
+    assertEquals(rounds + 1, model.getEventsInRange("A", LocalDateTime.of(2025, 1, 1, 0, 0),
+        LocalDateTime.of(2026, 1, 1, 0, 0)).size());
+  }
+
+  @Test(timeout = 60000)
+  public void testOtherThreadsWaitForTransaction() throws Exception {
+    LocalDateTime start = LocalDateTime.of(2025, 1, 1, 9, 0);
+    model.createCalendar("A", "UTC");
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      model.beginTransaction();
+      model.addEvent("A", event("Draft", start));
+      model.createCalendar("New", "UTC");
+      model.addEvent("New", event("Draft", start));
+      Future<Integer> reader = executor.submit(() -> model.getEventsInRange("A", start,
+          start.plusDays(1)).size());
+      Future<Boolean> writer = executor.submit(() -> model.addEvent("New",
+          event("Other", start.plusHours(1))));
+      assertThrows(TimeoutException.class, () -> reader.get(200, TimeUnit.MILLISECONDS));
+      assertThrows(TimeoutException.class, () -> writer.get(200, TimeUnit.MILLISECONDS));
+      assertThrows(IllegalStateException.class, model::beginTransaction);
+
+      model.rollbackTransaction();
+      assertEquals(Integer.valueOf(0), reader.get(30, TimeUnit.SECONDS));
+      assertThrows(java.util.concurrent.ExecutionException.class,
+          () -> writer.get(30, TimeUnit.SECONDS));
+      assertFalse(model.isCalendarPresent("New"));
+    } finally {
+      executor.shutdownNow();
+    }
+    assertThrows(IllegalStateException.class, model::commitTransaction);
+
+    model.beginTransaction();
+    model.addEvent("A", event("Kept", start));
+    model.commitTransaction();
+    assertEquals(1, model.getEventsInRange("A", start, start.plusDays(1)).size());
+  }
+}
@@ -0,0 +1,91 @@
+package model;
+
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for the {@link ConflictDetector} class.
+ * Verifies that the sweep reports the same first conflicts as a pairwise comparison.
+ */
+
+public class ConflictDetectorTest {
+
+  private static CalendarEvent event(int startHour, int endHour) {
+    return CalendarEvent.builder()
+          .setEventName("E" + startHour)
+          .setStartDateTime(LocalDateTime.of(2025, 5, 1, startHour, 0))
+          .setEndDateTime(LocalDateTime.of(2025, 5, 1, endHour, 0))
+          .build();
+  }
+
+  @Test
+  public void testAdjacentEventsDoNotConflict() {
+    List<CalendarEvent> candidates = List.of(event(9, 10));
+    List<CalendarEvent> existing = List.of(event(8, 9), event(10, 11));
+
+    assertArrayEquals(new int[] {ConflictDetector.NO_CONFLICT},
+          ConflictDetector.firstConflicts(candidates, existing));
+  }
+
+  @Test
+  public void testReportsLowestIndexOfOverlappingEvent() {
+    List<CalendarEvent> candidates = List.of(event(9, 12), event(20, 21));
+    List<CalendarEvent> existing = List.of(event(11, 13), event(8, 10), event(10, 11));
+
+    assertArrayEquals(new int[] {0, ConflictDetector.NO_CONFLICT},
+          ConflictDetector.firstConflicts(candidates, existing));
+  }
+
+  @Test
+  public void testConflictsWithinBatch() {
+    List<CalendarEvent> candidates = List.of(event(9, 11), event(12, 13), event(10, 12));
+
+    assertArrayEquals(new int[] {2, ConflictDetector.NO_CONFLICT, 0},
+          ConflictDetector.firstConflictsWithin(candidates));
+  }
+
+  @Test
+  public void testMatchesPairwiseComparison() {
+    Random random = new Random(7);
+    LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+    List<CalendarEvent> candidates = new ArrayList<>();
+    List<CalendarEvent> existing = new ArrayList<>();
+    for (int i = 0; i < 600; i++) {
+      LocalDateTime start = base.plusMinutes(random.nextInt(60 * 24 * 30));
+      CalendarEvent e = CalendarEvent.builder()
+            .setEventName("E" + i)
+            .setStartDateTime(start)
+            .setEndDateTime(start.plusMinutes(1 + random.nextInt(180)))
+            .build();
+      (i % 3 == 0 ? candidates : existing).add(e);
+    }
+
+    int[] cross = ConflictDetector.firstConflicts(candidates, existing);
+    int[] within = ConflictDetector.firstConflictsWithin(candidates);
+    for (int i = 0; i < candidates.size(); i++) {
+      int expectedCross = ConflictDetector.NO_CONFLICT;
+      for (int j = 0; j < existing.size(); j++) {
+        if (existing.get(j).doesEventConflict(candidates.get(i))) {
+          expectedCross = j;
+          break;
+        }
+      }
+      int expectedWithin = ConflictDetector.NO_CONFLICT;
+      for (int j = 0; j < candidates.size(); j++) {
+        if (i != j && candidates.get(j).doesEventConflict(candidates.get(i))) {
+          expectedWithin = j;
+          break;
+        }
+      }
+      assertEquals(expectedCross, cross[i]);
+      assertEquals(expectedWithin, within[i]);
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package model;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Reports how much memory the model's string dictionary saves on an import shaped like a
+ * real work calendar: a year of events drawn from a few hundred recurring subjects, a
+ * handful of rooms and descriptions, and some one-off descriptions.
+ * <p>
+ * Run with {@code java -cp target/classes:target/test-classes model.DictionaryMemoryBenchmark
+ * [events]}. Strings are copied per row, as a CSV parser would produce them.
+ * </p>
+ */
+public class DictionaryMemoryBenchmark {
+
+  public static void main(String[] args) {
+    int eventCount = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+    Random random = new Random(2025);
+
+    String[] subjects = new String[300];
+    for (int i = 0; i < subjects.length; i++) {
+      subjects[i] = "Project " + (char) ('A' + i % 26) + " sync " + i;
+    }
+    String[] locations = new String[25];
+    for (int i = 0; i < locations.length; i++) {
+      locations[i] = "Building " + (i % 5 + 1) + ", Room " + (100 + i);
+    }
+    String[] descriptions = new String[60];
+    for (int i = 0; i < descriptions.length; i++) {
+      descriptions[i] = "Agenda: status updates, blockers and next steps for stream " + i;
+    }
+
+    List<ICalendarEventDTO> rows = new ArrayList<>(eventCount);
+    LocalDateTime base = LocalDateTime.of(2025, 1, 1, 8, 0);
+    for (int i = 0; i < eventCount; i++) {
+      LocalDateTime start = base.plusMinutes(15L * i);
+      String description = random.nextInt(10) == 0
+          ? "Follow-up on ticket #" + random.nextInt(1_000_000)
+          : descriptions[random.nextInt(descriptions.length)];
+      rows.add(CalendarEventDTO.builder()
+          .setEventName(new String(subjects[random.nextInt(subjects.length)]))
+          .setStartDateTime(start)
+          .setEndDateTime(start.plusMinutes(15))
+          .setEventLocation(new String(locations[random.nextInt(locations.length)]))
+          .setEventDescription(new String(description))
+          .setPrivate(false)
+          .setAutoDecline(false)
+          .build());
+    }
+
+    CalendarModel model = new CalendarModel();
+    model.createCalendar("Import", "America/New_York");
+    long started = System.nanoTime();
+    model.addEvents("Import", rows, "America/New_York");
+    long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+
+    StringDictionary dictionary = model.getDictionary();
+    System.out.printf("events imported:        %,d in %,d ms%n", eventCount, elapsedMillis);
+    System.out.printf("string references:      %,d%n", dictionary.totalReferences());
+    System.out.printf("distinct strings:       %,d%n", dictionary.size());
+    System.out.printf("estimated bytes saved:  %,d (%.1f bytes per event)%n",
+        dictionary.estimatedSavedBytes(),
+        dictionary.estimatedSavedBytes() / (double) eventCount);
+  }
+}
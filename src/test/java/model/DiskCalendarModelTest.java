@@ -0,0 +1,162 @@
+package model;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link DiskCalendarModel} and {@link DiskCalendar} classes.
+ * Verifies that a model on disk answers like one on the heap while its page cache stays
+ * within its bound.
+ */
+
+public class DiskCalendarModelTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private static final LocalDateTime START = LocalDateTime.of(2025, 5, 5, 9, 0);
+
+  private static ICalendarEventDTO event(String name, LocalDateTime start, int minutes,
+                                         String location) {
+    return ICalendarEventDTO.builder()
+        .setEventName(name)
+        .setStartDateTime(start)
+        .setEndDateTime(start.plusMinutes(minutes))
+        .setEventLocation(location)
+        .setAutoDecline(false)
+        .build();
+  }
+
+  // Every field of every event in every calendar over the given window
+  private static String describe(ICalendarModel model, LocalDateTime from, LocalDateTime to) {
+    StringBuilder description = new StringBuilder();
+    for (String calendar : model.getCalendarNames()) {
+      description.append(calendar).append(' ').append(model.getCalendarTimeZone(calendar));
+      for (ICalendarEventDTO dto : model.getEventsInRange(calendar, from, to)) {
+        description.append('|').append(dto.getEventName()).append(',')
+            .append(dto.getStartDateTime()).append(',').append(dto.getEndDateTime())
+            .append(',').append(dto.getEventLocation()).append(',')
+            .append(dto.getEventDescription()).append(',').append(dto.isPrivate());
+      }
+      description.append('\n');
+    }
+    return description.toString();
+  }
+
+  // Applies the same changes to both models
+  private static void populate(ICalendarModel model) {
+    model.createCalendar("Work", "America/New_York");
+    model.createCalendar("Home", "Asia/Kolkata");
+    Random random = new Random(11);
+    for (int i = 0; i < 3000; i++) {
+      model.addEvent(i % 3 == 0 ? "Home" : "Work", event("Subject " + random.nextInt(40),
+          START.plusHours(2L * i), 15 + random.nextInt(90), "Room " + random.nextInt(9)));
+    }
+    model.addEvent("Home", ICalendarEventDTO.builder()
+        .setEventName("Gym")
+        .setStartDateTime(START.plusYears(1))
+        .setEndDateTime(START.plusYears(1).plusHours(1))
+        .setRecurring(true)
+        .setRecurrenceDays(Arrays.asList(DayOfWeek.MONDAY, DayOfWeek.THURSDAY))
+        .setRecurrenceCount(20)
+        .setAutoDecline(false)
+        .build());
+    model.editEvents("Work", "name", "Subject 3", START.plusDays(100), "Renamed", true);
+    model.editEvents("Home", "location", "Subject 5", START, "Hall", true);
+    model.editEvents("Home", "description", "Gym", START.plusYears(1).plusDays(30), "Legs",
+        true);
+    model.copyEvents("Home", START, START.plusDays(20), "Work", LocalDate.of(2026, 3, 1));
+    model.editCalendar("Home", "timezone", "Europe/Paris");
+
+    model.beginTransaction();
+    model.editEvents("Work", "name", "Subject 6", START, "Dropped", true);
+    model.addEvent("Home", event("Dropped", START.plusYears(1), 30, null));
+    model.rollbackTransaction();
+  }
+
+  @Test
+  public void testAnswersLikeTheHeapModel() throws IOException {
+    ICalendarModel heap = ICalendarModel.createInstance("listBased");
+    try (DiskCalendarModel disk = DiskCalendarModel.create(folder.getRoot().toPath(),
+        PageFile.MIN_CAPACITY)) {
+      populate(heap);
+      populate(disk);
+
+      LocalDateTime from = START.minusYears(1);
+      LocalDateTime to = START.plusYears(2);
+      assertEquals(describe(heap, from, to), describe(disk, from, to));
+      for (int day = 0; day < 400; day += 37) {
+        LocalDateTime at = START.plusDays(day).plusHours(3);
+        assertEquals(describe(heap, at, at.plusHours(30)),
+            describe(disk, at, at.plusHours(30)));
+        assertEquals(heap.getEventsInSpecificDateTime("Work", at).size(),
+            disk.getEventsInSpecificDateTime("Work", at).size());
+        assertEquals(heap.isCalendarAvailable("Home", at.toLocalDate()),
+            disk.isCalendarAvailable("Home", at.toLocalDate()));
+      }
+      assertTrue(disk.getPages().getPageCount() > 4 * PageFile.MIN_CAPACITY);
+      assertTrue(disk.getPages().getCachedPages() <= PageFile.MIN_CAPACITY);
+    }
+  }
+
+  @Test
+  public void testEventsKeepTheirIdsAndReadersSeeChangesDirectly() throws IOException {
+    try (DiskCalendarModel disk = DiskCalendarModel.create(folder.getRoot().toPath(),
+        PageFile.MIN_CAPACITY)) {
+      ReadOnlyCalendarModel reader = new ReadOnlyCalendarModel(disk);
+      disk.createCalendar("Work", "UTC");
+      for (int i = 0; i < 4; i++) {
+        disk.addEvent("Work", event("E" + i, START.plusHours(3L * i), 30, null));
+      }
+      List<ICalendarEventDTO> events = reader.getEventsInRange("Work", START,
+          START.plusDays(1));
+      assertEquals(4, events.size());
+      Long first = events.get(0).getEventId();
+      Long last = events.get(3).getEventId();
+
+      // Each new start moves the event's keys in the start and name indexes
+      assertTrue(disk.deleteEventById("Work", events.get(2).getEventId()));
+      assertTrue(disk.editEventById("Work", last, "start", "2025-05-05T16:00"));
+      assertTrue(disk.editEventById("Work", last, "end", "2025-05-05T16:30"));
+      assertTrue(disk.editEventById("Work", last, "start", "2025-05-05T13:00"));
+      List<ICalendarEventDTO> after = reader.getEventsInRange("Work", START,
+          START.plusDays(1));
+      assertEquals(Arrays.asList(first, events.get(1).getEventId(), last),
+          Arrays.asList(after.get(0).getEventId(), after.get(1).getEventId(),
+              after.get(2).getEventId()));
+      assertEquals("E3", reader.getEventsInSpecificDateTime("Work",
+          START.withHour(15)).get(0).getEventName());
+      assertTrue(reader.getEventsInSpecificDateTime("Work", START.withHour(18)).isEmpty());
+      assertTrue(disk.editEvent("Work", "location", "E3", START.withHour(13),
+          START.withHour(16).plusMinutes(30), "Room 2"));
+    }
+  }
+
+  @Test
+  public void testClosingDeletesTheStore() throws IOException {
+    Path parent = folder.newFolder().toPath();
+    DiskCalendarModel disk = DiskCalendarModel.create(parent, PageFile.MIN_CAPACITY);
+    disk.createCalendar("Work", "UTC");
+    disk.addEvent("Work", event("Standup", START, 15, "Room 1"));
+    disk.close();
+    try (Stream<Path> left = Files.list(parent)) {
+      assertFalse(left.findAny().isPresent());
+    }
+  }
+}
@@ -0,0 +1,60 @@
+package model;
+
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+
+/**
+ * Reports the heap a disk-based model uses as it fills up, and how fast it adds events and
+ * answers range queries through its page cache.
+ * <p>
+ * Run with {@code java -Xmx64m -cp target/classes:target/test-classes model.DiskModelBenchmark
+ * [events] [cachePages]}. The heap in use after a full collection should stay flat however
+ * many events are added, well below what a heap model needs for the same events.
+ * </p>
+ */
+public class DiskModelBenchmark {
+
+  public static void main(String[] args) throws Exception {
+    int eventCount = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+    int cachePages = args.length > 1 ? Integer.parseInt(args[1])
+        : DiskCalendarModel.DEFAULT_CACHE_PAGES;
+    LocalDateTime base = LocalDateTime.of(2020, 1, 1, 0, 0);
+    try (DiskCalendarModel model = DiskCalendarModel.create(
+        Paths.get(System.getProperty("java.io.tmpdir")), cachePages)) {
+      model.createCalendar("Archive", "UTC");
+      long started = System.nanoTime();
+      for (int i = 0; i < eventCount; i++) {
+        LocalDateTime start = base.plusMinutes(20L * i);
+        model.addEvent("Archive", CalendarEventDTO.builder()
+            .setEventName("Subject " + i % 300)
+            .setStartDateTime(start)
+            .setEndDateTime(start.plusMinutes(15))
+            .setEventLocation("Room " + i % 40)
+            .setEventDescription(i % 10 == 0 ? "Follow-up " + i : "Weekly sync")
+            .setPrivate(false)
+            .setAutoDecline(false)
+            .build());
+        if ((i + 1) % (eventCount / 4) == 0) {
+          System.gc();
+          Runtime runtime = Runtime.getRuntime();
+          long usedMb = (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024);
+          System.out.printf("%,10d events: %,d ms, %d MB heap in use, %,d pages on disk%n",
+              i + 1, (System.nanoTime() - started) / 1_000_000, usedMb,
+              model.getPages().getPageCount());
+        }
+      }
+
+      started = System.nanoTime();
+      int found = 0;
+      for (int q = 0; q < 1000; q++) {
+        LocalDateTime from = base.plusMinutes(20L * ((q * 7919L) % eventCount));
+        found += model.getEventsInRange("Archive", from, from.plusDays(1)).size();
+      }
+      PageFile pages = model.getPages();
+      System.out.printf("1000 one-day range queries in %d ms (%,d events found), "
+              + "page cache %d/%d pages, %,d hits, %,d misses%n",
+          (System.nanoTime() - started) / 1_000_000, found, pages.getCachedPages(),
+          cachePages, pages.getHits(), pages.getMisses());
+    }
+  }
+}
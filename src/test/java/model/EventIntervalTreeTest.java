@@ -0,0 +1,148 @@
+package model;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link EventIntervalTree} class.
+ * Verifies range and point queries, ordering, and re-indexing after edits.
+ */
+
+public class EventIntervalTreeTest {
+
+  private EventIntervalTree tree;
+
+  @Before
+  public void setup() {
+    tree = new EventIntervalTree();
+  }
+
+  private static CalendarEvent event(String name, LocalDateTime start, LocalDateTime end) {
+    return CalendarEvent.builder()
+          .setEventName(name)
+          .setStartDateTime(start)
+          .setEndDateTime(end)
+          .build();
+  }
+
+  // Events built outside a calendar keep their wall-clock times as UTC
+  private static Instant utc(LocalDateTime dateTime) {
+    return dateTime.toInstant(ZoneOffset.UTC);
+  }
+
+  private static List<String> names(List<ICalendarEvent> events) {
+    List<String> names = new ArrayList<>();
+    for (ICalendarEvent event : events) {
+      names.add(event.getEventName());
+    }
+    return names;
+  }
+
+  @Test
+  public void testRangeQueryReturnsEventsInStartOrder() {
+    tree.insert(event("C", LocalDateTime.of(2025, 5, 3, 9, 0), LocalDateTime.of(2025, 5, 3, 10, 0)));
+    tree.insert(event("A", LocalDateTime.of(2025, 5, 1, 9, 0), LocalDateTime.of(2025, 5, 1, 10, 0)));
+    tree.insert(event("B", LocalDateTime.of(2025, 5, 2, 9, 0), LocalDateTime.of(2025, 5, 2, 10, 0)));
+
+    List<ICalendarEvent> result = tree.queryRange(utc(LocalDateTime.of(2025, 5, 1, 0, 0)),
+          utc(LocalDateTime.of(2025, 5, 3, 23, 59)));
+    assertEquals(List.of("A", "B", "C"), names(result));
+  }
+
+  @Test
+  public void testRangeQueryIncludesEventEndingInsideRange() {
+    tree.insert(event("Overnight", LocalDateTime.of(2025, 5, 1, 22, 0),
+          LocalDateTime.of(2025, 5, 2, 2, 0)));
+
+    List<ICalendarEvent> result = tree.queryRange(utc(LocalDateTime.of(2025, 5, 2, 0, 0)),
+          utc(LocalDateTime.of(2025, 5, 2, 23, 59)));
+    assertEquals(List.of("Overnight"), names(result));
+  }
+
+  @Test
+  public void testPointQueryIsInclusiveAtBothEnds() {
+    tree.insert(event("Meeting", LocalDateTime.of(2025, 5, 1, 10, 0),
+          LocalDateTime.of(2025, 5, 1, 11, 0)));
+
+    assertEquals(1, tree.queryAt(utc(LocalDateTime.of(2025, 5, 1, 10, 0))).size());
+    assertEquals(1, tree.queryAt(utc(LocalDateTime.of(2025, 5, 1, 11, 0))).size());
+    assertTrue(tree.queryAt(utc(LocalDateTime.of(2025, 5, 1, 11, 1))).isEmpty());
+  }
+
+  @Test
+  public void testReindexMovesEditedEvent() {
+    CalendarEvent moved = event("Moved", LocalDateTime.of(2025, 5, 1, 10, 0),
+          LocalDateTime.of(2025, 5, 1, 11, 0));
+    tree.insert(moved);
+
+    moved.setStartDateTime(LocalDateTime.of(2025, 6, 1, 10, 0));
+    moved.setEndDateTime(LocalDateTime.of(2025, 6, 1, 11, 0));
+    tree.reindex(moved);
+
+    assertTrue(tree.queryAt(utc(LocalDateTime.of(2025, 5, 1, 10, 30))).isEmpty());
+    assertEquals(1, tree.queryAt(utc(LocalDateTime.of(2025, 6, 1, 10, 30))).size());
+    assertEquals(1, tree.size());
+  }
+
+  @Test
+  public void testRemove() {
+    CalendarEvent removed = event("Gone", LocalDateTime.of(2025, 5, 1, 10, 0),
+          LocalDateTime.of(2025, 5, 1, 11, 0));
+    tree.insert(removed);
+
+    assertTrue(tree.remove(removed));
+    assertFalse(tree.remove(removed));
+    assertTrue(tree.queryAt(utc(LocalDateTime.of(2025, 5, 1, 10, 30))).isEmpty());
+  }
+
+  @Test
+  public void testQueriesMatchLinearScan() {
+    Random random = new Random(42);
+    List<CalendarEvent> all = new ArrayList<>();
+    LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+    for (int i = 0; i < 2000; i++) {
+      LocalDateTime start = base.plusMinutes(random.nextInt(60 * 24 * 60));
+      CalendarEvent e = event("E" + i, start, start.plusMinutes(1 + random.nextInt(60 * 24 * 3)));
+      all.add(e);
+      tree.insert(e);
+    }
+    for (int i = 0; i < 200; i++) {
+      tree.remove(all.remove(random.nextInt(all.size())));
+    }
+
+    for (int q = 0; q < 100; q++) {
+      LocalDateTime from = base.plusMinutes(random.nextInt(60 * 24 * 60));
+      LocalDateTime to = from.plusMinutes(random.nextInt(60 * 24 * 5));
+
+      int expectedRange = 0;
+      int expectedPoint = 0;
+      for (CalendarEvent e : all) {
+        if ((!e.getStartDateTime().isBefore(from) && !e.getStartDateTime().isAfter(to))
+              || (e.getEndDateTime().isAfter(from) && e.getEndDateTime().isBefore(to))) {
+          expectedRange++;
+        }
+        if (!e.getStartDateTime().isAfter(from) && !e.getEndDateTime().isBefore(from)) {
+          expectedPoint++;
+        }
+      }
+
+      List<ICalendarEvent> range = tree.queryRange(utc(from), utc(to));
+      assertEquals(expectedRange, range.size());
+      for (int i = 1; i < range.size(); i++) {
+        assertFalse(range.get(i).getStartDateTime().isBefore(range.get(i - 1).getStartDateTime()));
+      }
+      assertEquals(expectedPoint, tree.queryAt(utc(from)).size());
+    }
+  }
+}
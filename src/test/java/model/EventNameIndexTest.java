@@ -0,0 +1,91 @@
+package model;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link EventNameIndex} class.
+ * Verifies case-insensitive lookups, start ordering, and re-indexing after renames.
+ */
+
+public class EventNameIndexTest {
+
+  private EventNameIndex<String> index;
+
+  @Before
+  public void setup() {
+    index = new EventNameIndex<>();
+  }
+
+  private static Instant at(int hour) {
+    return Instant.parse("2025-05-01T00:00:00Z").plusSeconds(3600L * hour);
+  }
+
+  @Test
+  public void testQueryIgnoresCaseAndOrdersByStart() {
+    index.insert("late", "Standup", at(10));
+    index.insert("early", "STANDUP", at(2));
+    index.insert("other", "Retro", at(5));
+
+    assertEquals(Arrays.asList("early", "late"),
+          index.query("standup", Instant.MIN, Instant.MAX));
+    assertEquals(Collections.singletonList("other"),
+          index.query("retro", Instant.MIN, Instant.MAX));
+    assertTrue(index.query("Planning", Instant.MIN, Instant.MAX).isEmpty());
+  }
+
+  @Test
+  public void testQueryBoundsAreInclusive() {
+    for (int hour = 0; hour < 10; hour++) {
+      index.insert("e" + hour, "Standup", at(hour));
+    }
+
+    assertEquals(Arrays.asList("e3", "e4", "e5"), index.query("Standup", at(3), at(5)));
+    assertEquals(Collections.singletonList("e7"), index.query("Standup", at(7), at(7)));
+  }
+
+  @Test
+  public void testEventsStartingTogetherKeepInsertionOrder() {
+    index.insert("first", "Standup", at(1));
+    index.insert("second", "Standup", at(1));
+    index.insert("third", "Standup", at(1));
+
+    // Moving an event away and back keeps its original place among the others
+    index.reindex("first", "Standup", at(2));
+    index.reindex("first", "Standup", at(1));
+
+    assertEquals(Arrays.asList("first", "second", "third"),
+          index.query("Standup", at(1), at(1)));
+  }
+
+  @Test
+  public void testReindexFollowsRenames() {
+    index.insert("a", "Standup", at(1));
+    index.insert("b", "Standup", at(2));
+
+    index.reindex("a", "Sync", at(1));
+
+    assertEquals(Collections.singletonList("b"),
+          index.query("Standup", Instant.MIN, Instant.MAX));
+    assertEquals(Collections.singletonList("a"), index.query("sync", Instant.MIN, Instant.MAX));
+    assertEquals(2, index.size());
+  }
+
+  @Test
+  public void testRemoveDropsEmptyNames() {
+    index.insert("a", "Standup", at(1));
+
+    assertTrue(index.remove("a"));
+    assertFalse(index.remove("a"));
+    assertTrue(index.query("Standup", Instant.MIN, Instant.MAX).isEmpty());
+    assertEquals(0, index.size());
+  }
+}
@@ -0,0 +1,125 @@
+package model;
+
+import org.junit.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link EventSeries} class.
+ * Verifies series bounds, windowed expansion, exceptions and truncation.
+ */
+
+public class EventSeriesTest {
+
+  private static final ZoneId ZONE = ZoneId.of("America/New_York");
+
+  private static EventSeries series(Integer count, LocalDateTime until, DayOfWeek... days) {
+    ICalendarEventDTOBuilder<?> builder = ICalendarEventDTO.builder()
+          .setEventName("Standup")
+          .setStartDateTime(LocalDateTime.of(2025, 5, 1, 9, 0)) // Thursday
+          .setEndDateTime(LocalDateTime.of(2025, 5, 1, 9, 30))
+          .setRecurring(true)
+          .setRecurrenceDays(Arrays.asList(days));
+    if (count != null) {
+      builder.setRecurrenceCount(count);
+    } else {
+      builder.setRecurrenceEndDate(until);
+    }
+    return new EventSeries(builder.build(), ZONE);
+  }
+
+  @Test
+  public void testCountBoundedSeriesComputesLastDateWithoutExpanding() {
+    EventSeries series = series(5, null, DayOfWeek.MONDAY, DayOfWeek.THURSDAY);
+
+    assertEquals(LocalDate.of(2025, 5, 1), series.getFirstDate());
+    assertEquals(LocalDate.of(2025, 5, 15), series.getLastDate());
+    assertEquals(5, series.occurrences().size());
+  }
+
+  @Test
+  public void testEndDateIsInclusive() {
+    EventSeries series = series(null, LocalDateTime.of(2025, 5, 12, 0, 0),
+          DayOfWeek.MONDAY, DayOfWeek.THURSDAY);
+
+    List<CalendarEvent> occurrences = series.occurrences();
+    assertEquals(4, occurrences.size());
+    assertEquals(LocalDateTime.of(2025, 5, 12, 9, 0),
+          occurrences.get(3).getStartDateTime());
+  }
+
+  @Test
+  public void testLongSeriesExpandsOnlyRequestedWindow() {
+    EventSeries series = series(5000, null, DayOfWeek.values());
+
+    List<CalendarEvent> window = series.occurrencesBetween(LocalDate.of(2030, 1, 1),
+          LocalDate.of(2030, 1, 7));
+    assertEquals(7, window.size());
+    assertEquals(LocalDate.of(2025, 5, 1).plusDays(4999), series.getLastDate());
+  }
+
+  @Test
+  public void testExcludedDateProducesNoOccurrence() {
+    EventSeries series = series(3, null, DayOfWeek.THURSDAY);
+    series.exclude(LocalDate.of(2025, 5, 8));
+
+    List<CalendarEvent> occurrences = series.occurrences();
+    assertEquals(2, occurrences.size());
+    assertEquals(LocalDate.of(2025, 5, 15), occurrences.get(1).getStartDateTime().toLocalDate());
+  }
+
+  @Test
+  public void testIteratorBuildsOccurrencesInOrder() {
+    EventSeries series = series(4, null, DayOfWeek.MONDAY, DayOfWeek.THURSDAY);
+    series.exclude(LocalDate.of(2025, 5, 5));
+
+    Iterator<CalendarEvent> occurrences = series.occurrenceIterator();
+    List<LocalDateTime> starts = new ArrayList<>();
+    while (occurrences.hasNext()) {
+      starts.add(occurrences.next().getStartDateTime());
+    }
+    assertEquals(Arrays.asList(LocalDateTime.of(2025, 5, 1, 9, 0),
+          LocalDateTime.of(2025, 5, 8, 9, 0), LocalDateTime.of(2025, 5, 12, 9, 0)), starts);
+    assertThrows(NoSuchElementException.class, occurrences::next);
+
+    series.truncateBefore(LocalDate.of(2025, 5, 1));
+    assertFalse(series.occurrenceIterator().hasNext());
+  }
+
+  @Test
+  public void testTruncateBefore() {
+    EventSeries series = series(10, null, DayOfWeek.THURSDAY);
+    series.truncateBefore(LocalDate.of(2025, 5, 15));
+
+    assertEquals(LocalDate.of(2025, 5, 8), series.getLastDate());
+    assertNull(series.getRecurrenceCount());
+
+    series.truncateBefore(LocalDate.of(2025, 5, 1));
+    assertTrue(series.isEmpty());
+  }
+
+  @Test
+  public void testFirstOverlap() {
+    EventSeries series = series(4, null, DayOfWeek.THURSDAY);
+
+    assertEquals(LocalDateTime.of(2025, 5, 8, 9, 0),
+          series.firstOverlap(LocalDateTime.of(2025, 5, 8, 9, 15),
+                LocalDateTime.of(2025, 5, 8, 10, 0)));
+    assertNull(series.firstOverlap(LocalDateTime.of(2025, 5, 8, 9, 30),
+          LocalDateTime.of(2025, 5, 8, 10, 0)));
+  }
+}
@@ -0,0 +1,186 @@
+package model;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link GroupCommitter} class.
+ * Verifies that concurrent changes share flushes, that every change is durable when its
+ * call returns, that a change whose flush fails is rolled back, and that the flush figures
+ * add up.
+ */
+
+public class GroupCommitterTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private Path journalFile() {
+    return folder.getRoot().toPath().resolve("calendars.journal");
+  }
+
+  @Test
+  public void testConcurrentChangesShareFlushes() throws Exception {
+    int writers = 8;
+    int changesPerWriter = 50;
+    JournaledCalendarModel model = (JournaledCalendarModel) ICalendarModel.openJournaled(
+        "listBased", journalFile(), "group:20:64");
+    List<Callable<Void>> tasks = new ArrayList<>();
+    for (int w = 0; w < writers; w++) {
+      String calendar = "Cal" + w;
+      model.createCalendar(calendar, "America/New_York");
+      tasks.add(() -> {
+        for (int i = 0; i < changesPerWriter; i++) {
+          LocalDateTime start = LocalDateTime.of(2025, 3, 1, 8, 0).plusHours(i);
+          assertTrue(model.addEvent(calendar, ICalendarEventDTO.builder()
+              .setEventName("Event " + i)
+              .setStartDateTime(start)
+              .setEndDateTime(start.plusMinutes(30))
+              .setAutoDecline(true)
+              .build()));
+        }
+        return null;
+      });
+    }
+    ExecutorService pool = Executors.newFixedThreadPool(writers);
+    try {
+      for (Future<Void> result : pool.invokeAll(tasks)) {
+        result.get();
+      }
+    } finally {
+      pool.shutdown();
+    }
+
+    GroupCommitter.Metrics metrics = model.getCommitMetrics();
+    long changes = writers + writers * changesPerWriter;
+    assertEquals(changes, model.getLastSequence());
+    assertEquals(changes, metrics.getRecordsFlushed());
+    assertTrue(metrics.toString(), metrics.getFlushes() < changes);
+    assertTrue(metrics.getLargestBatch() > 1);
+    assertTrue(metrics.getAverageBatchSize() > 1);
+    assertTrue(metrics.getSlowestFlushLatency()
+        .compareTo(metrics.getAverageFlushLatency()) >= 0);
+    model.close();
+
+    JournaledCalendarModel reopened = (JournaledCalendarModel) ICalendarModel.openJournaled(
+        "listBased", journalFile(), "always");
+    assertEquals(changes, reopened.getLastSequence());
+    assertEquals(changesPerWriter, reopened.getEventsInRange("Cal3",
+        LocalDateTime.of(2025, 1, 1, 0, 0), LocalDateTime.of(2026, 1, 1, 0, 0)).size());
+    assertNull(reopened.getCommitMetrics());
+    reopened.close();
+  }
+
+  @Test
+  public void testSingleChangeWaitsNoLongerThanTheDelay() throws IOException {
+    MutationJournal journal = MutationJournal.open(journalFile(), FsyncPolicy.NEVER);
+    journal.replay((sequence, payload) -> {
+    });
+    GroupCommitter committer = new GroupCommitter(journal,
+        FsyncPolicy.grouped(Duration.ofMillis(50), 100));
+    long sequence = journal.write(new byte[] {1, 2, 3});
+    long start = System.nanoTime();
+    committer.awaitDurable(sequence);
+    assertTrue(System.nanoTime() - start < Duration.ofSeconds(5).toNanos());
+    assertEquals(1, committer.getMetrics().getFlushes());
+    assertEquals(1, committer.getMetrics().getLargestBatch());
+    committer.close();
+    journal.close();
+  }
+
+  @Test
+  public void testFullBatchFlushesWithoutWaitingForTheDelay() throws IOException {
+    MutationJournal journal = MutationJournal.open(journalFile(), FsyncPolicy.NEVER);
+    journal.replay((sequence, payload) -> {
+    });
+    GroupCommitter committer = new GroupCommitter(journal,
+        FsyncPolicy.grouped(Duration.ofHours(1), 3));
+    journal.write(new byte[] {1});
+    journal.write(new byte[] {2});
+    committer.awaitDurable(journal.write(new byte[] {3}));
+    assertEquals(1, committer.getMetrics().getFlushes());
+    assertEquals(3, committer.getMetrics().getRecordsFlushed());
+    committer.close();
+    journal.close();
+  }
+
+  @Test
+  public void testChangeOfAFailedFlushIsRolledBack() throws IOException {
+    AtomicBoolean failing = new AtomicBoolean();
+    LocalDateTime start = LocalDateTime.of(2025, 3, 1, 8, 0);
+    JournaledCalendarModel model = new JournaledCalendarModel(Calendar::builder,
+        journalFile(), FsyncPolicy.parse("group:1"), null,
+        (journal, policy) -> new GroupCommitter(journal, policy) {
+          @Override
+          void force(MutationJournal target) throws IOException {
+            if (failing.get()) {
+              throw new IOException("Disk unplugged");
+            }
+            super.force(target);
+          }
+        });
+    try {
+      model.createCalendar("Work", "UTC");
+      model.addEvent("Work", ICalendarEventDTO.builder().setEventName("Kept")
+          .setStartDateTime(start).setEndDateTime(start.plusHours(1)).build());
+      long mark = model.forEachChangeSince("Work", 0, change -> {
+      });
+
+      failing.set(true);
+      UncheckedIOException failure = assertThrows(UncheckedIOException.class,
+          () -> model.addEvent("Work", ICalendarEventDTO.builder().setEventName("Lost")
+              .setStartDateTime(start.plusHours(2)).setEndDateTime(start.plusHours(3))
+              .build()));
+      assertTrue(failure.getMessage().contains("Disk unplugged"));
+      List<ICalendarEventDTO> events = model.getEventsInRange("Work", start,
+          start.plusDays(1));
+      assertEquals(1, events.size());
+      assertEquals("Kept", events.get(0).getEventName());
+      assertEquals(mark, model.forEachChangeSince("Work", 0, change -> {
+      }));
+
+      // Later changes are refused before they are made or written
+      long written = model.getLastSequence();
+      assertThrows(UncheckedIOException.class,
+          () -> model.createCalendar("Home", "UTC"));
+      model.beginTransaction();
+      model.deleteCalendar("Work");
+      assertThrows(UncheckedIOException.class, model::commitTransaction);
+      assertEquals(written, model.getLastSequence());
+      assertEquals(List.of("Work"), new ArrayList<>(model.getCalendarNames()));
+      assertEquals(1, model.getEventsInRange("Work", start, start.plusDays(1)).size());
+    } finally {
+      model.close();
+    }
+  }
+
+  @Test
+  public void testInvalidGroupSettings() {
+    assertThrows(IllegalArgumentException.class,
+        () -> FsyncPolicy.grouped(Duration.ofMillis(5), 0));
+    assertThrows(IllegalArgumentException.class, () -> FsyncPolicy.parse("group:x"));
+    assertTrue(FsyncPolicy.parse("group").isGrouped());
+    assertEquals(7, FsyncPolicy.parse("group:3:7").getMaxBatchSize());
+    assertEquals(Duration.ofMillis(3).toNanos(),
+        FsyncPolicy.parse("group:3:7").getMaxDelayNanos());
+  }
+}
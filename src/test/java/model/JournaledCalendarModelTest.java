@@ -0,0 +1,321 @@
+package model;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link JournaledCalendarModel} class.
+ * Verifies that reopening the journal rebuilds the model exactly, event ids and change
+ * sequences included, and that failed changes leave no record behind.
+ */
+
+public class JournaledCalendarModelTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private Path journal;
+
+  @Before
+  public void setUp() {
+    journal = folder.getRoot().toPath().resolve("calendars.journal");
+  }
+
+  private JournaledCalendarModel open() throws IOException {
+    return (JournaledCalendarModel) ICalendarModel.openJournaled("listBased", journal,
+        "always");
+  }
+
+  private static ICalendarEventDTO event(String name, LocalDateTime start) {
+    return ICalendarEventDTO.builder()
+        .setEventName(name)
+        .setStartDateTime(start)
+        .setEndDateTime(start.plusMinutes(30))
+        .setEventLocation("Room 1")
+        .setAutoDecline(true)
+        .build();
+  }
+
+  // Every field of every event in every calendar, ids included
+  private static String describe(ICalendarModel model) {
+    StringBuilder description = new StringBuilder();
+    for (String calendar : model.getCalendarNames()) {
+      description.append(calendar).append(' ').append(model.getCalendarTimeZone(calendar));
+      for (ICalendarEventDTO dto : model.getEventsInRange(calendar,
+          LocalDateTime.of(2025, 1, 1, 0, 0), LocalDateTime.of(2026, 1, 1, 0, 0))) {
+        description.append('|').append(dto.getEventId()).append(',')
+            .append(dto.getEventName()).append(',').append(dto.getStartDateTime()).append(',')
+            .append(dto.getEndDateTime()).append(',').append(dto.getEventLocation())
+            .append(',').append(dto.getEventDescription()).append(',')
+            .append(dto.isPrivate());
+      }
+      description.append('\n');
+    }
+    return description.toString();
+  }
+
+  // The changes after since, each as its kind, id, name and sequence
+  private static List<String> changesSince(ICalendarModel model, String calendar,
+                                           long since) {
+    List<String> changes = new ArrayList<>();
+    long sequence = model.forEachChangeSince(calendar, since,
+        change -> changes.add(change.getKind() + " " + change.getEvent().getEventId() + " "
+            + change.getEvent().getEventName() + "@" + change.getSequence()));
+    changes.add("now " + sequence);
+    return changes;
+  }
+
+  // Makes changes around a failed edit and returns the high-water mark taken among them
+  private static long changeAroundMark(JournaledCalendarModel model) {
+    LocalDateTime start = LocalDateTime.of(2025, 5, 5, 9, 0);
+    model.createCalendar("Work", "UTC");
+    model.addEvent("Work", event("Standup", start));
+    model.addEvent("Work", event("Review", start.plusHours(1)));
+    long reviewId = model.getEventsInSpecificDateTime("Work", start.plusHours(1)).get(0)
+        .getEventId();
+    // Rolled back, so it must not count in the sequence
+    assertThrows(IllegalStateException.class,
+        () -> model.editEventById("Work", reviewId, "start", "2025-05-05T09:10"));
+    model.addEvent("Work", ICalendarEventDTO.builder()
+        .setEventName("Gym")
+        .setStartDateTime(start.plusHours(8))
+        .setEndDateTime(start.plusHours(9))
+        .setRecurring(true)
+        .setRecurrenceDays(Arrays.asList(DayOfWeek.MONDAY))
+        .setRecurrenceCount(3)
+        .setAutoDecline(true)
+        .build());
+    long mark = model.forEachChangeSince("Work", 0, change -> { });
+    model.deleteEventById("Work", reviewId);
+    model.addEvent("Work", event("Lunch", start.plusHours(3)));
+    return mark;
+  }
+
+  @Test
+  public void testReopeningKeepsChangeSequences() throws IOException {
+    long mark;
+    List<String> since;
+    List<String> all;
+    try (JournaledCalendarModel model = open()) {
+      mark = changeAroundMark(model);
+      since = changesSince(model, "Work", mark);
+      all = changesSince(model, "Work", 0);
+    }
+    assertEquals(3, since.size());
+    assertTrue(since.get(0).startsWith("REMOVED"));
+
+    try (JournaledCalendarModel model = open()) {
+      assertEquals(since, changesSince(model, "Work", mark));
+      assertEquals(all, changesSince(model, "Work", 0));
+      model.checkpoint();
+      model.editEvent("Work", "location", "Lunch", LocalDateTime.of(2025, 5, 5, 12, 0),
+          LocalDateTime.of(2025, 5, 5, 12, 30), "Canteen");
+      List<String> edited = changesSince(model, "Work", mark);
+      assertEquals(3, edited.size());
+      assertFalse(edited.equals(since));
+      since = edited;
+    }
+
+    // Loaded from the checkpoint, with the removal before it kept as a tombstone
+    try (JournaledCalendarModel model = open()) {
+      assertEquals(since, changesSince(model, "Work", mark));
+      model.addEvent("Work", ICalendarEventDTO.builder()
+          .setEventName("Swim")
+          .setStartDateTime(LocalDateTime.of(2025, 5, 6, 18, 0))
+          .setEndDateTime(LocalDateTime.of(2025, 5, 6, 19, 0))
+          .setRecurring(true)
+          .setRecurrenceDays(Arrays.asList(DayOfWeek.TUESDAY))
+          .setRecurrenceCount(2)
+          .setAutoDecline(true)
+          .build());
+      // Series go on being numbered after the one loaded
+      assertTrue(changesSince(model, "Work", 0).contains("ADDED 2 Swim@"
+          + model.forEachChangeSince("Work", 0, change -> { })));
+    }
+  }
+
+  @Test
+  public void testReopeningReplaysEveryChange() throws IOException {
+    LocalDateTime start = LocalDateTime.of(2025, 5, 5, 9, 0);
+    long reviewId;
+    String before;
+    try (JournaledCalendarModel model = open()) {
+      model.createCalendar("Work", "America/New_York");
+      model.createCalendar("Home", "UTC");
+      model.addEvent("Work", event("Standup", start));
+      model.addEvent("Work", ICalendarEventDTO.builder()
+          .setEventName("Gym")
+          .setStartDateTime(start.plusHours(8))
+          .setEndDateTime(start.plusHours(9))
+          .setRecurring(true)
+          .setRecurrenceDays(Arrays.asList(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY))
+          .setRecurrenceCount(4)
+          .setAutoDecline(true)
+          .build());
+      model.addEvents("Work", Arrays.asList(event("Review", start.plusHours(2)),
+          event("Lunch", start.plusHours(3))), "America/New_York");
+      model.editEvents("Work", "location", "Gym", start.plusDays(2), "Pool", true);
+      model.editEvent("Work", "name", "Standup", start, start.plusMinutes(30), "Sync");
+      reviewId = model.getEventsInSpecificDateTime("Work", start.plusHours(2)).get(0)
+          .getEventId();
+      model.editEventById("Work", reviewId, "description", "Quarterly");
+      model.copyEvent("Work", start.plusHours(3), "Lunch", "Home", start.plusDays(1));
+      model.copyEvents("Work", start, start.plusDays(1), "Home", LocalDate.of(2025, 6, 2));
+      model.deleteEventById("Work", model.getEventsInSpecificDateTime("Work",
+          start.plusHours(3)).get(0).getEventId());
+      model.editCalendar("Home", "name", "House");
+      model.editCalendar("Work", "timezone", "Europe/Paris");
+      model.createCalendar("Scratch", "UTC");
+      model.deleteCalendar("Scratch");
+      assertEquals(15, model.getLastSequence());
+      before = describe(model);
+    }
+
+    try (JournaledCalendarModel model = open()) {
+      assertEquals(15, model.getLastSequence());
+      assertEquals(Arrays.asList("Work", "House"), model.getCalendarNames());
+      assertEquals("Europe/Paris", model.getCalendarTimeZone("Work"));
+
+      LocalDateTime from = LocalDateTime.of(2025, 5, 1, 0, 0);
+      LocalDateTime to = LocalDateTime.of(2025, 7, 1, 0, 0);
+      List<ICalendarEventDTO> work = model.getEventsInRange("Work", from, to);
+      assertEquals(Arrays.asList("Sync", "Review", "Gym", "Gym", "Gym", "Gym"),
+          work.stream().map(ICalendarEventDTO::getEventName)
+              .collect(java.util.stream.Collectors.toList()));
+      assertEquals("Quarterly", work.get(1).getEventDescription());
+      assertEquals(Long.valueOf(reviewId), work.get(1).getEventId());
+      assertEquals("Pool", work.get(3).getEventLocation());
+      assertEquals(5, model.getEventsInRange("House", from, to).size());
+      assertEquals(before, describe(model));
+
+      // Ids handed out after the replay continue where the journal left off
+      model.addEvent("House", event("New", LocalDateTime.of(2025, 8, 1, 9, 0)));
+      long newId = model.getEventsInSpecificDateTime("House",
+          LocalDateTime.of(2025, 8, 1, 9, 0)).get(0).getEventId();
+      for (ICalendarEventDTO dto : work) {
+        assertTrue(dto.getEventId() == null || dto.getEventId() < newId);
+      }
+    }
+  }
+
+  @Test
+  public void testFailedChangesAreNotJournaled() throws IOException {
+    LocalDateTime start = LocalDateTime.of(2025, 5, 5, 9, 0);
+    try (JournaledCalendarModel model = open()) {
+      model.createCalendar("Work", "UTC");
+      model.addEvent("Work", event("Standup", start));
+      assertThrows(IllegalStateException.class,
+          () -> model.addEvent("Work", event("Clash", start.plusMinutes(10))));
+      assertThrows(IllegalArgumentException.class,
+          () -> model.createCalendar("work", "UTC"));
+      assertFalse(model.deleteCalendar("Nowhere"));
+      assertEquals(2, model.getLastSequence());
+    }
+    try (JournaledCalendarModel model = open()) {
+      assertEquals(1, model.getEventsInRange("Work", start, start.plusDays(1)).size());
+    }
+  }
+
+  @Test
+  public void testTransactionIsJournaledOnlyWhenCommitted() throws IOException {
+    LocalDateTime start = LocalDateTime.of(2025, 5, 5, 9, 0);
+    String committed;
+    try (JournaledCalendarModel model = open()) {
+      model.createCalendar("Work", "UTC");
+      model.beginTransaction();
+      model.addEvent("Work", event("Draft", start));
+      model.createCalendar("Drafts", "UTC");
+      assertEquals(1, model.getLastSequence());
+      model.rollbackTransaction();
+      assertEquals(1, model.getLastSequence());
+
+      model.beginTransaction();
+      model.createCalendar("Home", "UTC");
+      model.addEvent("Home", event("Chores", start));
+      model.addEvent("Work", event("Standup", start));
+      // A failed change inside the transaction is undone alone
+      assertThrows(IllegalStateException.class,
+          () -> model.addEvent("Work", event("Clash", start.plusMinutes(10))));
+      assertThrows(IllegalStateException.class, () -> model.saveSnapshot(journal));
+      model.editEvent("Work", "location", "Standup", start, start.plusMinutes(30), "Room 2");
+      model.commitTransaction();
+      assertEquals(2, model.getLastSequence());
+      assertThrows(IllegalStateException.class, model::commitTransaction);
+      committed = describe(model);
+    }
+    try (JournaledCalendarModel model = open()) {
+      assertEquals(committed, describe(model));
+      assertFalse(model.isCalendarPresent("Drafts"));
+      assertEquals("Room 2", model.getEventsInRange("Work", start, start.plusDays(1)).get(0)
+          .getEventLocation());
+    }
+  }
+
+  @Test
+  public void testReopeningReplaysRestoredEvents() throws IOException {
+    LocalDateTime start = LocalDateTime.of(2025, 5, 5, 9, 0);
+    try (JournaledCalendarModel model = open()) {
+      model.createCalendar("Work", "UTC");
+      // Restored events may overlap each other, so replay must not check them as an import
+      model.restoreEvents("Work", Arrays.asList(event("Standup", start),
+          event("Overlap", start.plusMinutes(10))), "UTC");
+    }
+    try (JournaledCalendarModel model = open()) {
+      assertEquals(2, model.getEventsInRange("Work", start, start.plusDays(1)).size());
+    }
+  }
+
+  @Test
+  public void testReadOnlyViewSeesReplayedCalendars() throws IOException {
+    try (JournaledCalendarModel model = open()) {
+      model.createCalendar("Work", "UTC");
+      model.addEvent("Work", event("Standup", LocalDateTime.of(2025, 5, 5, 9, 0)));
+    }
+    try (JournaledCalendarModel model = open()) {
+      IReadOnlyCalendarModel readOnly = new ReadOnlyCalendarModel(model);
+      assertEquals(1, readOnly.getEventsInSpecificDateTime("Work",
+          LocalDateTime.of(2025, 5, 5, 9, 10)).size());
+    }
+  }
+
+  @Test
+  public void testReopeningKeepsSeriesExceptions() throws IOException {
+    LocalDateTime start = LocalDateTime.of(2025, 5, 5, 9, 0);
+    try (JournaledCalendarModel model = open()) {
+      model.createCalendar("Work", "UTC");
+      model.addEvents("Work", Arrays.asList(ICalendarEventDTO.builder()
+          .setEventName("Standup")
+          .setStartDateTime(start)
+          .setEndDateTime(start.plusMinutes(15))
+          .setRecurring(true)
+          .setRecurrenceDays(Arrays.asList(DayOfWeek.MONDAY, DayOfWeek.TUESDAY))
+          .setRecurrenceCount(4)
+          .setRecurrenceExceptions(Arrays.asList(LocalDate.of(2025, 5, 6)))
+          .setAutoDecline(true)
+          .build()), "UTC");
+    }
+    try (JournaledCalendarModel model = open()) {
+      List<ICalendarEventDTO> standups = model.getEventsInRange("Work", start,
+          start.plusDays(14));
+      assertEquals(Arrays.asList(start, start.plusDays(7), start.plusDays(8)),
+          standups.stream().map(ICalendarEventDTO::getStartDateTime)
+              .collect(java.util.stream.Collectors.toList()));
+    }
+  }
+}
@@ -0,0 +1,86 @@
+package model;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+
+/**
+ * Unit tests for the {@link LongIntHashMap} class.
+ * Verifies lookups, replacement, removal without tombstones, and growth.
+ */
+
+public class LongIntHashMapTest {
+
+  private LongIntHashMap map;
+
+  @Before
+  public void setup() {
+    map = new LongIntHashMap();
+  }
+
+  @Test
+  public void testPutGetAndReplace() {
+    map.put(7L, 1);
+    map.put(Long.MAX_VALUE, 2);
+    map.put(-3L, 3);
+    map.put(7L, 4);
+
+    assertEquals(3, map.size());
+    assertEquals(4, map.get(7L));
+    assertEquals(2, map.get(Long.MAX_VALUE));
+    assertEquals(3, map.get(-3L));
+    assertEquals(LongIntHashMap.MISSING, map.get(8L));
+  }
+
+  @Test
+  public void testRemoveKeepsOtherKeysReachable() {
+    for (long key = 1; key <= 12; key++) {
+      map.put(key, (int) key * 10);
+    }
+    assertEquals(50, map.remove(5L));
+    assertEquals(LongIntHashMap.MISSING, map.remove(5L));
+    assertEquals(LongIntHashMap.MISSING, map.get(5L));
+    for (long key = 1; key <= 12; key++) {
+      if (key != 5) {
+        assertEquals((int) key * 10, map.get(key));
+      }
+    }
+    assertEquals(11, map.size());
+  }
+
+  @Test
+  public void testMatchesHashMapUnderRandomChurn() {
+    Map<Long, Integer> expected = new HashMap<>();
+    Random random = new Random(42);
+    for (int i = 0; i < 20000; i++) {
+      long key = 1 + random.nextInt(2000);
+      if (random.nextInt(3) == 0) {
+        Integer removed = expected.remove(key);
+        assertEquals(removed == null ? LongIntHashMap.MISSING : removed, map.remove(key));
+      } else {
+        expected.put(key, i);
+        map.put(key, i);
+      }
+    }
+    assertEquals(expected.size(), map.size());
+    for (long key = 1; key <= 2000; key++) {
+      Integer value = expected.get(key);
+      assertEquals(value == null ? LongIntHashMap.MISSING : value, map.get(key));
+    }
+  }
+
+  @Test
+  public void testClearAndZeroKey() {
+    map.put(1L, 1);
+    map.clear();
+    assertEquals(0, map.size());
+    assertEquals(LongIntHashMap.MISSING, map.get(1L));
+    assertThrows(IllegalArgumentException.class, () -> map.put(0L, 1));
+  }
+}
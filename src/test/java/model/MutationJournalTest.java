@@ -0,0 +1,173 @@
+package model;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link MutationJournal} class.
+ * Verifies record framing, sequence numbers, and recovery from torn or corrupted tails.
+ */
+
+public class MutationJournalTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private static byte[] bytes(String text) {
+    return text.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static List<String> replayAll(MutationJournal journal) throws IOException {
+    List<String> records = new ArrayList<>();
+    journal.replay((sequence, payload) -> {
+      byte[] data = new byte[payload.remaining()];
+      payload.get(data);
+      records.add(sequence + ":" + new String(data, StandardCharsets.UTF_8));
+    });
+    return records;
+  }
+
+  @Test
+  public void testRecordsReplayInOrder() throws IOException {
+    Path file = folder.getRoot().toPath().resolve("model.journal");
+    try (MutationJournal journal = MutationJournal.open(file, FsyncPolicy.ALWAYS)) {
+      replayAll(journal);
+      assertEquals(1, journal.append(bytes("first")));
+      assertEquals(2, journal.append(bytes("second")));
+    }
+    try (MutationJournal journal = MutationJournal.open(file, FsyncPolicy.NEVER)) {
+      assertEquals(Arrays.asList("1:first", "2:second"), replayAll(journal));
+      assertEquals(2, journal.getLastSequence());
+      assertEquals(3, journal.append(bytes("third")));
+    }
+    try (MutationJournal journal = MutationJournal.open(file, FsyncPolicy.ALWAYS)) {
+      assertEquals(3, replayAll(journal).size());
+    }
+  }
+
+  @Test
+  public void testTornTailIsCutOff() throws IOException {
+    Path file = folder.getRoot().toPath().resolve("model.journal");
+    try (MutationJournal journal = MutationJournal.open(file, FsyncPolicy.ALWAYS)) {
+      replayAll(journal);
+      journal.append(bytes("kept"));
+      journal.append(bytes("torn"));
+    }
+    long fullSize = Files.size(file);
+    try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+      raw.setLength(fullSize - 2);
+    }
+
+    try (MutationJournal journal = MutationJournal.open(file, FsyncPolicy.ALWAYS)) {
+      assertEquals(Arrays.asList("1:kept"), replayAll(journal));
+      assertEquals(2, journal.append(bytes("after")));
+    }
+    try (MutationJournal journal = MutationJournal.open(file, FsyncPolicy.ALWAYS)) {
+      assertEquals(Arrays.asList("1:kept", "2:after"), replayAll(journal));
+    }
+  }
+
+  @Test
+  public void testDamagedLastRecordIsCutOff() throws IOException {
+    Path file = folder.getRoot().toPath().resolve("model.journal");
+    try (MutationJournal journal = MutationJournal.open(file, FsyncPolicy.ALWAYS)) {
+      replayAll(journal);
+      journal.append(bytes("good"));
+      journal.append(bytes("flipped"));
+    }
+    byte[] content = Files.readAllBytes(file);
+    // The second payload starts after the file header, one record and a record header
+    int offset = 6 + (16 + 4) + 16;
+    content[offset] ^= 0x01;
+    // A file that grew before the crash can end in zeros
+    Files.write(file, Arrays.copyOf(content, content.length + 100));
+
+    try (MutationJournal journal = MutationJournal.open(file, FsyncPolicy.ALWAYS)) {
+      assertEquals(Arrays.asList("1:good"), replayAll(journal));
+      assertEquals(2, journal.append(bytes("after")));
+    }
+    try (MutationJournal journal = MutationJournal.open(file, FsyncPolicy.ALWAYS)) {
+      assertEquals(Arrays.asList("1:good", "2:after"), replayAll(journal));
+    }
+  }
+
+  @Test
+  public void testDamageBeforeTheLastRecordFailsReplay() throws IOException {
+    Path file = folder.getRoot().toPath().resolve("model.journal");
+    try (MutationJournal journal = MutationJournal.open(file, FsyncPolicy.ALWAYS)) {
+      replayAll(journal);
+      journal.append(bytes("good"));
+      journal.append(bytes("flipped"));
+      journal.append(bytes("committed"));
+    }
+    byte[] content = Files.readAllBytes(file);
+    int offset = 6 + (16 + 4) + 16;
+    content[offset] ^= 0x01;
+    Files.write(file, content);
+
+    List<String> replayed = new ArrayList<>();
+    try (MutationJournal journal = MutationJournal.open(file, FsyncPolicy.ALWAYS)) {
+      IOException error = assertThrows(IOException.class,
+          () -> journal.replay((sequence, payload) -> replayed.add(String.valueOf(sequence))));
+      assertTrue(error.getMessage(), error.getMessage().contains("Journal record 2 at byte 26"));
+    }
+    assertEquals(Arrays.asList("1"), replayed);
+    assertArrayEquals(content, Files.readAllBytes(file));
+  }
+
+  @Test
+  public void testRejectsOtherFiles() throws IOException {
+    Path file = folder.getRoot().toPath().resolve("notes.txt");
+    Files.write(file, bytes("not a journal at all"));
+    assertThrows(IOException.class, () -> MutationJournal.open(file, FsyncPolicy.ALWAYS));
+  }
+
+  @Test
+  public void testIntervalForceDoesNotWaitForTheNextAppend()
+      throws IOException, InterruptedException {
+    Path file = folder.getRoot().toPath().resolve("model.journal");
+    FsyncPolicy policy = FsyncPolicy.parse("20");
+    try (MutationJournal journal = MutationJournal.open(file, policy)) {
+      journal.append(bytes("first"));
+      assertEquals(true, journal.hasUnforcedRecords());
+      long wait = journal.forceIfDue();
+      assertEquals(true, wait > 0 && wait <= policy.getIntervalNanos());
+      assertEquals(true, journal.hasUnforcedRecords());
+
+      Thread.sleep(30);
+      assertEquals(policy.getIntervalNanos(), journal.forceIfDue());
+      assertEquals(false, journal.hasUnforcedRecords());
+
+      journal.write(bytes("second"));
+      assertEquals(true, journal.hasUnforcedRecords());
+      journal.close();
+      assertEquals(false, journal.hasUnforcedRecords());
+    }
+  }
+
+  @Test
+  public void testParsesFsyncPolicies() {
+    assertEquals(FsyncPolicy.ALWAYS, FsyncPolicy.parse("always"));
+    assertEquals(FsyncPolicy.NEVER, FsyncPolicy.parse("NEVER"));
+    FsyncPolicy periodic = FsyncPolicy.parse("50");
+    assertEquals(false, periodic.isDue(1_000_000L));
+    assertEquals(true, periodic.isDue(50_000_000L));
+    assertEquals(false, FsyncPolicy.NEVER.isDue(Long.MAX_VALUE));
+    assertThrows(IllegalArgumentException.class, () -> FsyncPolicy.parse("sometimes"));
+  }
+}
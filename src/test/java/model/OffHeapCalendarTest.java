@@ -0,0 +1,160 @@
+package model;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link OffHeapCalendar} and {@link EventSlab} classes.
+ * Verifies that the slab store answers queries like the list-based calendar, that views
+ * write through to the records and that removed slots are handed out again.
+ */
+
+public class OffHeapCalendarTest {
+
+  private OffHeapCalendar calendar;
+
+  private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+  @Before
+  public void setup() {
+    calendar = OffHeapCalendar.builder()
+          .setCalendarName("Work")
+          .setTimezone("America/New_York")
+          .build();
+  }
+
+  private static CalendarEvent event(String name, LocalDateTime start, LocalDateTime end) {
+    return CalendarEvent.builder()
+          .setEventName(name)
+          .setStartDateTime(start)
+          .setEndDateTime(end)
+          .setEventLocation("Room 101")
+          .setPublic(true)
+          .build();
+  }
+
+  private static List<String> describe(List<ICalendarEvent> events) {
+    List<String> described = new ArrayList<>();
+    for (ICalendarEvent event : events) {
+      described.add(event.getEventName() + "@" + event.getStartDateTime() + "-"
+          + event.getEndDateTime());
+    }
+    return described;
+  }
+
+  @Test
+  public void testViewsWriteThroughToRecords() {
+    calendar.addEvent(event("Meeting", LocalDateTime.of(2025, 5, 1, 10, 0),
+          LocalDateTime.of(2025, 5, 1, 11, 0)));
+
+    ICalendarEvent view = calendar.getEvents().get(0);
+    view.setEventName("Review");
+    view.setStartDateTime(LocalDateTime.of(2025, 5, 2, 9, 0));
+    view.setEndDateTime(LocalDateTime.of(2025, 5, 2, 10, 0));
+    view.setPublic(false);
+
+    ICalendarEvent reread = calendar.getEventById(view.getEventId());
+    assertNotSame(view, reread);
+    assertEquals(view, reread);
+    assertEquals("Review", reread.getEventName());
+    assertEquals("Room 101", reread.getEventLocation());
+    assertFalse(reread.isPublic());
+    assertTrue(calendar.getEventsAt(LocalDateTime.of(2025, 5, 1, 10, 30)).isEmpty());
+    assertEquals(1, calendar.getEventsAt(LocalDateTime.of(2025, 5, 2, 9, 30)).size());
+    assertEquals(1, calendar.getEventsNamed("REVIEW", LocalDateTime.of(2025, 5, 2, 9, 0),
+          LocalDateTime.MAX).size());
+  }
+
+  @Test
+  public void testRemovedSlotsAreReused() {
+    for (int i = 0; i < EventSlab.SLAB_RECORDS; i++) {
+      calendar.addEvent(event("E" + i, BASE.plusHours(i), BASE.plusHours(i).plusMinutes(30)));
+    }
+    long reserved = calendar.offHeapBytes();
+    List<Long> ids = new ArrayList<>();
+    for (ICalendarEvent event : calendar.getEvents()) {
+      ids.add(event.getEventId());
+    }
+
+    // The last event moves into the position the removed one held, and back on restore
+    CalendarEvent removed = CalendarEvent.copyOf(calendar.getEventById(ids.get(5)));
+    removed.setEventId(ids.get(5));
+    assertEquals(5, calendar.removeEvent(ids.get(5)));
+    assertNull(calendar.getEventById(ids.get(5)));
+    assertEquals(ids.get(ids.size() - 1), (Long) calendar.getEvents().get(5).getEventId());
+    calendar.restoreEvent(removed, 5);
+    assertEquals(ids.get(5), (Long) calendar.getEvents().get(5).getEventId());
+    assertEquals("E5", calendar.getEvents().get(5).getEventName());
+
+    for (int i = 0; i < ids.size(); i += 2) {
+      calendar.removeEvent(ids.get(i));
+    }
+    for (int i = 0; i < ids.size() / 2; i++) {
+      LocalDateTime start = BASE.plusYears(1).plusHours(i);
+      calendar.addEvent(event("New", start, start.plusMinutes(30)));
+    }
+    assertEquals(EventSlab.SLAB_RECORDS, calendar.size());
+    assertEquals(reserved, calendar.offHeapBytes());
+    assertEquals("E1", calendar.getEventById(ids.get(1)).getEventName());
+    assertEquals(ids.size() / 2, calendar.getEventsNamed("new", BASE,
+          LocalDateTime.MAX).size());
+
+    calendar.truncateEvents(0);
+    assertTrue(calendar.getEventsInRange(BASE, BASE.plusYears(2)).isEmpty());
+    calendar.addEvent(event("Again", BASE, BASE.plusHours(1)));
+    assertEquals(reserved, calendar.offHeapBytes());
+  }
+
+  @Test
+  public void testQueriesMatchListCalendar() {
+    Calendar reference = Calendar.builder()
+          .setCalendarName("Reference")
+          .setTimezone("America/New_York")
+          .build();
+    Random random = new Random(13);
+    List<Long> ids = new ArrayList<>();
+    List<Long> referenceIds = new ArrayList<>();
+    for (int i = 0; i < 3000; i++) {
+      // Distinct starts out of order, so every order in the results is determined
+      LocalDateTime start = BASE.plusMinutes(i * 7919L % (60 * 24 * 90));
+      LocalDateTime end = start.plusMinutes(1 + random.nextInt(60 * 24 * 2));
+      CalendarEvent added = event("E" + i % 50, start, end);
+      calendar.addEvent(added);
+      CalendarEvent copy = event("E" + i % 50, start, end);
+      reference.addEvent(copy);
+      ids.add(added.getEventId());
+      referenceIds.add(copy.getEventId());
+    }
+    // Removing every third event leaves holes in the slab and moves events around
+    for (int i = 0; i < ids.size(); i += 3) {
+      calendar.removeEvent(ids.get(i));
+      reference.removeEvent(referenceIds.get(i));
+    }
+
+    for (int q = 0; q < 100; q++) {
+      LocalDateTime from = BASE.plusMinutes(random.nextInt(60 * 24 * 90));
+      LocalDateTime to = from.plusMinutes(random.nextInt(60 * 24 * 3));
+
+      assertEquals(describe(reference.getEventsInRange(from, to)),
+            describe(calendar.getEventsInRange(from, to)));
+      assertEquals(describe(reference.getEventsAt(from)),
+            describe(calendar.getEventsAt(from)));
+      assertEquals(describe(reference.getEventsOverlapping(from, to)),
+            describe(calendar.getEventsOverlapping(from, to)));
+      String name = "e" + random.nextInt(50);
+      assertEquals(describe(reference.getEventsNamed(name, from, to.plusDays(20))),
+            describe(calendar.getEventsNamed(name, from, to.plusDays(20))));
+    }
+  }
+}
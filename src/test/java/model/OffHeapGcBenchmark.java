@@ -0,0 +1,163 @@
+package model;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+
+/**
+ * Compares the garbage collection a model causes while importing events and scanning
+ * them with {@code getEventsInRange}, for events kept in an {@code ArrayList} on the heap
+ * ({@code listBased}) and in direct buffers ({@code offHeap}).
+ * <p>
+ * Run with {@code java -Xmx1g -cp target/classes:target/test-classes model.OffHeapGcBenchmark
+ * [events] [queries]}. Each model type is measured in a JVM of its own, started with the
+ * same heap limit, so one type's garbage is not collected during the other's run. For each
+ * phase it prints the bytes the benchmark thread allocated, the number of collections, the
+ * total and the longest pause, and at the end the heap still in use after a full collection
+ * and the direct memory the model reserved.
+ * </p>
+ */
+public class OffHeapGcBenchmark {
+  private static final LocalDateTime BASE = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+  private static final AtomicLong longestPause = new AtomicLong();
+
+  public static void main(String[] args) throws Exception {
+    if (args.length > 0 && args[0].startsWith("--type=")) {
+      run(args[0].substring("--type=".length()), Integer.parseInt(args[1]),
+          Integer.parseInt(args[2]));
+      return;
+    }
+    int eventCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+    int queryCount = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+    long maxHeap = Runtime.getRuntime().maxMemory();
+    for (String type : new String[] {"listBased", "offHeap"}) {
+      List<String> command = new ArrayList<>();
+      command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+      command.add("-Xmx" + maxHeap / (1024 * 1024) + "m");
+      command.add("-cp");
+      command.add(System.getProperty("java.class.path"));
+      command.add(OffHeapGcBenchmark.class.getName());
+      command.add("--type=" + type);
+      command.add(String.valueOf(eventCount));
+      command.add(String.valueOf(queryCount));
+      int exit = new ProcessBuilder(command).inheritIO().start().waitFor();
+      if (exit != 0) {
+        throw new IllegalStateException("The " + type + " run failed with exit code " + exit);
+      }
+    }
+  }
+
+  private static void run(String type, int eventCount, int queryCount) {
+    watchPauses();
+    ICalendarModel model = ICalendarModel.createInstance(type);
+    model.createCalendar("Archive", "UTC");
+    System.out.printf("%s, %,d events, %,d one-week scans%n", type, eventCount, queryCount);
+
+    Phase phase = new Phase();
+    for (int i = 0; i < eventCount; i++) {
+      LocalDateTime start = BASE.plusMinutes(20L * i);
+      model.addEvent("Archive", CalendarEventDTO.builder()
+          .setEventName("Subject " + i % 300)
+          .setStartDateTime(start)
+          .setEndDateTime(start.plusMinutes(15))
+          .setEventLocation("Room " + i % 40)
+          .setEventDescription(i % 10 == 0 ? "Follow-up " + i : "Weekly sync")
+          .setPrivate(false)
+          .setAutoDecline(false)
+          .build());
+    }
+    phase.report("import");
+
+    phase = new Phase();
+    long found = 0;
+    for (int q = 0; q < queryCount; q++) {
+      LocalDateTime from = BASE.plusMinutes(20L * ((q * 7919L) % eventCount));
+      found += model.getEventsInRange("Archive", from, from.plusWeeks(1)).size();
+    }
+    phase.report("scans");
+
+    System.gc();
+    Runtime runtime = Runtime.getRuntime();
+    long direct = 0;
+    for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+      if (pool.getName().equals("direct")) {
+        direct = pool.getMemoryUsed();
+      }
+    }
+    System.out.printf("  %,d events found, %,d MB heap in use, %,d MB direct memory%n%n",
+        found, (runtime.totalMemory() - runtime.freeMemory()) / (1024 * 1024),
+        direct / (1024 * 1024));
+  }
+
+  // Records the longest stop-the-world pause; concurrent cycles do not stop the benchmark
+  private static void watchPauses() {
+    for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+      ((NotificationEmitter) collector).addNotificationListener((notification, handback) -> {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION
+            .equals(notification.getType())) {
+          return;
+        }
+        GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from(
+            (CompositeData) notification.getUserData());
+        if (info.getGcAction().startsWith("end of m")) {
+          longestPause.accumulateAndGet(info.getGcInfo().getDuration(), Math::max);
+        }
+      }, null, null);
+    }
+  }
+
+  /**
+   * Allocation and collection figures of the benchmark since the phase began.
+   */
+  private static final class Phase {
+    private final long started = System.nanoTime();
+    private final long allocated = allocatedBytes();
+    private final long collections = collections();
+    private final long collectionMillis = collectionMillis();
+
+    private Phase() {
+      longestPause.set(0);
+    }
+
+    private void report(String name) {
+      double seconds = (System.nanoTime() - started) / 1e9;
+      double allocatedMb = (allocatedBytes() - allocated) / (1024.0 * 1024.0);
+      System.out.printf("  %-6s %,8.0f ms, %,9.0f MB allocated (%,7.0f MB/s), "
+              + "%,5d collections, %,6d ms in GC, longest pause %,4d ms%n",
+          name, seconds * 1000, allocatedMb, allocatedMb / seconds,
+          collections() - collections, collectionMillis() - collectionMillis,
+          longestPause.get());
+    }
+
+    private static long allocatedBytes() {
+      return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+          .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static long collections() {
+      long count = 0;
+      for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+        count += Math.max(0, collector.getCollectionCount());
+      }
+      return count;
+    }
+
+    private static long collectionMillis() {
+      long millis = 0;
+      for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+        millis += Math.max(0, collector.getCollectionTime());
+      }
+      return millis;
+    }
+  }
+}
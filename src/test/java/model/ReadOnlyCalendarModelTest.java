@@ -2,6 +2,9 @@ package model;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -11,8 +14,14 @@ import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -496,4 +505,223 @@ public class ReadOnlyCalendarModelTest {
     assertTrue(calendarNames.contains("Personal"));
     assertTrue(calendarNames.contains("Travel"));
   }
-}
\ No newline at end of file
+
+  private static ICalendarEventDTO simpleEvent(String name, LocalDateTime start, int minutes) {
+    return ICalendarEventDTO.builder()
+        .setEventName(name)
+        .setStartDateTime(start)
+        .setEndDateTime(start.plusMinutes(minutes))
+        .setAutoDecline(false)
+        .setRecurring(false)
+        .build();
+  }
+
+  private static List<String> describe(List<ICalendarEventDTO> events) {
+    return events.stream()
+        .map(e -> e.getEventName() + "@" + e.getStartDateTime() + "-" + e.getEndDateTime())
+        .collect(Collectors.toList());
+  }
+
+  @Test
+  public void testReadOnlyCalendarModel_SnapshotsMatchLiveModel() {
+    CalendarModel originalModel = new CalendarModel();
+    IReadOnlyCalendarModel readOnlyModel = new ReadOnlyCalendarModel(originalModel);
+    originalModel.createCalendar("Busy", "America/New_York");
+
+    // Enough events, added out of order, to split the snapshot into several chunks
+    Random random = new Random(7);
+    LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+    for (int i = 0; i < 600; i++) {
+      originalModel.addEvent("Busy", simpleEvent("E" + i,
+          base.plusMinutes(random.nextInt(60 * 24 * 60)), 1 + random.nextInt(600)));
+    }
+    originalModel.addEvent("Busy", ICalendarEventDTO.builder()
+        .setEventName("Weekly")
+        .setStartDateTime(base.plusHours(8))
+        .setEndDateTime(base.plusHours(9))
+        .setAutoDecline(false)
+        .setRecurring(true)
+        .setRecurrenceDays(List.of(DayOfWeek.MONDAY, DayOfWeek.THURSDAY))
+        .setRecurrenceCount(12)
+        .build());
+    originalModel.editCalendar("Busy", "timezone", "Asia/Tokyo");
+
+    for (int q = 0; q < 50; q++) {
+      LocalDateTime from = base.plusMinutes(random.nextInt(60 * 24 * 60));
+      LocalDateTime to = from.plusMinutes(random.nextInt(60 * 24 * 2));
+      assertEquals(describe(originalModel.getEventsInRange("Busy", from, to)),
+          describe(readOnlyModel.getEventsInRange("Busy", from, to)));
+      assertEquals(describe(originalModel.getEventsInSpecificDateTime("Busy", from)),
+          describe(readOnlyModel.getEventsInSpecificDateTime("Busy", from)));
+    }
+  }
+
+  @Test
+  public void testReadOnlyCalendarModel_EditsByNameReachTheSnapshot() {
+    CalendarModel originalModel = new CalendarModel();
+    IReadOnlyCalendarModel readOnlyModel = new ReadOnlyCalendarModel(originalModel);
+    originalModel.createCalendar("Busy", "UTC");
+    // Enough events, added out of order, to split the snapshot into several chunks
+    LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+    for (int i = 0; i < 600; i++) {
+      originalModel.addEvent("Busy", simpleEvent("E" + i, base.plusHours(i * 7 % 600 * 3), 30));
+    }
+    for (int i = 0; i < 12; i++) {
+      originalModel.addEvent("Busy", simpleEvent("Sync", base.plusDays(i * 5).plusHours(1), 30));
+    }
+    originalModel.addEvent("Busy", ICalendarEventDTO.builder()
+        .setEventName("Weekly")
+        .setStartDateTime(base.plusHours(8))
+        .setEndDateTime(base.plusHours(9))
+        .setAutoDecline(false)
+        .setRecurring(true)
+        .setRecurrenceDays(List.of(DayOfWeek.MONDAY, DayOfWeek.THURSDAY))
+        .setRecurrenceCount(12)
+        .build());
+
+    assertTrue(originalModel.editEvents("Busy", "start", "Sync", base,
+        "2025-01-01T01:10", true));
+    assertTrue(originalModel.editEvents("Busy", "name", "Sync", base, "Synced", true));
+    LocalDateTime occurrence = base.plusDays(1).plusHours(8);
+    assertTrue(originalModel.editEvent("Busy", "location", "Weekly", occurrence,
+        occurrence.plusHours(1), "Hall"));
+    assertThrows(IllegalArgumentException.class, () -> originalModel.editEvents("Busy",
+        "end", "Synced", base, "2025-01-01T00:00", true));
+
+    LocalDateTime to = base.plusDays(70);
+    assertEquals(describe(originalModel.getEventsInRange("Busy", base, to)),
+        describe(readOnlyModel.getEventsInRange("Busy", base, to)));
+    assertEquals(12, readOnlyModel.getEventsInRange("Busy", base, to).stream()
+        .filter(event -> event.getEventName().equals("Synced")
+            && event.getStartDateTime().toLocalTime().equals(LocalTime.of(1, 10)))
+        .count());
+    assertEquals("Hall", readOnlyModel.getEventsInSpecificDateTime("Busy", occurrence)
+        .stream().filter(event -> event.getEventName().equals("Weekly"))
+        .findFirst().get().getEventLocation());
+  }
+
+  @Test
+  public void testReadOnlyCalendarModel_BatchAppendsReachTheSnapshot() {
+    CalendarModel originalModel = new CalendarModel();
+    IReadOnlyCalendarModel readOnlyModel = new ReadOnlyCalendarModel(originalModel);
+    originalModel.createCalendar("Busy", "UTC");
+    originalModel.createCalendar("Source", "UTC");
+    Random random = new Random(11);
+    LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+    for (int i = 0; i < 600; i++) {
+      originalModel.addEvent("Busy", simpleEvent("E" + i,
+          base.plusMinutes(random.nextInt(60 * 24 * 60)), 1 + random.nextInt(600)));
+    }
+    // A batch spread over every chunk, with events before the first and after the last
+    List<ICalendarEventDTO> batch = new ArrayList<>();
+    for (int i = 0; i < 400; i++) {
+      batch.add(simpleEvent("B" + i,
+          base.minusDays(3).plusMinutes(random.nextInt(60 * 24 * 66)), 1 + random.nextInt(90)));
+    }
+    batch.add(ICalendarEventDTO.builder()
+        .setEventName("Weekly")
+        .setStartDateTime(base.plusHours(8))
+        .setEndDateTime(base.plusHours(9))
+        .setAutoDecline(false)
+        .setRecurring(true)
+        .setRecurrenceDays(List.of(DayOfWeek.TUESDAY))
+        .setRecurrenceCount(6)
+        .build());
+    for (int i = 0; i < 50; i++) {
+      originalModel.addEvent("Source", simpleEvent("C" + i, base.plusDays(i).plusHours(1),
+          2000));
+    }
+    ModelSnapshot before = originalModel.snapshot();
+    assertTrue(originalModel.addEvents("Busy", batch, "UTC"));
+    assertTrue(originalModel.copyEvents("Source", base, base.plusDays(60), "Busy",
+        LocalDate.of(2026, 1, 5)));
+
+    assertEquals(1000 + 50, originalModel.snapshot().getCalendar("Busy").size());
+    assertSame(before.getCalendar("Source"), originalModel.snapshot().getCalendar("Source"));
+    LocalDateTime from = base.minusDays(10);
+    LocalDateTime to = base.plusDays(500);
+    assertEquals(describe(originalModel.getEventsInRange("Busy", from, to)),
+        describe(readOnlyModel.getEventsInRange("Busy", from, to)));
+    for (int q = 0; q < 50; q++) {
+      LocalDateTime at = base.plusMinutes(random.nextInt(60 * 24 * 420));
+      assertEquals(describe(originalModel.getEventsInSpecificDateTime("Busy", at)),
+          describe(readOnlyModel.getEventsInSpecificDateTime("Busy", at)));
+    }
+  }
+
+  @Test
+  public void testReadOnlyCalendarModel_CompactStoreIsQueriedDirectly() {
+    CalendarModel originalModel = (CalendarModel) ICalendarModel.createInstance("columnar");
+    IReadOnlyCalendarModel readOnlyModel = new ReadOnlyCalendarModel(originalModel);
+    originalModel.createCalendar("Work", "UTC");
+    LocalDateTime start = LocalDateTime.of(2025, 5, 1, 10, 0);
+    originalModel.addEvent("Work", simpleEvent("Meeting", start, 60));
+
+    // The columns are not frozen into published versions
+    assertSame(ModelSnapshot.EMPTY, originalModel.snapshot());
+    assertEquals(1, readOnlyModel.getEventsInRange("Work", start, start.plusDays(1)).size());
+    assertEquals(1, originalModel.currentVersion().getCalendar("Work").size());
+  }
+
+  @Test
+  public void testReadOnlyCalendarModel_SnapshotsAreImmutableAndShared() {
+    CalendarModel originalModel = new CalendarModel();
+    originalModel.createCalendar("Work", "UTC");
+    originalModel.createCalendar("Home", "UTC");
+    LocalDateTime start = LocalDateTime.of(2025, 5, 1, 10, 0);
+    originalModel.addEvent("Work", simpleEvent("Meeting", start, 60));
+
+    ModelSnapshot before = originalModel.snapshot();
+    originalModel.addEvent("Work", simpleEvent("Review", start.plusHours(2), 60));
+    originalModel.editCalendar("Work", "name", "Office");
+    ModelSnapshot after = originalModel.snapshot();
+
+    assertTrue(after.getVersion() > before.getVersion());
+    assertEquals(1, before.getCalendar("Work").getEventsInRange(start, start.plusDays(1))
+        .size());
+    assertEquals(2, after.getCalendar("Office").getEventsInRange(start, start.plusDays(1))
+        .size());
+    // Calendars a change did not touch are shared between versions
+    assertSame(before.getCalendar("Home"), after.getCalendar("Home"));
+    assertNotSame(before.getCalendar("Work"), after.getCalendar("Office"));
+  }
+
+  @Test(timeout = 60000)
+  public void testReadOnlyCalendarModel_ReadersNeverSeeHalfAppliedEdits() throws Exception {
+    ICalendarModel originalModel = ICalendarModel.createInstance("concurrent");
+    IReadOnlyCalendarModel readOnlyModel = new ReadOnlyCalendarModel(originalModel);
+    originalModel.createCalendar("Shared", "UTC");
+    LocalDateTime start = LocalDateTime.of(2025, 1, 1, 9, 0);
+    for (int i = 0; i < 300; i++) {
+      originalModel.addEvent("Shared", simpleEvent("Standup", start.plusDays(i), 15));
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(3);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      futures.add(executor.submit(() -> {
+        for (int i = 0; i < 40; i++) {
+          originalModel.editEvents("Shared", "name", i % 2 == 0 ? "Standup" : "Sync", start,
+              i % 2 == 0 ? "Sync" : "Standup", true);
+        }
+      }));
+      for (int r = 0; r < 2; r++) {
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < 200; i++) {
+            List<ICalendarEventDTO> events = readOnlyModel.getEventsInRange("Shared", start,
+                start.plusDays(300));
+            assertEquals(300, events.size());
+            long renamed = events.stream().filter(e -> e.getEventName().equals("Sync"))
+                .count();
+            assertTrue(renamed == 0 || renamed == 300);
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get(30, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,214 @@
+package model;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link SnapshotFile} class.
+ * Verifies that a saved model loads back exactly, into either calendar store and with its
+ * change sequences, and that damaged or foreign files are refused.
+ */
+
+public class SnapshotFileTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private static final LocalDateTime START = LocalDateTime.of(2025, 5, 5, 9, 0);
+
+  private static ICalendarEventDTO event(String name, LocalDateTime start, String location) {
+    return ICalendarEventDTO.builder()
+        .setEventName(name)
+        .setStartDateTime(start)
+        .setEndDateTime(start.plusMinutes(30))
+        .setEventLocation(location)
+        .setAutoDecline(true)
+        .build();
+  }
+
+  private static CalendarModel populated(String type) {
+    CalendarModel model = (CalendarModel) ICalendarModel.createInstance(type);
+    model.createCalendar("Work", "America/New_York");
+    model.createCalendar("Home", "Asia/Kolkata");
+    model.createCalendar("Empty", "UTC");
+    model.addEvents("Work", Arrays.asList(event("Review", START.plusHours(2), "Room 1"),
+        event("Standup", START, null), event("Lunch", START.plusHours(3), "Room 1")),
+        "America/New_York");
+    model.addEvent("Work", ICalendarEventDTO.builder()
+        .setEventName("Gym")
+        .setStartDateTime(START.plusHours(8))
+        .setEndDateTime(START.plusHours(9))
+        .setRecurring(true)
+        .setRecurrenceDays(Arrays.asList(DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY))
+        .setRecurrenceCount(6)
+        .setEventDescription("Legs")
+        .setPrivate(true)
+        .setAutoDecline(true)
+        .build());
+    // Detaches one occurrence and materializes the rest of the series from June on
+    model.editEvent("Work", "location", "Gym", START.plusDays(2).plusHours(8),
+        START.plusDays(2).plusHours(9), "Pool");
+    model.editEvents("Work", "description", "Gym", LocalDateTime.of(2025, 5, 12, 0, 0),
+        "Arms", false);
+    model.editEvent("Work", "description", "Review", START.plusHours(2),
+        START.plusHours(2).plusMinutes(30), "Quarterly");
+    model.addEvent("Home", event("Dinner", START.plusHours(10), "Kitchen"));
+    return model;
+  }
+
+  // Every field of every event in every calendar, ids included
+  private static String describe(ICalendarModel model) {
+    StringBuilder description = new StringBuilder();
+    for (String calendar : model.getCalendarNames()) {
+      description.append(calendar).append(' ').append(model.getCalendarTimeZone(calendar));
+      for (ICalendarEventDTO dto : model.getEventsInRange(calendar,
+          LocalDateTime.of(2025, 1, 1, 0, 0), LocalDateTime.of(2026, 1, 1, 0, 0))) {
+        description.append('|').append(dto.getEventId()).append(',')
+            .append(dto.getEventName()).append(',').append(dto.getStartDateTime()).append(',')
+            .append(dto.getEndDateTime()).append(',').append(dto.getEventLocation())
+            .append(',').append(dto.getEventDescription()).append(',')
+            .append(dto.isPrivate());
+      }
+      description.append('\n');
+    }
+    return description.toString();
+  }
+
+  @Test
+  public void testSavedModelLoadsBackExactly() throws IOException {
+    for (String type : Arrays.asList("listBased", "columnar")) {
+      CalendarModel original = populated(type);
+      Path file = folder.getRoot().toPath().resolve(type + ".snapshot");
+      original.saveSnapshot(file);
+      assertFalse(Files.exists(file.resolveSibling(type + ".snapshot.tmp")));
+
+      CalendarModel loaded = (CalendarModel) ICalendarModel.loadSnapshot(type, file);
+      assertEquals(Arrays.asList("Work", "Home", "Empty"), loaded.getCalendarNames());
+      assertEquals(describe(original), describe(loaded));
+      assertEquals(original.getDictionary().size(), loaded.getDictionary().size());
+      assertEquals(original.getDictionary().totalReferences(),
+          loaded.getDictionary().totalReferences());
+
+      // The loaded model keeps working: ids continue and the name index finds events
+      assertTrue(loaded.editEvents("Work", "location", "Lunch", START, "Room 2", true));
+      loaded.addEvent("Home", event("Late", START.plusHours(12), null));
+      long lateId = loaded.getEventsInSpecificDateTime("Home", START.plusHours(12)).get(0)
+          .getEventId();
+      assertTrue(lateId > original.getEventIds().last());
+      assertTrue(loaded.editEvents("Home", "location", "Late", START, "Hall", true));
+      assertTrue(loaded.editEvents("Home", "location", "Dinner", START, "Hall", true));
+      assertEquals(loaded.getEventsInRange("Work", START, START.plusDays(1)).size(),
+          new ReadOnlyCalendarModel(loaded).getEventsInRange("Work", START,
+              START.plusDays(1)).size());
+    }
+  }
+
+  // The changes after since, each as its kind, id, name and sequence
+  private static List<String> changesSince(ICalendarModel model, String calendar,
+                                           long since) {
+    List<String> changes = new ArrayList<>();
+    long sequence = model.forEachChangeSince(calendar, since,
+        change -> changes.add(change.getKind() + " " + change.getEvent().getEventId() + " "
+            + change.getEvent().getEventName() + "@" + change.getSequence()));
+    changes.add("now " + sequence);
+    return changes;
+  }
+
+  @Test
+  public void testLoadedModelKeepsChangeSequences() throws IOException {
+    for (String type : Arrays.asList("listBased", "columnar")) {
+      CalendarModel original = populated(type);
+      long mark = original.forEachChangeSince("Work", 0, change -> { });
+      long reviewId = original.getEventsInSpecificDateTime("Work", START.plusHours(2)).get(0)
+          .getEventId();
+      original.deleteEventById("Work", reviewId);
+      original.editEvents("Work", "location", "Lunch", START, "Room 2", true);
+      Path file = folder.getRoot().toPath().resolve(type + ".snapshot");
+      original.saveSnapshot(file);
+
+      CalendarModel loaded = (CalendarModel) ICalendarModel.loadSnapshot(type, file);
+      List<String> since = changesSince(loaded, "Work", mark);
+      assertEquals(changesSince(original, "Work", mark), since);
+      assertTrue(since.contains("REMOVED " + reviewId + " Review@" + (mark + 1)));
+      assertEquals(changesSince(original, "Work", 0), changesSince(loaded, "Work", 0));
+      assertEquals(changesSince(original, "Empty", 0), changesSince(loaded, "Empty", 0));
+
+      // The sequence and the series numbers go on from where they were
+      loaded.addEvent("Work", ICalendarEventDTO.builder()
+          .setEventName("Swim")
+          .setStartDateTime(START.plusDays(1).plusHours(12))
+          .setEndDateTime(START.plusDays(1).plusHours(13))
+          .setRecurring(true)
+          .setRecurrenceDays(Arrays.asList(DayOfWeek.TUESDAY))
+          .setRecurrenceCount(2)
+          .setAutoDecline(true)
+          .build());
+      long now = loaded.forEachChangeSince("Work", 0, change -> { });
+      assertEquals(original.forEachChangeSince("Work", 0, change -> { }) + 1, now);
+      assertEquals(Arrays.asList("ADDED 2 Swim@" + now, "now " + now),
+          changesSince(loaded, "Work", now - 1));
+    }
+  }
+
+  @Test
+  public void testDamagedSnapshotIsRefused() throws IOException {
+    Path file = folder.getRoot().toPath().resolve("model.snapshot");
+    populated("listBased").saveSnapshot(file);
+    long size = Files.size(file);
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE,
+        StandardOpenOption.READ)) {
+      ByteBuffer one = ByteBuffer.allocate(1);
+      channel.read(one, size - 20);
+      one.put(0, (byte) (one.get(0) ^ 0x55));
+      one.rewind();
+      channel.write(one, size - 20);
+    }
+    assertThrows(IOException.class, () -> ICalendarModel.loadSnapshot("columnar", file));
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+      channel.truncate(size / 2);
+    }
+    assertThrows(IOException.class, () -> ICalendarModel.loadSnapshot("listBased", file));
+  }
+
+  @Test
+  public void testForeignOrNewerFilesAreRefused() throws IOException {
+    Path file = folder.getRoot().toPath().resolve("model.snapshot");
+    Files.write(file, "Subject,Start Date\n".getBytes());
+    assertThrows(IOException.class, () -> ICalendarModel.loadSnapshot("listBased", file));
+
+    populated("listBased").saveSnapshot(file);
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.allocate(2).putShort(0, (short) (SnapshotFile.VERSION + 1)), 4);
+    }
+    IOException error = assertThrows(IOException.class,
+        () -> ICalendarModel.loadSnapshot("listBased", file));
+    assertTrue(error.getMessage().contains("version"));
+  }
+
+  @Test
+  public void testLoadingIntoAModelWithCalendarsFails() throws IOException {
+    Path file = folder.getRoot().toPath().resolve("model.snapshot");
+    CalendarModel model = populated("listBased");
+    model.saveSnapshot(file);
+    assertThrows(IllegalStateException.class, () -> SnapshotFile.load(file, model));
+  }
+}
@@ -0,0 +1,66 @@
+package model;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reports how long a model of many events takes to save as a binary snapshot and to load
+ * back until it answers a query, for both calendar stores.
+ * <p>
+ * Run with {@code java -cp target/classes:target/test-classes model.SnapshotLoadBenchmark
+ * [events]}. The events are spread over ten calendars and a few hundred subjects and rooms.
+ * </p>
+ */
+public class SnapshotLoadBenchmark {
+
+  public static void main(String[] args) throws Exception {
+    int eventCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+    int calendarCount = 10;
+    Path file = Files.createTempFile("calendars", ".snapshot");
+    try {
+      for (String type : new String[] {"columnar", "listBased"}) {
+        CalendarModel model = (CalendarModel) ICalendarModel.createInstance(type);
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+        for (int c = 0; c < calendarCount; c++) {
+          String calendar = "Calendar " + c;
+          model.createCalendar(calendar, "America/New_York");
+          List<ICalendarEventDTO> rows = new ArrayList<>(eventCount / calendarCount);
+          for (int i = 0; i < eventCount / calendarCount; i++) {
+            LocalDateTime start = base.plusMinutes(20L * i);
+            rows.add(CalendarEventDTO.builder()
+                .setEventName("Subject " + i % 300)
+                .setStartDateTime(start)
+                .setEndDateTime(start.plusMinutes(15))
+                .setEventLocation("Room " + i % 40)
+                .setEventDescription(i % 10 == 0 ? "Follow-up " + i : "Weekly sync")
+                .setPrivate(false)
+                .setAutoDecline(false)
+                .build());
+          }
+          model.addEvents(calendar, rows, "America/New_York");
+        }
+
+        long started = System.nanoTime();
+        model.saveSnapshot(file);
+        long savedMillis = (System.nanoTime() - started) / 1_000_000;
+        model = null;
+        System.gc();
+
+        started = System.nanoTime();
+        ICalendarModel loaded = ICalendarModel.loadSnapshot(type, file);
+        int found = loaded.getEventsInRange("Calendar 3", base.plusDays(30),
+            base.plusDays(31)).size();
+        long loadedMillis = (System.nanoTime() - started) / 1_000_000;
+
+        System.out.printf("%-10s %,d events, %,d bytes: saved in %d ms, loaded and queried "
+                + "in %d ms (%d events found)%n", type, eventCount, Files.size(file),
+            savedMillis, loadedMillis, found);
+      }
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+}
@@ -0,0 +1,61 @@
+package model;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the {@link StringDictionary} class.
+ * Verifies id assignment, reference counting and id reuse.
+ */
+
+public class StringDictionaryTest {
+
+  @Test
+  public void testEqualStringsShareAnId() {
+    StringDictionary dictionary = new StringDictionary();
+    int first = dictionary.acquire("Standup");
+    int second = dictionary.acquire(new String("Standup"));
+
+    assertEquals(first, second);
+    assertEquals(1, dictionary.size());
+    assertEquals(2, dictionary.totalReferences());
+    assertEquals(StringDictionary.NULL_ID, dictionary.acquire(null));
+    assertNull(dictionary.valueOf(StringDictionary.NULL_ID));
+  }
+
+  @Test
+  public void testStringIsDroppedWithItsLastReference() {
+    StringDictionary dictionary = new StringDictionary();
+    int id = dictionary.acquire("Retro");
+    dictionary.acquire("Retro");
+
+    dictionary.release(id);
+    assertEquals(id, dictionary.find("Retro"));
+    dictionary.release(id);
+    assertEquals(StringDictionary.NOT_FOUND, dictionary.find("Retro"));
+    assertEquals(0, dictionary.size());
+
+    assertEquals(id, dictionary.acquire("Planning"));
+    assertEquals("Planning", dictionary.valueOf(id));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testReleasingUnusedIdFails() {
+    StringDictionary dictionary = new StringDictionary();
+    int id = dictionary.acquire("Once");
+    dictionary.release(id);
+    dictionary.release(id);
+  }
+
+  @Test
+  public void testRepeatedStringsSaveMemory() {
+    StringDictionary dictionary = new StringDictionary();
+    for (int i = 0; i < 1000; i++) {
+      dictionary.acquire("Weekly planning meeting " + (i % 10));
+    }
+    assertTrue(dictionary.estimatedSavedBytes() > 990 * 40);
+  }
+}